@@ -29,6 +29,7 @@ package org.seng302;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.seng302.tools.SearchHelper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
@@ -73,6 +74,7 @@ public class Main{
         registry.addMapping("/**")
             .allowedMethods("GET", "HEAD", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
             .allowedOrigins("http://localhost:9500", "https://csse-s302g5.canterbury.ac.nz")
+            .exposedHeaders(SearchHelper.TOTAL_COUNT_HEADER, SearchHelper.NEXT_CURSOR_HEADER)
             .allowCredentials(true);
       }
     };
@@ -4,7 +4,16 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.seng302.entities.Keyword;
 import org.seng302.persistence.KeywordRepository;
+import org.seng302.persistence.UserNames;
+import org.seng302.persistence.UserRepository;
+import org.seng302.service.CardSearchIndex;
+import org.seng302.service.KeywordDictionary;
 import org.seng302.service.StorageService;
+import org.seng302.service.UserNameFuzzyIndex;
+import org.seng302.service.UserNameSuggestionIndex;
+import org.seng302.service.UserNameTrigramService;
+import org.seng302.service.UserSearchIndex;
+import org.seng302.service.UserSearchPlanCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
@@ -27,6 +36,30 @@ public class MainApplicationRunner implements ApplicationRunner {
     @Autowired
     private KeywordRepository keywordRepository;
 
+    @Autowired
+    private KeywordDictionary keywordDictionary;
+
+    @Autowired
+    private CardSearchIndex cardSearchIndex;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private UserNameFuzzyIndex userNameFuzzyIndex;
+
+    @Autowired
+    private UserNameSuggestionIndex userNameSuggestionIndex;
+
+    @Autowired
+    private UserNameTrigramService userNameTrigramService;
+
+    @Autowired
+    private UserSearchPlanCache userSearchPlanCache;
+
     private static final Logger logger = LogManager.getLogger(MainApplicationRunner.class.getName());
 
 
@@ -39,6 +72,32 @@ public class MainApplicationRunner implements ApplicationRunner {
         logger.info("Startup application with {}", args);
         storageService.init();
         addDemoKeywordsIfNoneExist();
+        keywordDictionary.rebuild();
+        cardSearchIndex.rebuild();
+        rebuildUserSearchIndex();
+        backfillUserNameTrigrams();
+    }
+
+    /**
+     * Loads the names of every user into the in-memory user search index, fuzzy name index and name suggestion index,
+     * if they are enabled
+     */
+    private void rebuildUserSearchIndex() {
+        if (!userSearchIndex.isEnabled() && !userNameFuzzyIndex.isEnabled() && !userNameSuggestionIndex.isEnabled()) return;
+        List<UserNames> userNames = userRepository.findAllUserNames();
+        userSearchIndex.rebuild(userNames);
+        userNameFuzzyIndex.rebuild(userNames);
+        userNameSuggestionIndex.rebuild(userNames);
+    }
+
+    /**
+     * Adds the trigrams of every existing user to the user name trigram table, if it is enabled. Cached search plans are
+     * then cleared so that searches start using the table.
+     */
+    private void backfillUserNameTrigrams() {
+        if (!userNameTrigramService.isEnabled()) return;
+        userNameTrigramService.backfill();
+        userSearchPlanCache.clear();
     }
 
 
@@ -1,5 +1,6 @@
 package org.seng302.controllers;
 
+import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -9,12 +10,18 @@ import org.seng302.entities.User;
 import org.seng302.persistence.BusinessRepository;
 import org.seng302.persistence.UserRepository;
 import org.seng302.tools.AuthenticationTokenManager;
+import org.seng302.tools.SearchHelper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.util.Map;
 import java.util.Optional;
@@ -119,6 +126,57 @@ public class BusinessController {
     }
 
 
+    /**
+     * REST GET method to search for businesses by name, using the same query syntax as the user search, and optionally
+     * filter them by business type and by the region and city of their address. Filtering and paging are done by the
+     * database. The total number of matching businesses is returned in the X-Total-Count header, and if the requested
+     * page is after the last page of the results then the last page is returned.
+     * @param searchQuery The search term to match against business names. If not given, businesses are not filtered by name.
+     * @param businessType The type of business to return.
+     * @param region The region which the businesses must be in.
+     * @param city The city which the businesses must be in.
+     * @param page The page number in the results to be returned (defaults to one)
+     * @param resultsPerPage The number of results that should be in the returned list (defaults to 15).
+     * @param orderBy The name of the attribute to order the search results by.
+     * @param reverse String representation of boolean indicating whether results should be in reverse order.
+     * @return List of matching businesses
+     */
+    @GetMapping("/businesses/search")
+    public JSONArray searchBusinesses(HttpServletRequest request,
+                                      HttpServletResponse response,
+                                      @RequestParam(required = false) String searchQuery,
+                                      @RequestParam(required = false) String businessType,
+                                      @RequestParam(required = false) String region,
+                                      @RequestParam(required = false) String city,
+                                      @RequestParam(required = false) Integer page,
+                                      @RequestParam(required = false) Integer resultsPerPage,
+                                      @RequestParam(required = false) String orderBy,
+                                      @RequestParam(required = false) Boolean reverse) {
+        AuthenticationTokenManager.checkAuthenticationToken(request);
+        if (businessType != null && !Business.isValidBusinessType(businessType)) {
+            ResponseStatusException invalidTypeException = new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("\"%s\" is not a valid business type.", businessType));
+            logger.error(invalidTypeException.getMessage());
+            throw invalidTypeException;
+        }
+
+        logger.info(() -> String.format("Performing business search for \"%s\"", searchQuery));
+        Specification<Business> specification = SearchHelper.constructBusinessSpecification(searchQuery, businessType, region, city);
+        Sort sort = SearchHelper.getBusinessSort(orderBy, reverse);
+        Page<Business> results = businessRepository.findAll(specification, SearchHelper.getPageRequest(page, resultsPerPage, sort));
+        if (results.getNumber() >= results.getTotalPages() && results.getTotalPages() > 0) {
+            PageRequest lastPage = PageRequest.of(results.getTotalPages() - 1, results.getSize(), sort);
+            results = businessRepository.findAll(specification, lastPage);
+        }
+        response.setHeader(SearchHelper.TOTAL_COUNT_HEADER, String.valueOf(results.getTotalElements()));
+
+        JSONArray resultsJson = new JSONArray();
+        for (Business business : results) {
+            resultsJson.appendElement(business.constructJson());
+        }
+        return resultsJson;
+    }
+
     /**
      * PUT endpoint for making an individual an administrator of a business
      * Only the business primary owner can do this
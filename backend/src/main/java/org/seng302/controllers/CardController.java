@@ -1,27 +1,48 @@
 package org.seng302.controllers;
 
-import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.seng302.entities.Keyword;
 import org.seng302.entities.MarketplaceCard;
 import org.seng302.entities.User;
-import org.seng302.persistence.KeywordRepository;
+import org.seng302.exceptions.UserNotFoundException;
+import org.seng302.persistence.CardCreatorSummary;
 import org.seng302.persistence.MarketplaceCardRepository;
 import org.seng302.persistence.UserRepository;
+import org.seng302.service.CardCountCache;
+import org.seng302.service.CardEventStream;
+import org.seng302.service.CardJsonCache;
+import org.seng302.service.CardSearchIndex;
+import org.seng302.service.KeywordDictionary;
 import org.seng302.tools.AuthenticationTokenManager;
 import org.seng302.tools.JsonTools;
+import org.seng302.tools.PageCursor;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.seng302.tools.SearchHelper;
+import reactor.core.publisher.Flux;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Comparator;
 
 /**
  * This controller handles requests involving marketplace cards
@@ -30,15 +51,26 @@ import java.util.Comparator;
 public class CardController {
 
     private final MarketplaceCardRepository marketplaceCardRepository;
-    private final KeywordRepository keywordRepository;
+    private final KeywordDictionary keywordDictionary;
     private final UserRepository userRepository;
+    private final CardCountCache cardCountCache;
+    private final CardEventStream cardEventStream;
+    private final CardJsonCache cardJsonCache;
+    private final CardSearchIndex cardSearchIndex;
     private final Logger logger = LogManager.getLogger(CardController.class.getName());
 
     @Autowired
-    public CardController(MarketplaceCardRepository marketplaceCardRepository, KeywordRepository keywordRepository, UserRepository userRepository) {
+    public CardController(MarketplaceCardRepository marketplaceCardRepository, KeywordDictionary keywordDictionary,
+                          UserRepository userRepository, CardCountCache cardCountCache,
+                          CardEventStream cardEventStream, CardJsonCache cardJsonCache,
+                          CardSearchIndex cardSearchIndex) {
         this.marketplaceCardRepository = marketplaceCardRepository;
-        this.keywordRepository = keywordRepository;
+        this.keywordDictionary = keywordDictionary;
         this.userRepository = userRepository;
+        this.cardCountCache = cardCountCache;
+        this.cardEventStream = cardEventStream;
+        this.cardJsonCache = cardJsonCache;
+        this.cardSearchIndex = cardSearchIndex;
     }
 
     /**
@@ -66,7 +98,10 @@ public class CardController {
 
             // Save the card to the database
             MarketplaceCard card = constructCardFromJson(cardProperties);
+            MarketplaceCard.Section section = card.getSection();
             card = marketplaceCardRepository.save(card);
+            cardCountCache.cardsChanged(section);
+            cardEventStream.cardCreated(card);
 
             // Construct and return a json with the card id
             JSONObject json = new JSONObject();
@@ -105,31 +140,44 @@ public class CardController {
 
         // Retrieve all the keywords and add them to the card
         long[] keywordIds = JsonTools.parseLongArrayFromJsonField(cardProperties, "keywordIds");
-        for (long keywordId : keywordIds) {
-            Optional<Keyword> optional = keywordRepository.findById(keywordId);
-            if (optional.isEmpty()) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Keyword with ID %d does not exist", keywordId));
-            }
-            card.addKeyword(optional.get());
+        for (Keyword keyword : keywordDictionary.getKeywords(keywordIds)) {
+            card.addKeyword(keyword);
         }
 
         return card;
     }
 
     /**
-     * Retrieve all of the Marketplace Cards for a given section.
+     * Retrieve one page of the Marketplace Cards for a given section. The cards are ordered and paged by the database.
+     * A page can be requested by its number, or by passing the cursor from the X-Next-Cursor header of the previous
+     * page. Cursor pages are found by seeking past the last card of the previous page, so they cost the same however
+     * deep they are; the cards are returned in the cursor's order and the page and ordering parameters are ignored.
+     * The X-Next-Cursor header is only set if there are more cards after the returned page, and the X-Total-Count
+     * header is set when a page is requested by number.
+     *
+     * If keywords are given, only cards with all of the keywords (match=all) or any of them (match=any, the default)
+     * are returned. The keywords are checked by the same subquery when the cards are paged and when they are counted,
+     * so the total count always agrees with the pages.
      * @param sectionName The name of the section to retrieve
+     * @param orderBy Key to order marketplace cards by
      * @param page The page number of the current requested section
      * @param resultsPerPage Maximum number of results to retrieve
-     * @return A JSON Array of Marketplace cards
+     * @param reverse Whether the cards should be in descending order
+     * @param cursor The cursor returned with the previous page
+     * @param keywords Comma separated ids of the keywords to filter the cards by
+     * @param match Whether cards must match 'all' of the keywords or 'any' of them
      */
     @GetMapping("/cards")
-    public JSONArray getCards(HttpServletRequest request,
+    public void getCards(HttpServletRequest request,
+                              HttpServletResponse response,
                               @RequestParam(name = "section") String sectionName,
                               @RequestParam(required = false) String orderBy,
                               @RequestParam(required = false) Integer page,
                               @RequestParam(required = false) Integer resultsPerPage,
-                              @RequestParam(required = false) Boolean reverse) {
+                              @RequestParam(required = false) Boolean reverse,
+                              @RequestParam(required = false) String cursor,
+                              @RequestParam(required = false) String keywords,
+                              @RequestParam(required = false) String match) throws IOException {
         
         logger.info("Request to get marketplace cards for " + sectionName);
         AuthenticationTokenManager.checkAuthenticationToken(request);
@@ -137,24 +185,259 @@ public class CardController {
         // parse the section
         MarketplaceCard.Section section = MarketplaceCard.sectionFromString(sectionName);
 
-        Comparator<MarketplaceCard> sort = getMarketPlaceCardComparator(orderBy, reverse);
+        // parse the requested keywords, or leave keywordIds null if all cards in the section are wanted
+        List<Long> keywordIds = null;
+        boolean matchAll = false;
+        if (keywords != null) {
+            matchAll = parseMatchAll(match);
+            keywordIds = parseKeywordIds(keywords);
+        }
 
-        // database call for section
-        var cards = marketplaceCardRepository.getAllBySection(section);
+        Sort sort;
+        List<MarketplaceCard> cards;
+        boolean hasNextPage;
+        if (cursor == null) {
+            sort = SearchHelper.getCardSort(orderBy, reverse);
+            Page<MarketplaceCard> results = findSectionPage(section, keywordIds, matchAll,
+                    SearchHelper.getPageRequest(page, resultsPerPage, sort));
+            if (results.getNumber() >= results.getTotalPages() && results.getTotalPages() > 0) {
+                PageRequest lastPage = PageRequest.of(results.getTotalPages() - 1, results.getSize(), sort);
+                results = findSectionPage(section, keywordIds, matchAll, lastPage);
+            }
+            response.setHeader(SearchHelper.TOTAL_COUNT_HEADER, String.valueOf(results.getTotalElements()));
+            cards = results.getContent();
+            hasNextPage = results.hasNext();
+        } else {
+            PageCursor pageCursor = PageCursor.decode(cursor);
+            if (!SearchHelper.isCardOrderProperty(pageCursor.getProperty(), pageCursor.isIgnoreCase())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor");
+            }
+            sort = pageCursor.getSort();
+            int limit = SearchHelper.getPageRequest(null, resultsPerPage, sort).getPageSize();
+            // Fetch one extra card to find out whether there is another page
+            if (keywordIds == null) {
+                cards = marketplaceCardRepository.getSectionAfterCursor(section, pageCursor, limit + 1);
+            } else {
+                cards = marketplaceCardRepository.getSectionAfterCursor(section, pageCursor, limit + 1, keywordIds, matchAll);
+            }
+            hasNextPage = cards.size() > limit;
+            if (hasNextPage) {
+                cards = cards.subList(0, limit);
+            }
+        }
 
-        cards.sort(sort);
+        if (hasNextPage) {
+            MarketplaceCard lastCard = cards.get(cards.size() - 1);
+            Object lastValue = new BeanWrapperImpl(lastCard).getPropertyValue(sort.iterator().next().getProperty());
+            response.setHeader(SearchHelper.NEXT_CURSOR_HEADER, PageCursor.after(sort, lastValue, lastCard.getID()).encode());
+        }
 
-        cards = SearchHelper.getPageInResults(cards, page, resultsPerPage);
-        //return JSON Object
-        JSONArray responseBody = new JSONArray();
+        List<Long> pageIds = new ArrayList<>(cards.size());
         for (MarketplaceCard card : cards) {
-            responseBody.appendElement(card.constructJSONObject());
+            pageIds.add(card.getID());
         }
-        return responseBody;
+        writeCardList(pageIds, response);
+    }
+
+    /**
+     * REST GET method to retrieve one page of the marketplace cards created by a user, from every section. The cards
+     * are ordered and paged by the database, so users with many cards are as quick to page through as users with few.
+     * A page past the last page returns the last page. The total number of cards created by the user is returned in
+     * the X-Total-Count header. A response status exception with 406 status is thrown if the user does not exist.
+     * @param id The id of the user who created the cards
+     * @param orderBy Key to order marketplace cards by
+     * @param page The page number of the cards to return
+     * @param resultsPerPage Maximum number of results to return
+     * @param reverse Whether the cards should be in descending order
+     */
+    @GetMapping("/users/{id}/cards")
+    public void getUserCards(HttpServletRequest request,
+                             HttpServletResponse response,
+                             @PathVariable Long id,
+                             @RequestParam(required = false) String orderBy,
+                             @RequestParam(required = false) Integer page,
+                             @RequestParam(required = false) Integer resultsPerPage,
+                             @RequestParam(required = false) Boolean reverse) throws IOException {
+        logger.info("Request to get marketplace cards created by user " + id);
+        AuthenticationTokenManager.checkAuthenticationToken(request);
+        if (!userRepository.existsById(id)) {
+            throw new UserNotFoundException();
+        }
+
+        Sort sort = SearchHelper.getCardSort(orderBy, reverse);
+        Page<Long> results = marketplaceCardRepository.findIdsByCreatorId(id, SearchHelper.getPageRequest(page, resultsPerPage, sort));
+        if (results.getNumber() >= results.getTotalPages() && results.getTotalPages() > 0) {
+            PageRequest lastPage = PageRequest.of(results.getTotalPages() - 1, results.getSize(), sort);
+            results = marketplaceCardRepository.findIdsByCreatorId(id, lastPage);
+        }
+        response.setHeader(SearchHelper.TOTAL_COUNT_HEADER, String.valueOf(results.getTotalElements()));
+
+        writeCardList(results.getContent(), response);
+    }
+
+    /**
+     * REST GET method to search for marketplace cards by the words in their title and description. Words are matched
+     * regardless of case, accents and word endings (so 'apples' matches 'apple'), and cards containing any of the
+     * words are returned, most relevant first (see CardSearchIndex). Only the cards on the requested page are loaded
+     * from the database. The total number of matching cards is returned in the X-Total-Count header.
+     * @param query The words to search for
+     * @param sectionName The name of the section to search in, or null to search every section
+     * @param page The page number of the results to return
+     * @param resultsPerPage Maximum number of results to return
+     */
+    @GetMapping("/cards/search")
+    public void searchCards(HttpServletRequest request,
+                            HttpServletResponse response,
+                            @RequestParam(name = "q") String query,
+                            @RequestParam(name = "section", required = false) String sectionName,
+                            @RequestParam(required = false) Integer page,
+                            @RequestParam(required = false) Integer resultsPerPage) throws IOException {
+        logger.info("Request to search marketplace cards for " + query);
+        AuthenticationTokenManager.checkAuthenticationToken(request);
+        if (query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query must not be empty");
+        }
+        MarketplaceCard.Section section = sectionName == null ? null : MarketplaceCard.sectionFromString(sectionName);
+
+        List<Long> matchingIds = cardSearchIndex.search(query, section);
+        response.setHeader(SearchHelper.TOTAL_COUNT_HEADER, String.valueOf(matchingIds.size()));
+        writeCardList(SearchHelper.getPageInResults(matchingIds, page, resultsPerPage), response);
+    }
+
+    /**
+     * Writes the JSON array of a list of cards to the response. The serialized JSON of each card is taken from the
+     * card JSON cache where possible and copied straight into the response. The JSON of the remaining cards is
+     * constructed with one query for all of their keywords and another for a summary of all of their creators, rather
+     * than loading each creator (along with all of their businesses) and each card's keywords separately, and is then
+     * cached. Cards which were deleted after the list was loaded are left out.
+     * @param cardIds The ids of the cards to write, in the order they should appear in the array
+     * @param response The HTTP response to write the array to
+     */
+    private void writeCardList(List<Long> cardIds, HttpServletResponse response) throws IOException {
+        // Read the version before loading anything, so JSON built from data changed in the meantime is not cached
+        long cacheVersion = cardJsonCache.getVersion();
+        byte[][] cardJson = new byte[cardIds.size()][];
+        List<Long> uncachedIds = new ArrayList<>();
+        for (int i = 0; i < cardIds.size(); i++) {
+            cardJson[i] = cardJsonCache.getCardJson(cardIds.get(i));
+            if (cardJson[i] == null) {
+                uncachedIds.add(cardIds.get(i));
+            }
+        }
+
+        if (!uncachedIds.isEmpty()) {
+            Map<Long, MarketplaceCard> cardsWithKeywords = new HashMap<>();
+            for (MarketplaceCard card : marketplaceCardRepository.findAllWithKeywordsByIdIn(uncachedIds)) {
+                cardsWithKeywords.put(card.getID(), card);
+            }
+            Map<Long, CardCreatorSummary> creators = new HashMap<>();
+            for (CardCreatorSummary creator : marketplaceCardRepository.findCreatorSummaries(uncachedIds)) {
+                creators.put(creator.getCardId(), creator);
+            }
+            for (int i = 0; i < cardIds.size(); i++) {
+                MarketplaceCard card = cardsWithKeywords.get(cardIds.get(i));
+                CardCreatorSummary creator = creators.get(cardIds.get(i));
+                if (cardJson[i] == null && card != null && creator != null) {
+                    cardJson[i] = cardJsonCache.putCardJson(card.getID(), creator.getUserID(), card.getCloses(),
+                            card.constructJSONObject(creator.constructJson()), cacheVersion);
+                }
+            }
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream output = response.getOutputStream();
+        output.write('[');
+        boolean first = true;
+        for (byte[] json : cardJson) {
+            if (json != null) {
+                if (!first) {
+                    output.write(',');
+                }
+                output.write(json);
+                first = false;
+            }
+        }
+        output.write(']');
+        output.flush();
+    }
+
+    /**
+     * Gets one page of the cards in a section, optionally limited to the cards with the given keywords. As with
+     * Spring Data's own pages, the matching cards are only counted if the total cannot be worked out from the page.
+     * @param section The section to get cards from
+     * @param keywordIds The ids of the keywords to filter the cards by, or null for every card in the section
+     * @param matchAll True if cards must have every keyword, false if they must have at least one of them
+     * @param pageable The page to return and the order of the cards
+     * @return The requested page of cards
+     */
+    private Page<MarketplaceCard> findSectionPage(MarketplaceCard.Section section, List<Long> keywordIds, boolean matchAll,
+                                                  Pageable pageable) {
+        if (keywordIds == null) {
+            return marketplaceCardRepository.findAllBySection(section, pageable);
+        }
+        return PageableExecutionUtils.getPage(
+                marketplaceCardRepository.getSectionPageWithKeywords(section, keywordIds, matchAll, pageable), pageable,
+                () -> marketplaceCardRepository.countSectionWithKeywords(section, keywordIds, matchAll));
+    }
+
+    /**
+     * Parses the comma separated keyword ids given to filter cards by. A response status exception with 400 status is
+     * thrown if the list is empty or any of the ids are not numbers.
+     * @param keywords The comma separated keyword ids
+     * @return The keyword ids
+     */
+    private static List<Long> parseKeywordIds(String keywords) {
+        List<Long> keywordIds = new ArrayList<>();
+        for (String keywordId : keywords.split(",")) {
+            try {
+                keywordIds.add(Long.parseLong(keywordId.trim()));
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Keywords must be a comma separated list of keyword IDs");
+            }
+        }
+        return keywordIds;
+    }
+
+    /**
+     * Parses the match parameter, which says whether cards must have all of the given keywords or any of them. A
+     * response status exception with 400 status is thrown if it is not 'all' or 'any'.
+     * @param match The match parameter, or null to match any keyword
+     * @return True if cards must have every keyword
+     */
+    private static boolean parseMatchAll(String match) {
+        if (match == null || match.equals("any")) {
+            return false;
+        }
+        if (match.equals("all")) {
+            return true;
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Match must be 'all' or 'any'");
     }
 
     /**
-     * REST GET method to retrieve the number of cards in the marketplace.
+     * Opens a stream of server sent events which delivers each card created in the given section from now on, so that
+     * the marketplace page does not need to poll for new cards. Each event has the 'card' event type, the card's id as
+     * its id and the card's JSON as its data. Heartbeat comments are sent between cards. If the client falls too far
+     * behind, some cards may be skipped or the stream may be closed (see CardEventStream), after which the client
+     * should re-fetch the section. The stream is also closed after spring.mvc.async.request-timeout, and the client
+     * should then reconnect.
+     * @param request The HTTP request, used for checking permissions.
+     * @param sectionName The name of the section to receive new cards from.
+     * @return The stream of new cards.
+     */
+    @GetMapping(value = "/cards/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<JSONObject>> streamCards(HttpServletRequest request,
+                                                         @RequestParam(name = "section") String sectionName) {
+        logger.info("Request to stream new marketplace cards for " + sectionName);
+        AuthenticationTokenManager.checkAuthenticationToken(request);
+        MarketplaceCard.Section section = MarketplaceCard.sectionFromString(sectionName);
+        return cardEventStream.subscribe(section);
+    }
+
+    /**
+     * REST GET method to retrieve the number of cards in the marketplace. The count is cached for a short time (see
+     * CardCountCache), so it may not include cards which have closed in the last few seconds.
      * @param request the HTTP request
      * @param sectionName the requested section name
      * @return the card count by the requested section
@@ -168,47 +451,9 @@ public class CardController {
         //if the section is invalid, an error would already be thrown.
         MarketplaceCard.Section section = MarketplaceCard.sectionFromString(sectionName);
 
-        var cards = marketplaceCardRepository.getAllBySection(section);
-
         JSONObject responseBody = new JSONObject();
-        responseBody.put("count", cards.size());
+        responseBody.put("count", cardCountCache.getCount(section));
 
         return responseBody;
     }
-
-    /**
-     * Sort marketplace cards by a key. Can reverse results.
-     * 
-     * @param orderBy Key to order marketplace cards by.
-     * @param reverse Reverse results.
-     * @return MarketplaceCard Comparator
-     */
-    public Comparator<MarketplaceCard> getMarketPlaceCardComparator(String orderBy, Boolean reverse) {
-        if (orderBy == null) orderBy = "created";
-
-        Comparator<MarketplaceCard> sort;
-        switch (orderBy) {
-            case "title":
-                sort = Comparator.comparing(MarketplaceCard::getTitle, String.CASE_INSENSITIVE_ORDER);
-                break;
-            case "closes":
-                sort = Comparator.comparing(MarketplaceCard::getCloses);
-                break;
-            case "creatorFirstName":
-                sort = Comparator.comparing(marketPlaceCard -> marketPlaceCard.getCreator().getFirstName(), String.CASE_INSENSITIVE_ORDER);
-                break;
-            case "creatorLastName":
-                sort = Comparator.comparing(marketPlaceCard -> marketPlaceCard.getCreator().getLastName(), String.CASE_INSENSITIVE_ORDER);
-                break;
-            case "created":
-            default:
-                sort = Comparator.comparing(MarketplaceCard::getCreated);
-                break;
-        }
-        if (Boolean.TRUE.equals(reverse)) {
-            sort = sort.reversed();
-        }
-
-        return sort;
-    }
 }
@@ -10,14 +10,15 @@ import org.seng302.entities.Product;
 import org.seng302.persistence.BusinessRepository;
 import org.seng302.persistence.InventoryItemRepository;
 import org.seng302.persistence.ProductRepository;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.seng302.tools.OrderByOptions;
 import org.seng302.tools.SearchHelper;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.List;
-import java.util.Comparator;
+import javax.servlet.http.HttpServletResponse;
 
 @RestController
 public class InventoryController {
@@ -26,6 +27,22 @@ public class InventoryController {
     private final InventoryItemRepository inventoryItemRepository;
     private final ProductRepository productRepository;
     private static final Logger logger = LogManager.getLogger(InventoryController.class.getName());
+    static final OrderByOptions INVENTORY_ORDER_BY = new OrderByOptions.Builder()
+            .withOption("productCode", "product.productCode")
+            .withTextOption("name", "product.nameSortKey")
+            .withTextOption("description", "product.descriptionSortKey")
+            .withTextOption("manufacturer", "product.manufacturerSortKey")
+            .withNullableOption("recommendedRetailPrice", "product.recommendedRetailPrice")
+            .withOption("created", "product.created")
+            .withOption("quantity", "quantity")
+            .withNullableOption("pricePerItem", "pricePerItem")
+            .withNullableOption("totalPrice", "totalPrice")
+            .withNullableOption("manufactured", "manufactured")
+            .withNullableOption("sellBy", "sellBy")
+            .withNullableOption("bestBefore", "bestBefore")
+            .withOption("expires", "expires")
+            .withDefault("productCode")
+            .build();
 
     // @Autowired
     public InventoryController(BusinessRepository businessRepository, InventoryItemRepository inventoryItemRepository,
@@ -95,36 +112,38 @@ public class InventoryController {
     }
 
     /**
-     * GET endpoint which will return a list of JSONs for all items in the
+     * GET endpoint which will return a list of JSONs for one page of the items in the
      * business's inventory, provide that the request comes from an authenticated
      * user who is an admin of the application or the business. If the request
      * cannot be authenticated a 401 exception is returned, if the user doesn't have
      * permission to view the inventory then a 403 exception is returned, and if the
-     * business doesn't exist then a 406 exception is returned. Also includes the sorting
-     * and pagination of the inventory items based on the search requirements provided
-     * by the user.
+     * business doesn't exist then a 406 exception is returned. The inventory items are
+     * sorted and paginated by the database, and the total number of items in the
+     * inventory is returned in the X-Total-Count header.
      * 
      * @param businessId The id of the business to retrieve the inventory from.
      * @param request    The HTTP request, used to authenticate the user's
      *                   permissions.
+     * @param response   The HTTP response, used to return the total number of items.
      * @return Array of JSON representations of sorted and paginated items in the 
      * business's inventory.
      */
     @GetMapping("/businesses/{id}/inventory")
     public JSONArray getInventory(@PathVariable(name = "id") Long businessId,
                                 HttpServletRequest request,
+                                HttpServletResponse response,
                                 @RequestParam(required = false) String orderBy,
                                 @RequestParam(required = false) Integer page,
                                 @RequestParam(required = false) Integer resultsPerPage,
                                 @RequestParam(required = false) Boolean reverse) {
         String statusMessage = String.format("Get inventory of business with ID %d", businessId);
         logger.info(statusMessage);
-        List<InventoryItem> inventory = getInventoryFromRequest(businessId, request);
+        Business business = getBusinessFromRequest(businessId, request);
 
-        Comparator<InventoryItem> sort = sortInventory(orderBy, reverse);
-        inventory.sort(sort);
+        Page<InventoryItem> inventory = inventoryItemRepository.findInventoryPage(business,
+                INVENTORY_ORDER_BY.getPageRequest(orderBy, reverse, page, resultsPerPage));
+        response.setHeader(SearchHelper.TOTAL_COUNT_HEADER, String.valueOf(inventory.getTotalElements()));
 
-        inventory = SearchHelper.getPageInResults(inventory, page, resultsPerPage);
         JSONArray jsonArray = new JSONArray();
         for (InventoryItem item : inventory) {
             jsonArray.appendElement(item.constructJSONObject());
@@ -151,113 +170,31 @@ public class InventoryController {
     public JSONObject getInventoryCount(@PathVariable(name = "id") Long businessId, HttpServletRequest request) {
         String statusMessage = String.format("Get inventory count of business with ID %d", businessId);
         logger.info(statusMessage);
-        List<InventoryItem> inventory = getInventoryFromRequest(businessId, request);
+        Business business = getBusinessFromRequest(businessId, request);
         JSONObject json = new JSONObject();
-        json.put("count", inventory.size());
+        json.put("count", inventoryItemRepository.countByProductBusiness(business));
         return json;
     }
 
     /**
      * This method takes the business id and the http request sent to a get
-     * endpoint, and uses them to retrieve the inventory assoicated with the
-     * business. It will also add an error to the log if one is thrown due to and
+     * endpoint, and uses them to retrieve the business whose inventory is being
+     * requested. It will also add an error to the log if one is thrown due to and
      * invalid auth token, insufficient permissions or the business not existing.
      * 
      * @param businessId The ID number of the business to find the inventory of.
      * @param request    The incoming HTTP request, used to check permissions.
-     * @return A list of the items in the business's inventory.
+     * @return The business which owns the inventory.
      */
-    private List<InventoryItem> getInventoryFromRequest(Long businessId, HttpServletRequest request) {
+    private Business getBusinessFromRequest(Long businessId, HttpServletRequest request) {
         try {
             Business business = businessRepository.getBusinessById(businessId);
             // Check user is logged in and has permission to act as the business
             business.checkSessionPermissions(request);
-            List<Product> catalogue = productRepository.findAllByBusiness(business);
-            return inventoryItemRepository.getInventoryByCatalogue(catalogue);
+            return business;
         } catch (ResponseStatusException e) {
             logger.error(e.getMessage());
             throw e;
         }
     }
-
-    /**
-     * Sort inventory by a key. Can reverse results. If the inventory item attribute is null, it will be 
-     * sorted to the last. If reversed, the null related inventory item will be the first.
-     * 
-     * @param key     Key to order products by.
-     * @param reverse Reverse results.
-     * @return Inventory Comparator
-     */
-    Comparator<InventoryItem> sortInventory(String key, Boolean reverse) {
-        key = key == null ? "productCode" : key;
-
-        Comparator<InventoryItem> sort;
-        switch (key) {
-            case "name":
-                sort = Comparator.comparing(inventoryItem -> inventoryItem.getProduct().getName(), String.CASE_INSENSITIVE_ORDER);
-                break;
-
-            case "description":
-                sort = Comparator.comparing(inventoryItem -> inventoryItem.getProduct().getDescription(), 
-                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
-                break;
-
-            case "manufacturer":
-                sort = Comparator.comparing(inventoryItem -> inventoryItem.getProduct().getManufacturer(),
-                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
-                break;
-
-            case "recommendedRetailPrice":
-                sort = Comparator.comparing(inventoryItem -> inventoryItem.getProduct().getRecommendedRetailPrice(), 
-                Comparator.nullsLast(Comparator.naturalOrder()));
-                break;
-
-            case "created":
-                sort = Comparator.comparing(inventoryItem -> inventoryItem.getProduct().getCreated());
-                break;
-
-            case "quantity":
-                sort = Comparator.comparing(InventoryItem::getQuantity);
-                break;
-
-            case "pricePerItem":
-                sort = Comparator.comparing(InventoryItem::getPricePerItem, 
-                Comparator.nullsLast(Comparator.naturalOrder()));
-                break;
-
-            case "totalPrice":
-                sort = Comparator.comparing(InventoryItem::getTotalPrice, 
-                Comparator.nullsLast(Comparator.naturalOrder()));
-                break;
-
-            case "manufactured":
-                sort = Comparator.comparing(InventoryItem::getManufactured, 
-                Comparator.nullsLast(Comparator.naturalOrder()));
-                break;
-
-            case "sellBy":
-                sort = Comparator.comparing(InventoryItem::getSellBy, 
-                Comparator.nullsLast(Comparator.naturalOrder()));
-                break;
-
-            case "bestBefore":
-                sort = Comparator.comparing(InventoryItem::getBestBefore, 
-                Comparator.nullsLast(Comparator.naturalOrder()));
-                break;
-
-            case "expires":
-                sort = Comparator.comparing(InventoryItem::getExpires);
-                break;
-
-            default:
-                sort = Comparator.comparing(inventoryItem -> inventoryItem.getProduct().getProductCode());
-                break;
-        }
-
-        if (Boolean.TRUE.equals(reverse)) {
-            sort = sort.reversed();
-        }
-
-        return sort;
-    }
 }
@@ -11,11 +11,16 @@ import org.seng302.exceptions.BusinessNotFoundException;
 import org.seng302.persistence.BusinessRepository;
 import org.seng302.persistence.ImageRepository;
 import org.seng302.persistence.ProductRepository;
+import org.seng302.service.ProductImportReport;
+import org.seng302.service.ProductImportService;
 import org.seng302.service.StorageService;
 import org.seng302.tools.AuthenticationTokenManager;
+import org.seng302.tools.OrderByOptions;
 import org.seng302.tools.SearchHelper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -23,6 +28,11 @@ import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -35,75 +45,41 @@ public class ProductController {
     private final BusinessRepository businessRepository;
     private final StorageService storageService;
     private final ImageRepository imageRepository;
+    private final ProductImportService productImportService;
+    private static final String CSV_CONTENT_TYPE = "text/csv";
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
     private static final Logger logger = LogManager.getLogger(ProductController.class.getName());
+    static final OrderByOptions CATALOGUE_ORDER_BY = new OrderByOptions.Builder()
+            .withOption("productCode", "productCode")
+            .withTextOption("name", "nameSortKey")
+            .withTextOption("description", "descriptionSortKey")
+            .withTextOption("manufacturer", "manufacturerSortKey")
+            .withNullableOption("recommendedRetailPrice", "recommendedRetailPrice")
+            .withOption("created", "created")
+            .withDefault("productCode")
+            .build();
 
     @Autowired
-    public ProductController(ProductRepository productRepository, BusinessRepository businessRepository, StorageService storageService, ImageRepository imageRepository) {
+    public ProductController(ProductRepository productRepository, BusinessRepository businessRepository, StorageService storageService, ImageRepository imageRepository, ProductImportService productImportService) {
         this.productRepository = productRepository;
         this.businessRepository = businessRepository;
         this.storageService = storageService;
         this.imageRepository = imageRepository;
+        this.productImportService = productImportService;
     }
 
     /**
-     * Sort products by a key. Can reverse results.
-     * @param key Key to order products by.
-     * @param reverse Reverse results.
-     * @return Product Comparator
-     */
-    Comparator<Product> sortProducts(String key, Boolean reverse) {
-        key = key == null ? "productCode" : key;
-        if (reverse == null) {
-            reverse = false;
-        }
-
-        Comparator<Product> sort;
-        switch (key) {
-            case "name":
-                sort = Comparator.comparing(Product::getName,
-                        String.CASE_INSENSITIVE_ORDER);
-                break;
-
-            case "description":
-                sort = Comparator.comparing(Product::getDescription,
-                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
-                break;
-
-            case "manufacturer":
-                sort = Comparator.comparing(Product::getManufacturer,
-                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
-                break;
-
-            case "recommendedRetailPrice":
-                sort = Comparator.comparing(Product::getRecommendedRetailPrice,
-                        Comparator.nullsLast(Comparator.naturalOrder()));
-                break;
-
-            case "created":
-                sort = Comparator.comparing(Product::getCreated);
-                break;
-
-            default:
-                sort = Comparator.comparing(Product::getProductCode);
-                break;
-        }
-
-        if (reverse) {
-            sort = sort.reversed();
-        }
-
-        return sort;
-    }
-
-    /**
-     * REST GET method to retrieve all the products with a business's catalogue.
+     * REST GET method to retrieve one page of the products in a business's catalogue. The products are ordered and
+     * paged by the database, and the total number of products in the catalogue is returned in the X-Total-Count header.
      * @param id the id of the business
      * @param request the HTTP request
+     * @param response the HTTP response, used to return the total number of products
      * @return List of products in the business's catalogue
      */
     @GetMapping("/businesses/{id}/products")
     public JSONArray retrieveCatalogue(@PathVariable Long id,
                                        HttpServletRequest request,
+                                       HttpServletResponse response,
                                        @RequestParam(required = false) String orderBy,
                                        @RequestParam(required = false) Integer page,
                                        @RequestParam(required = false) Integer resultsPerPage,
@@ -120,12 +96,9 @@ public class ProductController {
             throw notFound;
         } else {
             business.get().checkSessionPermissions(request);
-            List<Product> catalogue = productRepository.getAllByBusiness(business.get());
-
-            Comparator<Product> sort = sortProducts(orderBy, reverse);
-            catalogue.sort(sort);
-
-            catalogue = SearchHelper.getPageInResults(catalogue, page, resultsPerPage);
+            Page<Product> catalogue = productRepository.findCataloguePage(business.get(),
+                    CATALOGUE_ORDER_BY.getPageRequest(orderBy, reverse, page, resultsPerPage));
+            response.setHeader(SearchHelper.TOTAL_COUNT_HEADER, String.valueOf(catalogue.getTotalElements()));
 
             JSONArray responseBody = new JSONArray();
             for (Product product: catalogue) {
@@ -156,10 +129,8 @@ public class ProductController {
         } else {
             business.get().checkSessionPermissions(request);
 
-            List<Product> catalogue = productRepository.getAllByBusiness(business.get());
-
             JSONObject responseBody = new JSONObject();
-            responseBody.put("count", catalogue.size());
+            responseBody.put("count", productRepository.countByBusiness(business.get()));
 
             return responseBody;
         }
@@ -209,6 +180,41 @@ public class ProductController {
         }
     }
 
+    /**
+     * POST endpoint for adding many products to a businesses catalogue at once.
+     * The request body is either CSV (text/csv) with a header row naming the columns, or NDJSON (application/x-ndjson)
+     * with one product per line, using the same fields as a single product creation request. The body is read as a
+     * stream and imported in chunks, so large catalogues can be uploaded in one request. Rows which are invalid or
+     * whose product code is already in the catalogue are skipped and reported, without failing the rest of the upload.
+     * This is only accessible to the DGAA, the business owner or a business admin.
+     * @param id The business id to add the products to
+     * @param request Additional information about the request, including the body to import
+     * @return The number of products imported and rejected, and the reason each row was rejected
+     */
+    @PostMapping(value = "/businesses/{id}/products/import", consumes = {CSV_CONTENT_TYPE, NDJSON_CONTENT_TYPE})
+    public JSONObject importProducts(@PathVariable Long id, HttpServletRequest request) throws IOException {
+        try {
+            AuthenticationTokenManager.checkAuthenticationToken(request);
+            logger.info(() -> String.format("Importing products into the catalogue of business (businessId=%d).", id));
+            Business business = businessRepository.getBusinessById(id);
+
+            business.checkSessionPermissions(request);
+
+            MediaType contentType = MediaType.parseMediaType(request.getContentType());
+            ProductImportService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(CSV_CONTENT_TYPE)) ?
+                    ProductImportService.Format.CSV : ProductImportService.Format.NDJSON;
+            Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+
+            try (Reader upload = new InputStreamReader(request.getInputStream(), charset)) {
+                ProductImportReport report = productImportService.importProducts(business, upload, format);
+                return report.constructJSONObject();
+            }
+        } catch (Exception error) {
+            logger.error(error.getMessage());
+            throw error;
+        }
+    }
+
     /**
      * Matches up the businessID, productID and imageID to find the image of a product to be deleted. Only business
      * owners can delete product images and they must be within their own product catalogue.
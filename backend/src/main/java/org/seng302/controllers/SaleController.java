@@ -10,21 +10,44 @@ import org.seng302.entities.SaleItem;
 import org.seng302.persistence.BusinessRepository;
 import org.seng302.persistence.InventoryItemRepository;
 import org.seng302.persistence.SaleItemRepository;
+import org.seng302.persistence.SaleItemSpecificationsBuilder;
 import org.seng302.tools.AuthenticationTokenManager;
+import org.seng302.tools.OrderByOptions;
 import org.seng302.tools.SearchHelper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @RestController
 public class SaleController {
     private static final Logger logger = LogManager.getLogger(SaleController.class);
+    static final OrderByOptions LISTING_ORDER_BY = new OrderByOptions.Builder()
+            .withOption("created", "created")
+            .withOption("closing", "closes")
+            .withOption("productCode", "inventoryItem.product.productCode")
+            .withTextOption("productName", "inventoryItem.product.nameSortKey")
+            .withOption("quantity", "quantity")
+            .withOption("price", "price")
+            .withDefault("created")
+            .withTiebreak("saleId")
+            .rejectingUnknownKeys()
+            .build();
+    static final OrderByOptions MARKETPLACE_LISTING_ORDER_BY = new OrderByOptions.Builder()
+            .withOption("created", "created")
+            .withOption("closing", "closes")
+            .withOption("price", "price")
+            .withDefault("created")
+            .withTiebreak("saleId")
+            .rejectingUnknownKeys()
+            .build();
 
     private final BusinessRepository businessRepository;
     private final SaleItemRepository saleItemRepository;
@@ -36,26 +59,6 @@ public class SaleController {
         this.inventoryItemRepository = inventoryItemRepository;
     }
 
-    public Comparator<SaleItem> getSaleItemComparator(String orderBy) {
-        if (orderBy == null) orderBy = "created";
-        switch (orderBy) {
-            case "created":
-                return Comparator.comparing(SaleItem::getCreated);
-            case "closing":
-                return Comparator.comparing(SaleItem::getCloses);
-            case "productCode":
-                return Comparator.comparing(saleItem -> saleItem.getProduct().getProductCode());
-            case "productName":
-                return Comparator.comparing(saleItem -> saleItem.getProduct().getName(), String.CASE_INSENSITIVE_ORDER);
-            case "quantity":
-                return Comparator.comparing(SaleItem::getQuantity);
-            case "price":
-                return Comparator.comparing(SaleItem::getPrice);
-            default:
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort order");
-        }
-    }
-
     @PostMapping("/businesses/{id}/listings")
     public JSONObject addSaleItemToBusiness(@PathVariable Long id, @RequestBody JSONObject saleItemInfo, HttpServletRequest request, HttpServletResponse response) {
         try {
@@ -106,14 +109,18 @@ public class SaleController {
     }
 
     /**
-     * REST GET method to retrieve all the sale items for a given business
+     * REST GET method to retrieve one page of the sale items for a given business. The sale items are ordered and
+     * paged by the database, and the total number of sale items is returned in the X-Total-Count header. A 400
+     * response is returned if orderBy is not one of the ordering options.
      * @param id the id of the business
      * @param request the HTTP request
+     * @param response the HTTP response, used to return the total number of sale items
      * @return List of sale items the business is listing
      */
     @GetMapping("/businesses/{id}/listings")
     public JSONArray getSaleItemsForBusiness(@PathVariable Long id,
                                              HttpServletRequest request,
+                                             HttpServletResponse response,
                                              @RequestParam(required = false) String orderBy,
                                              @RequestParam(required = false) Integer page,
                                              @RequestParam(required = false) Integer resultsPerPage,
@@ -123,21 +130,15 @@ public class SaleController {
             logger.info(() -> String.format("Getting sales item for business (businessId=%d).", id));
             Business business = businessRepository.getBusinessById(id);
 
-            List<SaleItem> listings = new ArrayList<>(saleItemRepository.findAllForBusiness(business));
+            Page<SaleItem> listings = saleItemRepository.findPageForBusiness(business,
+                    LISTING_ORDER_BY.getPageRequest(orderBy, reverse, page, resultsPerPage));
+            response.setHeader(SearchHelper.TOTAL_COUNT_HEADER, String.valueOf(listings.getTotalElements()));
 
-            Comparator<SaleItem> comparator = getSaleItemComparator(orderBy);
-            if (Boolean.TRUE.equals(reverse)) {
-                comparator = comparator.reversed();
-            }
-            listings.sort(comparator);
-
-            listings = SearchHelper.getPageInResults(listings, page, resultsPerPage);
-
-            var response = new JSONArray();
+            var responseBody = new JSONArray();
             for (SaleItem saleItem : listings) {
-                response.add(saleItem.constructJSONObject());
+                responseBody.add(saleItem.constructJSONObject());
             }
-            return response;
+            return responseBody;
         } catch (Exception error) {
             logger.error(error.getMessage());
             throw error;
@@ -157,10 +158,8 @@ public class SaleController {
             logger.info(() -> String.format("Getting sales item count for business (businessId=%d", id));
             Business business = businessRepository.getBusinessById(id);
 
-            List<SaleItem> listings = saleItemRepository.findAllForBusiness(business);
-
             var response = new JSONObject();
-            response.put("count", listings.size());
+            response.put("count", saleItemRepository.countForBusiness(business));
 
             return response;
         } catch (Exception e) {
@@ -168,4 +167,71 @@ public class SaleController {
             throw e;
         }
     }
+
+    /**
+     * REST GET method to browse the sale items of every business. Only listings which have not closed are returned,
+     * and they can be filtered by price range, closing date, and the type and region of the business selling them.
+     * Only the filters which are given are added to the query. The filtering, ordering and paging are done by the
+     * database, and the total number of matching sale items is returned in the X-Total-Count header.
+     * @param request the HTTP request
+     * @param response the HTTP response, used to return the total number of matching sale items
+     * @param minimumPrice the lowest price of the sale items to return
+     * @param maximumPrice the highest price of the sale items to return
+     * @param closesAfter only sale items closing after this date are returned
+     * @param closesBefore only sale items closing before this date are returned
+     * @param businessType the type of business selling the sale items
+     * @param region the region of the business selling the sale items
+     * @param orderBy 'price', 'closing' or 'created' (the default)
+     * @param page the page number in the results to be returned (defaults to one)
+     * @param resultsPerPage the number of results that should be in the returned list (defaults to 15)
+     * @param reverse whether the results should be in descending order
+     * @return List of matching sale items
+     */
+    @GetMapping("/listings")
+    public JSONArray getListings(HttpServletRequest request,
+                                 HttpServletResponse response,
+                                 @RequestParam(required = false) BigDecimal minimumPrice,
+                                 @RequestParam(required = false) BigDecimal maximumPrice,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate closesAfter,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate closesBefore,
+                                 @RequestParam(required = false) String businessType,
+                                 @RequestParam(required = false) String region,
+                                 @RequestParam(required = false) String orderBy,
+                                 @RequestParam(required = false) Integer page,
+                                 @RequestParam(required = false) Integer resultsPerPage,
+                                 @RequestParam(required = false) Boolean reverse) {
+        try {
+            AuthenticationTokenManager.checkAuthenticationToken(request);
+            logger.info("Browsing sale listings across all businesses.");
+            if (minimumPrice != null && maximumPrice != null && minimumPrice.compareTo(maximumPrice) > 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The minimum price cannot be greater than the maximum price");
+            }
+            if (businessType != null && !Business.isValidBusinessType(businessType)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        String.format("\"%s\" is not a valid business type.", businessType));
+            }
+
+            Specification<SaleItem> specification = new SaleItemSpecificationsBuilder()
+                    .withClosesOnOrAfter(LocalDate.now())
+                    .withClosesAfter(closesAfter)
+                    .withClosesBefore(closesBefore)
+                    .withMinimumPrice(minimumPrice)
+                    .withMaximumPrice(maximumPrice)
+                    .withBusinessType(businessType)
+                    .withRegion(region)
+                    .build();
+            Page<SaleItem> listings = saleItemRepository.findListingPage(specification,
+                    MARKETPLACE_LISTING_ORDER_BY.getPageRequest(orderBy, reverse, page, resultsPerPage));
+            response.setHeader(SearchHelper.TOTAL_COUNT_HEADER, String.valueOf(listings.getTotalElements()));
+
+            var responseBody = new JSONArray();
+            for (SaleItem saleItem : listings) {
+                responseBody.add(saleItem.constructJSONObject());
+            }
+            return responseBody;
+        } catch (Exception error) {
+            logger.error(error.getMessage());
+            throw error;
+        }
+    }
 }
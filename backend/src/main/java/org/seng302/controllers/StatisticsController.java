@@ -0,0 +1,51 @@
+package org.seng302.controllers;
+
+import net.minidev.json.JSONObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.service.StatisticsProvider;
+import org.seng302.tools.AuthenticationTokenManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+
+@RestController
+public class StatisticsController {
+    private static final Logger logger = LogManager.getLogger(StatisticsController.class);
+
+    private final List<StatisticsProvider> statisticsProviders;
+
+    public StatisticsController(List<StatisticsProvider> statisticsProviders) {
+        this.statisticsProviders = statisticsProviders;
+    }
+
+    /**
+     * REST GET method to retrieve the statistics (such as size and memory use) of the application's in-memory indexes
+     * and caches. Only admins can view these statistics.
+     * @param request the HTTP request
+     * @return A JSON object mapping the name of each statistics provider to its statistics
+     */
+    @GetMapping("/statistics")
+    public JSONObject getStatistics(HttpServletRequest request) {
+        try {
+            AuthenticationTokenManager.checkAuthenticationToken(request);
+            if (!AuthenticationTokenManager.sessionIsAdmin(request)) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Only admin accounts can view statistics.");
+            }
+            logger.info("Getting application statistics");
+
+            JSONObject result = new JSONObject();
+            for (StatisticsProvider provider : statisticsProviders) {
+                result.put(provider.getStatisticsName(), provider.getStatistics());
+            }
+            return result;
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            throw e;
+        }
+    }
+}
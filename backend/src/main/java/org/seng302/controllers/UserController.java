@@ -10,30 +10,42 @@ import org.seng302.entities.User;
 import org.seng302.exceptions.EmailInUseException;
 import org.seng302.exceptions.UserNotFoundException;
 import org.seng302.persistence.UserRepository;
+import org.seng302.service.UserNameSuggestionIndex;
 import org.seng302.tools.AuthenticationTokenManager;
 import org.seng302.tools.SearchHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.time.format.DateTimeParseException;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @RestController
 public class UserController {
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
     private final UserRepository userRepository;
+    private final UserNameSuggestionIndex userNameSuggestionIndex;
+    private final int exportBatchSize;
     private static final Logger logger = LogManager.getLogger(UserController.class.getName());
 
-    public UserController(UserRepository userRepository) {
+    public UserController(UserRepository userRepository,
+                          UserNameSuggestionIndex userNameSuggestionIndex,
+                          @Value("${user-search.export.batch-size:100}") int exportBatchSize) {
 
         this.userRepository = userRepository;
+        this.userNameSuggestionIndex = userNameSuggestionIndex;
+        this.exportBatchSize = exportBatchSize;
     }
 
     /**
@@ -124,19 +136,17 @@ public class UserController {
     public JSONObject getSearchCount(HttpServletRequest session, @RequestParam("searchQuery") String searchQuery) {
         AuthenticationTokenManager.checkAuthenticationToken(session);
         logger.info(() -> String.format("Performing search for \"%s\" and getting search count", searchQuery));
-        List<User> queryResults;
-        queryResults = SearchHelper.getSearchResultsOrderedByRelevance(searchQuery, userRepository, false);
-
-        queryResults = SearchHelper.removeDGAAAccountFromResults(queryResults);
+        long resultCount = userRepository.countSearchResults(searchQuery);
 
         JSONObject count = new JSONObject();
-        count.put("count", queryResults.size());
+        count.put("count", resultCount);
         return count;
     }
 
 
     /**
-     * REST GET method to search for users matching a search query
+     * REST GET method to search for users matching a search query. The total number of matching users is returned in
+     * the X-Total-Count header so that the client does not need to make a separate request for it.
      * @param searchQuery The search term
      * @param page The page number in the results to be returned (defaults to one)
      * @param resultsPerPage The number of results that should be in the returned list (defaults to 15).
@@ -146,6 +156,7 @@ public class UserController {
      */
     @GetMapping("/users/search")
     public JSONArray searchUsersByName(HttpServletRequest session,
+                                HttpServletResponse response,
                                 @RequestParam("searchQuery") String searchQuery,
                                 @RequestParam(required = false) Integer page,
                                 @RequestParam(required = false) Integer resultsPerPage,
@@ -155,18 +166,10 @@ public class UserController {
         AuthenticationTokenManager.checkAuthenticationToken(session); // Check user auth
 
         logger.info(() -> String.format("Performing search for \"%s\"", searchQuery));
-        List<User> queryResults;
-        if (orderBy == null || orderBy.equals("relevance")) {
-            queryResults = SearchHelper.getSearchResultsOrderedByRelevance(searchQuery, userRepository, reverse);
-        } else {
-            Specification<User> spec = SearchHelper.constructUserSpecificationFromSearchQuery(searchQuery);
-            Sort userSort = SearchHelper.getSort(orderBy, reverse);
-            queryResults = userRepository.findAll(spec, userSort);
-        }
+        Sort userSort = SearchHelper.getUserSearchSort(orderBy, reverse);
+        Page<User> pageInResults = userRepository.searchUsers(searchQuery, SearchHelper.getPageRequest(page, resultsPerPage, userSort));
+        response.setHeader(SearchHelper.TOTAL_COUNT_HEADER, String.valueOf(pageInResults.getTotalElements()));
 
-        queryResults = SearchHelper.removeDGAAAccountFromResults(queryResults);
-
-        List<User> pageInResults = SearchHelper.getPageInResults(queryResults, page, resultsPerPage);
         JSONArray publicResults = new JSONArray();
         for (User user : pageInResults) {
             if (AuthenticationTokenManager.sessionCanSeePrivate(session, user.getUserID())) {
@@ -179,6 +182,65 @@ public class UserController {
     }
 
 
+    /**
+     * REST GET method to suggest completions of what the user has typed into the search box. Suggestions are answered
+     * from an in-memory index of the words in users' names, so this can be called on every keystroke without searching
+     * the database.
+     * @param prefix The text typed into the search box so far
+     * @param limit The largest number of suggestions to return (defaults to and is at most the number of completions
+     *              kept by the index).
+     * @return List of suggested search queries, with the completion shared by the most users first
+     */
+    @GetMapping("/users/search/suggest")
+    public JSONArray suggestSearchQueries(HttpServletRequest session,
+                                          @RequestParam("prefix") String prefix,
+                                          @RequestParam(required = false) Integer limit) {
+        AuthenticationTokenManager.checkAuthenticationToken(session);
+        int suggestionLimit = limit == null ? userNameSuggestionIndex.getTopK() : limit;
+        JSONArray suggestions = new JSONArray();
+        suggestions.addAll(userNameSuggestionIndex.suggest(prefix, suggestionLimit));
+        return suggestions;
+    }
+
+    /**
+     * REST GET method to export every user matching a search query, for admins who need more than a page of results.
+     * The search is run once, and the private JSON of each matching user is written to the response as soon as it is
+     * loaded, one JSON object per line (NDJSON), so the memory used does not grow with the number of results.
+     * @param searchQuery The search term
+     * @param orderBy The name of the attribute to order the search results by.
+     * @param reverse String representation of boolean indicating whether results should be in reverse order.
+     */
+    @GetMapping("/users/search/export")
+    public void exportSearchResults(HttpServletRequest session,
+                                    HttpServletResponse response,
+                                    @RequestParam("searchQuery") String searchQuery,
+                                    @RequestParam(required = false) String orderBy,
+                                    @RequestParam(required = false) Boolean reverse) throws IOException {
+        AuthenticationTokenManager.checkAuthenticationToken(session);
+        if (!AuthenticationTokenManager.sessionIsAdmin(session)) {
+            ResponseStatusException exception = new ResponseStatusException(HttpStatus.FORBIDDEN,
+                    "Only admin accounts can export search results.");
+            logger.error(exception.getMessage());
+            throw exception;
+        }
+
+        logger.info(() -> String.format("Exporting search results for \"%s\"", searchQuery));
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream output = response.getOutputStream();
+        long count = userRepository.forEachSearchResult(searchQuery, SearchHelper.getUserSearchSort(orderBy, reverse),
+                exportBatchSize, user -> {
+                    try {
+                        output.write(user.constructPrivateJson().toJSONString().getBytes(StandardCharsets.UTF_8));
+                        output.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        output.flush();
+        logger.info("Exported {} users", count);
+    }
+
     /**
      * Promotes a single user to role "Admin"
      * Only the DGAA has privilege to perform this action
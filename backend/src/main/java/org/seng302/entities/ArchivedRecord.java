@@ -0,0 +1,107 @@
+package org.seng302.entities;
+
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * A marketplace card, sale listing or inventory item which has closed or expired and has been moved out of its live
+ * table by the ExpirySweeper. The archived row is stored as the same JSON which the API returned for it, along with
+ * the type and id it had in the live table and when it closed.
+ */
+@NoArgsConstructor
+@Entity
+@Table(indexes = {
+        @Index(name = "archived_record_type_index", columnList = "recordType, originalId")
+})
+public class ArchivedRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "archived_record_id_generator")
+    @SequenceGenerator(name = "archived_record_id_generator", sequenceName = "archived_record_id_sequence", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RecordType recordType;
+
+    @Column(nullable = false)
+    private Long originalId;
+
+    @Column(nullable = false)
+    private Instant closed;
+
+    @Column(nullable = false)
+    private Instant archived;
+
+    @Lob
+    @Column(nullable = false)
+    private String data;
+
+    /**
+     * Creates an archived copy of a row from a live table.
+     * @param recordType The type of the row.
+     * @param originalId The id of the row in its live table.
+     * @param closed The moment the row closed or expired.
+     * @param data The JSON representation of the row.
+     */
+    public ArchivedRecord(RecordType recordType, long originalId, Instant closed, String data) {
+        this.recordType = recordType;
+        this.originalId = originalId;
+        this.closed = closed;
+        this.archived = Instant.now();
+        this.data = data;
+    }
+
+    /**
+     * @return The id of the archived record
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return The type of row which was archived
+     */
+    public RecordType getRecordType() {
+        return recordType;
+    }
+
+    /**
+     * @return The id the row had in its live table
+     */
+    public Long getOriginalId() {
+        return originalId;
+    }
+
+    /**
+     * @return The moment the row closed or expired
+     */
+    public Instant getClosed() {
+        return closed;
+    }
+
+    /**
+     * @return The moment the row was archived
+     */
+    public Instant getArchived() {
+        return archived;
+    }
+
+    /**
+     * @return The JSON representation of the row
+     */
+    public String getData() {
+        return data;
+    }
+
+    /**
+     * The types of rows which are archived
+     */
+    public enum RecordType {
+        MARKETPLACE_CARD,
+        SALE_ITEM,
+        INVENTORY_ITEM
+    }
+}
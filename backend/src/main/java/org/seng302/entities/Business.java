@@ -16,6 +16,10 @@ import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "business_name_index", columnList = "name"),
+        @Index(name = "business_type_index", columnList = "businessType")
+})
 public class Business {
 
     //Minimum age to create a business
@@ -24,7 +28,8 @@ public class Business {
     private static final String TEXT_REGEX = "[ a-zA-Z0-9\\p{Punct}]*";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "business_id_generator")
+    @SequenceGenerator(name = "business_id_generator", sequenceName = "business_id_sequence", allocationSize = 50)
     private Long id;
     @Column(nullable = false)
     private String name;
@@ -143,6 +148,15 @@ public class Business {
         this.businessType = businessType;
     }
 
+    /**
+     * Checks whether the given business type is one of the types a business can have
+     * @param businessType business type
+     * @return True if the business type is valid
+     */
+    public static boolean isValidBusinessType(String businessType) {
+        return BUSINESS_TYPES.contains(businessType);
+    }
+
     /**
      * Gets business type
      * @return business type
@@ -285,6 +299,16 @@ public class Business {
         }
     }
 
+    /**
+     * Removes the given products from this copy of the business's catalogue, ignoring any which are not in it.
+     * Used when products are built against the business in bulk, so that the catalogue does not keep every product
+     * built for an import in memory.
+     * @param products The products to remove
+     */
+    public void removeAllFromCatalogue(Collection<Product> products) {
+        catalogue.removeAll(new HashSet<>(products));
+    }
+
     /**
      * Construct a JSON object representing the business. The JSON object includes an array of JSON
      * representations of the users who are administrators of the business, and a JSON representation
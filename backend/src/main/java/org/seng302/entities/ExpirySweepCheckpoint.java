@@ -0,0 +1,67 @@
+package org.seng302.entities;
+
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.Instant;
+
+/**
+ * Records how far through its table an expiry sweep has got, so that a sweep which stops part way (because it reached
+ * its chunk limit or the application was stopped) carries on from the same row next time. The last id is zero when the
+ * previous sweep reached the end of the table.
+ */
+@NoArgsConstructor
+@Entity
+public class ExpirySweepCheckpoint {
+
+    @Id
+    private String sweepName;
+
+    @Column(nullable = false)
+    private long lastId;
+
+    @Column(nullable = false)
+    private Instant updated;
+
+    /**
+     * Creates a checkpoint at the start of the table for the named sweep.
+     * @param sweepName The name of the sweep.
+     */
+    public ExpirySweepCheckpoint(String sweepName) {
+        this.sweepName = sweepName;
+        this.lastId = 0;
+        this.updated = Instant.now();
+    }
+
+    /**
+     * @return The name of the sweep
+     */
+    public String getSweepName() {
+        return sweepName;
+    }
+
+    /**
+     * @return The id of the last row the sweep checked, or zero to start from the beginning
+     */
+    public long getLastId() {
+        return lastId;
+    }
+
+    /**
+     * @return The moment the checkpoint was last moved
+     */
+    public Instant getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Moves the checkpoint to after the given row.
+     * @param lastId The id of the last row the sweep checked, or zero to start from the beginning next time.
+     */
+    public void setLastId(long lastId) {
+        this.lastId = lastId;
+        this.updated = Instant.now();
+    }
+}
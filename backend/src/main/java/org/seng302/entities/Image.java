@@ -13,7 +13,8 @@ import java.util.List;
 public class Image {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_id_generator")
+    @SequenceGenerator(name = "image_id_generator", sequenceName = "image_id_sequence", allocationSize = 50)
     private Long id;
 
     @Column(name = "filename", nullable = false, unique = true)
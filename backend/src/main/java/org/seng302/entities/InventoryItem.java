@@ -17,10 +17,14 @@ import java.util.Objects;
 
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        @Index(name = "inventory_item_expires_index", columnList = "expires")
+})
 public class InventoryItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_item_id_generator")
+    @SequenceGenerator(name = "inventory_item_id_generator", sequenceName = "inventory_item_id_sequence", allocationSize = 50)
     private Long id;
 
     @ManyToOne
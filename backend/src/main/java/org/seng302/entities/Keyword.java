@@ -2,6 +2,7 @@ package org.seng302.entities;
 
 import lombok.NoArgsConstructor;
 import net.minidev.json.JSONObject;
+import org.seng302.persistence.KeywordEntityListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -12,10 +13,12 @@ import java.util.List;
 
 @NoArgsConstructor
 @Entity
+@EntityListeners(KeywordEntityListener.class)
 public class Keyword {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "keyword_id_generator")
+    @SequenceGenerator(name = "keyword_id_generator", sequenceName = "keyword_id_sequence", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
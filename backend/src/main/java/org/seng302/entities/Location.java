@@ -18,10 +18,15 @@ import java.util.Map;
 @NoArgsConstructor // generate a no-args constructor needed by JPA (lombok pre-processor)
 @ToString // generate a toString method
 @Entity // declare this class as a JPA entity (that can be mapped to a SQL table)
+@Table(indexes = {
+        @Index(name = "location_region_index", columnList = "region"),
+        @Index(name = "location_city_index", columnList = "city")
+})
 public class Location {
 
     @Id // this field (attribute) is the table primary key
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // autoincrement the ID
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "location_id_generator")
+    @SequenceGenerator(name = "location_id_generator", sequenceName = "location_id_sequence", allocationSize = 50)
     private Long id;
 
     @Column(name = "country", nullable = false)
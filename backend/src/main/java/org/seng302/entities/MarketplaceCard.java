@@ -2,6 +2,7 @@ package org.seng302.entities;
 
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
+import org.seng302.persistence.MarketplaceCardEntityListener;
 import org.seng302.tools.JsonTools;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
@@ -15,12 +16,21 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
+@EntityListeners(MarketplaceCardEntityListener.class)
+@Table(indexes = {
+        @Index(name = "card_section_created_index", columnList = "section, created, id"),
+        @Index(name = "card_section_closes_index", columnList = "section, closes, id"),
+        @Index(name = "card_section_title_index", columnList = "section, title, id"),
+        @Index(name = "card_closes_index", columnList = "closes"),
+        @Index(name = "card_creator_created_index", columnList = "creator_id, created, id")
+})
 public class MarketplaceCard {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "marketplace_card_id_generator")
+    @SequenceGenerator(name = "marketplace_card_id_generator", sequenceName = "marketplace_card_id_sequence", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "creator_id", nullable = false)
     private User creator;
 
@@ -173,10 +183,20 @@ public class MarketplaceCard {
      * @return A JSONObject containing this cards data
      */
     public JSONObject constructJSONObject() {
+        return constructJSONObject(this.creator.constructSummaryJson());
+    }
+
+    /**
+     * Constructs the JSON representation of this card with the given creator JSON, so that the creators of a list of
+     * cards can be loaded separately from the cards
+     * @param creatorJson A summary of the card's creator, as given by User.constructSummaryJson
+     * @return A JSONObject containing this cards data
+     */
+    public JSONObject constructJSONObject(JSONObject creatorJson) {
         JSONObject json = new JSONObject();
 
         json.appendField("id", this.getID());
-        json.appendField("creator", this.creator.constructPublicJson());
+        json.appendField("creator", creatorJson);
         json.appendField("section", this.section.getName());
         json.appendField("created", this.created);
         json.appendField("displayPeriodEnd", this.closes);
@@ -201,7 +221,7 @@ public class MarketplaceCard {
     public String toString() {
         return "MarketplaceCard{" +
                 "id=" + id +
-                ", creator=" + creator +
+                ", creatorId=" + (creator == null ? null : creator.getUserID()) +
                 ", section=" + section +
                 ", title='" + title + '\'' +
                 ", description='" + description + '\'' +
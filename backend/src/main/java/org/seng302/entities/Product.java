@@ -2,6 +2,9 @@ package org.seng302.entities;
 
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.seng302.tools.CollationSort;
 import org.seng302.tools.JsonTools;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
@@ -23,7 +26,8 @@ public class Product {
 
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id_generator")
+    @SequenceGenerator(name = "product_id_generator", sequenceName = "product_id_sequence", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, name = "product_code")
@@ -38,6 +42,16 @@ public class Product {
     @Column
     private String manufacturer;
 
+    // Collation keys of the text attributes, so that the database can order products by them (see CollationSort)
+    @Column(name = "name_sort_key", length = CollationSort.SORT_KEY_LENGTH)
+    private String nameSortKey;
+
+    @Column(name = "description_sort_key", length = CollationSort.SORT_KEY_LENGTH)
+    private String descriptionSortKey;
+
+    @Column(name = "manufacturer_sort_key", length = CollationSort.SORT_KEY_LENGTH)
+    private String manufacturerSortKey;
+
     @Column(name = "recommended_retail_price")
     private BigDecimal recommendedRetailPrice;
 
@@ -48,6 +62,8 @@ public class Product {
     @JoinColumn(name = "business_id")
     private Business business;
 
+    // When a list of products is loaded (e.g. a business's catalogue), the images of all of them are loaded by one query
+    @Fetch(FetchMode.SUBSELECT)
     @OrderColumn(name="image_order")
     @OneToMany(fetch = FetchType.EAGER)
     @JoinColumn(name="image_id")
@@ -124,6 +140,18 @@ public class Product {
      */
     public String getCountryOfSale() { return countryOfSale; }
 
+    /**
+     * Recomputes the collation keys which the database orders products' names, descriptions and manufacturers by.
+     * Called whenever a product is saved, and for products which were saved before the keys were added.
+     */
+    @PrePersist
+    @PreUpdate
+    public void updateSortKeys() {
+        nameSortKey = CollationSort.getSortKey(name);
+        descriptionSortKey = CollationSort.getSortKey(description);
+        manufacturerSortKey = CollationSort.getSortKey(manufacturer);
+    }
+
     /**
      * Sets the name of the product
      * @param name the name of the product
@@ -18,10 +18,18 @@ import static java.time.temporal.ChronoUnit.DAYS;
 
 @NoArgsConstructor
 @Entity
+@Table(indexes = {
+        // Marketplace listings are always filtered to those which have not closed, then by price and ordered by
+        // price, closing date or creation date, so each index leads with one of those and includes the closing date
+        @Index(name = "sale_item_closes_price_index", columnList = "closes, price"),
+        @Index(name = "sale_item_price_closes_index", columnList = "price, closes"),
+        @Index(name = "sale_item_created_closes_index", columnList = "created, closes")
+})
 public class SaleItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sale_item_id_generator")
+    @SequenceGenerator(name = "sale_item_id_generator", sequenceName = "sale_item_id_sequence", allocationSize = 50)
     private Long saleId;
 
     @ManyToOne
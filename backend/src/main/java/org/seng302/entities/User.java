@@ -4,6 +4,7 @@ package org.seng302.entities;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
+import org.seng302.persistence.UserEntityListener;
 import org.seng302.tools.JsonTools;
 import org.springframework.data.annotation.ReadOnlyProperty;
 import org.springframework.http.HttpStatus;
@@ -18,6 +19,7 @@ import java.util.*;
 import java.util.regex.Pattern;
 
 @Entity
+@EntityListeners(UserEntityListener.class)
 public class User extends Account {
 
     private String firstName;
@@ -353,6 +355,37 @@ public class User extends Account {
         return constructPublicJson(false);
     }
 
+    /**
+     * Constructs a short JSON summary of the user, used where a user is shown alongside something they created, such
+     * as a marketplace card. This contains their id, first name, last name, nickname and the city/region/country part
+     * of their address.
+     * @return JSONObject with attribute name as key and attribute value as value.
+     */
+    public JSONObject constructSummaryJson() {
+        return constructSummaryJson(getUserID(), getFirstName(), getLastName(), getNickname(), getAddress());
+    }
+
+    /**
+     * Constructs a short JSON summary of a user from the given fields, so that the summary can be built from a query
+     * projection without loading the user.
+     * @param userId The user's id
+     * @param firstName The user's first name
+     * @param lastName The user's last name
+     * @param nickname The user's nickname, or null
+     * @param address The user's address
+     * @return JSONObject with attribute name as key and attribute value as value.
+     */
+    public static JSONObject constructSummaryJson(Long userId, String firstName, String lastName, String nickname, Location address) {
+        var object = new JSONObject();
+        object.put("id",          userId);
+        object.put("firstName",   firstName);
+        object.put("lastName",    lastName);
+        object.put("nickname",    nickname);
+        object.put("homeAddress", address == null ? null : address.constructPartialJson());
+        JsonTools.removeNullsFromJson(object);
+        return object;
+    }
+
     /**
      * This method constructs a JSON representation of the user's private details. This includes all the values from
      * the public JSON, plus their full address, date of birth, phone number and role.
@@ -0,0 +1,107 @@
+package org.seng302.entities;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A row in the trigram side table for user names. There is one row for every distinct lower case three character
+ * substring (trigram) of a user's first name, middle name, last name or nickname. As the primary key starts with the
+ * trigram, the users whose names contain every trigram of a search term can be found with an index lookup, rather
+ * than a '%term%' LIKE scan of the whole user table.
+ */
+@Entity
+@IdClass(UserNameTrigram.Key.class)
+@Table(name = "user_name_trigram", indexes = {
+        @Index(name = "user_name_trigram_user_id_index", columnList = "user_id")
+})
+public class UserNameTrigram {
+
+    public static final int TRIGRAM_LENGTH = 3;
+
+    @Id
+    @Column(name = "trigram", length = TRIGRAM_LENGTH, nullable = false)
+    private String trigram;
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * Empty constructor to make spring happy
+     */
+    protected UserNameTrigram() {
+
+    }
+
+    /**
+     * Creates a row of the trigram table
+     * @param trigram A lower case trigram of one of the user's names
+     * @param userId The id of the user
+     */
+    public UserNameTrigram(String trigram, Long userId) {
+        this.trigram = trigram;
+        this.userId = userId;
+    }
+
+    public String getTrigram() {
+        return trigram;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets every distinct lower case trigram of the given values. Values which are null or shorter than three
+     * characters have no trigrams.
+     * @param values The values to split into trigrams
+     * @return The trigrams of the values
+     */
+    public static Set<String> getTrigrams(String... values) {
+        Set<String> trigrams = new HashSet<>();
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+            String lowerValue = value.toLowerCase(Locale.ROOT);
+            for (int i = 0; i + TRIGRAM_LENGTH <= lowerValue.length(); i++) {
+                trigrams.add(lowerValue.substring(i, i + TRIGRAM_LENGTH));
+            }
+        }
+        return trigrams;
+    }
+
+    /**
+     * Composite primary key of the trigram table
+     */
+    public static class Key implements Serializable {
+        private String trigram;
+        private Long userId;
+
+        public Key() {
+
+        }
+
+        public Key(String trigram, Long userId) {
+            this.trigram = trigram;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(trigram, key.trigram) && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(trigram, userId);
+        }
+    }
+}
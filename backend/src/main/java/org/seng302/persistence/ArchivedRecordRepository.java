@@ -0,0 +1,19 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.ArchivedRecord;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedRecordRepository extends CrudRepository<ArchivedRecord, Long> {
+
+    /**
+     * Finds the archived records of the given type
+     * @param recordType The type of the archived rows
+     * @return List of archived records of the type
+     */
+    List<ArchivedRecord> findAllByRecordType(@Param("recordType") ArchivedRecord.RecordType recordType);
+}
@@ -0,0 +1,64 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.Business;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.Transient;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Locale;
+
+/**
+ * Defines a specification for type Business
+ * Used to create search predicates
+ * The key of the criteria may be a path through the business's address, e.g. "address.region"
+ */
+public class BusinessSpecification implements Specification<Business> {
+
+    @Transient
+    private SearchCriteria criteria;
+
+    /**
+     * Specification
+     * @param criteria The search criteria for this predicate
+     */
+    public BusinessSpecification(SearchCriteria criteria) {
+        this.criteria = criteria;
+    }
+
+    /**
+     * Constructs a predicate of type Business
+     * @param root Criteria root
+     * @param query The search criteria
+     * @param builder Criteria Builder
+     * @return A predicate matching the search criteria
+     */
+    @Override
+    public Predicate toPredicate(Root<Business> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+        Expression<String> path = getPath(root, criteria.getKey());
+        if (criteria.getOperation().equalsIgnoreCase(":")) {
+            return builder.like(builder.lower(path), "%" + criteria.getValue().toString().toLowerCase(Locale.ROOT) + "%");
+        } else if (criteria.getOperation().equalsIgnoreCase("=")) {
+            return builder.equal(path, criteria.getValue().toString());
+        }
+        return null;
+    }
+
+    /**
+     * Gets the attribute of the business with the given key, following the path through any associations
+     * @param root Criteria root
+     * @param key The name of the attribute, with the names of associations separated by dots
+     * @return The attribute, as a string
+     */
+    private static Expression<String> getPath(Root<Business> root, String key) {
+        Path<?> path = root;
+        for (String attribute : key.split("\\.")) {
+            path = path.get(attribute);
+        }
+        return path.as(String.class);
+    }
+}
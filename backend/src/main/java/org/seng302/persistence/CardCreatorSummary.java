@@ -0,0 +1,32 @@
+package org.seng302.persistence;
+
+import net.minidev.json.JSONObject;
+import org.seng302.entities.Location;
+import org.seng302.entities.User;
+
+/**
+ * Projection of the creator of a marketplace card which contains only the fields shown on the card, so that the
+ * creators of a page of cards can be loaded in one query without loading each user's businesses.
+ */
+public interface CardCreatorSummary {
+
+    Long getCardId();
+
+    Long getUserID();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getNickname();
+
+    Location getHomeAddress();
+
+    /**
+     * Constructs the same JSON summary of the creator as User.constructSummaryJson.
+     * @return JSON summary of the card's creator
+     */
+    default JSONObject constructJson() {
+        return User.constructSummaryJson(getUserID(), getFirstName(), getLastName(), getNickname(), getHomeAddress());
+    }
+}
@@ -0,0 +1,9 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.ExpirySweepCheckpoint;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExpirySweepCheckpointRepository extends CrudRepository<ExpirySweepCheckpoint, String> {
+}
@@ -3,18 +3,24 @@ package org.seng302.persistence;
 import org.seng302.entities.Business;
 import org.seng302.entities.InventoryItem;
 import org.seng302.entities.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
-public interface InventoryItemRepository extends CrudRepository<InventoryItem, Long> {
+public interface InventoryItemRepository extends CrudRepository<InventoryItem, Long>, SortedPageRepository {
 
     /**
      * Find all then inventory items in the repository which belong to the given product.
@@ -24,21 +30,63 @@ public interface InventoryItemRepository extends CrudRepository<InventoryItem, L
     public List<InventoryItem> findAllByProduct(@Param("product") Product product);
 
     /**
-     * This method takes a list of product items and returns all the inventory items where the product
-     * of the item is in the given list. It can be used to find all items from a business's catalogue by
-     * passing in the business's calalogue as the arguement.
-     * @param catalogue A list of products
-     * @return A list of inventory items with products that correspond to those in the catalogue.
+     * Finds one page of the inventory items of a business. The ordering and paging are done by the database, and the
+     * items in the page are then loaded by findAllWithProductByIdIn, so a page takes the same number of queries
+     * however many items or products the business has.
+     * @param business The business which owns the inventory items' products.
+     * @param pageable The page to return and the order of the inventory items.
+     * @return The requested page of inventory items, along with the total number of items in the inventory.
      */
-    default List<InventoryItem> getInventoryByCatalogue(List<Product> catalogue) {
-        List<InventoryItem> inventory = new ArrayList<>();
-        for (Product product : catalogue) {
-            List<InventoryItem> productInvItems = findAllByProduct(product);
-            inventory.addAll(productInvItems);
+    default Page<InventoryItem> findInventoryPage(Business business, Pageable pageable) {
+        Page<Long> ids = findIdPage(InventoryItem.class, "id",
+                (item, query, builder) -> builder.equal(item.get("product").get("business"), business), pageable);
+        Map<Long, InventoryItem> items = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (InventoryItem item : findAllWithProductByIdIn(ids.getContent())) {
+                items.put(item.getId(), item);
+            }
         }
-        return inventory;
+        return ids.map(items::get);
     }
 
+    /**
+     * Finds the inventory items with the given ids, with their products and the products' images loaded by the same
+     * query.
+     * @param ids Ids of the inventory items to find.
+     * @return The inventory items, in no particular order.
+     */
+    @Query("SELECT DISTINCT i FROM InventoryItem i JOIN FETCH i.product p LEFT JOIN FETCH p.productImages WHERE i.id IN :ids")
+    List<InventoryItem> findAllWithProductByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts the inventory items of a business without loading them.
+     * @param business The business which owns the inventory items' products.
+     * @return The number of items in the inventory.
+     */
+    long countByProductBusiness(@Param("business") Business business);
+
+    /**
+     * Finds the ids of inventory items which expired before the given date and are not being sold in any sale listing,
+     * in id order, starting after the given id.
+     * @param cutoff Inventory items which expired before this date are returned.
+     * @param afterId Only inventory items with a greater id than this are returned.
+     * @param pageable The maximum number of ids to return.
+     * @return Ids of expired inventory items.
+     */
+    @Query("SELECT i.id FROM InventoryItem i WHERE i.expires < :cutoff AND i.id > :afterId" +
+            " AND NOT EXISTS (SELECT s FROM SaleItem s WHERE s.inventoryItem = i) ORDER BY i.id")
+    List<Long> findIdsExpiredBefore(@Param("cutoff") LocalDate cutoff, @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Finds the expiry date of the inventory item which expired longest ago before the given date, out of those which
+     * are not being sold in any sale listing (the same items as findIdsExpiredBefore).
+     * @param cutoff Only inventory items which expired before this date are considered.
+     * @return Earliest expiry date, or null if no inventory items which are not being sold expired before the cutoff.
+     */
+    @Query("SELECT MIN(i.expires) FROM InventoryItem i WHERE i.expires < :cutoff" +
+            " AND NOT EXISTS (SELECT s FROM SaleItem s WHERE s.inventoryItem = i)")
+    LocalDate findEarliestExpiryBefore(@Param("cutoff") LocalDate cutoff);
+
     /**
      * Gets a inventory item from the repository
      * If there is no inventory for the provided business and inventoryItemId
@@ -0,0 +1,54 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.Keyword;
+import org.seng302.service.CardJsonCache;
+import org.seng302.service.KeywordDictionary;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener which keeps the keyword dictionary up to date when keywords are saved or deleted, and removes
+ * deleted keywords from the card JSON cache. The dictionary depends on a repository which is only created after
+ * Hibernate, so it is looked up lazily. As with UserEntityListener, changes are only applied once the transaction which
+ * made them has committed.
+ */
+public class KeywordEntityListener {
+
+    private final ObjectProvider<KeywordDictionary> keywordDictionary;
+    private final CardJsonCache cardJsonCache;
+
+    @Autowired
+    public KeywordEntityListener(ObjectProvider<KeywordDictionary> keywordDictionary, CardJsonCache cardJsonCache) {
+        this.keywordDictionary = keywordDictionary;
+        this.cardJsonCache = cardJsonCache;
+    }
+
+    /**
+     * Adds a newly saved or updated keyword to the dictionary.
+     * @param keyword The keyword which has been saved.
+     */
+    @PostPersist
+    @PostUpdate
+    public void keywordSaved(Keyword keyword) {
+        TransactionCallbacks.afterCommit(
+                () -> keywordDictionary.ifAvailable(dictionary -> dictionary.putKeyword(keyword)));
+    }
+
+    /**
+     * Removes a deleted keyword from the dictionary. The keyword is removed from every card which had it, so every
+     * cached card JSON is discarded.
+     * @param keyword The keyword which has been deleted.
+     */
+    @PostRemove
+    public void keywordRemoved(Keyword keyword) {
+        long keywordId = keyword.getID();
+        TransactionCallbacks.afterCommit(() -> {
+            keywordDictionary.ifAvailable(dictionary -> dictionary.removeKeyword(keywordId));
+            cardJsonCache.clear();
+        });
+    }
+}
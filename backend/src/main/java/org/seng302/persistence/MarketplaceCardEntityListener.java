@@ -0,0 +1,72 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.MarketplaceCard;
+import org.seng302.service.CardJsonCache;
+import org.seng302.service.CardSearchIndex;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener which keeps the card search index up to date when marketplace cards are created, updated or
+ * deleted, and removes changed cards from the card JSON cache. The index depends on the marketplace card repository,
+ * which is only created after Hibernate, so it is looked up lazily. As with UserEntityListener, changes are only
+ * applied once the transaction which made them has committed.
+ */
+public class MarketplaceCardEntityListener {
+
+    private final ObjectProvider<CardSearchIndex> cardSearchIndex;
+    private final CardJsonCache cardJsonCache;
+
+    @Autowired
+    public MarketplaceCardEntityListener(ObjectProvider<CardSearchIndex> cardSearchIndex, CardJsonCache cardJsonCache) {
+        this.cardSearchIndex = cardSearchIndex;
+        this.cardJsonCache = cardJsonCache;
+    }
+
+    /**
+     * Adds a newly created card to the search index.
+     * @param card The card which has been saved.
+     */
+    @PostPersist
+    public void cardSaved(MarketplaceCard card) {
+        long cardId = card.getID();
+        MarketplaceCard.Section section = card.getSection();
+        String title = card.getTitle();
+        String description = card.getDescription();
+        TransactionCallbacks.afterCommit(
+                () -> cardSearchIndex.ifAvailable(index -> index.cardSaved(cardId, section, title, description)));
+    }
+
+    /**
+     * Updates the text of an updated card in the search index and removes it from the JSON cache.
+     * @param card The card which has been updated.
+     */
+    @PostUpdate
+    public void cardUpdated(MarketplaceCard card) {
+        long cardId = card.getID();
+        MarketplaceCard.Section section = card.getSection();
+        String title = card.getTitle();
+        String description = card.getDescription();
+        TransactionCallbacks.afterCommit(() -> {
+            cardSearchIndex.ifAvailable(index -> index.cardSaved(cardId, section, title, description));
+            cardJsonCache.cardChanged(cardId);
+        });
+    }
+
+    /**
+     * Removes a deleted card from the search index and the JSON cache.
+     * @param card The card which has been deleted.
+     */
+    @PostRemove
+    public void cardRemoved(MarketplaceCard card) {
+        long cardId = card.getID();
+        TransactionCallbacks.afterCommit(() -> {
+            cardSearchIndex.ifAvailable(index -> index.cardRemoved(cardId));
+            cardJsonCache.cardChanged(cardId);
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.MarketplaceCard;
+import org.seng302.tools.PageCursor;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Custom repository fragment for reading the marketplace cards in a section one page at a time using keyset
+ * pagination. Each page is found by seeking past the last card of the previous page in the (section, ordering
+ * property, id) index, so later pages cost the same to fetch as the first page.
+ */
+public interface MarketplaceCardFeedRepository {
+
+    /**
+     * Gets the cards in a section which come after the card marked by the given cursor, in the cursor's order. Ties
+     * on the ordering property are broken by card id.
+     * @param section The section to get cards from.
+     * @param cursor Marks the last card of the previous page and the order of the cards.
+     * @param limit The maximum number of cards to return.
+     * @return Up to limit cards which come after the cursor.
+     */
+    List<MarketplaceCard> getSectionAfterCursor(MarketplaceCard.Section section, PageCursor cursor, int limit);
+
+    /**
+     * Gets the cards in a section with the given keywords which come after the card marked by the given cursor, in
+     * the cursor's order. Ties on the ordering property are broken by card id.
+     * @param section The section to get cards from.
+     * @param cursor Marks the last card of the previous page and the order of the cards.
+     * @param limit The maximum number of cards to return.
+     * @param keywordIds The ids of the keywords to filter the cards by.
+     * @param matchAll True if cards must have every keyword, false if they must have at least one of them.
+     * @return Up to limit cards which come after the cursor.
+     */
+    List<MarketplaceCard> getSectionAfterCursor(MarketplaceCard.Section section, PageCursor cursor, int limit,
+                                                Collection<Long> keywordIds, boolean matchAll);
+
+    /**
+     * Gets one page of the cards in a section with the given keywords. The keywords are checked by a subquery on the
+     * card_keywords table, so the query does not grow with the number of matching cards. The total number of matching
+     * cards is not counted, see countSectionWithKeywords.
+     * @param section The section to get cards from.
+     * @param keywordIds The ids of the keywords to filter the cards by.
+     * @param matchAll True if cards must have every keyword, false if they must have at least one of them.
+     * @param pageable The page to return and the order of the cards.
+     * @return The cards in the requested page.
+     */
+    List<MarketplaceCard> getSectionPageWithKeywords(MarketplaceCard.Section section, Collection<Long> keywordIds,
+                                                     boolean matchAll, Pageable pageable);
+
+    /**
+     * Counts the cards in a section with the given keywords. The keywords are checked by the same subquery as in
+     * getSectionPageWithKeywords, so the count always agrees with the pages.
+     * @param section The section to count cards in.
+     * @param keywordIds The ids of the keywords to filter the cards by.
+     * @param matchAll True if cards must have every keyword, false if they must have at least one of them.
+     * @return The number of cards in the section with the keywords.
+     */
+    long countSectionWithKeywords(MarketplaceCard.Section section, Collection<Long> keywordIds, boolean matchAll);
+}
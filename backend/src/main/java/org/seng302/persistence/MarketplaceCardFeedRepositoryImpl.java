@@ -0,0 +1,165 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.Keyword;
+import org.seng302.entities.MarketplaceCard;
+import org.seng302.tools.PageCursor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.*;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of MarketplaceCardFeedRepository which builds the keyset query with the criteria API. For a cursor
+ * on (value, id) in ascending order the condition is "property >= value AND (property > value OR id > lastId)". The
+ * first part is redundant, but lets the database seek to the start of the page in the (section, property, id) index
+ * rather than scanning the whole section. If the cursor's order ignores case, the property and the value are both
+ * lower cased by the database before they are compared, which is the same key the cards are ordered by.
+ *
+ * Cards are filtered by keyword with a correlated subquery on the card's keywords, so the query is the same size
+ * however many cards have the keywords.
+ */
+public class MarketplaceCardFeedRepositoryImpl implements MarketplaceCardFeedRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<MarketplaceCard> getSectionAfterCursor(MarketplaceCard.Section section, PageCursor cursor, int limit) {
+        return getSectionAfterCursor(section, cursor, limit, null, false);
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<MarketplaceCard> getSectionAfterCursor(MarketplaceCard.Section section, PageCursor cursor, int limit,
+                                                       Collection<Long> keywordIds, boolean matchAll) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MarketplaceCard> query = builder.createQuery(MarketplaceCard.class);
+        Root<MarketplaceCard> card = query.from(MarketplaceCard.class);
+
+        Path<Comparable> path = getPath(card, cursor.getProperty());
+        Path<Long> id = card.get("id");
+        Comparable value = parseValue(cursor.getValue(), path.getJavaType());
+        Expression<Comparable> property = path;
+        Expression<Comparable> valueExpression = builder.literal(value);
+        if (cursor.isIgnoreCase()) {
+            property = (Expression) builder.lower((Expression) path);
+            valueExpression = (Expression) builder.lower(builder.literal((String) value));
+        }
+
+        Predicate afterCursor;
+        if (cursor.isDescending()) {
+            afterCursor = builder.and(builder.lessThanOrEqualTo(property, valueExpression),
+                    builder.or(builder.lessThan(property, valueExpression), builder.lessThan(id, cursor.getId())));
+            query.orderBy(builder.desc(property), builder.desc(id));
+        } else {
+            afterCursor = builder.and(builder.greaterThanOrEqualTo(property, valueExpression),
+                    builder.or(builder.greaterThan(property, valueExpression), builder.greaterThan(id, cursor.getId())));
+            query.orderBy(builder.asc(property), builder.asc(id));
+        }
+        if (keywordIds == null) {
+            query.where(builder.equal(card.get("section"), section), afterCursor);
+        } else {
+            query.where(builder.equal(card.get("section"), section), afterCursor,
+                    hasKeywords(card, query, builder, keywordIds, matchAll));
+        }
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<MarketplaceCard> getSectionPageWithKeywords(MarketplaceCard.Section section, Collection<Long> keywordIds,
+                                                            boolean matchAll, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MarketplaceCard> query = builder.createQuery(MarketplaceCard.class);
+        Root<MarketplaceCard> card = query.from(MarketplaceCard.class);
+        query.where(builder.equal(card.get("section"), section), hasKeywords(card, query, builder, keywordIds, matchAll))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), card, builder));
+
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    @Override
+    public long countSectionWithKeywords(MarketplaceCard.Section section, Collection<Long> keywordIds, boolean matchAll) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<MarketplaceCard> card = query.from(MarketplaceCard.class);
+        query.select(builder.count(card))
+                .where(builder.equal(card.get("section"), section), hasKeywords(card, query, builder, keywordIds, matchAll));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Constructs the condition that a card has all or any of the given keywords. The condition is a subquery on the
+     * card's keywords, so its size depends on the number of keywords rather than the number of matching cards.
+     * @param card The root of the query.
+     * @param query The query the condition is for.
+     * @param builder The criteria builder for the query.
+     * @param keywordIds The ids of the keywords.
+     * @param matchAll True if the card must have every keyword, false if it must have at least one of them.
+     * @return The condition.
+     */
+    private static Predicate hasKeywords(Root<MarketplaceCard> card, CriteriaQuery<?> query, CriteriaBuilder builder,
+                                         Collection<Long> keywordIds, boolean matchAll) {
+        Set<Long> distinctKeywordIds = new HashSet<>(keywordIds);
+        Subquery<Long> cardKeywords = query.subquery(Long.class);
+        Root<MarketplaceCard> sameCard = cardKeywords.from(MarketplaceCard.class);
+        Join<MarketplaceCard, Keyword> keyword = sameCard.join("keywords");
+        cardKeywords.where(builder.equal(sameCard, card), keyword.get("id").in(distinctKeywordIds));
+        if (matchAll) {
+            cardKeywords.select(builder.count(keyword));
+            return builder.equal(cardKeywords, (long) distinctKeywordIds.size());
+        }
+        cardKeywords.select(keyword.get("id"));
+        return builder.exists(cardKeywords);
+    }
+
+    /**
+     * Gets the path to a property of a card, which may be a property of another entity, e.g. 'creator.firstName'.
+     * @param card The root of the query.
+     * @param property The dot separated path to the property.
+     * @return The path to the property.
+     */
+    @SuppressWarnings("unchecked")
+    private static <Y> Path<Y> getPath(Root<MarketplaceCard> card, String property) {
+        Path<?> path = card;
+        for (String part : property.split("\\.")) {
+            path = path.get(part);
+        }
+        return (Path<Y>) path;
+    }
+
+    /**
+     * Converts the value stored in a cursor back to the type of the property it is for. A response status exception
+     * with 400 status is thrown if the value is not valid for the type.
+     * @param value The value from the cursor.
+     * @param type The type of the property.
+     * @return The value as the property's type.
+     */
+    private static Comparable<?> parseValue(String value, Class<?> type) {
+        if (Instant.class.equals(type)) {
+            try {
+                return Instant.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor");
+            }
+        }
+        if (String.class.equals(type)) {
+            return value;
+        }
+        throw new IllegalArgumentException("Cannot use a cursor on a property of type " + type.getSimpleName());
+    }
+}
@@ -3,14 +3,19 @@ package org.seng302.persistence;
 import org.seng302.entities.Keyword;
 import org.seng302.entities.MarketplaceCard;
 import org.seng302.entities.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface MarketplaceCardRepository extends CrudRepository<MarketplaceCard, Long> {
+public interface MarketplaceCardRepository extends CrudRepository<MarketplaceCard, Long>, MarketplaceCardFeedRepository {
     /**
      * Finds all the marketplace cards created by a given user
      * @param user User that the cards belong to
@@ -18,6 +23,17 @@ public interface MarketplaceCardRepository extends CrudRepository<MarketplaceCar
      */
     List<MarketplaceCard> getAllByCreator(@Param("Creator") User user);
 
+    /**
+     * Finds the ids of one page of the marketplace cards created by a given user, without loading the cards. The
+     * ordering and paging are done by the database, using the index on the card's creator and creation time.
+     * @param creatorId Id of the user that the cards belong to
+     * @param pageable The page to return and the order of the cards
+     * @return The ids of the requested page of cards, along with the total number of cards created by the user
+     */
+    @Query(value = "SELECT c.id FROM MarketplaceCard c WHERE c.creator.userID = :creatorId",
+            countQuery = "SELECT COUNT(c) FROM MarketplaceCard c WHERE c.creator.userID = :creatorId")
+    Page<Long> findIdsByCreatorId(@Param("creatorId") long creatorId, Pageable pageable);
+
     /**
      * Finds all the marketplace cards with the given keyword
      * @param keyword Keyword to search for
@@ -26,4 +42,62 @@ public interface MarketplaceCardRepository extends CrudRepository<MarketplaceCar
     List<MarketplaceCard> getAllByKeywords(@Param("keywords") Keyword keyword);
 
     List<MarketplaceCard> getAllBySection(@Param("section") MarketplaceCard.Section section);
+
+    /**
+     * Counts the marketplace cards in a section without loading them
+     * @param section Section to count the cards in
+     * @return Number of cards in the section
+     */
+    long countBySection(@Param("section") MarketplaceCard.Section section);
+
+    /**
+     * Finds one page of the marketplace cards in a section. The ordering and paging are done by the database.
+     * @param section Section that the cards are in
+     * @param pageable The page to return and the order of the cards
+     * @return The requested page of cards, along with the total number of cards in the section
+     */
+    Page<MarketplaceCard> findAllBySection(@Param("section") MarketplaceCard.Section section, Pageable pageable);
+
+    /**
+     * Finds the cards with the given ids, with their keywords loaded by the same query
+     * @param ids Ids of the cards to find
+     * @return The cards, in no particular order
+     */
+    @Query("SELECT DISTINCT c FROM MarketplaceCard c LEFT JOIN FETCH c.keywords WHERE c.id IN :ids")
+    List<MarketplaceCard> findAllWithKeywordsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds a summary of the creator of each of the cards with the given ids, without loading the creators' businesses
+     * @param ids Ids of the cards to find the creators of
+     * @return A creator summary for each card, in no particular order
+     */
+    @Query("SELECT c.id AS cardId, u.userID AS userID, u.firstName AS firstName, u.lastName AS lastName, " +
+            "u.nickname AS nickname, a AS homeAddress FROM MarketplaceCard c JOIN c.creator u LEFT JOIN u.address a " +
+            "WHERE c.id IN :ids")
+    List<CardCreatorSummary> findCreatorSummaries(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds the id, section, title and description of every card, without loading the cards.
+     * @return A (card id, section, title, description) array for each card
+     */
+    @Query("SELECT c.id, c.section, c.title, c.description FROM MarketplaceCard c")
+    List<Object[]> findAllCardText();
+
+    /**
+     * Finds the ids of cards which closed before the given moment, in id order, starting after the given id
+     * @param cutoff Cards which closed before this moment are returned
+     * @param afterId Only cards with a greater id than this are returned
+     * @param pageable The maximum number of ids to return
+     * @return Ids of closed cards
+     */
+    @Query("SELECT c.id FROM MarketplaceCard c WHERE c.closes < :cutoff AND c.id > :afterId ORDER BY c.id")
+    List<Long> findIdsClosedBefore(@Param("cutoff") Instant cutoff, @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Finds the closing time of the card which closed longest ago before the given moment
+     * @param cutoff Only cards which closed before this moment are considered
+     * @return Earliest closing time, or null if no cards closed before the cutoff
+     */
+    @Query("SELECT MIN(c.closes) FROM MarketplaceCard c WHERE c.closes < :cutoff")
+    Instant findEarliestClosingBefore(@Param("cutoff") Instant cutoff);
 }
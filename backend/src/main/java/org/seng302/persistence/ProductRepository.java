@@ -2,17 +2,21 @@ package org.seng302.persistence;
 
 import org.seng302.entities.Business;
 import org.seng302.entities.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends CrudRepository<Product, Long>{
+public interface ProductRepository extends CrudRepository<Product, Long>, SortedPageRepository {
 
         /**
          *
@@ -26,6 +30,34 @@ public interface ProductRepository extends CrudRepository<Product, Long>{
 
         List<Product> getAllByBusiness(@Param("Business") Business business);
 
+        /**
+         * Finds one page of the products in a business's catalogue. The ordering and paging are done by the database.
+         * @param business The business which owns the products.
+         * @param pageable The page to return and the order of the products.
+         * @return The requested page of products, along with the total number of products in the catalogue.
+         */
+        default Page<Product> findCataloguePage(Business business, Pageable pageable) {
+                return findPage(Product.class,
+                        (product, query, builder) -> builder.equal(product.get("business"), business), pageable);
+        }
+
+        /**
+         * Counts the products in a business's catalogue without loading them.
+         * @param business The business which owns the products.
+         * @return The number of products in the catalogue.
+         */
+        long countByBusiness(@Param("business") Business business);
+
+        /**
+         * Finds which of the given product codes are already used in a business's catalogue, with a single query.
+         * @param business The business which owns the products.
+         * @param productCodes The product codes to check.
+         * @return The product codes which are already in the catalogue.
+         */
+        @Query("SELECT p.productCode FROM Product p WHERE p.business = :business AND p.productCode IN :productCodes")
+        List<String> findProductCodesInCatalogue(@Param("business") Business business,
+                                                 @Param("productCodes") Collection<String> productCodes);
+
         /**
          *
          * @param productCode
@@ -2,15 +2,22 @@ package org.seng302.persistence;
 
 import org.seng302.entities.Business;
 import org.seng302.entities.SaleItem;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
-public interface SaleItemRepository extends CrudRepository<SaleItem, Long> {
+public interface SaleItemRepository extends CrudRepository<SaleItem, Long>, SortedPageRepository {
 
     /**
      * Finds all the sale items for a given business
@@ -19,4 +26,71 @@ public interface SaleItemRepository extends CrudRepository<SaleItem, Long> {
      */
     @Query("SELECT s FROM SaleItem s WHERE s.inventoryItem.product.business = :business")
     List<SaleItem> findAllForBusiness(@Param("business") Business business);
+
+    /**
+     * Finds one page of the sale items for a given business. The ordering and paging are done by the database.
+     * @param business Business to get the sale items for
+     * @param pageable The page to return and the order of the sale items
+     * @return The requested page of sale items, along with the total number of sale items for the business
+     */
+    default Page<SaleItem> findPageForBusiness(Business business, Pageable pageable) {
+        return findPage(SaleItem.class, (saleItem, query, builder) ->
+                builder.equal(saleItem.get("inventoryItem").get("product").get("business"), business), pageable);
+    }
+
+    /**
+     * Finds one page of the sale items across every business which match a specification, e.g. one built by
+     * SaleItemSpecificationsBuilder. The filtering, ordering and paging are done by the database, and the sale items
+     * in the page are then loaded by findAllWithProductBySaleIdIn, so a page takes the same number of queries however
+     * many sale items there are.
+     * @param specification The filters the sale items must match
+     * @param pageable The page to return and the order of the sale items
+     * @return The requested page of sale items, along with the total number of matching sale items
+     */
+    default Page<SaleItem> findListingPage(Specification<SaleItem> specification, Pageable pageable) {
+        Page<Long> ids = findIdPage(SaleItem.class, "saleId", specification, pageable);
+        Map<Long, SaleItem> saleItems = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (SaleItem saleItem : findAllWithProductBySaleIdIn(ids.getContent())) {
+                saleItems.put(saleItem.getSaleId(), saleItem);
+            }
+        }
+        return ids.map(saleItems::get);
+    }
+
+    /**
+     * Finds the sale items with the given ids, with their inventory items, products and the products' images loaded
+     * by the same query
+     * @param ids Ids of the sale items to find
+     * @return The sale items, in no particular order
+     */
+    @Query("SELECT DISTINCT s FROM SaleItem s JOIN FETCH s.inventoryItem i JOIN FETCH i.product p" +
+            " LEFT JOIN FETCH p.productImages WHERE s.saleId IN :ids")
+    List<SaleItem> findAllWithProductBySaleIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Counts the sale items for a given business without loading them
+     * @param business Business to count the sale items for
+     * @return Number of sale items for the business
+     */
+    @Query("SELECT COUNT(s) FROM SaleItem s WHERE s.inventoryItem.product.business = :business")
+    long countForBusiness(@Param("business") Business business);
+
+    /**
+     * Finds the ids of sale items which closed before the given date, in id order, starting after the given id
+     * @param cutoff Sale items which closed before this date are returned
+     * @param afterId Only sale items with a greater id than this are returned
+     * @param pageable The maximum number of ids to return
+     * @return Ids of closed sale items
+     */
+    @Query("SELECT s.saleId FROM SaleItem s WHERE s.closes < :cutoff AND s.saleId > :afterId ORDER BY s.saleId")
+    List<Long> findIdsClosedBefore(@Param("cutoff") LocalDate cutoff, @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Finds the closing date of the sale item which closed longest ago before the given date
+     * @param cutoff Only sale items which closed before this date are considered
+     * @return Earliest closing date, or null if no sale items closed before the cutoff
+     */
+    @Query("SELECT MIN(s.closes) FROM SaleItem s WHERE s.closes < :cutoff")
+    LocalDate findEarliestClosingBefore(@Param("cutoff") LocalDate cutoff);
 }
\ No newline at end of file
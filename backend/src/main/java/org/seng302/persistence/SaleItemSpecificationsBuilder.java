@@ -0,0 +1,128 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.SaleItem;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A SaleItem specification builder
+ * Builds the specification for browsing sale listings across every business. Each filter is only added to the query
+ * if it has been given, so the database only has to check the conditions the buyer actually asked for.
+ */
+public class SaleItemSpecificationsBuilder {
+
+    private final List<Specification<SaleItem>> specifications = new ArrayList<>();
+
+    /**
+     * Only matches sale items with a price of at least the given price
+     * @param minimumPrice The lowest price, or null for no lower limit
+     * @return The builder
+     */
+    public SaleItemSpecificationsBuilder withMinimumPrice(BigDecimal minimumPrice) {
+        if (minimumPrice != null) {
+            specifications.add((root, query, builder) -> builder.greaterThanOrEqualTo(root.get("price"), minimumPrice));
+        }
+        return this;
+    }
+
+    /**
+     * Only matches sale items with a price of at most the given price
+     * @param maximumPrice The highest price, or null for no upper limit
+     * @return The builder
+     */
+    public SaleItemSpecificationsBuilder withMaximumPrice(BigDecimal maximumPrice) {
+        if (maximumPrice != null) {
+            specifications.add((root, query, builder) -> builder.lessThanOrEqualTo(root.get("price"), maximumPrice));
+        }
+        return this;
+    }
+
+    /**
+     * Only matches sale items which close after the given date
+     * @param date The date the sale items must close after, or null for no limit
+     * @return The builder
+     */
+    public SaleItemSpecificationsBuilder withClosesAfter(LocalDate date) {
+        if (date != null) {
+            specifications.add((root, query, builder) -> builder.greaterThan(root.get("closes"), date));
+        }
+        return this;
+    }
+
+    /**
+     * Only matches sale items which close on or after the given date
+     * @param date The earliest closing date, or null for no limit
+     * @return The builder
+     */
+    public SaleItemSpecificationsBuilder withClosesOnOrAfter(LocalDate date) {
+        if (date != null) {
+            specifications.add((root, query, builder) -> builder.greaterThanOrEqualTo(root.get("closes"), date));
+        }
+        return this;
+    }
+
+    /**
+     * Only matches sale items which close before the given date
+     * @param date The date the sale items must close before, or null for no limit
+     * @return The builder
+     */
+    public SaleItemSpecificationsBuilder withClosesBefore(LocalDate date) {
+        if (date != null) {
+            specifications.add((root, query, builder) -> builder.lessThan(root.get("closes"), date));
+        }
+        return this;
+    }
+
+    /**
+     * Only matches sale items sold by a business of the given type
+     * @param businessType The type of business, or null for any type
+     * @return The builder
+     */
+    public SaleItemSpecificationsBuilder withBusinessType(String businessType) {
+        if (businessType != null) {
+            specifications.add((root, query, builder) ->
+                    builder.equal(getBusinessPath(root).get("businessType"), businessType));
+        }
+        return this;
+    }
+
+    /**
+     * Only matches sale items sold by a business in the given region
+     * @param region The region of the business's address, or null for any region
+     * @return The builder
+     */
+    public SaleItemSpecificationsBuilder withRegion(String region) {
+        if (region != null) {
+            specifications.add((root, query, builder) ->
+                    builder.equal(getBusinessPath(root).get("address").get("region"), region));
+        }
+        return this;
+    }
+
+    /**
+     * Builds the specification
+     * @return The conjunction of the filters which have been given, which matches every sale item if none were given
+     */
+    public Specification<SaleItem> build() {
+        Specification<SaleItem> result = Specification.where(null);
+        for (Specification<SaleItem> specification : specifications) {
+            result = result.and(specification);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the path from a sale item to the business selling it
+     * @param root Criteria root
+     * @return The path to the business
+     */
+    private static Path<Object> getBusinessPath(Root<SaleItem> root) {
+        return root.get("inventoryItem").get("product").get("business");
+    }
+}
@@ -0,0 +1,40 @@
+package org.seng302.persistence;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Custom repository fragment shared by the repositories whose results are shown one page at a time, such as a
+ * business's catalogue, inventory and sale listings. The ordering, paging and counting are all done by the database,
+ * so a page costs the same however many rows there are in total. The Sort of the page may order by paths through
+ * other entities (e.g. 'product.name'), ignore case, and say where nulls go, which Spring Data's own paging queries
+ * do not support.
+ */
+public interface SortedPageRepository {
+
+    /**
+     * Finds one page of the entities matching a specification. If the requested page is past the last page, the last
+     * page is returned instead.
+     * @param type The class of the entities.
+     * @param specification The condition the entities must match.
+     * @param pageable The page to return and the order of the entities, usually from OrderByOptions.getPageRequest.
+     * @param <T> The type of the entities.
+     * @return The requested page of entities, along with the total number of matching entities.
+     */
+    <T> Page<T> findPage(Class<T> type, Specification<T> specification, Pageable pageable);
+
+    /**
+     * Finds the ids of one page of the entities matching a specification, in the same way as findPage. This lets the
+     * page be ordered and limited by the database without loading the entities, so that the entities can then be
+     * loaded by a single query which also fetches their associations. Fetching a collection in the paged query itself
+     * would make Hibernate page the results in memory.
+     * @param type The class of the entities.
+     * @param idProperty The name of the id property of the entities.
+     * @param specification The condition the entities must match.
+     * @param pageable The page to return and the order of the entities.
+     * @param <T> The type of the entities.
+     * @return The ids of the requested page of entities, in order, along with the total number of matching entities.
+     */
+    <T> Page<Long> findIdPage(Class<T> type, String idProperty, Specification<T> specification, Pageable pageable);
+}
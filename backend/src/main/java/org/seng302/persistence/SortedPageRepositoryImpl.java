@@ -0,0 +1,139 @@
+package org.seng302.persistence;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Implementation of SortedPageRepository which builds the page query with the criteria API, using LIMIT and OFFSET
+ * for the page. The count query is skipped when the page shows that there are no more results, e.g. when the first
+ * page is not full.
+ *
+ * Nulls are placed by first ordering by a CASE expression which is 0 or 1 depending on whether the value is null,
+ * because H2 and MariaDB both put nulls first in ascending order and MariaDB does not support NULLS LAST.
+ */
+public class SortedPageRepositoryImpl implements SortedPageRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public <T> Page<T> findPage(Class<T> type, Specification<T> specification, Pageable pageable) {
+        return findPage(type, type, root -> root, specification, pageable);
+    }
+
+    @Override
+    public <T> Page<Long> findIdPage(Class<T> type, String idProperty, Specification<T> specification, Pageable pageable) {
+        return findPage(type, Long.class, root -> root.get(idProperty), specification, pageable);
+    }
+
+    /**
+     * Finds one page of a selection from the entities matching a specification, returning the last page instead if
+     * the requested page is past the last page.
+     */
+    private <T, R> Page<R> findPage(Class<T> type, Class<R> resultType, Function<Root<T>, Selection<R>> selection,
+                                    Specification<T> specification, Pageable pageable) {
+        List<R> content = getContent(type, resultType, selection, specification, pageable);
+        if (content.isEmpty() && pageable.getPageNumber() > 0) {
+            long total = count(type, specification);
+            if (total == 0) {
+                return new PageImpl<>(content, pageable, 0);
+            }
+            int lastPage = (int) ((total - 1) / pageable.getPageSize());
+            pageable = PageRequest.of(lastPage, pageable.getPageSize(), pageable.getSort());
+            return new PageImpl<>(getContent(type, resultType, selection, specification, pageable), pageable, total);
+        }
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(type, specification));
+    }
+
+    /**
+     * Runs the query for one page of the selection.
+     */
+    private <T, R> List<R> getContent(Class<T> type, Class<R> resultType, Function<Root<T>, Selection<R>> selection,
+                                      Specification<T> specification, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = builder.createQuery(resultType);
+        Root<T> root = query.from(type);
+        query.select(selection.apply(root)).orderBy(toOrders(pageable.getSort(), root, builder));
+        applySpecification(specification, root, query, builder);
+        return entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    /**
+     * Runs the query for the total number of matching entities.
+     */
+    private <T> long count(Class<T> type, Specification<T> specification) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = builder.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(builder.count(root));
+        applySpecification(specification, root, query, builder);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Restricts a query to the entities matching a specification. A specification which matches every entity gives no
+     * predicate, in which case the query is left unrestricted.
+     */
+    private static <T> void applySpecification(Specification<T> specification, Root<T> root, CriteriaQuery<?> query,
+                                               CriteriaBuilder builder) {
+        Predicate predicate = specification.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+
+    /**
+     * Converts a Sort to criteria orders, applying its case and null handling.
+     * @param sort The order of the results.
+     * @param root The root of the query.
+     * @param builder The criteria builder for the query.
+     * @return The orders to add to the query.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Order> toOrders(Sort sort, Root<?> root, CriteriaBuilder builder) {
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Expression<?> expression = getPath(root, order.getProperty());
+            if (order.getNullHandling() != Sort.NullHandling.NATIVE) {
+                int nullRank = order.getNullHandling() == Sort.NullHandling.NULLS_LAST ? 1 : 0;
+                orders.add(builder.asc(builder.selectCase()
+                        .when(builder.isNull(expression), nullRank)
+                        .otherwise(1 - nullRank)));
+            }
+            if (order.isIgnoreCase()) {
+                expression = builder.lower((Expression<String>) expression);
+            }
+            orders.add(order.isAscending() ? builder.asc(expression) : builder.desc(expression));
+        }
+        return orders;
+    }
+
+    /**
+     * Gets the path to a property of an entity, which may be a property of another entity, e.g. 'product.name'.
+     * @param root The root of the query.
+     * @param property The dot separated path to the property.
+     * @return The path to the property.
+     */
+    private static Path<?> getPath(Root<?> root, String property) {
+        Path<?> path = root;
+        for (String part : property.split("\\.")) {
+            path = path.get(part);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,32 @@
+package org.seng302.persistence;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helper for the entity listeners in this package, which apply changes to in-memory structures only once the
+ * transaction which made the changes has committed, so that a rolled back transaction does not leave the structures
+ * out of step with the database.
+ */
+final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Runs the given action after the current transaction commits, or immediately if there is no transaction.
+     * @param action The action to run.
+     */
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
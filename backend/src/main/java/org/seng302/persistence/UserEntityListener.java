@@ -0,0 +1,102 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.User;
+import org.seng302.service.CardJsonCache;
+import org.seng302.service.UserNameFuzzyIndex;
+import org.seng302.service.UserNameSuggestionIndex;
+import org.seng302.service.UserNameTrigramService;
+import org.seng302.service.UserSearchIndex;
+import org.seng302.service.UserSearchResultCache;
+import org.seng302.tools.AuthenticationTokenManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JPA entity listener which keeps the user search structures (the in-memory indexes and the trigram table) up to date
+ * when users are saved or deleted, and invalidates the cached search results and the cached JSON of the user's
+ * cards. Hibernate creates this listener through Spring, so its dependencies are autowired. The trigram table service
+ * is looked up lazily, as it depends on beans which are only created after Hibernate.
+ *
+ * Changes are only applied once the transaction which made them has committed, so that a rolled back save does not
+ * leave a user in the index which is not in the database. The result cache is invalidated last, so that a search
+ * which runs while the other structures are being updated cannot leave stale results in the cache.
+ */
+public class UserEntityListener {
+
+
+    private final UserSearchIndex userSearchIndex;
+    private final UserNameFuzzyIndex userNameFuzzyIndex;
+    private final UserNameSuggestionIndex userNameSuggestionIndex;
+    private final UserSearchResultCache userSearchResultCache;
+    private final ObjectProvider<UserNameTrigramService> userNameTrigramService;
+    private final CardJsonCache cardJsonCache;
+
+    @Autowired
+    public UserEntityListener(UserSearchIndex userSearchIndex, UserNameFuzzyIndex userNameFuzzyIndex,
+                              UserNameSuggestionIndex userNameSuggestionIndex,
+                              UserSearchResultCache userSearchResultCache,
+                              ObjectProvider<UserNameTrigramService> userNameTrigramService,
+                              CardJsonCache cardJsonCache) {
+        this.userSearchIndex = userSearchIndex;
+        this.userNameFuzzyIndex = userNameFuzzyIndex;
+        this.userNameSuggestionIndex = userNameSuggestionIndex;
+        this.userSearchResultCache = userSearchResultCache;
+        this.userNameTrigramService = userNameTrigramService;
+        this.cardJsonCache = cardJsonCache;
+    }
+
+    /**
+     * Adds a newly saved or updated user to the search structures. The default global application admin is never
+     * searchable, so it is removed instead.
+     * @param user The user which has been saved.
+     */
+    @PostPersist
+    @PostUpdate
+    public void userSaved(User user) {
+        long userId = user.getUserID();
+        if (AuthenticationTokenManager.ROLE_DGAA.equals(user.getRole())) {
+            TransactionCallbacks.afterCommit(() -> {
+                userSearchIndex.removeUser(userId);
+                userNameFuzzyIndex.removeUser(userId);
+                userNameSuggestionIndex.removeUser(userId);
+                userNameTrigramService.ifAvailable(service -> service.removeUser(userId));
+                userSearchResultCache.userChanged();
+                cardJsonCache.creatorChanged(userId);
+            });
+        } else {
+            List<String> names = Arrays.asList(user.getFirstName(), user.getMiddleName(), user.getLastName(),
+                    user.getNickname());
+            TransactionCallbacks.afterCommit(() -> {
+                userSearchIndex.putUser(userId, names);
+                userNameFuzzyIndex.putUser(userId, names);
+                userNameSuggestionIndex.putUser(userId, names);
+                userNameTrigramService.ifAvailable(service -> service.updateUser(userId, names));
+                userSearchResultCache.userChanged();
+                cardJsonCache.creatorChanged(userId);
+            });
+        }
+    }
+
+    /**
+     * Removes a deleted user from the search structures.
+     * @param user The user which has been deleted.
+     */
+    @PostRemove
+    public void userRemoved(User user) {
+        long userId = user.getUserID();
+        TransactionCallbacks.afterCommit(() -> {
+            userSearchIndex.removeUser(userId);
+            userNameFuzzyIndex.removeUser(userId);
+            userNameSuggestionIndex.removeUser(userId);
+            userNameTrigramService.ifAvailable(service -> service.removeUser(userId));
+            userSearchResultCache.userChanged();
+            cardJsonCache.creatorChanged(userId);
+        });
+    }
+}
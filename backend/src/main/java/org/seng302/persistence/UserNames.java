@@ -0,0 +1,18 @@
+package org.seng302.persistence;
+
+/**
+ * Projection of the User entity which contains only the fields that can be searched by name, so that every user's
+ * names can be loaded without loading the users' addresses and businesses.
+ */
+public interface UserNames {
+
+    Long getUserID();
+
+    String getFirstName();
+
+    String getMiddleName();
+
+    String getLastName();
+
+    String getNickname();
+}
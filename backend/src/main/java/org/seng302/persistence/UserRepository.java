@@ -1,6 +1,7 @@
 package org.seng302.persistence;
 
 import org.seng302.entities.User;
+import org.seng302.tools.AuthenticationTokenManager;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
@@ -21,7 +22,7 @@ import java.util.List;
  * See https://docs.spring.io/spring-data/rest/docs/current/reference/html/
  */
 
-public interface UserRepository extends CrudRepository<User, Long>, JpaSpecificationExecutor<User> {
+public interface UserRepository extends CrudRepository<User, Long>, JpaSpecificationExecutor<User>, UserSearchRepository {
 
     /**
      *
@@ -40,6 +41,16 @@ public interface UserRepository extends CrudRepository<User, Long>, JpaSpecifica
     @Query("SELECT u from User u WHERE lower(concat(u.firstName, u.lastName, u.middleName, u.nickname)) like concat('%',lower(:query), '%') or lower(concat(u.firstName, ' ', u.lastName)) like concat('%',lower(:query), '%') or lower(concat(u.firstName, ' ', u.middleName, ' ', u.lastName)) like concat('%',lower(:query), '%')")
     List<User> findAllByQuery(@Param("query") String query);
 
+    /**
+     * Gets the names of every user other than the default global application admin, without loading the rest of the
+     * users' data. Used to build the in-memory user search index.
+     * @return The names of all searchable users.
+     */
+    @Query("SELECT u.userID AS userID, u.firstName AS firstName, u.middleName AS middleName, u.lastName AS lastName, " +
+            "u.nickname AS nickname FROM User u WHERE u.role <> '" +
+            AuthenticationTokenManager.ROLE_DGAA + "'")
+    List<UserNames> findAllUserNames();
+
 
 
 
@@ -0,0 +1,255 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.UserNameTrigram;
+import org.seng302.tools.AuthenticationTokenManager;
+import org.seng302.tools.SearchHelper;
+import org.seng302.tools.SearchQuery;
+
+import javax.persistence.Parameter;
+import javax.persistence.Query;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A user search query which has been parsed and compiled into everything needed to run it. This includes the parsed
+ * query at each level of relevance, and the SQL conditions for those levels along with the values which need to be
+ * bound to them. The levels are, from most to least relevant: users who fully match every term, users who fully match
+ * some terms, users who match the query, and users who only match the query once misspelt partial match terms are
+ * replaced with their fuzzy alternatives. Plans are immutable, so a plan can be cached and reused by any number of
+ * requests for the same query.
+ */
+public final class UserSearchPlan {
+
+    private static final List<String> NAME_COLUMNS = List.of("u.first_name", "u.middle_name", "u.last_name", "u.nickname");
+
+    private final SearchQuery query;
+    private final SearchQuery fuzzyQuery;
+    private final SearchQuery fullMatchSomeTermsQuery;
+    private final SearchQuery fullMatchAllTermsQuery;
+    private final String matchCondition;
+    private final String partialMatchCondition;
+    private final String fullMatchSomeTermsCondition;
+    private final String fullMatchAllTermsCondition;
+    private final Map<String, String> parameterValuesByName;
+    private final boolean containsLikeWildcards;
+    private final boolean usesTrigramTable;
+
+    /**
+     * Parses and compiles a search query.
+     * @param searchQuery A query entered by the user for searching for users within the database.
+     * @return The compiled plan for the query.
+     * @throws org.seng302.exceptions.SearchFormatException If the query is not valid.
+     */
+    public static UserSearchPlan compile(String searchQuery) {
+        return compile(searchQuery, false);
+    }
+
+    /**
+     * Parses and compiles a search query. If useTrigramTable is true, the condition for each partial match term of at
+     * least three characters first narrows down the users to those with every trigram of the term in the
+     * user_name_trigram table, and then checks the names of only those users with LIKE.
+     * @param searchQuery A query entered by the user for searching for users within the database.
+     * @param useTrigramTable Whether the trigram table is up to date and can be used to narrow down partial matches.
+     * @return The compiled plan for the query.
+     * @throws org.seng302.exceptions.SearchFormatException If the query is not valid.
+     */
+    public static UserSearchPlan compile(String searchQuery, boolean useTrigramTable) {
+        return compile(searchQuery, useTrigramTable, term -> List.of());
+    }
+
+    /**
+     * Parses and compiles a search query, as above. Each partial match term will also match users with a name
+     * containing any of the term's fuzzy alternatives, but those users are ranked below every other match.
+     * @param searchQuery A query entered by the user for searching for users within the database.
+     * @param useTrigramTable Whether the trigram table is up to date and can be used to narrow down partial matches.
+     * @param fuzzyAlternatives Gets the words in users' names which are close to a partial match term.
+     * @return The compiled plan for the query.
+     * @throws org.seng302.exceptions.SearchFormatException If the query is not valid.
+     */
+    public static UserSearchPlan compile(String searchQuery, boolean useTrigramTable,
+                                         Function<String, List<String>> fuzzyAlternatives) {
+        return new UserSearchPlan(SearchQuery.parse(searchQuery), useTrigramTable, fuzzyAlternatives);
+    }
+
+    private UserSearchPlan(SearchQuery query, boolean useTrigramTable,
+                           Function<String, List<String>> fuzzyAlternatives) {
+        this.query = query;
+        this.usesTrigramTable = useTrigramTable;
+        fuzzyQuery = query.withPartialTermAlternatives(fuzzyAlternatives);
+        fullMatchSomeTermsQuery = query.withAllTermsExact();
+        fullMatchAllTermsQuery = fullMatchSomeTermsQuery.withOnlyAnd();
+
+        SqlCompiler compiler = new SqlCompiler(useTrigramTable);
+        matchCondition = compiler.compile(fuzzyQuery);
+        partialMatchCondition = compiler.compile(query);
+        fullMatchSomeTermsCondition = compiler.compile(fullMatchSomeTermsQuery);
+        fullMatchAllTermsCondition = compiler.compile(fullMatchAllTermsQuery);
+        parameterValuesByName = Collections.unmodifiableMap(compiler.getParameterValuesByName());
+
+        containsLikeWildcards = query.anyTermMatches(term -> term.matches(".*[%_\\\\].*"));
+    }
+
+    /**
+     * @return The parsed search query.
+     */
+    public SearchQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * @return The search query with the fuzzy alternatives of its partial match terms added, which matches every
+     * user in the search results. If no term has any alternatives, this is the same as the search query.
+     */
+    public SearchQuery getFuzzyQuery() {
+        return fuzzyQuery;
+    }
+
+    /**
+     * @return True if any partial match term has fuzzy alternatives.
+     */
+    public boolean hasFuzzyAlternatives() {
+        return !fuzzyQuery.equals(query);
+    }
+
+    /**
+     * @return The search query with every term matched exactly, which matches users who fully match some terms.
+     */
+    public SearchQuery getFullMatchSomeTermsQuery() {
+        return fullMatchSomeTermsQuery;
+    }
+
+    /**
+     * @return The search query with every term matched exactly and joined with AND, which matches users who fully match
+     * every term.
+     */
+    public SearchQuery getFullMatchAllTermsQuery() {
+        return fullMatchAllTermsQuery;
+    }
+
+    /**
+     * @return The SQL condition which matches every user in the search results, including fuzzy matches.
+     */
+    public String getMatchCondition() {
+        return matchCondition;
+    }
+
+    /**
+     * @return The SQL condition which matches users who match the search query without using fuzzy alternatives.
+     */
+    public String getPartialMatchCondition() {
+        return partialMatchCondition;
+    }
+
+    /**
+     * @return The SQL condition which matches users who fully match some of the terms in the search query.
+     */
+    public String getFullMatchSomeTermsCondition() {
+        return fullMatchSomeTermsCondition;
+    }
+
+    /**
+     * @return The SQL condition which matches users who fully match every term in the search query.
+     */
+    public String getFullMatchAllTermsCondition() {
+        return fullMatchAllTermsCondition;
+    }
+
+    /**
+     * @return True if any term contains a character which has a special meaning in a LIKE pattern.
+     */
+    public boolean containsLikeWildcards() {
+        return containsLikeWildcards;
+    }
+
+    /**
+     * @return True if the match condition narrows down partial matches using the trigram table.
+     */
+    public boolean usesTrigramTable() {
+        return usesTrigramTable;
+    }
+
+    /**
+     * Binds the DGAA role and the search term values to the given native query. Only the values for the parameters
+     * which appear in the query are bound, as not every query uses all of the conditions.
+     * @param nativeQuery A native query which uses the conditions from this plan.
+     */
+    public void bindParameters(Query nativeQuery) {
+        nativeQuery.setParameter("dgaaRole", AuthenticationTokenManager.ROLE_DGAA);
+        Set<String> queryParameterNames = nativeQuery.getParameters().stream()
+                .map(Parameter::getName)
+                .collect(Collectors.toSet());
+        for (Map.Entry<String, String> parameter : parameterValuesByName.entrySet()) {
+            if (queryParameterNames.contains(parameter.getKey())) {
+                nativeQuery.setParameter(parameter.getKey(), parameter.getValue());
+            }
+        }
+    }
+
+    /**
+     * Converts parsed search queries into SQL conditions on the user table (aliased as u). Each distinct value is only
+     * given one parameter, even if it is used in several conditions.
+     */
+    private static class SqlCompiler {
+        private final Map<String, String> parameterNamesByValue = new HashMap<>();
+        private final boolean useTrigramTable;
+
+        SqlCompiler(boolean useTrigramTable) {
+            this.useTrigramTable = useTrigramTable;
+        }
+
+        String compile(SearchQuery searchQuery) {
+            return searchQuery.evaluate(this::exactMatch, this::partialMatch, SqlCompiler::and, SqlCompiler::or);
+        }
+
+        Map<String, String> getParameterValuesByName() {
+            Map<String, String> parameterValuesByName = new HashMap<>();
+            parameterNamesByValue.forEach((value, name) -> parameterValuesByName.put(name, value));
+            return parameterValuesByName;
+        }
+
+        private String exactMatch(String term) {
+            String parameter = getParameterName(term);
+            return NAME_COLUMNS.stream()
+                    .map(column -> column + " LIKE :" + parameter)
+                    .collect(Collectors.joining(" OR ", "(", ")"));
+        }
+
+        private String partialMatch(String term) {
+            String parameter = getParameterName("%" + term.toLowerCase(Locale.ROOT) + "%");
+            String condition = NAME_COLUMNS.stream()
+                    .map(column -> "LOWER(" + column + ") LIKE :" + parameter)
+                    .collect(Collectors.joining(" OR ", "(", ")"));
+            if (useTrigramTable && SearchHelper.canUseTrigramTable(term)) {
+                return "(" + trigramMatch(term) + " AND " + condition + ")";
+            }
+            return condition;
+        }
+
+        /**
+         * Creates a condition matching the users with every trigram of the term in the trigram table. As the trigrams
+         * could come from different names, this must be combined with the LIKE condition for the term.
+         */
+        private String trigramMatch(String term) {
+            Set<String> trigrams = UserNameTrigram.getTrigrams(term);
+            String trigramParameters = trigrams.stream()
+                    .sorted()
+                    .map(trigram -> ":" + getParameterName(trigram))
+                    .collect(Collectors.joining(", "));
+            return "u.userid IN (SELECT t.user_id FROM user_name_trigram t WHERE t.trigram IN (" + trigramParameters +
+                    ") GROUP BY t.user_id HAVING COUNT(DISTINCT t.trigram) = " + trigrams.size() + ")";
+        }
+
+        private String getParameterName(String value) {
+            return parameterNamesByValue.computeIfAbsent(value, v -> "term" + parameterNamesByValue.size());
+        }
+
+        private static String and(String left, String right) {
+            return "(" + left + " AND " + right + ")";
+        }
+
+        private static String or(String left, String right) {
+            return "(" + left + " OR " + right + ")";
+        }
+    }
+}
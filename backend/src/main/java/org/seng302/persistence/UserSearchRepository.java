@@ -0,0 +1,53 @@
+package org.seng302.persistence;
+
+import org.seng302.entities.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+
+/**
+ * Custom repository fragment for searching for users with the user search query syntax (see SearchHelper). The
+ * filtering, ordering and paging of the results are all done by the database, so only the users in the requested page
+ * are loaded.
+ */
+public interface UserSearchRepository {
+
+    /**
+     * Gets one page of the users which match the given search query. The default global application admin is never
+     * included in the results. If the pageable is sorted by 'relevance' then the users are ordered by how closely they
+     * match the query: users whose name fully matches every term first, then users whose name fully matches some of
+     * the terms, then users whose name only partially matches. Otherwise they are ordered by the first property of the
+     * sort. Ties are broken by user id. If the requested page is past the last page of results, the
+     * last page is returned instead.
+     * @param searchQuery A query entered by the user for searching for users within the database.
+     * @param pageable The page to return and the order of the results.
+     * @return The requested page of matching users, along with the total number of matching users.
+     */
+    Page<User> searchUsers(String searchQuery, Pageable pageable);
+
+    /**
+     * Counts the number of users which match the given search query, not including the default global application
+     * admin.
+     * @param searchQuery A query entered by the user for searching for users within the database.
+     * @return The number of matching users.
+     */
+    long countSearchResults(String searchQuery);
+
+    /**
+     * Passes every user matching the given search query to the given action in the same order as searchUsers would
+     * return them. The matching users are read in batches, each one starting after the order value and user id of the
+     * last user in the previous batch (keyset pagination), and the users in a batch are detached once the action has
+     * been called with them, so the memory used does not grow with the number of results. Every batch is read in the
+     * same read-only transaction, so the batches are consistent with each other.
+     * @param searchQuery A query entered by the user for searching for users within the database.
+     * @param sort The order of the results.
+     * @param batchSize The number of users to load at a time.
+     * @param action Called with each matching user.
+     * @return The number of matching users.
+     */
+    @Transactional(readOnly = true)
+    long forEachSearchResult(String searchQuery, Sort sort, int batchSize, Consumer<User> action);
+}
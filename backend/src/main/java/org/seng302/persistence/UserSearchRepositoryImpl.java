@@ -0,0 +1,331 @@
+package org.seng302.persistence;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.seng302.entities.User;
+import org.seng302.service.UserSearchIndex;
+import org.seng302.service.UserSearchPlanCache;
+import org.seng302.service.UserSearchResultCache;
+import org.seng302.tools.SearchHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of UserSearchRepository which converts a user search query into a single native SQL statement. The
+ * statement returns the ids of the users in the requested page together with the total number of matching users
+ * (using a COUNT(*) OVER () window), and only the users in the page are then loaded as entities. The SQL conditions
+ * come from a compiled UserSearchPlan, which is cached so that repeated queries are not parsed again.
+ *
+ * If the ordered ids of every matching user are in the UserSearchResultCache, or the in-memory UserSearchIndex is
+ * enabled and can answer the query, the ids are taken from there instead, and only the users in the requested page are
+ * loaded from the database. When the result cache is enabled, a search which misses the cache fetches the ids of every
+ * matching user (up to the cache's limit) so that later pages and counts for the same search can be served from it.
+ */
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    private static final Map<String, String> ORDER_BY_COLUMNS = Map.of(
+            "userID", "u.userid",
+            "firstName", "u.first_name",
+            "middleName", "COALESCE(u.middle_name, '')",
+            "lastName", "u.last_name",
+            "nickname", "COALESCE(u.nickname, '')",
+            "email", "a.email"
+    );
+    private static final String FROM_CLAUSE = " FROM user u JOIN account a ON a.userid = u.userid" +
+            " WHERE a.role <> :dgaaRole AND ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private UserSearchPlanCache userSearchPlanCache;
+
+    @Autowired
+    private UserSearchResultCache userSearchResultCache;
+
+    @Override
+    public Page<User> searchUsers(String searchQuery, Pageable pageable) {
+        UserSearchPlan plan = userSearchPlanCache.getPlan(searchQuery);
+        Optional<List<Long>> allIds = findAllMatchingIds(searchQuery, plan, pageable.getSort());
+        if (allIds.isPresent()) {
+            return getPageOfResults(allIds.get(), pageable);
+        }
+
+        String sql = "SELECT u.userid, COUNT(*) OVER ()" + FROM_CLAUSE + plan.getMatchCondition() +
+                " ORDER BY " + getOrderByClause(plan, pageable.getSort());
+
+        List<Object[]> rows = getPageOfRows(sql, plan, pageable);
+        if (rows.isEmpty() && pageable.isPaged() && pageable.getPageNumber() > 0) {
+            long total = countSearchResults(plan);
+            if (total == 0) {
+                return Page.empty(pageable);
+            }
+            int lastPage = (int) ((total - 1) / pageable.getPageSize());
+            pageable = PageRequest.of(lastPage, pageable.getPageSize(), pageable.getSort());
+            rows = getPageOfRows(sql, plan, pageable);
+        }
+        if (rows.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, 0);
+        }
+
+        long total = ((Number) rows.get(0)[1]).longValue();
+        List<Long> ids = rows.stream()
+                .map(row -> ((Number) row[0]).longValue())
+                .collect(Collectors.toList());
+        return new PageImpl<>(loadUsersInOrder(ids), pageable, total);
+    }
+
+    @Override
+    public long countSearchResults(String searchQuery) {
+        UserSearchPlan plan = userSearchPlanCache.getPlan(searchQuery);
+        Optional<List<Long>> allIds = findAllMatchingIds(searchQuery, plan, Sort.unsorted());
+        if (allIds.isPresent()) {
+            return allIds.get().size();
+        }
+        return countSearchResults(plan);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachSearchResult(String searchQuery, Sort sort, int batchSize, Consumer<User> action) {
+        UserSearchPlan plan = userSearchPlanCache.getPlan(searchQuery);
+        Sort.Order order = getOrder(sort);
+        String direction = order.isAscending() ? " ASC" : " DESC";
+        String comparison = order.isAscending() ? " > " : " < ";
+        String innerSql = "SELECT u.userid, " + getOrderColumn(plan, order) + " AS order_key" + FROM_CLAUSE +
+                plan.getMatchCondition();
+        String orderBySql = " ORDER BY s.order_key" + direction + ", s.userid" + direction;
+        String firstBatchSql = "SELECT s.userid, s.order_key FROM (" + innerSql + ") s" + orderBySql;
+        String nextBatchSql = "SELECT s.userid, s.order_key FROM (" + innerSql + ") s" +
+                " WHERE s.order_key" + comparison + ":lastKey" +
+                " OR (s.order_key = :lastKey AND s.userid" + comparison + ":lastUserId)" + orderBySql;
+
+        long count = 0;
+        Object[] lastRow = null;
+        List<Object[]> rows;
+        do {
+            Query query = entityManager.createNativeQuery(lastRow == null ? firstBatchSql : nextBatchSql);
+            plan.bindParameters(query);
+            if (lastRow != null) {
+                query.setParameter("lastUserId", lastRow[0]);
+                query.setParameter("lastKey", lastRow[1]);
+            }
+            rows = getResultRows(query.setMaxResults(batchSize));
+            if (!rows.isEmpty()) {
+                lastRow = rows.get(rows.size() - 1);
+                count += processBatch(rows.stream()
+                        .map(row -> ((Number) row[0]).longValue())
+                        .collect(Collectors.toList()), action);
+            }
+        } while (rows.size() == batchSize);
+        return count;
+    }
+
+    /**
+     * Gets the result rows of a native query with more than one column.
+     * @param query The query.
+     * @return The rows of the result.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Object[]> getResultRows(Query query) {
+        return query.getResultList();
+    }
+
+    /**
+     * Loads the users with the given ids and passes them to the action in order. The users are then detached, so the
+     * persistence context does not grow with the number of results. Users which were already in the persistence
+     * context before the batch was loaded belong to the rest of the request, so they are left attached.
+     * @param ids The ids of the users in the batch.
+     * @param action Called with each user.
+     * @return The number of users in the batch.
+     */
+    private int processBatch(List<Long> ids, Consumer<User> action) {
+        Set<Long> alreadyLoaded = ids.stream().filter(this::isLoaded).collect(Collectors.toSet());
+        List<User> users = loadUsersInOrder(ids);
+        users.forEach(action);
+        for (User user : users) {
+            if (!alreadyLoaded.contains(user.getUserID())) {
+                entityManager.detach(user);
+            }
+        }
+        return users.size();
+    }
+
+    /**
+     * Checks whether the user with the given id is already in the persistence context, without loading it.
+     * @param id The id of the user.
+     * @return True if the user has already been loaded.
+     */
+    private boolean isLoaded(Long id) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(User.class);
+        return session.getPersistenceContextInternal().containsEntity(session.generateEntityKey(id, persister));
+    }
+
+    /**
+     * Gets the ordered ids of every user matching the search, from the result cache if they are cached, otherwise from
+     * the search index or (if the result cache is enabled) the database. Ids which were not already cached are added
+     * to the result cache.
+     * @param searchQuery The search query entered by the user.
+     * @param plan The compiled search query.
+     * @param sort The order of the results.
+     * @return The ordered ids of every matching user, or empty if they must be fetched from the database a page at a
+     * time.
+     */
+    private Optional<List<Long>> findAllMatchingIds(String searchQuery, UserSearchPlan plan, Sort sort) {
+        Optional<List<Long>> cachedIds = userSearchResultCache.getResults(searchQuery, sort);
+        if (cachedIds.isPresent()) {
+            return cachedIds;
+        }
+        long userVersion = userSearchResultCache.getUserVersion();
+        Optional<List<Long>> ids = userSearchIndex.search(plan, sort);
+        if (ids.isEmpty() && userSearchResultCache.isEnabled()) {
+            ids = findAllMatchingIdsInDatabase(plan, sort, userSearchResultCache.getMaxIdsPerEntry());
+        }
+        ids.ifPresent(found -> userSearchResultCache.putResults(searchQuery, sort, userVersion, found));
+        return ids;
+    }
+
+    /**
+     * Gets the ordered ids of every user matching the search from the database, as long as there are not too many.
+     * @param plan The compiled search query.
+     * @param sort The order of the results.
+     * @param maxIds The largest number of ids to return.
+     * @return The ordered ids of every matching user, or empty if more than maxIds users match.
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<List<Long>> findAllMatchingIdsInDatabase(UserSearchPlan plan, Sort sort, int maxIds) {
+        Query query = entityManager.createNativeQuery("SELECT u.userid" + FROM_CLAUSE + plan.getMatchCondition() +
+                " ORDER BY " + getOrderByClause(plan, sort));
+        plan.bindParameters(query);
+        query.setMaxResults(maxIds + 1);
+        List<Number> rows = query.getResultList();
+        if (rows.size() > maxIds) {
+            userSearchResultCache.resultsTooLarge();
+            return Optional.empty();
+        }
+        return Optional.of(rows.stream().map(Number::longValue).collect(Collectors.toList()));
+    }
+
+    /**
+     * Gets the requested page from the ordered ids of every matching user, and loads the users in that page. If the
+     * requested page is past the last page, the last page is returned instead.
+     * @param ids The ordered ids of every user matching the search query.
+     * @param pageable The page of results to return.
+     * @return The requested page of matching users.
+     */
+    private Page<User> getPageOfResults(List<Long> ids, Pageable pageable) {
+        if (ids.isEmpty()) {
+            return Page.empty(pageable);
+        }
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(loadUsersInOrder(ids), pageable, ids.size());
+        }
+        if (pageable.getOffset() >= ids.size()) {
+            int lastPage = (ids.size() - 1) / pageable.getPageSize();
+            pageable = PageRequest.of(lastPage, pageable.getPageSize(), pageable.getSort());
+        }
+        int fromIndex = (int) pageable.getOffset();
+        int toIndex = Math.min(fromIndex + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(loadUsersInOrder(ids.subList(fromIndex, toIndex)), pageable, ids.size());
+    }
+
+    /**
+     * Counts the number of users which match the given search conditions, not including the DGAA.
+     * @param plan The compiled search query.
+     * @return The number of matching users.
+     */
+    private long countSearchResults(UserSearchPlan plan) {
+        Query query = entityManager.createNativeQuery("SELECT COUNT(*)" + FROM_CLAUSE + plan.getMatchCondition());
+        plan.bindParameters(query);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    /**
+     * Runs the given search statement, limiting the results to those in the given page.
+     * @param sql The native search statement.
+     * @param plan The plan whose conditions are used in the statement, and whose parameters will be bound to it.
+     * @param pageable The page of results to return.
+     * @return A list of rows each containing a user id and the total number of matches.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object[]> getPageOfRows(String sql, UserSearchPlan plan, Pageable pageable) {
+        Query query = entityManager.createNativeQuery(sql);
+        plan.bindParameters(query);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * Loads the users with the given ids in a single query, and returns them in the same order as the ids.
+     * @param ids The ids of the users to load.
+     * @return The users in the order given by ids.
+     */
+    private List<User> loadUsersInOrder(List<Long> ids) {
+        List<User> users = entityManager.createQuery("SELECT u FROM User u WHERE u.userID IN :ids", User.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Long, User> usersById = users.stream().collect(Collectors.toMap(User::getUserID, Function.identity()));
+        return ids.stream().map(usersById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Constructs the ORDER BY clause for the search statement. The results are ordered by the column given by
+     * getOrderColumn, and user id is always used to break ties, in the same direction as the sort.
+     * @param plan The compiled search query.
+     * @param sort The requested sort.
+     * @return The ORDER BY clause (without the ORDER BY keywords).
+     */
+    private static String getOrderByClause(UserSearchPlan plan, Sort sort) {
+        Sort.Order order = getOrder(sort);
+        String direction = order.isAscending() ? " ASC" : " DESC";
+        return getOrderColumn(plan, order) + direction + ", u.userid" + direction;
+    }
+
+    /**
+     * Gets the order to sort the search results in, which is by relevance if the sort is unsorted.
+     * @param sort The requested sort.
+     * @return The first order of the sort.
+     */
+    private static Sort.Order getOrder(Sort sort) {
+        return sort.stream().findFirst().orElse(Sort.Order.asc(SearchHelper.RELEVANCE_ORDER_BY));
+    }
+
+    /**
+     * Constructs the expression which the search results are ordered by. If the order is by relevance, users which
+     * fully match every term come first, followed by users which fully match some terms, followed by users which
+     * match the query, followed by the users which only match the fuzzy alternatives of the terms. Otherwise it is the
+     * column for the property of the order.
+     * @param plan The compiled search query.
+     * @param order The requested order.
+     * @return The SQL expression to order by.
+     */
+    private static String getOrderColumn(UserSearchPlan plan, Sort.Order order) {
+        if (order.getProperty().equals(SearchHelper.RELEVANCE_ORDER_BY)) {
+            String fuzzyMatchCase = plan.hasFuzzyAlternatives() ?
+                    " WHEN " + plan.getPartialMatchCondition() + " THEN 2 ELSE 3 END" : " ELSE 2 END";
+            return "CASE WHEN " + plan.getFullMatchAllTermsCondition() + " THEN 0" +
+                    " WHEN " + plan.getFullMatchSomeTermsCondition() + " THEN 1" + fuzzyMatchCase;
+        }
+        return ORDER_BY_COLUMNS.getOrDefault(order.getProperty(), "u.userid");
+    }
+}
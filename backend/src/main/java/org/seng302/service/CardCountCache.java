@@ -0,0 +1,103 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.seng302.entities.MarketplaceCard;
+import org.seng302.persistence.MarketplaceCardRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the number of marketplace cards in each section for a short time, so that the count shown on the marketplace
+ * page does not query the database on every request. Counts are loaded with a COUNT query, and only one request loads
+ * the count for a section at a time while others wait for its result. The count for a section is dropped as soon as a
+ * card in that section is created or removed, so it only goes out of date when cards close, and then for no longer
+ * than the time to live.
+ */
+@Service
+public class CardCountCache implements StatisticsProvider {
+
+    private final MarketplaceCardRepository marketplaceCardRepository;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoTime;
+    private final ConcurrentMap<MarketplaceCard.Section, CachedCount> counts = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public CardCountCache(MarketplaceCardRepository marketplaceCardRepository,
+                          @Value("${marketplace.card-count-cache.ttl-millis:5000}") long timeToLiveMillis) {
+        this(marketplaceCardRepository, timeToLiveMillis, System::nanoTime);
+    }
+
+    CardCountCache(MarketplaceCardRepository marketplaceCardRepository, long timeToLiveMillis, LongSupplier nanoTime) {
+        this.marketplaceCardRepository = marketplaceCardRepository;
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Gets the number of cards in a section, from the cache if it was loaded less than the time to live ago.
+     * @param section The section to count the cards in.
+     * @return The number of cards in the section.
+     */
+    public long getCount(MarketplaceCard.Section section) {
+        long now = nanoTime.getAsLong();
+        CachedCount cached = counts.get(section);
+        if (cached != null && now - cached.loadedAt < timeToLiveNanos) {
+            hits.incrementAndGet();
+            return cached.count;
+        }
+        return counts.compute(section, (key, current) -> {
+            if (current != null && now - current.loadedAt < timeToLiveNanos) {
+                // Another request loaded the count while this one was waiting
+                hits.incrementAndGet();
+                return current;
+            }
+            misses.incrementAndGet();
+            return new CachedCount(marketplaceCardRepository.countBySection(key), nanoTime.getAsLong());
+        }).count;
+    }
+
+    /**
+     * Drops the cached count for a section. Called whenever a card in the section is created or removed.
+     * @param section The section which has changed.
+     */
+    public void cardsChanged(MarketplaceCard.Section section) {
+        counts.remove(section);
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "cardCountCache";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("timeToLiveMillis", TimeUnit.NANOSECONDS.toMillis(timeToLiveNanos));
+        statistics.put("cachedSections", counts.size());
+        statistics.put("hits", hits.get());
+        statistics.put("misses", misses.get());
+        return statistics;
+    }
+
+    /**
+     * The number of cards in a section and the time it was loaded at.
+     */
+    private static final class CachedCount {
+        private final long count;
+        private final long loadedAt;
+
+        CachedCount(long count, long loadedAt) {
+            this.count = count;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.entities.MarketplaceCard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes newly created marketplace cards to clients subscribed to a section, so that the marketplace page can show
+ * new cards as they are created instead of polling for them. Every card is emitted once into a single shared sink,
+ * and each subscriber filters it by section.
+ *
+ * A slow subscriber cannot hold up card creation or other subscribers. Each subscriber has its own buffer of at most
+ * bufferSize cards, and when it is full cards are dropped according to the overflow strategy: DROP_OLDEST or
+ * DROP_LATEST keep the connection open and skip cards, while ERROR ends the stream so the client reconnects and
+ * re-fetches the section. A comment is sent every heartbeat interval so that closed connections are noticed and
+ * proxies do not time out idle streams.
+ *
+ * Streams are served as async requests, so Spring MVC closes each one after spring.mvc.async.request-timeout. The
+ * timeout is set in application.properties rather than left at the servlet container's default of about 30 seconds.
+ * A browser EventSource reconnects by itself when the stream closes.
+ */
+@Service
+public class CardEventStream implements StatisticsProvider {
+
+    private static final Logger logger = LogManager.getLogger(CardEventStream.class);
+    static final String CARD_EVENT = "card";
+
+    private final Sinks.Many<CardEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final int bufferSize;
+    private final BufferOverflowStrategy overflowStrategy;
+    private final Duration heartbeatInterval;
+    private final int maxSubscribers;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejectedSubscriptions = new AtomicLong();
+
+    public CardEventStream(@Value("${marketplace.card-stream.buffer-size:64}") int bufferSize,
+                           @Value("${marketplace.card-stream.overflow-strategy:DROP_OLDEST}") BufferOverflowStrategy overflowStrategy,
+                           @Value("${marketplace.card-stream.heartbeat-millis:15000}") long heartbeatMillis,
+                           @Value("${marketplace.card-stream.max-subscribers:1000}") int maxSubscribers) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Card stream buffer size must be at least 1");
+        }
+        this.bufferSize = bufferSize;
+        this.overflowStrategy = overflowStrategy;
+        this.heartbeatInterval = Duration.ofMillis(heartbeatMillis);
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * Sends a newly created card to every subscriber of its section. The card's JSON is only constructed if anyone is
+     * subscribed.
+     * @param card The card which has been created.
+     */
+    public void cardCreated(MarketplaceCard card) {
+        if (sink.currentSubscriberCount() == 0) {
+            return;
+        }
+        CardEvent event = new CardEvent(card.getID(), card.getSection(), card.constructJSONObject());
+        // The sink must not be emitted to from several threads at once
+        synchronized (sink) {
+            Sinks.EmitResult result = sink.tryEmitNext(event);
+            if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                logger.warn("Could not publish card {} to the card stream: {}", card.getID(), result);
+                return;
+            }
+        }
+        published.incrementAndGet();
+    }
+
+    /**
+     * Subscribes to the cards created in a section from now on. A response status exception with 503 status is thrown
+     * if there are already the maximum number of subscribers. The subscriber is only counted once the returned stream
+     * is subscribed to, and stops being counted when that subscription ends, so a stream which is never subscribed to
+     * does not take up a place. If other subscribers take the last places in between, the stream ends with the same
+     * 503 error instead.
+     * @param section The section to receive new cards from.
+     * @return A stream of server sent events, one for each new card, with heartbeat comments in between.
+     */
+    public Flux<ServerSentEvent<JSONObject>> subscribe(MarketplaceCard.Section section) {
+        if (subscribers.get() >= maxSubscribers) {
+            throw rejectSubscription();
+        }
+        Flux<ServerSentEvent<JSONObject>> cards = sink.asFlux()
+                .filter(event -> event.section == section)
+                .onBackpressureBuffer(bufferSize, event -> dropped.incrementAndGet(), overflowStrategy)
+                .map(event -> ServerSentEvent.builder(event.json)
+                        .id(String.valueOf(event.cardId))
+                        .event(CARD_EVENT)
+                        .build());
+        Flux<ServerSentEvent<JSONObject>> heartbeats = Flux.interval(heartbeatInterval)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<JSONObject>builder().comment("heartbeat").build());
+        return Flux.defer(() -> {
+            if (subscribers.incrementAndGet() > maxSubscribers) {
+                subscribers.decrementAndGet();
+                return Flux.error(rejectSubscription());
+            }
+            // Merge with a prefetch of 1 so that cards wait in the subscriber's bounded buffer rather than the merge's queue
+            return Flux.merge(1, cards, heartbeats)
+                    .doFinally(signal -> subscribers.decrementAndGet());
+        });
+    }
+
+    /**
+     * Counts a subscription which was rejected because there are already the maximum number of subscribers.
+     * @return The exception to reject the subscription with.
+     */
+    private ResponseStatusException rejectSubscription() {
+        rejectedSubscriptions.incrementAndGet();
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many subscribers to the card stream");
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "cardEventStream";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("subscribers", subscribers.get());
+        statistics.put("maxSubscribers", maxSubscribers);
+        statistics.put("bufferSize", bufferSize);
+        statistics.put("overflowStrategy", overflowStrategy.name());
+        statistics.put("published", published.get());
+        statistics.put("dropped", dropped.get());
+        statistics.put("rejectedSubscriptions", rejectedSubscriptions.get());
+        return statistics;
+    }
+
+    /**
+     * A card which has been created, along with the section subscribers filter it by.
+     */
+    private static final class CardEvent {
+        private final long cardId;
+        private final MarketplaceCard.Section section;
+        private final JSONObject json;
+
+        CardEvent(long cardId, MarketplaceCard.Section section, JSONObject json) {
+            this.cardId = cardId;
+            this.section = section;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.seng302.tools.LRUCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the serialized UTF-8 JSON of recently listed marketplace cards, keyed by card id, so that a page of cards
+ * can be written straight into the response without constructing and serializing a JSONObject for every card.
+ *
+ * Cards cannot be edited once they are created, but their JSON also contains a summary of their creator and their
+ * keywords. Entries are removed when a card is updated or deleted, when its creator is saved or deleted, and the
+ * whole cache is cleared when a keyword is deleted. The ids of the cached cards are also kept by creator, so a creator's
+ * cards are removed without looking at the cards of anyone else. As with UserSearchResultCache, every change increments
+ * a version, and JSON built from data read before a change is not cached. An entry is never returned once its card has
+ * closed, as the card is about to be archived.
+ */
+@Service
+public class CardJsonCache implements StatisticsProvider {
+
+    private final boolean enabled;
+    private final LRUCache<Long, CachedCard> cards;
+    private final Map<Long, Set<Long>> cardIdsByCreator = new HashMap<>();
+    private final Clock clock;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+
+    @Autowired
+    public CardJsonCache(@Value("${marketplace.card-json-cache.enabled:true}") boolean enabled,
+                         @Value("${marketplace.card-json-cache.size:10000}") int maxSize) {
+        this(enabled, maxSize, Clock.systemUTC());
+    }
+
+    CardJsonCache(boolean enabled, int maxSize, Clock clock) {
+        this.enabled = enabled;
+        this.cards = new LRUCache<>(maxSize) {
+            @Override
+            protected void onEviction(Long cardId, CachedCard cached) {
+                forgetCard(cached.creatorId, cardId);
+            }
+        };
+        this.clock = clock;
+    }
+
+    /**
+     * @return The current version of the cached data. This must be read before the cards being cached are loaded and
+     * passed to putCardJson, so that JSON which may have been affected by a concurrent change is not cached.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Gets the cached JSON of a card, if it is cached and the card has not closed.
+     * @param cardId The id of the card.
+     * @return The card's UTF-8 JSON, or null if it is not cached. The array must not be modified.
+     */
+    public byte[] getCardJson(long cardId) {
+        if (!enabled) {
+            return null;
+        }
+        CachedCard cached = cards.getIfPresent(cardId);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.closes != null && !cached.closes.isAfter(clock.instant())) {
+            staleEntries.incrementAndGet();
+            removeCard(cardId);
+            return null;
+        }
+        return cached.json;
+    }
+
+    /**
+     * Serializes a card's JSON and caches it, unless anything has changed since the given version or the card has
+     * already closed.
+     * @param cardId The id of the card.
+     * @param creatorId The id of the card's creator.
+     * @param closes When the card closes.
+     * @param cardJson The card's JSON, as constructed by MarketplaceCard.constructJSONObject.
+     * @param version The version returned by getVersion before the card was loaded.
+     * @return The card's UTF-8 JSON.
+     */
+    public byte[] putCardJson(long cardId, long creatorId, Instant closes, JSONObject cardJson, long version) {
+        byte[] json = cardJson.toJSONString().getBytes(StandardCharsets.UTF_8);
+        if (enabled && (closes == null || closes.isAfter(clock.instant()))) {
+            synchronized (this) {
+                if (version == this.version.get()) {
+                    cards.put(cardId, new CachedCard(creatorId, closes, json));
+                    cardIdsByCreator.computeIfAbsent(creatorId, id -> new HashSet<>()).add(cardId);
+                }
+            }
+        }
+        return json;
+    }
+
+    /**
+     * Removes a card from the cache. Called whenever a card is updated or deleted.
+     * @param cardId The id of the card.
+     */
+    public synchronized void cardChanged(long cardId) {
+        version.incrementAndGet();
+        removeCard(cardId);
+    }
+
+    /**
+     * Removes every card created by a user from the cache. Called whenever a user is saved or deleted, as each card's
+     * JSON contains a summary of its creator.
+     * @param userId The id of the user.
+     */
+    public synchronized void creatorChanged(long userId) {
+        version.incrementAndGet();
+        Set<Long> cardIds = cardIdsByCreator.remove(userId);
+        if (cardIds != null) {
+            for (Long cardId : cardIds) {
+                cards.remove(cardId);
+            }
+        }
+    }
+
+    /**
+     * Removes every card from the cache. Called whenever a keyword is deleted, as the keyword is removed from every
+     * card which had it.
+     */
+    public synchronized void clear() {
+        version.incrementAndGet();
+        cards.clear();
+        cardIdsByCreator.clear();
+    }
+
+    /**
+     * Removes a card from the cache and from the ids kept for its creator.
+     * @param cardId The id of the card.
+     */
+    private synchronized void removeCard(long cardId) {
+        CachedCard removed = cards.remove(cardId);
+        if (removed != null) {
+            forgetCard(removed.creatorId, cardId);
+        }
+    }
+
+    /**
+     * Removes a card from the ids kept for its creator, once it is no longer in the cache. Must be called while holding
+     * the lock on this cache.
+     * @param creatorId The id of the card's creator.
+     * @param cardId The id of the card.
+     */
+    private void forgetCard(long creatorId, long cardId) {
+        Set<Long> cardIds = cardIdsByCreator.get(creatorId);
+        if (cardIds != null && cardIds.remove(cardId) && cardIds.isEmpty()) {
+            cardIdsByCreator.remove(creatorId);
+        }
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "cardJsonCache";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = cards.getStatistics();
+        statistics.put("enabled", enabled);
+        statistics.put("staleEntries", staleEntries.get());
+        synchronized (this) {
+            statistics.put("creators", cardIdsByCreator.size());
+        }
+        return statistics;
+    }
+
+    /**
+     * The serialized JSON of a card, along with the details needed to tell when it is out of date.
+     */
+    private static final class CachedCard {
+        private final long creatorId;
+        private final Instant closes;
+        private final byte[] json;
+
+        CachedCard(long creatorId, Instant closes, byte[] json) {
+            this.creatorId = creatorId;
+            this.closes = closes;
+            this.json = json;
+        }
+    }
+}
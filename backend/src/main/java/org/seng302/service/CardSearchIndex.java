@@ -0,0 +1,149 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.entities.MarketplaceCard;
+import org.seng302.persistence.MarketplaceCardRepository;
+import org.seng302.tools.InvertedIndex;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory full-text index of the titles and descriptions of marketplace cards, used to search for cards by the
+ * words they contain. Matching cards are ranked by BM25 score (see InvertedIndex), with each word in a card's title
+ * counted twice so that cards with the search terms in their title rank above cards which only mention them in their
+ * description.
+ *
+ * The index is loaded from the database at startup and kept up to date by MarketplaceCardEntityListener when cards
+ * are created, updated or deleted.
+ */
+@Service
+public class CardSearchIndex implements StatisticsProvider {
+
+    private static final Logger logger = LogManager.getLogger(CardSearchIndex.class);
+    static final int TITLE_WEIGHT = 2;
+
+    private final MarketplaceCardRepository marketplaceCardRepository;
+    private final InvertedIndex index = new InvertedIndex();
+    private final Map<Long, MarketplaceCard.Section> sections = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong queries = new AtomicLong();
+
+    public CardSearchIndex(MarketplaceCardRepository marketplaceCardRepository) {
+        this.marketplaceCardRepository = marketplaceCardRepository;
+    }
+
+    /**
+     * Replaces the contents of the index with the title and description of every card in the database.
+     */
+    public void rebuild() {
+        List<Object[]> cards = marketplaceCardRepository.findAllCardText();
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            sections.clear();
+            for (Object[] row : cards) {
+                long cardId = (Long) row[0];
+                index.put(cardId, analyzeCard((String) row[2], (String) row[3]));
+                sections.put(cardId, (MarketplaceCard.Section) row[1]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Loaded {} cards into the card search index", cards.size());
+    }
+
+    /**
+     * Adds a saved card to the index, replacing the card's previous text if it was already indexed.
+     * @param cardId The id of the card which has been saved.
+     * @param section The section the card is in.
+     * @param title The card's title.
+     * @param description The card's description, which may be null.
+     */
+    public void cardSaved(long cardId, MarketplaceCard.Section section, String title, String description) {
+        List<String> terms = analyzeCard(title, description);
+        lock.writeLock().lock();
+        try {
+            index.put(cardId, terms);
+            sections.put(cardId, section);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a deleted card from the index.
+     * @param cardId The id of the card which has been deleted.
+     */
+    public void cardRemoved(long cardId) {
+        lock.writeLock().lock();
+        try {
+            index.remove(cardId);
+            sections.remove(cardId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the cards whose title or description contain any of the words in a search query.
+     * @param query The search query.
+     * @param section The section to search in, or null to search every section.
+     * @return The ids of the matching cards, from most to least relevant.
+     */
+    public List<Long> search(String query, MarketplaceCard.Section section) {
+        List<String> queryTerms = InvertedIndex.analyze(query);
+        queries.incrementAndGet();
+        if (queryTerms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(queryTerms, cardId -> section == null || sections.get(cardId) == section);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits a card's text into the terms it is indexed under, with the title's terms repeated TITLE_WEIGHT times.
+     * @param title The card's title.
+     * @param description The card's description, which may be null.
+     * @return The card's terms.
+     */
+    private static List<String> analyzeCard(String title, String description) {
+        List<String> terms = new ArrayList<>();
+        List<String> titleTerms = InvertedIndex.analyze(title);
+        for (int i = 0; i < TITLE_WEIGHT; i++) {
+            terms.addAll(titleTerms);
+        }
+        terms.addAll(InvertedIndex.analyze(description));
+        return terms;
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "cardSearchIndex";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        lock.readLock().lock();
+        try {
+            statistics.put("cards", index.getDocumentCount());
+            statistics.put("terms", index.getTermCount());
+            statistics.put("postings", index.getPostingCount());
+            statistics.put("estimatedSizeBytes", index.getEstimatedSizeBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+        statistics.put("queries", queries.get());
+        return statistics;
+    }
+}
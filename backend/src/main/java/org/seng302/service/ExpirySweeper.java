@@ -0,0 +1,341 @@
+package org.seng302.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.minidev.json.JSONObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.entities.*;
+import org.seng302.persistence.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Moves closed marketplace cards, closed sale listings and expired inventory items out of their live tables and into
+ * the archived_record table, so that the list endpoints only read rows which are still active.
+ *
+ * Each table is swept in id order, one chunk of rows at a time. Each chunk is archived, deleted and recorded in the
+ * sweep's checkpoint in its own transaction, so a sweep which stops part way (because it reached the chunk limit for
+ * one run, or the application stopped) resumes after the last archived chunk. The sweeper sleeps between chunks so
+ * that it does not hold up requests. Inventory items are only archived once no sale listing is selling them, and sale
+ * listings are swept first so their inventory items can be archived in the same run.
+ *
+ * The number of rows archived in the last run of each sweep and the lag (how long ago the oldest closed row which is
+ * still in the live table closed) are reported under /statistics.
+ */
+@Service
+public class ExpirySweeper implements StatisticsProvider {
+
+    private static final Logger logger = LogManager.getLogger(ExpirySweeper.class);
+
+    private final boolean enabled;
+    private final int chunkSize;
+    private final long throttleMillis;
+    private final int maxChunksPerRun;
+    private final ExpirySweepCheckpointRepository checkpointRepository;
+    private final ArchivedRecordRepository archivedRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final List<Sweep> sweeps = new ArrayList<>();
+
+    @Autowired
+    public ExpirySweeper(MarketplaceCardRepository marketplaceCardRepository,
+                         SaleItemRepository saleItemRepository,
+                         InventoryItemRepository inventoryItemRepository,
+                         ArchivedRecordRepository archivedRecordRepository,
+                         ExpirySweepCheckpointRepository checkpointRepository,
+                         CardCountCache cardCountCache,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         @Value("${expiry-sweeper.enabled:false}") boolean enabled,
+                         @Value("${expiry-sweeper.chunk-size:200}") int chunkSize,
+                         @Value("${expiry-sweeper.throttle-millis:100}") long throttleMillis,
+                         @Value("${expiry-sweeper.max-chunks-per-run:50}") int maxChunksPerRun) {
+        this(marketplaceCardRepository, saleItemRepository, inventoryItemRepository, archivedRecordRepository,
+                checkpointRepository, cardCountCache, transactionManager, objectMapper, enabled, chunkSize,
+                throttleMillis, maxChunksPerRun, Clock.systemDefaultZone());
+    }
+
+    ExpirySweeper(MarketplaceCardRepository marketplaceCardRepository,
+                  SaleItemRepository saleItemRepository,
+                  InventoryItemRepository inventoryItemRepository,
+                  ArchivedRecordRepository archivedRecordRepository,
+                  ExpirySweepCheckpointRepository checkpointRepository,
+                  CardCountCache cardCountCache,
+                  PlatformTransactionManager transactionManager,
+                  ObjectMapper objectMapper,
+                  boolean enabled, int chunkSize, long throttleMillis, int maxChunksPerRun, Clock clock) {
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.throttleMillis = throttleMillis;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.checkpointRepository = checkpointRepository;
+        this.archivedRecordRepository = archivedRecordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+
+        sweeps.add(new Sweep("marketplaceCards",
+                (afterId, limit) -> marketplaceCardRepository.findIdsClosedBefore(clock.instant(), afterId, PageRequest.of(0, limit)),
+                ids -> {
+                    List<ArchivedRecord> records = new ArrayList<>();
+                    List<MarketplaceCard> cards = new ArrayList<>();
+                    for (MarketplaceCard card : marketplaceCardRepository.findAllById(ids)) {
+                        records.add(archive(ArchivedRecord.RecordType.MARKETPLACE_CARD, card.getID(), card.getCloses(),
+                                card.constructJSONObject()));
+                        cards.add(card);
+                    }
+                    marketplaceCardRepository.deleteAll(cards);
+                    return records;
+                },
+                () -> marketplaceCardRepository.findEarliestClosingBefore(clock.instant()),
+                () -> {
+                    for (MarketplaceCard.Section section : MarketplaceCard.Section.values()) {
+                        cardCountCache.cardsChanged(section);
+                    }
+                }));
+        sweeps.add(new Sweep("saleItems",
+                (afterId, limit) -> saleItemRepository.findIdsClosedBefore(today(), afterId, PageRequest.of(0, limit)),
+                ids -> {
+                    List<ArchivedRecord> records = new ArrayList<>();
+                    List<SaleItem> saleItems = new ArrayList<>();
+                    for (SaleItem saleItem : saleItemRepository.findAllById(ids)) {
+                        records.add(archive(ArchivedRecord.RecordType.SALE_ITEM, saleItem.getSaleId(),
+                                startOfDay(saleItem.getCloses()), saleItem.constructJSONObject()));
+                        saleItems.add(saleItem);
+                    }
+                    saleItemRepository.deleteAll(saleItems);
+                    return records;
+                },
+                () -> startOfDay(saleItemRepository.findEarliestClosingBefore(today())),
+                () -> {}));
+        sweeps.add(new Sweep("inventoryItems",
+                (afterId, limit) -> inventoryItemRepository.findIdsExpiredBefore(today(), afterId, PageRequest.of(0, limit)),
+                ids -> {
+                    List<ArchivedRecord> records = new ArrayList<>();
+                    List<InventoryItem> inventoryItems = new ArrayList<>();
+                    for (InventoryItem inventoryItem : inventoryItemRepository.findAllById(ids)) {
+                        records.add(archive(ArchivedRecord.RecordType.INVENTORY_ITEM, inventoryItem.getId(),
+                                startOfDay(inventoryItem.getExpires()), inventoryItem.constructJSONObject()));
+                        inventoryItems.add(inventoryItem);
+                    }
+                    inventoryItemRepository.deleteAll(inventoryItems);
+                    return records;
+                },
+                () -> startOfDay(inventoryItemRepository.findEarliestExpiryBefore(today())),
+                () -> {}));
+    }
+
+    /**
+     * Runs every sweep at a fixed interval, if the sweeper is enabled.
+     */
+    @Scheduled(initialDelayString = "${expiry-sweeper.initial-delay-millis:60000}",
+            fixedDelayString = "${expiry-sweeper.interval-millis:3600000}")
+    public void scheduledSweep() {
+        if (enabled) {
+            sweepAll();
+        }
+    }
+
+    /**
+     * Runs every sweep once, archiving up to the chunk limit of closed rows from each table.
+     */
+    public synchronized void sweepAll() {
+        for (Sweep sweep : sweeps) {
+            try {
+                runSweep(sweep);
+            } catch (RuntimeException e) {
+                logger.error("Expiry sweep of {} failed: {}", sweep.name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Archives closed rows from one table a chunk at a time, starting from the sweep's checkpoint, until there are no
+     * more closed rows or the chunk limit is reached.
+     * @param sweep The sweep to run.
+     */
+    private void runSweep(Sweep sweep) {
+        long startTime = System.nanoTime();
+        int archived = 0;
+        int chunks = 0;
+        boolean finished = false;
+        while (!finished && chunks < maxChunksPerRun) {
+            if (chunks > 0 && !throttle()) {
+                break;
+            }
+            ChunkResult result = transactionTemplate.execute(status -> sweepChunk(sweep));
+            chunks++;
+            archived += result.archived;
+            finished = result.finished;
+            if (result.archived > 0) {
+                sweep.afterArchive.run();
+            }
+        }
+
+        Instant oldestClosed = sweep.oldestClosed.get();
+        sweep.lastRunArchived = archived;
+        sweep.lastRunChunks = chunks;
+        sweep.lastRunMillis = (System.nanoTime() - startTime) / 1000000;
+        sweep.lastRunFinished = finished;
+        sweep.totalArchived += archived;
+        sweep.lagSeconds = oldestClosed == null ? 0 : Math.max(0, Duration.between(oldestClosed, clock.instant()).getSeconds());
+        logger.info("Expiry sweep of {} archived {} rows in {} chunks", sweep.name, archived, chunks);
+    }
+
+    /**
+     * Archives and deletes the next chunk of closed rows after the sweep's checkpoint, and moves the checkpoint past
+     * them. Must be run in a transaction.
+     * @param sweep The sweep to run.
+     * @return The number of rows archived, and whether the end of the table was reached.
+     */
+    private ChunkResult sweepChunk(Sweep sweep) {
+        ExpirySweepCheckpoint checkpoint = checkpointRepository.findById(sweep.name)
+                .orElseGet(() -> new ExpirySweepCheckpoint(sweep.name));
+        List<Long> ids = sweep.findClosedIds.find(checkpoint.getLastId(), chunkSize);
+        List<ArchivedRecord> records = ids.isEmpty() ? List.of() : sweep.archiveAndDelete.apply(ids);
+        archivedRecordRepository.saveAll(records);
+
+        boolean finished = ids.size() < chunkSize;
+        checkpoint.setLastId(finished ? 0 : ids.get(ids.size() - 1));
+        checkpointRepository.save(checkpoint);
+        return new ChunkResult(records.size(), finished);
+    }
+
+    /**
+     * Waits between chunks so that the sweep does not hold up other database work.
+     * @return False if the thread was interrupted while waiting, in which case the sweep should stop.
+     */
+    private boolean throttle() {
+        if (throttleMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(throttleMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Creates the archived copy of a row.
+     * @param recordType The type of the row.
+     * @param originalId The id of the row.
+     * @param closed The moment the row closed.
+     * @param json The JSON representation of the row.
+     * @return The archived record.
+     */
+    private ArchivedRecord archive(ArchivedRecord.RecordType recordType, long originalId, Instant closed, JSONObject json) {
+        try {
+            return new ArchivedRecord(recordType, originalId, closed, objectMapper.writeValueAsString(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(String.format("Could not archive %s %d", recordType, originalId), e);
+        }
+    }
+
+    /**
+     * @return The current date in the sweeper's time zone.
+     */
+    private LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * @param date A date, or null.
+     * @return The moment the date starts in the sweeper's time zone, or null if the date is null.
+     */
+    private Instant startOfDay(LocalDate date) {
+        return date == null ? null : date.atStartOfDay(clock.getZone()).toInstant();
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "expirySweeper";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("enabled", enabled);
+        statistics.put("chunkSize", chunkSize);
+        for (Sweep sweep : sweeps) {
+            JSONObject sweepStatistics = new JSONObject();
+            sweepStatistics.put("lastRunArchived", sweep.lastRunArchived);
+            sweepStatistics.put("lastRunChunks", sweep.lastRunChunks);
+            sweepStatistics.put("lastRunMillis", sweep.lastRunMillis);
+            sweepStatistics.put("lastRunFinished", sweep.lastRunFinished);
+            sweepStatistics.put("totalArchived", sweep.totalArchived);
+            sweepStatistics.put("lagSeconds", sweep.lagSeconds);
+            statistics.put(sweep.name, sweepStatistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * Finds the ids of closed rows in id order.
+     */
+    @FunctionalInterface
+    private interface ClosedIdFinder {
+        /**
+         * @param afterId Only rows with a greater id than this are returned.
+         * @param limit The maximum number of ids to return.
+         * @return The ids of closed rows.
+         */
+        List<Long> find(long afterId, int limit);
+    }
+
+    /**
+     * How to archive the closed rows of one table, and the statistics from its last run.
+     */
+    private static final class Sweep {
+        private final String name;
+        private final ClosedIdFinder findClosedIds;
+        private final Function<List<Long>, List<ArchivedRecord>> archiveAndDelete;
+        private final Supplier<Instant> oldestClosed;
+        private final Runnable afterArchive;
+
+        private volatile int lastRunArchived;
+        private volatile int lastRunChunks;
+        private volatile long lastRunMillis;
+        private volatile boolean lastRunFinished;
+        private volatile long totalArchived;
+        private volatile long lagSeconds;
+
+        Sweep(String name, ClosedIdFinder findClosedIds,
+              Function<List<Long>, List<ArchivedRecord>> archiveAndDelete, Supplier<Instant> oldestClosed,
+              Runnable afterArchive) {
+            this.name = name;
+            this.findClosedIds = findClosedIds;
+            this.archiveAndDelete = archiveAndDelete;
+            this.oldestClosed = oldestClosed;
+            this.afterArchive = afterArchive;
+        }
+    }
+
+    /**
+     * The outcome of archiving one chunk of rows.
+     */
+    private static final class ChunkResult {
+        private final int archived;
+        private final boolean finished;
+
+        ChunkResult(int archived, boolean finished) {
+            this.archived = archived;
+            this.finished = finished;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.seng302.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Moves the id sequences of entities with sequence generated ids past the ids which are already in use.
+ *
+ * These entities used to have database generated (auto increment) ids, which stop Hibernate from batching inserts as
+ * each insert has to return its id straight away. They now take blocks of ids from a sequence instead (or from a
+ * single row table standing in for one, on databases without sequences). When the sequence is first created for an
+ * existing database it starts at 1, so before anything is saved, each sequence is checked against the largest id of
+ * its entity and moved forward if it would hand out ids which are already taken. Sequences are only ever moved
+ * forward, so this is safe to run on every startup.
+ */
+@Component
+public class IdSequenceMigration {
+    private static final Logger logger = LogManager.getLogger(IdSequenceMigration.class.getName());
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    public IdSequenceMigration(EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Moves the sequence of every entity with sequence generated ids past the entity's largest id. Runs when the
+     * application starts, after the schema has been updated and before any entities are saved.
+     */
+    @PostConstruct
+    public void migrate() {
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            IdentifierGenerator generator = persister.getIdentifierGenerator();
+            if (generator instanceof SequenceStyleGenerator) {
+                transactionTemplate.executeWithoutResult(status ->
+                        migrateSequence(persister, ((SequenceStyleGenerator) generator).getDatabaseStructure()));
+            }
+        }
+    }
+
+    /**
+     * Moves the sequence of an entity forward, if needed, so that the next block of ids it hands out starts after
+     * the entity's largest id.
+     * @param persister The persister of the entity
+     * @param structure The sequence, or table standing in for a sequence, which the entity's ids come from
+     */
+    private void migrateSequence(EntityPersister persister, DatabaseStructure structure) {
+        Number maxId = (Number) entityManager.createQuery(String.format("SELECT MAX(e.%s) FROM %s e",
+                persister.getIdentifierPropertyName(), persister.getEntityName()))
+                .getSingleResult();
+        // Each value taken from the sequence is the last id of a block, so the next value must be a whole block past
+        // the largest id
+        long target = (maxId == null ? 0 : maxId.longValue()) + structure.getIncrementSize();
+        String name = structure.getName();
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+
+        if (structure.isPhysicalSequence()) {
+            // Reading the next value uses it up, which only leaves a gap in the ids
+            long next = ((Number) entityManager.createNativeQuery(dialect.getSequenceNextValString(name))
+                    .getSingleResult()).longValue();
+            if (next < target) {
+                entityManager.createNativeQuery(String.format("ALTER SEQUENCE %s RESTART WITH %d", name, target))
+                        .executeUpdate();
+                logger.info("Moved id sequence {} from {} to {}", name, next, target);
+            }
+        } else {
+            int updated = entityManager.createNativeQuery(String.format(
+                    "UPDATE %s SET next_val = :target WHERE next_val < :target", name))
+                    .setParameter("target", target)
+                    .executeUpdate();
+            if (updated > 0) {
+                logger.info("Moved id table {} to {}", name, target);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.entities.Keyword;
+import org.seng302.persistence.KeywordRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory map from keyword id to keyword, used to look up the keywords of new marketplace cards without a query for
+ * each keyword. There are only a small number of keywords and they rarely change, so every keyword is loaded at startup
+ * and the map is kept up to date by KeywordEntityListener when keywords are saved or deleted. Any id which is not in
+ * the map is looked up in the database, with all missing ids from one lookup fetched together.
+ */
+@Service
+public class KeywordDictionary implements StatisticsProvider {
+
+    private static final Logger logger = LogManager.getLogger(KeywordDictionary.class);
+
+    private final KeywordRepository keywordRepository;
+    private final ConcurrentMap<Long, Keyword> keywords = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong databaseLookups = new AtomicLong();
+
+    public KeywordDictionary(KeywordRepository keywordRepository) {
+        this.keywordRepository = keywordRepository;
+    }
+
+    /**
+     * Replaces the contents of the dictionary with every keyword in the database.
+     */
+    public void rebuild() {
+        keywords.clear();
+        for (Keyword keyword : keywordRepository.findAll()) {
+            putKeyword(keyword);
+        }
+        logger.info("Loaded {} keywords into the keyword dictionary", keywords.size());
+    }
+
+    /**
+     * Adds a saved keyword to the dictionary, replacing any keyword with the same id.
+     * @param keyword The keyword which has been saved.
+     */
+    public void putKeyword(Keyword keyword) {
+        keywords.put(keyword.getID(), keyword);
+    }
+
+    /**
+     * Removes a deleted keyword from the dictionary.
+     * @param keywordId The id of the keyword which has been deleted.
+     */
+    public void removeKeyword(long keywordId) {
+        keywords.remove(keywordId);
+    }
+
+    /**
+     * Gets the keywords with the given ids, in the same order. Ids which are not in the dictionary are fetched from the
+     * database in a single query. A response status exception with 400 status is thrown if any of the keywords do not
+     * exist.
+     * @param keywordIds The ids of the keywords to get.
+     * @return The keyword for each id.
+     */
+    public List<Keyword> getKeywords(long[] keywordIds) {
+        Set<Long> missingIds = new LinkedHashSet<>();
+        for (long keywordId : keywordIds) {
+            if (!keywords.containsKey(keywordId)) {
+                missingIds.add(keywordId);
+            }
+        }
+        hits.addAndGet((long) keywordIds.length - missingIds.size());
+        if (!missingIds.isEmpty()) {
+            misses.addAndGet(missingIds.size());
+            databaseLookups.incrementAndGet();
+            for (Keyword keyword : keywordRepository.findAllById(missingIds)) {
+                putKeyword(keyword);
+            }
+        }
+
+        List<Keyword> result = new ArrayList<>(keywordIds.length);
+        for (long keywordId : keywordIds) {
+            Keyword keyword = keywords.get(keywordId);
+            if (keyword == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("Keyword with ID %d does not exist", keywordId));
+            }
+            result.add(keyword);
+        }
+        return result;
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "keywordDictionary";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("keywords", keywords.size());
+        statistics.put("hits", hits.get());
+        statistics.put("misses", misses.get());
+        statistics.put("databaseLookups", databaseLookups.get());
+        return statistics;
+    }
+}
@@ -0,0 +1,78 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+
+/**
+ * The result of importing a catalogue: how many products were added, and why each rejected row was rejected. Only the
+ * first errors are kept, so that an upload where every row is rejected does not produce a report as large as the
+ * upload itself. The number of failed rows is always complete.
+ */
+public class ProductImportReport {
+
+    private final int maxReportedErrors;
+    private final JSONArray errors = new JSONArray();
+    private long importedCount = 0;
+    private long failedCount = 0;
+
+    /**
+     * @param maxReportedErrors The most row errors to keep in the report
+     */
+    public ProductImportReport(int maxReportedErrors) {
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Records that products were added to the catalogue
+     * @param count The number of products added
+     */
+    void addImported(long count) {
+        importedCount += count;
+    }
+
+    /**
+     * Records that a row was rejected
+     * @param row The line number of the row in the upload
+     * @param productCode The product code in the row, or null if it did not have one
+     * @param message Why the row was rejected
+     */
+    void addError(long row, String productCode, String message) {
+        failedCount++;
+        if (errors.size() < maxReportedErrors) {
+            JSONObject error = new JSONObject();
+            error.put("row", row);
+            if (productCode != null) {
+                error.put("productCode", productCode);
+            }
+            error.put("message", message);
+            errors.add(error);
+        }
+    }
+
+    /**
+     * @return The number of products added to the catalogue
+     */
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    /**
+     * @return The number of rows which were rejected
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Construct a JSON object representing the report
+     * @return JSON object with the number of imported and failed rows, and the errors of the rejected rows
+     */
+    public JSONObject constructJSONObject() {
+        JSONObject object = new JSONObject();
+        object.put("imported", importedCount);
+        object.put("failed", failedCount);
+        object.put("errors", errors);
+        object.put("errorsTruncated", failedCount > errors.size());
+        return object;
+    }
+}
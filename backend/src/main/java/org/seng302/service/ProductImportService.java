@@ -0,0 +1,321 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import net.minidev.json.parser.JSONParser;
+import net.minidev.json.parser.ParseException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.entities.Business;
+import org.seng302.entities.Product;
+import org.seng302.persistence.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * Imports a business's catalogue from a CSV or NDJSON upload. The upload is read one line at a time, so the memory
+ * used does not grow with the size of the upload.
+ *
+ * Rows are handled in chunks. Each row is validated by Product.Builder, and the product codes of a chunk are checked
+ * against the catalogue with a single query. As earlier chunks are already in the catalogue by then, this also finds
+ * codes repeated from earlier in the upload, so nothing has to be remembered between chunks. The new products of the
+ * chunk are then inserted in one transaction, and detached once it is flushed so the persistence context does not
+ * grow either. A row which cannot be imported is recorded in the report along with the reason, and the rest of the
+ * upload carries on.
+ */
+@Service
+public class ProductImportService {
+    private static final Logger logger = LogManager.getLogger(ProductImportService.class.getName());
+
+    /**
+     * The formats an upload can be in. CSV uploads start with a header row naming the columns, and NDJSON uploads
+     * have one JSON object per line. Both use the same names as the product creation request ("id", "name",
+     * "description", "manufacturer" and "recommendedRetailPrice").
+     */
+    public enum Format { CSV, NDJSON }
+
+    private static final List<String> FIELDS = List.of("id", "name", "description", "manufacturer", "recommendedRetailPrice");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(ProductRepository productRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${product-import.chunk-size:1000}") int chunkSize,
+                                @Value("${product-import.max-reported-errors:1000}") int maxReportedErrors) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Adds the products in an upload to a business's catalogue. Rows which are invalid, or whose product code is
+     * already in the catalogue or earlier in the upload, are not added and are recorded in the report instead. A code
+     * repeated within a chunk is reported as a repeat, and a code repeated from an earlier chunk is reported as
+     * already being in the catalogue.
+     * @param business The business to add the products to
+     * @param upload The contents of the upload
+     * @param format The format of the upload
+     * @return The report of how many products were added and which rows were rejected
+     * @throws IOException If the upload could not be read
+     * @throws ResponseStatusException 400 if a CSV upload does not have a valid header row
+     */
+    public ProductImportReport importProducts(Business business, Reader upload, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        BufferedReader reader = new BufferedReader(upload);
+        ProductImportReport report = new ProductImportReport(maxReportedErrors);
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        List<String> header = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == Format.CSV && header == null) {
+                header = readCsvHeader(line);
+                continue;
+            }
+            chunk.add(format == Format.CSV ? readCsvRow(lineNumber, line, header) : readJsonRow(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                importChunk(business, chunk, report);
+                chunk.clear();
+            }
+        }
+        if (format == Format.CSV && header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The CSV file must start with a header row");
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(business, chunk, report);
+        }
+
+        logger.info("Imported {} products into the catalogue of business {} ({} rows rejected) in {}ms",
+                report.getImportedCount(), business.getId(), report.getFailedCount(), System.currentTimeMillis() - start);
+        return report;
+    }
+
+    /**
+     * Validates the rows of a chunk, then adds the valid products which are not already in the catalogue in a single
+     * transaction. Only the products added by the chunk are detached afterwards, so the business and anything else
+     * the caller has loaded stay attached.
+     * @param business The business to add the products to
+     * @param rows The rows of the chunk
+     * @param report The report to record the results in
+     */
+    private void importChunk(Business business, List<Row> rows, ProductImportReport report) {
+        Map<String, Product> products = new LinkedHashMap<>();
+        Map<String, Row> productRows = new HashMap<>();
+        List<Product> built = new ArrayList<>();
+        for (Row row : rows) {
+            String productCode = row.fields.get("id");
+            if (row.error != null) {
+                report.addError(row.number, productCode, row.error);
+                continue;
+            }
+            Product product;
+            try {
+                product = new Product.Builder()
+                        .withProductCode(productCode)
+                        .withName(row.fields.get("name"))
+                        .withDescription(row.fields.get("description"))
+                        .withManufacturer(row.fields.get("manufacturer"))
+                        .withRecommendedRetailPrice(row.fields.get("recommendedRetailPrice"))
+                        .withBusiness(business)
+                        .build();
+            } catch (ResponseStatusException exception) {
+                report.addError(row.number, productCode, exception.getReason());
+                continue;
+            }
+            built.add(product);
+            if (products.containsKey(productCode)) {
+                report.addError(row.number, productCode, "Product code appears more than once in the upload");
+                continue;
+            }
+            products.put(productCode, product);
+            productRows.put(productCode, row);
+        }
+
+        try {
+            if (products.isEmpty()) {
+                return;
+            }
+            List<String> existingCodes = new ArrayList<>();
+            int imported = transactionTemplate.execute(status -> {
+                existingCodes.addAll(productRepository.findProductCodesInCatalogue(business, products.keySet()));
+                Set<String> existing = new HashSet<>(existingCodes);
+                List<Product> persisted = new ArrayList<>();
+                for (Map.Entry<String, Product> entry : products.entrySet()) {
+                    if (!existing.contains(entry.getKey())) {
+                        entityManager.persist(entry.getValue());
+                        persisted.add(entry.getValue());
+                    }
+                }
+                entityManager.flush();
+                persisted.forEach(entityManager::detach);
+                return persisted.size();
+            });
+            for (String productCode : existingCodes) {
+                report.addError(productRows.get(productCode).number, productCode,
+                        "Product already exists with product code in this catalogue");
+            }
+            report.addImported(imported);
+        } catch (DataAccessException | PersistenceException exception) {
+            logger.error("Could not save a chunk of imported products: {}", exception.getMessage());
+            for (Map.Entry<String, Row> entry : productRows.entrySet()) {
+                report.addError(entry.getValue().number, entry.getKey(), "Product could not be saved");
+            }
+        } finally {
+            // Building a product adds it to the business's catalogue, which should only hold what was loaded
+            business.removeAllFromCatalogue(built);
+        }
+    }
+
+    /**
+     * Reads the header row of a CSV upload
+     * @param line The first line of the upload
+     * @return The names of the columns, in order
+     * @throws ResponseStatusException 400 if the header does not have the product code and name columns
+     */
+    private static List<String> readCsvHeader(String line) {
+        List<String> header = new ArrayList<>();
+        try {
+            for (String column : parseCsvLine(line)) {
+                header.add(column.trim());
+            }
+        } catch (IllegalArgumentException exception) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The CSV header row is not valid: " + exception.getMessage());
+        }
+        if (!header.contains("id") || !header.contains("name")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The CSV header row must include the columns \"id\" and \"name\"");
+        }
+        return header;
+    }
+
+    /**
+     * Reads a row of a CSV upload. Columns which are not product fields are ignored.
+     * @param number The line number of the row
+     * @param line The row
+     * @param header The names of the columns
+     * @return The row, with an error if it could not be read
+     */
+    private static Row readCsvRow(long number, String line, List<String> header) {
+        Row row = new Row(number);
+        List<String> values;
+        try {
+            values = parseCsvLine(line);
+        } catch (IllegalArgumentException exception) {
+            row.error = exception.getMessage();
+            return row;
+        }
+        if (values.size() != header.size()) {
+            row.error = String.format("Row has %d columns but the header has %d", values.size(), header.size());
+        }
+        for (int i = 0; i < Math.min(values.size(), header.size()); i++) {
+            if (FIELDS.contains(header.get(i))) {
+                row.fields.put(header.get(i), values.get(i));
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Reads a row of an NDJSON upload
+     * @param number The line number of the row
+     * @param line The row
+     * @return The row, with an error if it could not be read
+     */
+    private static Row readJsonRow(long number, String line) {
+        Row row = new Row(number);
+        Object value;
+        try {
+            value = new JSONParser(JSONParser.MODE_PERMISSIVE).parse(line);
+        } catch (ParseException exception) {
+            row.error = "Row is not valid JSON";
+            return row;
+        }
+        if (!(value instanceof JSONObject)) {
+            row.error = "Row is not a JSON object";
+            return row;
+        }
+        JSONObject object = (JSONObject) value;
+        for (String field : FIELDS) {
+            row.fields.put(field, object.getAsString(field));
+        }
+        return row;
+    }
+
+    /**
+     * Splits a line of CSV into its values. Values are separated by commas, and may be surrounded by double quotes,
+     * in which case they may contain commas, and double quotes written as two double quotes. Values cannot span
+     * more than one line.
+     * @param line The line of CSV
+     * @return The values in the line
+     * @throws IllegalArgumentException If a quoted value is not closed
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Row has a quoted value which is not closed");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * A row of an upload, with the product fields it contains
+     */
+    private static class Row {
+        private final long number;
+        private final Map<String, String> fields = new HashMap<>();
+        private String error;
+
+        private Row(long number) {
+            this.number = number;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.seng302.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.entities.Product;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Computes the collation sort keys of products which were saved before products had sort keys.
+ *
+ * Catalogues and inventories are ordered by name, description and manufacturer using the sort key columns, which are
+ * set whenever a product is saved. When the columns are first added to an existing database they are empty, so those
+ * products would be ordered after every other product. Products are only updated while their name sort key is
+ * missing (a product always has a name), so this is safe to run on every startup.
+ */
+@Component
+public class ProductSortKeyMigration {
+    private static final Logger logger = LogManager.getLogger(ProductSortKeyMigration.class.getName());
+    private static final int BATCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ProductSortKeyMigration(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Computes the sort keys of every product without them, a batch of products per transaction. Runs when the
+     * application starts, after the schema has been updated.
+     */
+    @PostConstruct
+    public void migrate() {
+        int updated = 0;
+        int batchSize;
+        do {
+            batchSize = transactionTemplate.execute(status -> updateBatch());
+            updated += batchSize;
+        } while (batchSize == BATCH_SIZE);
+        if (updated > 0) {
+            logger.info("Computed sort keys for {} products", updated);
+        }
+    }
+
+    /**
+     * Computes the sort keys of the next batch of products without them.
+     * @return The number of products updated
+     */
+    private int updateBatch() {
+        List<Product> products = entityManager
+                .createQuery("SELECT p FROM Product p WHERE p.nameSortKey IS NULL", Product.class)
+                .setMaxResults(BATCH_SIZE)
+                .getResultList();
+        for (Product product : products) {
+            product.updateSortKeys();
+        }
+        return products.size();
+    }
+}
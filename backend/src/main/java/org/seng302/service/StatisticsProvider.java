@@ -0,0 +1,20 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+
+/**
+ * Implemented by services which keep in-memory state (such as indexes or caches) that administrators may want to
+ * monitor. The statistics of every StatisticsProvider bean are returned by the /statistics endpoint.
+ */
+public interface StatisticsProvider {
+
+    /**
+     * @return The key which this provider's statistics will be listed under.
+     */
+    String getStatisticsName();
+
+    /**
+     * @return A JSON object containing the current statistics for this provider.
+     */
+    JSONObject getStatistics();
+}
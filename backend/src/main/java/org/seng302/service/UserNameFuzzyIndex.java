@@ -0,0 +1,225 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.persistence.UserNames;
+import org.seng302.tools.BKTree;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the words in users' names which are within a small edit distance of a search term, so that searches with a
+ * misspelt name can still find users. The distinct lower case words of every searchable user's names are kept in a
+ * BK-tree, so a search only compares the term against a small part of the vocabulary rather than every user.
+ *
+ * Each word is reference counted by the users whose names contain it. The BK-tree cannot remove words, so words which
+ * are no longer used are filtered out of the results until enough have built up for the tree to be rebuilt.
+ */
+@Service
+public class UserNameFuzzyIndex implements StatisticsProvider {
+    private static final Logger logger = LogManager.getLogger(UserNameFuzzyIndex.class.getName());
+    private static final int MIN_TERM_LENGTH = 4;
+    private static final int TWO_EDIT_TERM_LENGTH = 8;
+
+    private final boolean enabled;
+    private final int maxAlternatives;
+    private final Map<String, Integer> userCountsByWord = new HashMap<>();
+    private final Map<Long, Set<String>> wordsByUser = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong version = new AtomicLong();
+    private BKTree tree = new BKTree();
+
+    public UserNameFuzzyIndex(@Value("${user-search.fuzzy.enabled:true}") boolean enabled,
+                              @Value("${user-search.fuzzy.max-alternatives:10}") int maxAlternatives) {
+        this.enabled = enabled;
+        this.maxAlternatives = maxAlternatives;
+    }
+
+    /**
+     * @return True if fuzzy matching is enabled and the index should be kept up to date.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return A number which changes whenever a word is added to or removed from the index, so that anything derived
+     * from the index's results (such as a cached search plan) can tell when it is out of date.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Clears the index and adds the words in the names of all the given users.
+     * @param users The names of every user which should be searchable.
+     */
+    public void rebuild(List<UserNames> users) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            userCountsByWord.clear();
+            wordsByUser.clear();
+            for (UserNames user : users) {
+                addWords(user.getUserID(), getWords(Arrays.asList(user.getFirstName(), user.getMiddleName(),
+                        user.getLastName(), user.getNickname())));
+            }
+            rebuildTree();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Rebuilt fuzzy user name index with {} distinct words", userCountsByWord.size());
+    }
+
+    /**
+     * Adds the words in a user's names, replacing the words from their previous names.
+     * @param userId The id of the user.
+     * @param names The user's first name, middle name, last name and nickname. Any of these may be null.
+     */
+    public void putUser(long userId, List<String> names) {
+        if (!enabled) {
+            return;
+        }
+        Set<String> words = getWords(names);
+        lock.writeLock().lock();
+        try {
+            if (words.equals(wordsByUser.get(userId))) {
+                return;
+            }
+            removeWords(userId);
+            addWords(userId, words);
+            for (String word : words) {
+                tree.add(word);
+            }
+            rebuildTreeIfMostlyUnused();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the words in a user's names.
+     * @param userId The id of the user.
+     */
+    public void removeUser(long userId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeWords(userId);
+            rebuildTreeIfMostlyUnused();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the words in users' names which are close to, but do not contain, the given partial match search term.
+     * Terms of at least four characters may be one edit away from a word, and terms of at least eight characters may
+     * be two edits away. Terms containing LIKE wildcard characters are not matched fuzzily.
+     * @param term A partial match search term.
+     * @return The closest words to the term, or an empty list if the term has no fuzzy matches.
+     */
+    public List<String> findAlternatives(String term) {
+        String lowerTerm = term.toLowerCase(Locale.ROOT);
+        if (!enabled || lowerTerm.length() < MIN_TERM_LENGTH || lowerTerm.matches(".*[%_\\\\].*")) {
+            return List.of();
+        }
+        int maxDistance = lowerTerm.length() >= TWO_EDIT_TERM_LENGTH ? 2 : 1;
+        lock.readLock().lock();
+        try {
+            return tree.search(lowerTerm, maxDistance).stream()
+                    .filter(userCountsByWord::containsKey)
+                    .filter(word -> !word.contains(lowerTerm))
+                    .limit(maxAlternatives)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits names into their distinct lower case words.
+     * @param names A user's names. Any of these may be null.
+     * @return The words in the names.
+     */
+    static Set<String> getWords(List<String> names) {
+        Set<String> words = new HashSet<>();
+        for (String name : names) {
+            if (name == null) {
+                continue;
+            }
+            for (String word : name.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+
+    private void addWords(long userId, Set<String> words) {
+        wordsByUser.put(userId, words);
+        for (String word : words) {
+            if (userCountsByWord.merge(word, 1, Integer::sum) == 1) {
+                version.incrementAndGet();
+            }
+        }
+    }
+
+    private void removeWords(long userId) {
+        Set<String> words = wordsByUser.remove(userId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            if (userCountsByWord.merge(word, -1, Integer::sum) == 0) {
+                userCountsByWord.remove(word);
+                version.incrementAndGet();
+            }
+        }
+    }
+
+    private void rebuildTreeIfMostlyUnused() {
+        if (tree.size() > 2 * userCountsByWord.size() + 16) {
+            rebuildTree();
+        }
+    }
+
+    private void rebuildTree() {
+        BKTree newTree = new BKTree();
+        userCountsByWord.keySet().forEach(newTree::add);
+        tree = newTree;
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "userNameFuzzyIndex";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            statistics.put("words", userCountsByWord.size());
+            statistics.put("treeSize", tree.size());
+            statistics.put("users", wordsByUser.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        statistics.put("version", version.get());
+        return statistics;
+    }
+}
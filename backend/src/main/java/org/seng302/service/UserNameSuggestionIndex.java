@@ -0,0 +1,185 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.persistence.UserNames;
+import org.seng302.tools.CompletionTrie;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Suggests completions for the user search box as the user types. The distinct lower case words of every searchable
+ * user's names are kept in a compressed trie, where the frequency of a word is the number of users with that word in
+ * their names. Each node of the trie caches its most frequent completions, so a suggestion is answered from memory in
+ * time proportional to the length of the prefix, without touching the database.
+ *
+ * The trie is built when the application starts, and is then kept up to date by UserEntityListener as users register,
+ * change their names or are deleted.
+ */
+@Service
+public class UserNameSuggestionIndex implements StatisticsProvider {
+    private static final Logger logger = LogManager.getLogger(UserNameSuggestionIndex.class.getName());
+
+    private final boolean enabled;
+    private final int topK;
+    private final CompletionTrie trie;
+    private final Map<Long, Set<String>> wordsByUser = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong suggestions = new AtomicLong();
+    private final AtomicLong suggestionNanos = new AtomicLong();
+
+    public UserNameSuggestionIndex(@Value("${user-search.suggest.enabled:true}") boolean enabled,
+                                   @Value("${user-search.suggest.top-k:10}") int topK) {
+        this.enabled = enabled;
+        this.topK = topK;
+        this.trie = new CompletionTrie(topK);
+    }
+
+    /**
+     * @return True if suggestions are enabled and the index should be kept up to date.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The largest number of suggestions which can be returned for a prefix.
+     */
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * Clears the index and adds the words in the names of all the given users.
+     * @param users The names of every user which should be searchable.
+     */
+    public void rebuild(List<UserNames> users) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            trie.clear();
+            wordsByUser.clear();
+            for (UserNames user : users) {
+                addWords(user.getUserID(), UserNameFuzzyIndex.getWords(Arrays.asList(user.getFirstName(),
+                        user.getMiddleName(), user.getLastName(), user.getNickname())));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Rebuilt user name suggestion index with {} words", trie.getWordCount());
+    }
+
+    /**
+     * Adds the words in a user's names, replacing the words from their previous names.
+     * @param userId The id of the user.
+     * @param names The user's first name, middle name, last name and nickname. Any of these may be null.
+     */
+    public void putUser(long userId, List<String> names) {
+        if (!enabled) {
+            return;
+        }
+        Set<String> words = UserNameFuzzyIndex.getWords(names);
+        lock.writeLock().lock();
+        try {
+            if (words.equals(wordsByUser.get(userId))) {
+                return;
+            }
+            removeWords(userId);
+            addWords(userId, words);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the words in a user's names.
+     * @param userId The id of the user.
+     */
+    public void removeUser(long userId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeWords(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Suggests completions of the last word of what the user has typed into the search box, by the number of users
+     * with each completion in their names. The text before the last word is kept, so each suggestion is a complete
+     * search query, e.g. 'john sm' may give 'john smith'.
+     * @param prefix The text typed so far.
+     * @param limit The largest number of suggestions to return. At most topK suggestions are returned.
+     * @return The suggested queries, with the most common completion first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        int lastWordStart = prefix.lastIndexOf(' ') + 1;
+        String lastWord = prefix.substring(lastWordStart).toLowerCase(Locale.ROOT);
+        if (!enabled || lastWord.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        List<String> completions;
+        lock.readLock().lock();
+        try {
+            completions = trie.complete(lastWord, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<String> suggestedQueries = new ArrayList<>(completions.size());
+        for (String completion : completions) {
+            suggestedQueries.add(prefix.substring(0, lastWordStart) + completion);
+        }
+        suggestions.incrementAndGet();
+        suggestionNanos.addAndGet(System.nanoTime() - start);
+        return suggestedQueries;
+    }
+
+    private void addWords(long userId, Set<String> words) {
+        wordsByUser.put(userId, words);
+        words.forEach(trie::increment);
+    }
+
+    private void removeWords(long userId) {
+        Set<String> words = wordsByUser.remove(userId);
+        if (words != null) {
+            words.forEach(trie::decrement);
+        }
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "userNameSuggestionIndex";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("enabled", enabled);
+        statistics.put("topK", topK);
+        lock.readLock().lock();
+        try {
+            statistics.put("words", trie.getWordCount());
+            statistics.put("nodes", trie.getNodeCount());
+            statistics.put("users", wordsByUser.size());
+            statistics.put("estimatedMemoryBytes", trie.estimateMemoryUsage());
+        } finally {
+            lock.readLock().unlock();
+        }
+        long count = suggestions.get();
+        statistics.put("suggestions", count);
+        statistics.put("averageSuggestionMicros", count == 0 ? 0 : suggestionNanos.get() / count / 1000.0);
+        return statistics;
+    }
+}
@@ -0,0 +1,192 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.entities.UserNameTrigram;
+import org.seng302.tools.AuthenticationTokenManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the user_name_trigram side table, which holds the trigrams of every searchable user's names. The table
+ * lets a partial match search term be answered by first finding the users whose names contain every trigram of the
+ * term through the table's index, and then only checking those users with the LIKE predicate.
+ *
+ * Rows for a user are replaced whenever the user is saved, and removed when the user is deleted. Rows for users which
+ * already existed before the table was enabled are added by a backfill job, which works through the user table in
+ * batches. The table is not used for searching until the backfill has completed, as until then it may be missing users.
+ */
+@Service
+public class UserNameTrigramService implements StatisticsProvider {
+    private static final Logger logger = LogManager.getLogger(UserNameTrigramService.class.getName());
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean enabled;
+    private final int backfillBatchSize;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLong updatedUsers = new AtomicLong();
+    private final AtomicLong removedUsers = new AtomicLong();
+    private volatile boolean backfillComplete = false;
+    private volatile long backfilledUsers = 0;
+    private volatile long lastBackfillMillis = 0;
+
+    public UserNameTrigramService(@Value("${user-search.trigram-table.enabled:false}") boolean enabled,
+                                  @Value("${user-search.trigram-table.backfill-batch-size:500}") int backfillBatchSize,
+                                  PlatformTransactionManager transactionManager) {
+        if (backfillBatchSize < 1) {
+            throw new IllegalArgumentException("Backfill batch size must be at least 1");
+        }
+        this.enabled = enabled;
+        this.backfillBatchSize = backfillBatchSize;
+        // Changes to the table are made after the user's transaction has committed, so they need their own transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * @return True if the trigram table is maintained.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return True if the trigram table is maintained and contains every user, so can be used for searching.
+     */
+    public boolean isSearchable() {
+        return enabled && backfillComplete;
+    }
+
+    /**
+     * Replaces the trigrams of the given user with the trigrams of the given names.
+     * @param userId The id of the user.
+     * @param names The user's first name, middle name, last name and nickname. Names may be null.
+     */
+    public void updateUser(long userId, List<String> names) {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            deleteTrigrams(List.of(userId));
+            insertTrigrams(userId, names);
+        });
+        updatedUsers.incrementAndGet();
+    }
+
+    /**
+     * Removes the trigrams of the given user.
+     * @param userId The id of the user.
+     */
+    public void removeUser(long userId) {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> deleteTrigrams(List.of(userId)));
+        removedUsers.incrementAndGet();
+    }
+
+    /**
+     * Populates the trigram table for every searchable user, in batches ordered by user id. Each batch replaces the
+     * trigrams of its users in its own transaction, so the backfill can be run again safely, and a failure part way
+     * through only loses the current batch. Once the backfill completes, the table can be used for searching.
+     * @return The number of users whose trigrams were added.
+     */
+    public long backfill() {
+        if (!enabled) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        long total = 0;
+        long lastUserId = Long.MIN_VALUE;
+        List<Long> batch;
+        do {
+            batch = backfillBatch(lastUserId);
+            if (!batch.isEmpty()) {
+                lastUserId = batch.get(batch.size() - 1);
+                total += batch.size();
+                logger.debug("Backfilled user name trigrams for {} users, up to user {}", total, lastUserId);
+            }
+        } while (batch.size() == backfillBatchSize);
+
+        backfilledUsers = total;
+        lastBackfillMillis = System.currentTimeMillis() - start;
+        backfillComplete = true;
+        logger.info("Backfilled user name trigrams for {} users in {}ms", total, lastBackfillMillis);
+        return total;
+    }
+
+    /**
+     * Replaces the trigrams of the next batch of users in a new transaction.
+     * @param lastUserId The id of the last user in the previous batch.
+     * @return The ids of the users in the batch, in order.
+     */
+    private List<Long> backfillBatch(long lastUserId) {
+        return transactionTemplate.execute(status -> {
+            List<Object[]> users = entityManager.createQuery(
+                    "SELECT u.userID, u.firstName, u.middleName, u.lastName, u.nickname FROM User u " +
+                    "WHERE u.role <> :dgaaRole AND u.userID > :lastUserId " +
+                    "ORDER BY u.userID", Object[].class)
+                    .setParameter("dgaaRole", AuthenticationTokenManager.ROLE_DGAA)
+                    .setParameter("lastUserId", lastUserId)
+                    .setMaxResults(backfillBatchSize)
+                    .getResultList();
+            if (users.isEmpty()) {
+                return List.of();
+            }
+            List<Long> userIds = users.stream().map(user -> (Long) user[0]).collect(Collectors.toList());
+            deleteTrigrams(userIds);
+            for (Object[] user : users) {
+                insertTrigrams((Long) user[0], Arrays.asList((String) user[1], (String) user[2], (String) user[3],
+                        (String) user[4]));
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return userIds;
+        });
+    }
+
+    private void deleteTrigrams(Collection<Long> userIds) {
+        entityManager.createQuery("DELETE FROM UserNameTrigram t WHERE t.userId IN :userIds")
+                .setParameter("userIds", userIds)
+                .executeUpdate();
+    }
+
+    private void insertTrigrams(long userId, List<String> names) {
+        Set<String> trigrams = UserNameTrigram.getTrigrams(names.toArray(new String[0]));
+        for (String trigram : trigrams) {
+            entityManager.persist(new UserNameTrigram(trigram, userId));
+        }
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "userNameTrigramTable";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("enabled", enabled);
+        statistics.put("searchable", isSearchable());
+        statistics.put("backfilledUsers", backfilledUsers);
+        statistics.put("lastBackfillMillis", lastBackfillMillis);
+        statistics.put("updatedUsers", updatedUsers.get());
+        statistics.put("removedUsers", removedUsers.get());
+        return statistics;
+    }
+}
@@ -0,0 +1,50 @@
+package org.seng302.service;
+
+import org.seng302.persistence.UserNames;
+import org.seng302.persistence.UserSearchPlan;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An optional in-memory index over the names of users, which can answer user search queries (see SearchHelper)
+ * without a LIKE scan of the user table. The index is kept up to date by UserEntityListener, and is rebuilt from the
+ * database at startup.
+ */
+public interface UserSearchIndex {
+
+    /**
+     * @return True if the index is enabled and should be kept up to date.
+     */
+    boolean isEnabled();
+
+    /**
+     * Clears the index and adds all the given users to it.
+     * @param users The names of every user which should be searchable.
+     */
+    void rebuild(List<UserNames> users);
+
+    /**
+     * Adds a user to the index, or updates their names if they are already in it.
+     * @param userId The id of the user.
+     * @param names The user's first name, middle name, last name and nickname. Any of these may be null.
+     */
+    void putUser(long userId, List<String> names);
+
+    /**
+     * Removes a user from the index.
+     * @param userId The id of the user.
+     */
+    void removeUser(long userId);
+
+    /**
+     * Gets the ids of all the users which match the given search query, in the order given by the sort. If the index
+     * is disabled, or cannot answer the query with the same results as the database, an empty optional is returned and
+     * the caller should query the database instead.
+     * @param plan The compiled search query.
+     * @param sort The order to return the user ids in.
+     * @return The ordered ids of the matching users, or an empty optional if the index cannot be used.
+     */
+    Optional<List<Long>> search(UserSearchPlan plan, Sort sort);
+}
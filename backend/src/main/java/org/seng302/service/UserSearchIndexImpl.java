@@ -0,0 +1,179 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.persistence.UserNames;
+import org.seng302.persistence.UserSearchPlan;
+import org.seng302.tools.NGramIndex;
+import org.seng302.tools.SearchHelper;
+import org.seng302.tools.SearchQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * UserSearchIndex which stores the names of users in an NGramIndex of trigrams.
+ */
+@Service
+public class UserSearchIndexImpl implements UserSearchIndex, StatisticsProvider {
+    private static final Logger logger = LogManager.getLogger(UserSearchIndexImpl.class.getName());
+    private static final int GRAM_LENGTH = 3;
+    private static final String USER_ID_ORDER_BY = "userID";
+
+    private final boolean enabled;
+    private final NGramIndex index = new NGramIndex(GRAM_LENGTH);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong indexedSearches = new AtomicLong();
+    private final AtomicLong fallbackSearches = new AtomicLong();
+    private long lastRebuildMillis = 0;
+
+    public UserSearchIndexImpl(@Value("${user-search.ngram-index.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void rebuild(List<UserNames> users) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            for (UserNames user : users) {
+                index.put(user.getUserID(), Arrays.asList(user.getFirstName(), user.getMiddleName(),
+                        user.getLastName(), user.getNickname()));
+            }
+            lastRebuildMillis = System.currentTimeMillis() - start;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Rebuilt user search index with {} users in {}ms (approx. {} bytes)",
+                users.size(), lastRebuildMillis, index.estimateMemoryUsage());
+    }
+
+    @Override
+    public void putUser(long userId, List<String> names) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index.put(userId, names);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeUser(long userId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index.remove(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The index can only order results by relevance or by user id, and cannot answer queries containing LIKE wildcard
+     * or escape characters, as exact terms are matched with LIKE by the database.
+     */
+    @Override
+    public Optional<List<Long>> search(UserSearchPlan plan, Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc(SearchHelper.RELEVANCE_ORDER_BY));
+        boolean supportedOrder = order.getProperty().equals(SearchHelper.RELEVANCE_ORDER_BY) ||
+                order.getProperty().equals(USER_ID_ORDER_BY);
+        if (!enabled || !supportedOrder || plan.containsLikeWildcards()) {
+            fallbackSearches.incrementAndGet();
+            return Optional.empty();
+        }
+
+        List<Long> results;
+        lock.readLock().lock();
+        try {
+            Set<Long> matches = find(plan.getFuzzyQuery());
+            Comparator<Long> comparator = Comparator.naturalOrder();
+            if (order.getProperty().equals(SearchHelper.RELEVANCE_ORDER_BY)) {
+                Set<Long> fullMatchSomeTerms = find(plan.getFullMatchSomeTermsQuery());
+                Set<Long> fullMatchAllTerms = find(plan.getFullMatchAllTermsQuery());
+                Set<Long> partialMatches = plan.hasFuzzyAlternatives() ? find(plan.getQuery()) : matches;
+                Comparator<Long> byRelevance = Comparator.comparingInt(id ->
+                        fullMatchAllTerms.contains(id) ? 0 : fullMatchSomeTerms.contains(id) ? 1 :
+                        partialMatches.contains(id) ? 2 : 3);
+                comparator = byRelevance.thenComparing(comparator);
+            }
+            if (order.isDescending()) {
+                comparator = comparator.reversed();
+            }
+            results = matches.stream().sorted(comparator).collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+        indexedSearches.incrementAndGet();
+        return Optional.of(results);
+    }
+
+    /**
+     * Finds the users matching a search query by looking up each term in the index and combining the results.
+     * @param query A parsed search query.
+     * @return The ids of the matching users.
+     */
+    private Set<Long> find(SearchQuery query) {
+        return query.evaluate(index::findExact, index::findContaining,
+                UserSearchIndexImpl::intersection, UserSearchIndexImpl::union);
+    }
+
+    private static Set<Long> intersection(Set<Long> left, Set<Long> right) {
+        Set<Long> result = new HashSet<>(left);
+        result.retainAll(right);
+        return result;
+    }
+
+    private static Set<Long> union(Set<Long> left, Set<Long> right) {
+        Set<Long> result = new HashSet<>(left);
+        result.addAll(right);
+        return result;
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "userSearchIndex";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("enabled", enabled);
+        lock.readLock().lock();
+        try {
+            statistics.put("users", index.getDocumentCount());
+            statistics.put("grams", index.getGramCount());
+            statistics.put("postings", index.getPostingCount());
+            statistics.put("estimatedMemoryBytes", index.estimateMemoryUsage());
+            statistics.put("lastRebuildMillis", lastRebuildMillis);
+        } finally {
+            lock.readLock().unlock();
+        }
+        statistics.put("indexedSearches", indexedSearches.get());
+        statistics.put("fallbackSearches", fallbackSearches.get());
+        return statistics;
+    }
+}
@@ -0,0 +1,99 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.seng302.persistence.UserSearchPlan;
+import org.seng302.tools.LRUCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caches the compiled plans for recent user search queries, so that repeated searches (such as those made as the user
+ * types into the search box) do not need to parse and compile the query again. As a plan includes the fuzzy
+ * alternatives of its terms, each plan is tagged with the version of the fuzzy index it was compiled with, and is
+ * compiled again if the words in the index have changed since.
+ */
+@Service
+public class UserSearchPlanCache implements StatisticsProvider {
+
+    private final LRUCache<String, CachedPlan> plans;
+    private final UserNameTrigramService userNameTrigramService;
+    private final UserNameFuzzyIndex userNameFuzzyIndex;
+
+    public UserSearchPlanCache(@Value("${user-search.plan-cache.size:256}") int maxSize,
+                               UserNameTrigramService userNameTrigramService, UserNameFuzzyIndex userNameFuzzyIndex) {
+        this.plans = new LRUCache<>(maxSize);
+        this.userNameTrigramService = userNameTrigramService;
+        this.userNameFuzzyIndex = userNameFuzzyIndex;
+    }
+
+    /**
+     * Gets the compiled plan for the given search query, compiling it if it is not in the cache.
+     * @param searchQuery A query entered by the user for searching for users within the database.
+     * @return The plan for the query.
+     * @throws org.seng302.exceptions.SearchFormatException If the query is not valid.
+     */
+    public UserSearchPlan getPlan(String searchQuery) {
+        String normalisedQuery = normaliseQuery(searchQuery);
+        CachedPlan cached = plans.get(normalisedQuery, this::compile);
+        if (cached.fuzzyIndexVersion != userNameFuzzyIndex.getVersion()) {
+            cached = compile(normalisedQuery);
+            plans.put(normalisedQuery, cached);
+        }
+        return cached.plan;
+    }
+
+    /**
+     * Compiles a search query using the current state of the trigram table and fuzzy index.
+     * @param searchQuery A normalised search query.
+     * @return The compiled plan, tagged with the version of the fuzzy index.
+     */
+    private CachedPlan compile(String searchQuery) {
+        // The version is read first, so if the index changes during compilation the plan will be compiled again
+        long fuzzyIndexVersion = userNameFuzzyIndex.getVersion();
+        UserSearchPlan plan = UserSearchPlan.compile(searchQuery, userNameTrigramService.isSearchable(),
+                userNameFuzzyIndex::findAlternatives);
+        return new CachedPlan(fuzzyIndexVersion, plan);
+    }
+
+    /**
+     * Removes every plan from the cache. This must be called when the trigram table becomes searchable, so that plans
+     * compiled before then are replaced with plans which use the table.
+     */
+    public void clear() {
+        plans.clear();
+    }
+
+    /**
+     * Normalises a search query so that queries which only differ in spacing share a cache entry. Runs of spaces are
+     * treated as a single space by the parser, and trailing spaces are ignored. Leading spaces are not removed, as the
+     * parser treats them as an empty term.
+     * @param searchQuery A query entered by the user.
+     * @return The normalised query.
+     */
+    static String normaliseQuery(String searchQuery) {
+        return searchQuery.replaceAll(" +$", "").replaceAll(" +", " ");
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "userSearchPlanCache";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        return plans.getStatistics();
+    }
+
+    /**
+     * A compiled plan and the version of the fuzzy index used to compile it.
+     */
+    private static final class CachedPlan {
+        private final long fuzzyIndexVersion;
+        private final UserSearchPlan plan;
+
+        CachedPlan(long fuzzyIndexVersion, UserSearchPlan plan) {
+            this.fuzzyIndexVersion = fuzzyIndexVersion;
+            this.plan = plan;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.seng302.tools.EvictionPolicy;
+import org.seng302.tools.LRUCache;
+import org.seng302.tools.SearchHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the ordered ids of every user matching recent user search queries, so that each page of the results and the
+ * result count can be served without searching again. Results are keyed by the normalised query and the requested
+ * order, and are tagged with the user version at the time the search started. The user version is incremented
+ * whenever a user is saved or deleted, which makes every cached result stale.
+ */
+@Service
+public class UserSearchResultCache implements StatisticsProvider {
+
+    private final boolean enabled;
+    private final int maxIdsPerEntry;
+    private final LRUCache<Key, CachedResults> results;
+    private final AtomicLong userVersion = new AtomicLong();
+    private final AtomicLong uncacheableResults = new AtomicLong();
+
+    public UserSearchResultCache(@Value("${user-search.result-cache.enabled:true}") boolean enabled,
+                                 @Value("${user-search.result-cache.size:128}") int maxSize,
+                                 @Value("${user-search.result-cache.eviction-policy:LEAST_RECENTLY_USED}") EvictionPolicy evictionPolicy,
+                                 @Value("${user-search.result-cache.max-ids-per-entry:10000}") int maxIdsPerEntry) {
+        this.enabled = enabled;
+        this.maxIdsPerEntry = maxIdsPerEntry;
+        this.results = new LRUCache<>(maxSize, evictionPolicy);
+    }
+
+    /**
+     * @return True if search results are cached.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The largest number of ids which will be cached for one search. Results with more matches are not cached.
+     */
+    public int getMaxIdsPerEntry() {
+        return maxIdsPerEntry;
+    }
+
+    /**
+     * @return The current user version. This must be read before a search starts and passed to putResults, so that
+     * results which may have been affected by a concurrent change to a user are not cached as current.
+     */
+    public long getUserVersion() {
+        return userVersion.get();
+    }
+
+    /**
+     * Marks every cached result as stale. Called whenever a user is saved or deleted.
+     */
+    public void userChanged() {
+        userVersion.incrementAndGet();
+        results.clear();
+    }
+
+    /**
+     * Gets the cached ids of the users matching the given search, if they are cached and up to date.
+     * @param searchQuery A query entered by the user for searching for users within the database.
+     * @param sort The order of the results.
+     * @return The ordered ids of every matching user, or empty if there are no up to date results cached.
+     */
+    public Optional<List<Long>> getResults(String searchQuery, Sort sort) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        CachedResults cached = results.getIfPresent(new Key(searchQuery, sort));
+        if (cached == null || cached.userVersion != userVersion.get()) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.ids);
+    }
+
+    /**
+     * Caches the ids of the users matching the given search. Nothing is cached if a user has changed since the search
+     * started, or if there are too many ids.
+     * @param searchQuery A query entered by the user for searching for users within the database.
+     * @param sort The order of the results.
+     * @param searchUserVersion The user version read before the search started.
+     * @param ids The ordered ids of every matching user.
+     */
+    public void putResults(String searchQuery, Sort sort, long searchUserVersion, List<Long> ids) {
+        if (!enabled || searchUserVersion != userVersion.get()) {
+            return;
+        }
+        if (ids.size() > maxIdsPerEntry) {
+            uncacheableResults.incrementAndGet();
+            return;
+        }
+        results.put(new Key(searchQuery, sort), new CachedResults(searchUserVersion, List.copyOf(ids)));
+    }
+
+    /**
+     * Records that a search had too many matches to be cached.
+     */
+    public void resultsTooLarge() {
+        uncacheableResults.incrementAndGet();
+    }
+
+    @Override
+    public String getStatisticsName() {
+        return "userSearchResultCache";
+    }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject statistics = results.getStatistics();
+        statistics.put("enabled", enabled);
+        statistics.put("userVersion", userVersion.get());
+        statistics.put("maxIdsPerEntry", maxIdsPerEntry);
+        statistics.put("uncacheableResults", uncacheableResults.get());
+        return statistics;
+    }
+
+    /**
+     * A search which has been cached, identified by the normalised query and the property and direction of the order.
+     */
+    private static final class Key {
+        private final String searchQuery;
+        private final String orderBy;
+        private final boolean reverse;
+
+        Key(String searchQuery, Sort sort) {
+            Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc(SearchHelper.RELEVANCE_ORDER_BY));
+            this.searchQuery = UserSearchPlanCache.normaliseQuery(searchQuery);
+            this.orderBy = order.getProperty();
+            this.reverse = order.isDescending();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return reverse == key.reverse && searchQuery.equals(key.searchQuery) && orderBy.equals(key.orderBy);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(searchQuery, orderBy, reverse);
+        }
+    }
+
+    /**
+     * The ordered ids of the users matching a search, and the user version at the time of the search.
+     */
+    private static final class CachedResults {
+        private final long userVersion;
+        private final List<Long> ids;
+
+        CachedResults(long userVersion, List<Long> ids) {
+            this.userVersion = userVersion;
+            this.ids = ids;
+        }
+    }
+}
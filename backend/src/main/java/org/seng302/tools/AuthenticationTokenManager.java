@@ -23,7 +23,7 @@ public class AuthenticationTokenManager {
 
     private static final String AUTH_TOKEN_NAME = "AUTHTOKEN";
     private static final Logger logger = LogManager.getLogger(AuthenticationTokenManager.class.getName());
-    private static final String ROLE_DGAA = "defaultGlobalApplicationAdmin";
+    public static final String ROLE_DGAA = "defaultGlobalApplicationAdmin";
     private static final String ROLE_GAA = "globalApplicationAdmin";
 
     /**
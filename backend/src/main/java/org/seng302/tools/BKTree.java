@@ -0,0 +1,120 @@
+package org.seng302.tools;
+
+import java.util.*;
+
+/**
+ * A BK-tree of words, which finds every word within a given Levenshtein (edit) distance of a query word without
+ * comparing the query against every word in the tree. Each child of a node is stored under its distance from that
+ * node, and by the triangle inequality only the children whose distance is within maxDistance of the query's distance
+ * to the node can contain matches, so most of the tree is skipped.
+ *
+ * Words cannot be removed from the tree. Callers which need to remove words should filter them out of the results,
+ * and rebuild the tree once enough words have been removed.
+ */
+public class BKTree {
+
+    private Node root = null;
+    private int size = 0;
+
+    /**
+     * Adds a word to the tree. Adding a word which is already in the tree has no effect.
+     * @param word The word to add.
+     */
+    public void add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = levenshteinDistance(node.word, word);
+            if (distance == 0) {
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Finds every word in the tree within the given edit distance of the query word.
+     * @param query The word to search for.
+     * @param maxDistance The largest number of single character insertions, deletions and substitutions allowed
+     *                    between the query and a matching word.
+     * @return The matching words, ordered by distance from the query and then alphabetically.
+     */
+    public List<String> search(String query, int maxDistance) {
+        List<Map.Entry<String, Integer>> matches = new ArrayList<>();
+        Deque<Node> toVisit = new ArrayDeque<>();
+        if (root != null) {
+            toVisit.push(root);
+        }
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.pop();
+            int distance = levenshteinDistance(node.word, query);
+            if (distance <= maxDistance) {
+                matches.add(Map.entry(node.word, distance));
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    toVisit.push(child.getValue());
+                }
+            }
+        }
+        matches.sort(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        List<String> words = new ArrayList<>(matches.size());
+        for (Map.Entry<String, Integer> match : matches) {
+            words.add(match.getKey());
+        }
+        return words;
+    }
+
+    /**
+     * @return The number of distinct words in the tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calculates the Levenshtein distance between two strings, which is the smallest number of single character
+     * insertions, deletions and substitutions needed to turn one string into the other.
+     * @param first A string.
+     * @param second Another string.
+     * @return The edit distance between the strings.
+     */
+    public static int levenshteinDistance(String first, String second) {
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int substitutionCost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1),
+                        previous[j - 1] + substitutionCost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[second.length()];
+    }
+
+    private static final class Node {
+        private final String word;
+        private final Map<Integer, Node> children = new HashMap<>();
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+}
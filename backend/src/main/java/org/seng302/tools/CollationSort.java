@@ -0,0 +1,63 @@
+package org.seng302.tools;
+
+import java.text.Collator;
+import java.util.Locale;
+
+/**
+ * Computes sort keys which order text attributes in locale aware, case insensitive order. Names and descriptions may
+ * contain any letters, and String.CASE_INSENSITIVE_ORDER (or a database collation which compares code points) orders
+ * accented and non-Latin letters by their code points rather than where a reader would expect them (e.g. 'Éclair'
+ * after 'Zucchini'), so a Collator is used instead.
+ *
+ * Comparing two strings with a Collator is much slower than comparing code points, and a sort compares each element
+ * many times. So the collation key of each attribute is computed once, when the attribute is set, and stored in a
+ * column next to it. Lists are then ordered by the database on the key column, which only compares the precomputed
+ * keys. Keys are written as hexadecimal digits of the collation key's bytes, so that any database collation orders
+ * them the same way as the collator orders the text.
+ */
+public final class CollationSort {
+
+    /**
+     * The largest number of characters in a sort key. Text which only differs after the first part of its key is
+     * ordered as equal, and then by the tiebreak property of the query.
+     */
+    public static final int SORT_KEY_LENGTH = 255;
+
+    private static final Locale COLLATION_LOCALE = Locale.ENGLISH;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private CollationSort() {}
+
+    /**
+     * Creates a new collator which ignores case but not accents, e.g. 'apple' and 'Apple' are equal but 'resume' comes
+     * before 'résumé'. Collators are not thread safe, so one is created for each key.
+     * @return A new collator.
+     */
+    static Collator newCollator() {
+        Collator collator = Collator.getInstance(COLLATION_LOCALE);
+        collator.setStrength(Collator.SECONDARY);
+        collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+        return collator;
+    }
+
+    /**
+     * Computes the sort key of a text attribute. Ordering text by its sort key, comparing the keys as plain strings,
+     * gives the same order as the collator, apart from text which only differs after the first SORT_KEY_LENGTH
+     * characters of its key.
+     * @param text The text to compute the sort key of, or null.
+     * @return The sort key of the text, or null if the text is null.
+     */
+    public static String getSortKey(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] bytes = newCollator().getCollationKey(text).toByteArray();
+        int length = Math.min(bytes.length * 2, SORT_KEY_LENGTH);
+        char[] key = new char[length];
+        for (int i = 0; i < length; i++) {
+            int value = bytes[i / 2] & 0xff;
+            key[i] = HEX_DIGITS[i % 2 == 0 ? value >>> 4 : value & 0xf];
+        }
+        return new String(key);
+    }
+}
@@ -0,0 +1,295 @@
+package org.seng302.tools;
+
+import java.util.*;
+
+/**
+ * A compressed trie (radix tree) of words with a frequency for each word, which finds the most frequent completions
+ * of a prefix without visiting the words below it. Chains of nodes with a single child are merged into one edge, so
+ * the number of nodes is at most twice the number of words. Every node caches the topK most frequent words below it,
+ * so a lookup only walks the characters of the prefix and then returns the cached list of the node it ends at.
+ *
+ * The cached lists are kept up to date as frequencies change, by recomputing the list of each node on the path to the
+ * changed word from the lists of its children. Words whose frequency drops to zero are removed, and nodes which are no
+ * longer needed are merged back into their parent edge.
+ *
+ * This class is not thread safe.
+ */
+public class CompletionTrie {
+
+    // Rough sizes in bytes of the JVM objects which make up the trie, used to estimate its memory use
+    private static final int NODE_BYTES = 40;
+    private static final int MAP_BYTES = 48;
+    private static final int MAP_ENTRY_BYTES = 48;
+    private static final int STRING_BYTES = 40;
+    private static final int LIST_BYTES = 40;
+    private static final int REFERENCE_BYTES = 8;
+
+    private static final Comparator<Node> BY_FREQUENCY = Comparator.<Node>comparingInt(node -> node.frequency).reversed()
+            .thenComparing(node -> node.word);
+
+    private final int topK;
+    private final Node root = new Node("");
+    private int nodeCount = 1;
+    private int wordCount = 0;
+
+    /**
+     * Creates an empty trie.
+     * @param topK The number of completions cached at each node, which is the most which can be returned for a prefix.
+     *             Must be at least 1.
+     */
+    public CompletionTrie(int topK) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("Top k must be at least 1");
+        }
+        this.topK = topK;
+    }
+
+    /**
+     * Adds one to the frequency of a word, adding the word to the trie if it is not already in it.
+     * @param word The word. Must not be empty.
+     */
+    public void increment(String word) {
+        if (word.isEmpty()) {
+            throw new IllegalArgumentException("Word must not be empty");
+        }
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        String remaining = word;
+        path.push(node);
+        while (!remaining.isEmpty()) {
+            Node child = node.children.get(remaining.charAt(0));
+            if (child == null) {
+                child = new Node(remaining);
+                node.children.put(remaining.charAt(0), child);
+                nodeCount++;
+            } else {
+                int common = commonPrefixLength(child.label, remaining);
+                if (common < child.label.length()) {
+                    child = split(node, child, common);
+                }
+            }
+            remaining = remaining.substring(child.label.length());
+            node = child;
+            path.push(node);
+        }
+        if (node.frequency == 0) {
+            node.word = word;
+            wordCount++;
+        }
+        node.frequency++;
+        updateTopCompletions(path);
+    }
+
+    /**
+     * Subtracts one from the frequency of a word, removing the word from the trie once its frequency reaches zero.
+     * Does nothing if the word is not in the trie.
+     * @param word The word.
+     */
+    public void decrement(String word) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        String remaining = word;
+        path.push(node);
+        while (!remaining.isEmpty()) {
+            Node child = node.children.get(remaining.charAt(0));
+            if (child == null || !remaining.startsWith(child.label)) {
+                return;
+            }
+            remaining = remaining.substring(child.label.length());
+            node = child;
+            path.push(node);
+        }
+        if (node.frequency == 0) {
+            return;
+        }
+        node.frequency--;
+        if (node.frequency == 0) {
+            node.word = null;
+            wordCount--;
+            removeUnusedNodes(path);
+        }
+        updateTopCompletions(path);
+    }
+
+    /**
+     * Finds the most frequent words starting with the given prefix. Words with the same frequency are ordered
+     * alphabetically.
+     * @param prefix The start of the words to find.
+     * @param limit The largest number of words to return. Words after the first topK are never returned.
+     * @return The most frequent completions of the prefix, most frequent first.
+     */
+    public List<String> complete(String prefix, int limit) {
+        Node node = root;
+        String remaining = prefix;
+        while (!remaining.isEmpty()) {
+            Node child = node.children.get(remaining.charAt(0));
+            if (child == null) {
+                return List.of();
+            }
+            if (child.label.startsWith(remaining)) {
+                node = child;
+                break;
+            }
+            if (!remaining.startsWith(child.label)) {
+                return List.of();
+            }
+            remaining = remaining.substring(child.label.length());
+            node = child;
+        }
+        List<String> words = new ArrayList<>();
+        for (Node completion : node.topCompletions) {
+            if (words.size() >= limit) {
+                break;
+            }
+            words.add(completion.word);
+        }
+        return words;
+    }
+
+    /**
+     * Gets the frequency of a word.
+     * @param word The word.
+     * @return The frequency of the word, or zero if the word is not in the trie.
+     */
+    public int getFrequency(String word) {
+        Node node = root;
+        String remaining = word;
+        while (!remaining.isEmpty()) {
+            Node child = node.children.get(remaining.charAt(0));
+            if (child == null || !remaining.startsWith(child.label)) {
+                return 0;
+            }
+            remaining = remaining.substring(child.label.length());
+            node = child;
+        }
+        return node.frequency;
+    }
+
+    /**
+     * Removes every word from the trie.
+     */
+    public void clear() {
+        root.children.clear();
+        root.topCompletions = List.of();
+        nodeCount = 1;
+        wordCount = 0;
+    }
+
+    /**
+     * @return The number of distinct words in the trie.
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * @return The number of nodes in the trie, including the root.
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Estimates the memory used by the trie. This is only approximate, as the real size of each object depends on the
+     * JVM, but it shows how the size of the trie grows with the number of words and the number of completions cached.
+     * @return The estimated memory use of the trie in bytes.
+     */
+    public long estimateMemoryUsage() {
+        long bytes = 0;
+        Deque<Node> toVisit = new ArrayDeque<>();
+        toVisit.push(root);
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.pop();
+            bytes += NODE_BYTES + MAP_BYTES + STRING_BYTES + node.label.length();
+            bytes += node.children.size() * MAP_ENTRY_BYTES;
+            bytes += LIST_BYTES + (long) node.topCompletions.size() * REFERENCE_BYTES;
+            if (node.word != null) {
+                bytes += STRING_BYTES + node.word.length();
+            }
+            node.children.values().forEach(toVisit::push);
+        }
+        return bytes;
+    }
+
+    /**
+     * Splits the edge to a child so that the child's label is broken after the given number of characters.
+     * @param parent The parent of the child.
+     * @param child The child whose edge is split.
+     * @param length The length of the label of the new node between the parent and the child.
+     * @return The new node.
+     */
+    private Node split(Node parent, Node child, int length) {
+        Node middle = new Node(child.label.substring(0, length));
+        child.label = child.label.substring(length);
+        middle.children.put(child.label.charAt(0), child);
+        middle.topCompletions = child.topCompletions;
+        parent.children.put(middle.label.charAt(0), middle);
+        nodeCount++;
+        return middle;
+    }
+
+    /**
+     * Removes the nodes at the end of a path which no longer lead to any words, and merges a node which no longer has
+     * a word into its only child.
+     * @param path The nodes from the root to the word which was removed, with the last node on top.
+     */
+    private void removeUnusedNodes(Deque<Node> path) {
+        Node node = path.pop();
+        while (node != root && node.word == null && node.children.isEmpty()) {
+            Node parent = path.peek();
+            parent.children.remove(node.label.charAt(0));
+            nodeCount--;
+            node = path.pop();
+        }
+        if (node != root && node.word == null && node.children.size() == 1) {
+            Node child = node.children.values().iterator().next();
+            node.label = node.label + child.label;
+            node.word = child.word;
+            node.frequency = child.frequency;
+            node.children = child.children;
+            nodeCount--;
+        }
+        path.push(node);
+    }
+
+    /**
+     * Recomputes the cached completions of every node on a path, from the bottom of the path up to the root.
+     * @param path The nodes from the root to a changed word, with the last node on top.
+     */
+    private void updateTopCompletions(Deque<Node> path) {
+        for (Node node : path) {
+            List<Node> candidates = new ArrayList<>();
+            if (node.word != null) {
+                candidates.add(node);
+            }
+            for (Node child : node.children.values()) {
+                candidates.addAll(child.topCompletions);
+            }
+            candidates.sort(BY_FREQUENCY);
+            node.topCompletions = candidates.size() > topK ? List.copyOf(candidates.subList(0, topK)) :
+                    List.copyOf(candidates);
+        }
+    }
+
+    private static int commonPrefixLength(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        for (int i = 0; i < length; i++) {
+            if (first.charAt(i) != second.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    private static final class Node {
+        private String label;
+        private String word = null;
+        private int frequency = 0;
+        private Map<Character, Node> children = new HashMap<>();
+        private List<Node> topCompletions = List.of();
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+}
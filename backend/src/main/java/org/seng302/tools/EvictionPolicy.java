@@ -0,0 +1,15 @@
+package org.seng302.tools;
+
+/**
+ * The order in which entries are evicted from a full LRUCache.
+ */
+public enum EvictionPolicy {
+    /**
+     * Evict the entry which was least recently added or read.
+     */
+    LEAST_RECENTLY_USED,
+    /**
+     * Evict the entry which was added first, regardless of how often it has been read since.
+     */
+    FIRST_IN_FIRST_OUT
+}
@@ -0,0 +1,323 @@
+package org.seng302.tools;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.LongPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory full-text inverted index, which maps each stemmed term to the documents which contain it and the number
+ * of times it occurs in each. Documents matching any of the terms of a query are ranked with the Okapi BM25 scoring
+ * function, so documents where the query terms occur more often score higher, terms which occur in fewer documents
+ * count for more, and long documents do not score higher just because they contain more words.
+ *
+ * Text is analysed by analyze, which lower cases it, removes accents, splits it into words of letters and digits,
+ * drops common stop words and stems the rest with PorterStemmer.
+ *
+ * Each document is given a dense internal number, and each term's postings are stored as parallel arrays of document
+ * numbers and term frequencies, so that a search scores documents into a plain array rather than boxing every posting.
+ * Removing a document only marks its number as free. Its postings are skipped by searches, and are dropped once there
+ * are more removed documents than indexed ones by renumbering the remaining documents.
+ *
+ * This class is not thread safe.
+ */
+public class InvertedIndex {
+
+    // Standard BM25 parameters: K1 limits how much repeated terms add to the score, B is the length normalisation
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+    // Removed documents are only compacted away once there are this many, so small indexes are never compacted
+    static final int MIN_REMOVED_BEFORE_COMPACTION = 1024;
+    private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "but", "by",
+            "for", "from", "if", "in", "into", "is", "it", "no", "not", "of", "on", "or", "so", "that", "the", "their",
+            "then", "there", "these", "they", "this", "to", "was", "will", "with");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Rough sizes in bytes of the JVM objects which make up the index, used to estimate its memory use
+    private static final int MAP_ENTRY_BYTES = 48;
+    private static final int POSTINGS_BYTES = 80;
+    private static final int STRING_BYTES = 40;
+    private static final int DOCUMENT_BYTES = 8 + 4 + 16;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> documentNumbers = new HashMap<>();
+    // Indexed by document number. A removed document has a length of -1
+    private long[] ids = new long[16];
+    private int[] lengths = new int[16];
+    private Postings[][] documentPostings = new Postings[16][];
+    private int nextNumber = 0;
+    private int removedCount = 0;
+    private long totalLength = 0;
+    private long postingCount = 0;
+
+    /**
+     * Splits text into the terms which are indexed and searched for.
+     * @param text The text to analyse. May be null.
+     * @return The stemmed terms of the text in the order they occur, including repeats.
+     */
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String normalized = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        normalized = ACCENTS.matcher(normalized).replaceAll("");
+        for (String word : WORD_SEPARATORS.split(normalized)) {
+            if (!word.isEmpty() && !STOP_WORDS.contains(word)) {
+                terms.add(PorterStemmer.stem(word));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Adds a document to the index, replacing any document which already has the given id.
+     * @param id The id of the document.
+     * @param terms The analysed terms of the document, including repeats.
+     */
+    public void put(long id, List<String> terms) {
+        remove(id);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        if (nextNumber == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            documentPostings = Arrays.copyOf(documentPostings, capacity);
+        }
+        int number = nextNumber++;
+        Postings[] termPostings = new Postings[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Postings posting = postings.computeIfAbsent(entry.getKey(), Postings::new);
+            posting.add(number, entry.getValue());
+            termPostings[i++] = posting;
+        }
+        ids[number] = id;
+        lengths[number] = terms.size();
+        documentPostings[number] = termPostings;
+        documentNumbers.put(id, number);
+        totalLength += terms.size();
+        postingCount += termPostings.length;
+    }
+
+    /**
+     * Removes a document from the index, if it is in the index.
+     * @param id The id of the document.
+     */
+    public void remove(long id) {
+        Integer number = documentNumbers.remove(id);
+        if (number == null) {
+            return;
+        }
+        for (Postings posting : documentPostings[number]) {
+            posting.documentFrequency--;
+            if (posting.documentFrequency == 0) {
+                postings.remove(posting.term);
+            }
+        }
+        totalLength -= lengths[number];
+        postingCount -= documentPostings[number].length;
+        lengths[number] = -1;
+        documentPostings[number] = null;
+        removedCount++;
+        if (removedCount >= MIN_REMOVED_BEFORE_COMPACTION && removedCount > documentNumbers.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumbers the indexed documents so that removed documents no longer take up space in the postings.
+     */
+    private void compact() {
+        int[] newNumbers = new int[nextNumber];
+        int live = 0;
+        for (int number = 0; number < nextNumber; number++) {
+            if (lengths[number] >= 0) {
+                newNumbers[number] = live;
+                ids[live] = ids[number];
+                lengths[live] = lengths[number];
+                documentPostings[live] = documentPostings[number];
+                documentNumbers.put(ids[live], live);
+                live++;
+            } else {
+                newNumbers[number] = -1;
+            }
+        }
+        Arrays.fill(documentPostings, live, nextNumber, null);
+        for (Postings posting : postings.values()) {
+            posting.renumber(newNumbers);
+        }
+        nextNumber = live;
+        removedCount = 0;
+    }
+
+    /**
+     * Removes every document from the index.
+     */
+    public void clear() {
+        postings.clear();
+        documentNumbers.clear();
+        Arrays.fill(documentPostings, null);
+        nextNumber = 0;
+        removedCount = 0;
+        totalLength = 0;
+        postingCount = 0;
+    }
+
+    /**
+     * Finds the documents containing any of the given terms, from highest to lowest BM25 score. Documents with equal
+     * scores are ordered from most to least recently added.
+     * @param queryTerms The analysed terms of the query. Repeated terms only count once.
+     * @param filter Returns true for the ids of the documents which may be returned. Called at most once per document.
+     * @return The ids of the matching documents.
+     */
+    public List<Long> search(List<String> queryTerms, LongPredicate filter) {
+        int documentCount = documentNumbers.size();
+        if (documentCount == 0) {
+            return new ArrayList<>();
+        }
+        double averageLength = Math.max((double) totalLength / documentCount, 1);
+        double[] scores = new double[nextNumber];
+        // 0 for documents which have not been checked against the filter yet, 1 if accepted, -1 if rejected
+        byte[] accepted = new byte[nextNumber];
+        int[] matches = new int[16];
+        int matchCount = 0;
+        for (String term : new LinkedHashSet<>(queryTerms)) {
+            Postings posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            double idf = inverseDocumentFrequency(documentCount, posting.documentFrequency);
+            for (int i = 0; i < posting.size; i++) {
+                int number = posting.documents[i];
+                if (lengths[number] < 0) {
+                    continue;
+                }
+                if (accepted[number] == 0) {
+                    accepted[number] = filter.test(ids[number]) ? (byte) 1 : (byte) -1;
+                }
+                if (accepted[number] < 0) {
+                    continue;
+                }
+                double frequency = posting.frequencies[i];
+                double lengthRatio = lengths[number] / averageLength;
+                if (scores[number] == 0) {
+                    if (matchCount == matches.length) {
+                        matches = Arrays.copyOf(matches, matchCount * 2);
+                    }
+                    matches[matchCount++] = number;
+                }
+                scores[number] += idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio));
+            }
+        }
+
+        // Scores are positive, so the bits of their float values sort in the same order as the scores themselves.
+        // Packing them above the document number lets the matches be ranked with a primitive sort.
+        long[] ranking = new long[matchCount];
+        for (int i = 0; i < matchCount; i++) {
+            ranking[i] = ((long) Float.floatToIntBits((float) scores[matches[i]]) << 32) | matches[i];
+        }
+        Arrays.sort(ranking);
+        List<Long> result = new ArrayList<>(matchCount);
+        for (int i = matchCount - 1; i >= 0; i--) {
+            result.add(ids[(int) ranking[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Calculates the BM25 inverse document frequency of a term, which is always positive so that a term which occurs in
+     * most documents still counts for something.
+     * @param documentCount The number of documents in the index.
+     * @param documentFrequency The number of documents containing the term.
+     * @return The weight of the term.
+     */
+    private static double inverseDocumentFrequency(int documentCount, int documentFrequency) {
+        return Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    /**
+     * @return The number of documents in the index.
+     */
+    public int getDocumentCount() {
+        return documentNumbers.size();
+    }
+
+    /**
+     * @return The number of distinct terms in the index.
+     */
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * @return The number of (term, document) pairs in the index.
+     */
+    public long getPostingCount() {
+        return postingCount;
+    }
+
+    /**
+     * Gets a rough estimate of the memory used by the index. This is not exact, but is good enough for noticing the
+     * index growing unexpectedly.
+     * @return The estimated size in bytes.
+     */
+    public long getEstimatedSizeBytes() {
+        long size = 0;
+        for (Postings posting : postings.values()) {
+            size += MAP_ENTRY_BYTES + POSTINGS_BYTES + STRING_BYTES + posting.term.length() * 2L
+                    + posting.documents.length * 8L;
+        }
+        size += nextNumber * (long) DOCUMENT_BYTES + postingCount * 4;
+        size += documentNumbers.size() * (long) MAP_ENTRY_BYTES;
+        return size;
+    }
+
+    /**
+     * The documents containing a term and the number of times the term occurs in each, stored in parallel arrays
+     * ordered by document number. The arrays may still hold removed documents until the index is compacted.
+     */
+    private static final class Postings {
+        private final String term;
+        private int[] documents = new int[4];
+        private int[] frequencies = new int[4];
+        private int size = 0;
+        // The number of documents containing the term which have not been removed
+        private int documentFrequency = 0;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+            documentFrequency++;
+        }
+
+        /**
+         * Replaces each document number with its new number, dropping documents whose new number is -1.
+         */
+        void renumber(int[] newNumbers) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int number = newNumbers[documents[i]];
+                if (number >= 0) {
+                    documents[kept] = number;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+}
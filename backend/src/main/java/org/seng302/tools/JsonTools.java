@@ -1,17 +1,15 @@
 package org.seng302.tools;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.JsonNodeType;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import net.minidev.json.JSONObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class JsonTools {
 
@@ -55,7 +53,9 @@ public class JsonTools {
 
     /**
      * This method will return the field with the given name from the given json as a long[] if it can be converted to
-     * that format, or will throw a bad request exception if the field cannot be converted to that format.
+     * that format, or will throw a bad request exception if the field cannot be converted to that format. The field is
+     * read directly from the json, which may hold it as a list (when parsed from a request body) or as an array (when
+     * built in code), so the json does not need to be serialised and parsed again.
      * @param json The JSONObject to retrieve the field from.
      * @param fieldName The name of the field to retrieve.
      * @return The value from the field
@@ -63,30 +63,28 @@ public class JsonTools {
     public static long[] parseLongArrayFromJsonField(JSONObject json, String fieldName) {
         ResponseStatusException invalidFormatException = new ResponseStatusException(HttpStatus.BAD_REQUEST,
                 String.format("%s must be an array of numbers", fieldName));
-        ResponseStatusException notPresentException = new ResponseStatusException(HttpStatus.BAD_REQUEST,
-                String.format("%s is not present", fieldName));
+        if (!json.containsKey(fieldName)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format("%s is not present", fieldName));
+        }
 
-        try {
-            final ObjectNode node = new ObjectMapper().readValue(json.toJSONString(), ObjectNode.class);
-            if (node.has(fieldName)) {
-                JsonNode value = node.get(fieldName);
-                if (value.getNodeType() != JsonNodeType.ARRAY) {
-                    throw invalidFormatException;
-                }
-                int arrayLength = value.size();
-                long[] longArray = new long[arrayLength];
-                for (int i = 0; i < arrayLength; i++) {
-                    if (value.get(i).getNodeType() != JsonNodeType.NUMBER) {
-                        throw invalidFormatException;
-                    }
-                    longArray[i] = value.get(i).asLong();
-                }
-                return longArray;
-            } else {
-                throw notPresentException;
-            }
-        } catch (JsonProcessingException e) {
+        Object value = json.get(fieldName);
+        List<?> elements;
+        if (value instanceof List) {
+            elements = (List<?>) value;
+        } else if (value != null && value.getClass().isArray()) {
+            elements = IntStream.range(0, Array.getLength(value)).mapToObj(i -> Array.get(value, i)).collect(Collectors.toList());
+        } else {
             throw invalidFormatException;
         }
+
+        long[] longArray = new long[elements.size()];
+        for (int i = 0; i < longArray.length; i++) {
+            Object element = elements.get(i);
+            if (!(element instanceof Number)) {
+                throw invalidFormatException;
+            }
+            longArray[i] = ((Number) element).longValue();
+        }
+        return longArray;
     }
 }
@@ -0,0 +1,173 @@
+package org.seng302.tools;
+
+import net.minidev.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A thread safe cache which holds at most maxSize entries. When the cache is full, the least recently used entry is
+ * evicted to make room for a new one, unless the cache was created with a different eviction policy. The number of
+ * hits, misses and evictions are counted so that the effectiveness of the cache can be monitored. Subclasses can
+ * override onEviction to find out which entries are evicted.
+ * @param <K> The type of the cache keys.
+ * @param <V> The type of the cached values.
+ */
+public class LRUCache<K, V> {
+
+    private final int maxSize;
+    private final EvictionPolicy evictionPolicy;
+    private final LinkedHashMap<K, V> entries;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates an empty cache which evicts the least recently used entry when full.
+     * @param maxSize The maximum number of entries in the cache. Must be at least 1.
+     */
+    public LRUCache(int maxSize) {
+        this(maxSize, EvictionPolicy.LEAST_RECENTLY_USED);
+    }
+
+    /**
+     * Creates an empty cache.
+     * @param maxSize The maximum number of entries in the cache. Must be at least 1.
+     * @param evictionPolicy Which entry to evict when the cache is full.
+     */
+    public LRUCache(int maxSize, EvictionPolicy evictionPolicy) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        this.maxSize = maxSize;
+        this.evictionPolicy = evictionPolicy;
+        // Access order means iteration starts from the least recently used entry, otherwise it starts from the oldest
+        boolean accessOrder = evictionPolicy == EvictionPolicy.LEAST_RECENTLY_USED;
+        this.entries = new LinkedHashMap<>(16, 0.75f, accessOrder) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LRUCache.this.maxSize) {
+                    evictions++;
+                    onEviction(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the value for the given key, loading it and adding it to the cache if it is not already cached. If the
+     * loader throws an exception, nothing is cached and the exception is passed on to the caller.
+     * @param key The key of the value to get.
+     * @param loader Creates the value for a key which is not in the cache.
+     * @return The cached or newly loaded value.
+     */
+    public synchronized V get(K key, Function<K, V> loader) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+            return value;
+        }
+        misses++;
+        value = loader.apply(key);
+        entries.put(key, value);
+        return value;
+    }
+
+    /**
+     * Gets the value for the given key if it is in the cache.
+     * @param key The key of the value to get.
+     * @return The cached value, or null if there is no value for the key.
+     */
+    public synchronized V getIfPresent(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /**
+     * Adds a value to the cache, replacing any existing value for the key.
+     * @param key The key of the value.
+     * @param value The value to cache.
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * Removes the entry for the given key, if there is one.
+     * @param key The key of the entry to remove.
+     * @return The value which was removed, or null if there was no entry for the key.
+     */
+    public synchronized V remove(K key) {
+        return entries.remove(key);
+    }
+
+    /**
+     * Called while a value is being added when the cache is full, with the entry which is evicted to make room for it.
+     * Entries which are removed or replaced are not passed to this method. Does nothing unless overridden.
+     * @param key The key of the evicted entry.
+     * @param value The value of the evicted entry.
+     */
+    protected void onEviction(K key, V value) {
+    }
+
+    /**
+     * Removes every entry from the cache. The hit, miss and eviction counts are not reset.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return The number of entries currently in the cache.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return The maximum number of entries in the cache.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return A JSON object containing the size of the cache and its hit, miss and eviction counts.
+     */
+    public synchronized JSONObject getStatistics() {
+        JSONObject statistics = new JSONObject();
+        statistics.put("size", entries.size());
+        statistics.put("maxSize", maxSize);
+        statistics.put("evictionPolicy", evictionPolicy.name());
+        statistics.put("hits", hits);
+        statistics.put("misses", misses);
+        statistics.put("evictions", evictions);
+        long requests = hits + misses;
+        statistics.put("hitRate", requests == 0 ? 0.0 : (double) hits / requests);
+        return statistics;
+    }
+}
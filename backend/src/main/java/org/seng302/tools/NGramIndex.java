@@ -0,0 +1,218 @@
+package org.seng302.tools;
+
+import java.util.*;
+
+/**
+ * An in-memory inverted index which maps every substring of up to gramLength characters (an n-gram) of some indexed
+ * values to the ids of the documents which contain that substring. This allows documents with a value containing a
+ * given term to be found without scanning every document, which is what a '%term%' LIKE query has to do.
+ *
+ * Terms no longer than gramLength are looked up directly. Longer terms are looked up by intersecting the documents for
+ * each of their n-grams, and then checking that the remaining documents actually contain the term. Matching is case
+ * insensitive for contains queries and case sensitive for exact queries.
+ *
+ * This class is not thread safe.
+ */
+public class NGramIndex {
+
+    // Rough sizes in bytes of the JVM objects which make up the index, used to estimate its memory use
+    private static final int MAP_ENTRY_BYTES = 48;
+    private static final int SET_BYTES = 64;
+    private static final int LONG_BYTES = 24;
+    private static final int STRING_BYTES = 40;
+    private static final int LIST_BYTES = 40;
+
+    private final int gramLength;
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, List<String>> documents = new HashMap<>();
+    private long postingCount = 0;
+
+    /**
+     * Creates an empty index.
+     * @param gramLength The length of the longest n-gram which will be indexed. Must be at least 1.
+     */
+    public NGramIndex(int gramLength) {
+        if (gramLength < 1) {
+            throw new IllegalArgumentException("Gram length must be at least 1");
+        }
+        this.gramLength = gramLength;
+    }
+
+    /**
+     * Adds a document to the index, replacing any document which already has the given id. Null values are ignored.
+     * @param id The id of the document.
+     * @param values The values of the document which will be searchable.
+     */
+    public void put(long id, List<String> values) {
+        remove(id);
+        List<String> nonNullValues = new ArrayList<>();
+        for (String value : values) {
+            if (value != null) {
+                nonNullValues.add(value);
+            }
+        }
+        documents.put(id, nonNullValues);
+        for (String gram : getGrams(nonNullValues)) {
+            if (postings.computeIfAbsent(gram, g -> new HashSet<>()).add(id)) {
+                postingCount++;
+            }
+        }
+    }
+
+    /**
+     * Removes the document with the given id from the index. Does nothing if there is no document with this id.
+     * @param id The id of the document.
+     */
+    public void remove(long id) {
+        List<String> values = documents.remove(id);
+        if (values == null) {
+            return;
+        }
+        for (String gram : getGrams(values)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null && ids.remove(id)) {
+                postingCount--;
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every document from the index.
+     */
+    public void clear() {
+        postings.clear();
+        documents.clear();
+        postingCount = 0;
+    }
+
+    /**
+     * Finds the ids of all documents which have a value containing the given term, ignoring case.
+     * @param term The term to search for.
+     * @return The ids of the matching documents.
+     */
+    public Set<Long> findContaining(String term) {
+        String lowerTerm = term.toLowerCase(Locale.ROOT);
+        if (lowerTerm.isEmpty()) {
+            return new HashSet<>(documents.keySet());
+        }
+        if (lowerTerm.length() <= gramLength) {
+            return new HashSet<>(postings.getOrDefault(lowerTerm, Set.of()));
+        }
+
+        Set<Long> candidates = getCandidates(lowerTerm);
+        candidates.removeIf(id -> documents.get(id).stream()
+                .noneMatch(value -> value.toLowerCase(Locale.ROOT).contains(lowerTerm)));
+        return candidates;
+    }
+
+    /**
+     * Finds the ids of all documents which have a value which is exactly equal to the given term, including case.
+     * @param term The term to search for.
+     * @return The ids of the matching documents.
+     */
+    public Set<Long> findExact(String term) {
+        Set<Long> candidates;
+        if (term.isEmpty()) {
+            candidates = new HashSet<>(documents.keySet());
+        } else {
+            String lowerTerm = term.toLowerCase(Locale.ROOT);
+            candidates = lowerTerm.length() <= gramLength ?
+                    new HashSet<>(postings.getOrDefault(lowerTerm, Set.of())) : getCandidates(lowerTerm);
+        }
+        candidates.removeIf(id -> !documents.get(id).contains(term));
+        return candidates;
+    }
+
+    /**
+     * Gets the documents which contain every n-gram of the given term. This is a superset of the documents which
+     * contain the term itself.
+     * @param lowerTerm A lower case term which is longer than gramLength.
+     * @return The ids of the candidate documents.
+     */
+    private Set<Long> getCandidates(String lowerTerm) {
+        List<Set<Long>> gramPostings = new ArrayList<>();
+        for (int i = 0; i + gramLength <= lowerTerm.length(); i++) {
+            Set<Long> ids = postings.get(lowerTerm.substring(i, i + gramLength));
+            if (ids == null) {
+                return new HashSet<>();
+            }
+            gramPostings.add(ids);
+        }
+        // Intersecting from the smallest set first keeps the intermediate results small
+        gramPostings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> candidates = new HashSet<>(gramPostings.get(0));
+        for (int i = 1; i < gramPostings.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(gramPostings.get(i));
+        }
+        return candidates;
+    }
+
+    /**
+     * Gets every distinct lower case substring of up to gramLength characters of the given values.
+     * @param values The values to split into n-grams.
+     * @return The n-grams of the values.
+     */
+    private Set<String> getGrams(List<String> values) {
+        Set<String> grams = new HashSet<>();
+        for (String value : values) {
+            String lowerValue = value.toLowerCase(Locale.ROOT);
+            for (int start = 0; start < lowerValue.length(); start++) {
+                for (int end = start + 1; end <= Math.min(start + gramLength, lowerValue.length()); end++) {
+                    grams.add(lowerValue.substring(start, end));
+                }
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * @return True if the document with the given id is in the index.
+     */
+    public boolean contains(long id) {
+        return documents.containsKey(id);
+    }
+
+    /**
+     * @return The number of documents in the index.
+     */
+    public int getDocumentCount() {
+        return documents.size();
+    }
+
+    /**
+     * @return The number of distinct n-grams in the index.
+     */
+    public int getGramCount() {
+        return postings.size();
+    }
+
+    /**
+     * @return The total number of (n-gram, document) pairs in the index.
+     */
+    public long getPostingCount() {
+        return postingCount;
+    }
+
+    /**
+     * Estimates the number of bytes of heap used by the index. This is based on typical object sizes for a 64 bit JVM
+     * with compressed pointers, so it is only approximate, but it is good enough to see how the index grows.
+     * @return The estimated memory use of the index in bytes.
+     */
+    public long estimateMemoryUsage() {
+        long bytes = 0;
+        for (String gram : postings.keySet()) {
+            bytes += MAP_ENTRY_BYTES + STRING_BYTES + gram.length() + SET_BYTES;
+        }
+        bytes += postingCount * (MAP_ENTRY_BYTES + LONG_BYTES);
+        for (List<String> values : documents.values()) {
+            bytes += MAP_ENTRY_BYTES + LONG_BYTES + LIST_BYTES;
+            for (String value : values) {
+                bytes += STRING_BYTES + value.length();
+            }
+        }
+        return bytes;
+    }
+}
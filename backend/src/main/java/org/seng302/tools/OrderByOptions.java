@@ -0,0 +1,170 @@
+package org.seng302.tools;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The orderBy keys which can be used to order the results of an endpoint, and the entity property each key orders by.
+ * Properties may be paths through other entities, e.g. 'product.name' to order inventory items by the name of their
+ * product. The Sort built for a key is passed to the repository so that ordering and paging are done by the database,
+ * and only keys in the whitelist ever reach a query.
+ *
+ * Text properties are ordered by their collation sort keys (see CollationSort), so that they are in locale aware, case
+ * insensitive order. Properties which may be null are ordered with nulls last, or first when the order is reversed.
+ * Every sort finishes with a tiebreak property (usually the id), so that the order is the same for every page of the
+ * results.
+ */
+public final class OrderByOptions {
+
+    private final Map<String, Option> options;
+    private final String defaultKey;
+    private final String tiebreakProperty;
+    private final boolean rejectUnknownKeys;
+
+    private OrderByOptions(Builder builder) {
+        this.options = Map.copyOf(builder.options);
+        this.defaultKey = builder.defaultKey;
+        this.tiebreakProperty = builder.tiebreakProperty;
+        this.rejectUnknownKeys = builder.rejectUnknownKeys;
+    }
+
+    /**
+     * Constructs the Sort for the given orderBy key. If the key is null the default key is used. If the key is not
+     * one of the options, the default key is used, or a response status exception with 400 status is thrown if
+     * unknown keys are rejected.
+     * @param orderBy The key to order the results by.
+     * @param reverse Results will be in descending order if true, ascending order if false or null.
+     * @return A Sort which can be applied to queries of the entity.
+     */
+    public Sort getSort(String orderBy, Boolean reverse) {
+        Option option = options.get(orderBy == null ? defaultKey : orderBy);
+        if (option == null) {
+            if (rejectUnknownKeys) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort order");
+            }
+            option = options.get(defaultKey);
+        }
+        Sort.Direction direction = Boolean.TRUE.equals(reverse) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort.Order order = new Sort.Order(direction, option.property);
+        if (option.nullable) {
+            order = direction.isAscending() ? order.nullsLast() : order.nullsFirst();
+        }
+        return Sort.by(order).and(Sort.by(direction, tiebreakProperty));
+    }
+
+    /**
+     * Constructs a PageRequest for the given page of the results in the order given by an orderBy key. The page
+     * number and number of results per page are normalised in the same way as SearchHelper.getPageRequest.
+     * @param orderBy The key to order the results by.
+     * @param reverse Results will be in descending order if true, ascending order if false or null.
+     * @param page The page number in the results which has been requested. Defaults to 1.
+     * @param resultsPerPage The number of results which will be returned. Defaults to 15.
+     * @return A PageRequest for the given page.
+     */
+    public PageRequest getPageRequest(String orderBy, Boolean reverse, Integer page, Integer resultsPerPage) {
+        return SearchHelper.getPageRequest(page, resultsPerPage, getSort(orderBy, reverse));
+    }
+
+    /**
+     * The property an orderBy key orders by and how it should be compared.
+     */
+    private static final class Option {
+        private final String property;
+        private final boolean nullable;
+
+        Option(String property, boolean nullable) {
+            this.property = property;
+            this.nullable = nullable;
+        }
+    }
+
+    /**
+     * Builder for OrderByOptions.
+     */
+    public static class Builder {
+        private final Map<String, Option> options = new HashMap<>();
+        private String defaultKey;
+        private String tiebreakProperty = "id";
+        private boolean rejectUnknownKeys = false;
+
+        /**
+         * Adds a key which orders by a property which is never null.
+         * @param key The orderBy key.
+         * @param property The path to the property.
+         * @return Builder with the option added.
+         */
+        public Builder withOption(String key, String property) {
+            options.put(key, new Option(property, false));
+            return this;
+        }
+
+        /**
+         * Adds a key which orders by a property which may be null. Nulls come last, or first when reversed.
+         * @param key The orderBy key.
+         * @param property The path to the property.
+         * @return Builder with the option added.
+         */
+        public Builder withNullableOption(String key, String property) {
+            options.put(key, new Option(property, true));
+            return this;
+        }
+
+        /**
+         * Adds a key which orders by a text property in locale aware, case insensitive order, using the property which
+         * holds the text's collation sort key. Nulls come last, or first when reversed.
+         * @param key The orderBy key.
+         * @param sortKeyProperty The path to the sort key property, e.g. 'product.nameSortKey'.
+         * @return Builder with the option added.
+         */
+        public Builder withTextOption(String key, String sortKeyProperty) {
+            options.put(key, new Option(sortKeyProperty, true));
+            return this;
+        }
+
+        /**
+         * Sets the key which is used when no orderBy key is given. Must be one of the options.
+         * @param key The default orderBy key.
+         * @return Builder with the default key set.
+         */
+        public Builder withDefault(String key) {
+            this.defaultKey = key;
+            return this;
+        }
+
+        /**
+         * Sets the property used to order results which are equal on the orderBy property. Defaults to 'id'.
+         * @param property The path to the tiebreak property, which should be unique.
+         * @return Builder with the tiebreak property set.
+         */
+        public Builder withTiebreak(String property) {
+            this.tiebreakProperty = property;
+            return this;
+        }
+
+        /**
+         * Makes getSort throw a 400 response status exception for keys which are not options, rather than using the
+         * default key.
+         * @return Builder which rejects unknown keys.
+         */
+        public Builder rejectingUnknownKeys() {
+            this.rejectUnknownKeys = true;
+            return this;
+        }
+
+        /**
+         * @return The OrderByOptions with the given options.
+         */
+        public OrderByOptions build() {
+            if (!options.containsKey(Objects.requireNonNull(defaultKey, "A default orderBy key must be given"))) {
+                throw new IllegalArgumentException("The default orderBy key must be one of the options");
+            }
+            return new OrderByOptions(this);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.seng302.tools;
+
+import net.minidev.json.JSONObject;
+import net.minidev.json.parser.JSONParser;
+import net.minidev.json.parser.ParseException;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Marks a position in an ordered list of results, so that the next page can be fetched with a keyset query (rows which
+ * come after the last row of the previous page in the sort order) instead of skipping over every earlier row with an
+ * offset. A cursor holds the property the results are ordered by, the direction of the order, whether text values are
+ * compared ignoring case, and the value of that property and the id of the last row returned. Ties on the property are
+ * broken by id in the same direction.
+ *
+ * Cursors are given to clients as opaque URL safe strings and should be passed back unchanged.
+ */
+public final class PageCursor {
+
+    private static final String PROPERTY_FIELD = "p";
+    private static final String DESCENDING_FIELD = "d";
+    private static final String IGNORE_CASE_FIELD = "c";
+    private static final String VALUE_FIELD = "v";
+    private static final String ID_FIELD = "i";
+
+    private final String property;
+    private final boolean descending;
+    private final boolean ignoreCase;
+    private final String value;
+    private final long id;
+
+    /**
+     * Creates a cursor for the row with the given value and id.
+     * @param property The property the results are ordered by (may be a path such as 'creator.firstName').
+     * @param descending True if the results are in descending order.
+     * @param value The value of the property for the last row returned.
+     * @param id The id of the last row returned.
+     */
+    public PageCursor(String property, boolean descending, String value, long id) {
+        this(property, descending, false, value, id);
+    }
+
+    /**
+     * Creates a cursor for the row with the given value and id.
+     * @param property The property the results are ordered by (may be a path such as 'creator.firstName').
+     * @param descending True if the results are in descending order.
+     * @param ignoreCase True if the property is text which is ordered ignoring case.
+     * @param value The value of the property for the last row returned.
+     * @param id The id of the last row returned.
+     */
+    public PageCursor(String property, boolean descending, boolean ignoreCase, String value, long id) {
+        this.property = Objects.requireNonNull(property);
+        this.descending = descending;
+        this.ignoreCase = ignoreCase;
+        this.value = Objects.requireNonNull(value);
+        this.id = id;
+    }
+
+    /**
+     * Creates a cursor for the row with the given value and id, in the order given by the first property of a sort.
+     * @param sort The order of the results.
+     * @param value The value of the sort's first property for the last row returned.
+     * @param id The id of the last row returned.
+     * @return A cursor for the row.
+     */
+    public static PageCursor after(Sort sort, Object value, long id) {
+        Sort.Order order = sort.iterator().next();
+        return new PageCursor(order.getProperty(), order.isDescending(), order.isIgnoreCase(), String.valueOf(value), id);
+    }
+
+    /**
+     * @return The property the results are ordered by.
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * @return True if the results are in descending order.
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * @return True if the property is text which is ordered ignoring case. The value is then compared with the property
+     * ignoring case too.
+     */
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * @return The value of the ordering property for the last row returned, as a string.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return The id of the last row returned.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the order of the results which this cursor is for, with ties broken by id.
+     * @return The order of the results.
+     */
+    public Sort getSort() {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort.Order order = new Sort.Order(direction, property);
+        return Sort.by(ignoreCase ? order.ignoreCase() : order).and(Sort.by(direction, "id"));
+    }
+
+    /**
+     * Converts this cursor to the string given to clients.
+     * @return The cursor as a URL safe string.
+     */
+    public String encode() {
+        JSONObject json = new JSONObject();
+        json.appendField(PROPERTY_FIELD, property);
+        json.appendField(DESCENDING_FIELD, descending);
+        json.appendField(IGNORE_CASE_FIELD, ignoreCase);
+        json.appendField(VALUE_FIELD, value);
+        json.appendField(ID_FIELD, id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.toJSONString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a cursor from a string created by encode. A response status exception with 400 status is thrown if the
+     * string is not a valid cursor.
+     * @param encoded The cursor string given by the client.
+     * @return The cursor.
+     */
+    public static PageCursor decode(String encoded) {
+        try {
+            String jsonString = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            JSONObject json = (JSONObject) new JSONParser(JSONParser.MODE_PERMISSIVE).parse(jsonString);
+            Object descending = json.get(DESCENDING_FIELD);
+            Object ignoreCase = json.get(IGNORE_CASE_FIELD);
+            Number id = json.getAsNumber(ID_FIELD);
+            String property = json.getAsString(PROPERTY_FIELD);
+            String value = json.getAsString(VALUE_FIELD);
+            if (!(descending instanceof Boolean) || !(ignoreCase instanceof Boolean) || id == null || property == null
+                    || value == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor");
+            }
+            return new PageCursor(property, (Boolean) descending, (Boolean) ignoreCase, value, id.longValue());
+        } catch (IllegalArgumentException | ClassCastException | ParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid page cursor");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PageCursor that = (PageCursor) o;
+        return descending == that.descending && ignoreCase == that.ignoreCase && id == that.id &&
+                property.equals(that.property) && value.equals(that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, descending, ignoreCase, value, id);
+    }
+}
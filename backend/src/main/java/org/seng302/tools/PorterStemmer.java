@@ -0,0 +1,240 @@
+package org.seng302.tools;
+
+/**
+ * Reduces English words to their stems with the Porter stemming algorithm (M.F. Porter, 1980), so that different
+ * forms of a word such as "connect", "connected" and "connection" are treated as the same word when searching. Stems
+ * are not always real words ("happy" becomes "happi"), but every form of a word becomes the same stem.
+ *
+ * Only words made up entirely of the lower case letters a-z are stemmed. Other words are returned unchanged.
+ */
+public final class PorterStemmer {
+
+    private static final String[][] STEP_2_SUFFIXES = {
+            {"ational", "ate"}, {"tional", "tion"}, {"enci", "ence"}, {"anci", "ance"}, {"izer", "ize"},
+            {"abli", "able"}, {"alli", "al"}, {"entli", "ent"}, {"eli", "e"}, {"ousli", "ous"}, {"ization", "ize"},
+            {"ation", "ate"}, {"ator", "ate"}, {"alism", "al"}, {"iveness", "ive"}, {"fulness", "ful"},
+            {"ousness", "ous"}, {"aliti", "al"}, {"iviti", "ive"}, {"biliti", "ble"}
+    };
+    private static final String[][] STEP_3_SUFFIXES = {
+            {"icate", "ic"}, {"ative", ""}, {"alize", "al"}, {"iciti", "ic"}, {"ical", "ic"}, {"ful", ""}, {"ness", ""}
+    };
+    // Longer suffixes come before the shorter suffixes they end with, so the longest matching suffix is found first
+    private static final String[] STEP_4_SUFFIXES = {
+            "al", "ance", "ence", "er", "ic", "able", "ible", "ant", "ement", "ment", "ent", "ion", "ou", "ism", "ate",
+            "iti", "ous", "ive", "ize"
+    };
+
+    private PorterStemmer() {}
+
+    /**
+     * Finds the stem of a word.
+     * @param word The word to stem, in lower case.
+     * @return The stem of the word.
+     */
+    public static String stem(String word) {
+        if (word.length() <= 2) {
+            return word;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) < 'a' || word.charAt(i) > 'z') {
+                return word;
+            }
+        }
+        StringBuilder b = new StringBuilder(word);
+        step1a(b);
+        step1b(b);
+        step1c(b);
+        replaceFirstSuffix(b, STEP_2_SUFFIXES);
+        replaceFirstSuffix(b, STEP_3_SUFFIXES);
+        step4(b);
+        step5(b);
+        return b.toString();
+    }
+
+    /**
+     * Removes plurals: "caresses" to "caress", "ponies" to "poni" and "cats" to "cat".
+     */
+    private static void step1a(StringBuilder b) {
+        if (endsWith(b, "sses") || endsWith(b, "ies")) {
+            b.setLength(b.length() - 2);
+        } else if (!endsWith(b, "ss") && endsWith(b, "s")) {
+            b.setLength(b.length() - 1);
+        }
+    }
+
+    /**
+     * Removes -ed and -ing: "agreed" to "agree", "hopping" to "hop" and "filing" to "file".
+     */
+    private static void step1b(StringBuilder b) {
+        if (endsWith(b, "eed")) {
+            if (measure(b, b.length() - 3) > 0) {
+                b.setLength(b.length() - 1);
+            }
+            return;
+        }
+        int stemEnd;
+        if (endsWith(b, "ed")) {
+            stemEnd = b.length() - 2;
+        } else if (endsWith(b, "ing")) {
+            stemEnd = b.length() - 3;
+        } else {
+            return;
+        }
+        if (!containsVowel(b, stemEnd)) {
+            return;
+        }
+        b.setLength(stemEnd);
+        if (endsWith(b, "at") || endsWith(b, "bl") || endsWith(b, "iz")) {
+            b.append('e');
+        } else if (endsWithDoubleConsonant(b, b.length())) {
+            char last = b.charAt(b.length() - 1);
+            if (last != 'l' && last != 's' && last != 'z') {
+                b.setLength(b.length() - 1);
+            }
+        } else if (measure(b, b.length()) == 1 && endsWithCvc(b, b.length())) {
+            b.append('e');
+        }
+    }
+
+    /**
+     * Changes a final y to i when there is another vowel: "happy" to "happi" but "sky" stays "sky".
+     */
+    private static void step1c(StringBuilder b) {
+        if (endsWith(b, "y") && containsVowel(b, b.length() - 1)) {
+            b.setCharAt(b.length() - 1, 'i');
+        }
+    }
+
+    /**
+     * Removes suffixes such as -ment and -ive from words with a long enough stem: "adjustment" to "adjust".
+     */
+    private static void step4(StringBuilder b) {
+        for (String suffix : STEP_4_SUFFIXES) {
+            if (endsWith(b, suffix)) {
+                int stemEnd = b.length() - suffix.length();
+                boolean ionAfterSOrT = !suffix.equals("ion")
+                        || (stemEnd > 0 && (b.charAt(stemEnd - 1) == 's' || b.charAt(stemEnd - 1) == 't'));
+                if (ionAfterSOrT) {
+                    if (measure(b, stemEnd) > 1) {
+                        b.setLength(stemEnd);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a final e and reduces a final ll to l: "probate" to "probat" and "controll" to "control".
+     */
+    private static void step5(StringBuilder b) {
+        if (endsWith(b, "e")) {
+            int m = measure(b, b.length() - 1);
+            if (m > 1 || (m == 1 && !endsWithCvc(b, b.length() - 1))) {
+                b.setLength(b.length() - 1);
+            }
+        }
+        if (endsWith(b, "ll") && measure(b, b.length()) > 1) {
+            b.setLength(b.length() - 1);
+        }
+    }
+
+    /**
+     * Replaces the first of the given suffixes which the word ends with, if the rest of the word has a measure greater
+     * than 0. No other suffixes are tried once one has matched.
+     * @param suffixes Pairs of a suffix and its replacement.
+     */
+    private static void replaceFirstSuffix(StringBuilder b, String[][] suffixes) {
+        for (String[] suffix : suffixes) {
+            if (endsWith(b, suffix[0])) {
+                int stemEnd = b.length() - suffix[0].length();
+                if (measure(b, stemEnd) > 0) {
+                    b.setLength(stemEnd);
+                    b.append(suffix[1]);
+                }
+                return;
+            }
+        }
+    }
+
+    private static boolean endsWith(StringBuilder b, String suffix) {
+        int start = b.length() - suffix.length();
+        if (start < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (b.charAt(start + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A letter is a consonant unless it is a, e, i, o, u, or a y after a consonant.
+     */
+    private static boolean isConsonant(StringBuilder b, int i) {
+        switch (b.charAt(i)) {
+            case 'a':
+            case 'e':
+            case 'i':
+            case 'o':
+            case 'u':
+                return false;
+            case 'y':
+                return i == 0 || !isConsonant(b, i - 1);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Counts the number of times a vowel sequence is followed by a consonant sequence in the first end letters, which
+     * is roughly the number of syllables after the first.
+     */
+    private static int measure(StringBuilder b, int end) {
+        int i = 0;
+        while (i < end && isConsonant(b, i)) {
+            i++;
+        }
+        int measure = 0;
+        while (i < end) {
+            while (i < end && !isConsonant(b, i)) {
+                i++;
+            }
+            if (i == end) {
+                break;
+            }
+            while (i < end && isConsonant(b, i)) {
+                i++;
+            }
+            measure++;
+        }
+        return measure;
+    }
+
+    private static boolean containsVowel(StringBuilder b, int end) {
+        for (int i = 0; i < end; i++) {
+            if (!isConsonant(b, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean endsWithDoubleConsonant(StringBuilder b, int end) {
+        return end >= 2 && b.charAt(end - 1) == b.charAt(end - 2) && isConsonant(b, end - 1);
+    }
+
+    /**
+     * Checks whether the first end letters finish with a consonant, a vowel and then a consonant other than w, x or y,
+     * as in "hop" or "fil".
+     */
+    private static boolean endsWithCvc(StringBuilder b, int end) {
+        if (end < 3 || !isConsonant(b, end - 3) || isConsonant(b, end - 2) || !isConsonant(b, end - 1)) {
+            return false;
+        }
+        char last = b.charAt(end - 1);
+        return last != 'w' && last != 'x' && last != 'y';
+    }
+}
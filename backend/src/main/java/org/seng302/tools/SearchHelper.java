@@ -2,15 +2,16 @@ package org.seng302.tools;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.seng302.entities.User;
+import org.seng302.entities.Business;
+import org.seng302.entities.UserNameTrigram;
 import org.seng302.exceptions.SearchFormatException;
-import org.seng302.persistence.UserRepository;
-import org.seng302.persistence.UserSpecificationsBuilder;
+import org.seng302.persistence.BusinessSpecification;
+import org.seng302.persistence.SearchCriteria;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * This class provides static methods to help the controller classes return results from queries to the database.
@@ -18,13 +19,21 @@ import java.util.stream.Collectors;
 public class SearchHelper {
 
     private static final int DEFAULT_RESULTS_PER_PAGE = 15;
+    public static final String RELEVANCE_ORDER_BY = "relevance";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
     private static final List<String> ORDER_BY_OPTIONS = List.of("userID", "firstName", "middleName", "lastName", "nickname", "email");
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final Map<String, String> CARD_ORDER_BY_PROPERTIES = Map.of(
+            "created", "created",
+            "closes", "closes",
+            "title", "title",
+            "creatorFirstName", "creator.firstName",
+            "creatorLastName", "creator.lastName"
+    );
+    private static final Set<String> CARD_TEXT_PROPERTIES = Set.of("title", "creator.firstName", "creator.lastName");
+    private static final List<String> BUSINESS_ORDER_BY_OPTIONS = List.of("name", "businessType", "created", "address.city", "address.region", "address.country");
     private static final Logger logger = LogManager.getLogger(SearchHelper.class);
 
-    private enum PredicateType {
-        OR, AND
-    }
-
     /**
      * This method takes an ordered list of User objects  and returns a list of the user objects which should appear on
      * a single page to be displayed on client side of the application. The page number and number of results per page
@@ -116,138 +125,59 @@ public class SearchHelper {
     }
 
     /**
-     * This method parses a search query to construct a specification which will match only those users which match the
-     * search query by calling private methods.
-     *
-     * It takes a searchQuery and calls splitSearchStringIntoTerms to divide it into its individual tokens. These tokens
-     * are either single words or multiple words joined by single or double quotes.
-     *
-     * parseUserSearchTokens is then called, which uses the tokens to build a list of specifications and a list of
-     * predicates types. The specifications will match uses which contain a certain term, and the predicate types indicate
-     * whether these specifications are joined by logical AND or logical OR.
-     *
-     * Lastly, buildCompoundSpecification is called which combines the individual specifications using the predicates to
-     * create one specification which can be used to query the User repository for users which match the search query.
-     * @param searchQuery A query entered by the user for searching for users within the database.
-     * @return A specification which matches the user's search query.
-     */
-    public static Specification<User> constructUserSpecificationFromSearchQuery(String searchQuery) {
-        List<String> searchTokens = splitSearchStringIntoTerms(searchQuery);
-
-        List<Specification<User>> searchSpecs = new ArrayList<>();
-        List<PredicateType> predicateTypesByIndex = new ArrayList<>();
-        parseUserSearchTokens(searchTokens, searchSpecs, predicateTypesByIndex);
-
-        return buildCompoundSpecification(searchSpecs, predicateTypesByIndex);
-    }
-
-    /**
-     * This method takes a list of user specifications and a list of predicate types. It combines the individual
-     * specifications into one specification depending on the prediate type. The specification at index i in searchSpecs
-     * is followed by the predicate type at index i in predicateTypes e.g. for 'a AND b', a would be at index 0 in the
-     * list of specifications and AND would be at index 0 in the list of predicate types.
-     * @param searchSpecs A list of N user specifications to be combined.
-     * @param predicateTypes A list of N-1 predicate types to use when combining the specifications.
-     * @return A compound specification made up of individual specifications linked by predicates.
+     * This method constructs a specification which will match only those businesses which match the search query and
+     * the given filters. The query is parsed with the same grammar as user search queries, and each term is matched
+     * against the business's name, either exactly if it is in quotes or partially otherwise. The filters must match the
+     * business's type and the region and city of its address exactly, so they can be answered from the indexes on
+     * those columns. Any of the query and filters can be null, in which case they do not restrict the businesses.
+     * @param searchQuery A query entered by the user for searching for businesses by name, or null.
+     * @param businessType The type of business to match, or null.
+     * @param region The region of the businesses' addresses, or null.
+     * @param city The city of the businesses' addresses, or null.
+     * @return A specification which matches the search query and filters.
      */
-    private static Specification<User> buildCompoundSpecification(List<Specification<User>> searchSpecs,
-                                                                  List<PredicateType> predicateTypes) {
-        Specification<User> result = searchSpecs.get(0);
-        for (int i = 1; i < searchSpecs.size(); i++) {
-            if (predicateTypes.get(i-1).equals(PredicateType.OR)) {
-                result = result.or(searchSpecs.get(i));
-            } else {
-                result = result.and(searchSpecs.get(i));
-            }
+    public static Specification<Business> constructBusinessSpecification(String searchQuery, String businessType,
+                                                                         String region, String city) {
+        Specification<Business> specification = Specification.where(null);
+        if (searchQuery != null) {
+            specification = SearchQuery.parse(searchQuery).evaluate(
+                    searchTerm -> buildBusinessSpec("name", "=", searchTerm),
+                    searchTerm -> buildBusinessSpec("name", ":", searchTerm),
+                    Specification::and, Specification::or);
         }
-        return result;
-    }
-
-    /**
-     * This method parses a list of search tokens taken from a search string entered by a user. If the token is in
-     * quotation marks, a specification which will only match attributes which are exactly the same as that token is
-     * constructed and added to searchSpecs. If the token is a word that is not in quotes, and is not 'AND' or 'OR',
-     * a specification which will match attributes of which contain this token without case sensitivity is constructed.
-     * 'AND' and 'OR' tokens are used to determine what predicate should be used to chain specifications, with AND being
-     * the default if no predicate token is present.
-     * @param searchTokens A list of single words or phrases in quotes from the user's search string.
-     * @param searchSpecs An empty list which the specifications will be added to.
-     * @param predicateTypesByIndex An empty list which the predicates will be added to.
-     */
-    private static void parseUserSearchTokens(List<String> searchTokens, List<Specification<User>> searchSpecs,
-                                              List<PredicateType> predicateTypesByIndex) {
-        int i = 0;
-        while (i < searchTokens.size()) {
-            if (searchTokens.get(i).startsWith("\"") || searchTokens.get(i).startsWith("'")) {
-                String termWithoutQuotes = searchTokens.get(i).substring(1, searchTokens.get(i).length() - 1);
-                searchSpecs.add(buildExactMatchUserSpec(termWithoutQuotes));
-                if (i + 1 < searchTokens.size()) {
-                    PredicateType predicateType = getPredicateType(searchTokens.get(i + 1));
-                    predicateTypesByIndex.add(predicateType);
-                }
-            } else if (!(searchTokens.get(i).equalsIgnoreCase("and") || searchTokens.get(i).equalsIgnoreCase("or"))) {
-                searchSpecs.add(buildPartialMatchUserSpec(searchTokens.get(i)));
-                if (i + 1 < searchTokens.size()) {
-                    PredicateType predicateType = getPredicateType(searchTokens.get(i + 1));
-                    predicateTypesByIndex.add(predicateType);
-                }
-            }
-            i++;
+        if (businessType != null) {
+            specification = specification.and(buildBusinessSpec("businessType", "=", businessType));
         }
-
-        if (searchSpecs.isEmpty()) {
-            SearchFormatException searchFormatException = new SearchFormatException("No valid search terms in query.");
-            logger.error(searchFormatException.getMessage());
-            throw(searchFormatException);
+        if (region != null) {
+            specification = specification.and(buildBusinessSpec("address.region", "=", region));
         }
-
-    }
-
-    /**
-     * This method returns a specification for the User entity which will match User objects with a firstName, middleName,
-     * lastName or nickname which is an exact match for the given searchTerm. For example, if the search term was 'Jo', the
-     * specification would match Users with the name 'Jo' but not 'jo' or 'Joe',
-     * @param searchTerm A term to find exact matches for.
-     * @return A specification which will match users that exactly match the given string in one of their name attributes.
-     */
-    private static Specification<User> buildExactMatchUserSpec(String searchTerm) {
-        UserSpecificationsBuilder builder = new UserSpecificationsBuilder();
-        builder.with("firstName", "=", searchTerm, true);
-        builder.with("middleName", "=", searchTerm, true);
-        builder.with("lastName", "=", searchTerm, true);
-        builder.with("nickname", "=", searchTerm, true);
-        return builder.build();
+        if (city != null) {
+            specification = specification.and(buildBusinessSpec("address.city", "=", city));
+        }
+        return specification;
     }
 
     /**
-     * This method returns a specification for the User entity which will match User objects with a firstName, middleName,
-     * lastName or nickname which is an exact match for the given searchTerm. For example, if the search term was 'Jo', the
-     * specification would match Users with the name 'Jo', 'jo' or 'Joe',
-     * @param searchTerm A term to find exact matches for.
-     * @return A specification which will match users that exactly match the given string in one of their name attributes.
+     * This method returns a specification for the Business entity which will compare a single attribute of the business
+     * with the given value.
+     * @param key The attribute of the business, e.g. "name" or "address.city".
+     * @param operation ':' for a case insensitive partial match, or '=' for an exact match.
+     * @param value The value to match.
+     * @return A specification which matches businesses with the given attribute matching the value.
      */
-    private static Specification<User> buildPartialMatchUserSpec(String searchTerm) {
-        UserSpecificationsBuilder builder = new UserSpecificationsBuilder();
-        builder.with("firstName", ":", searchTerm, true);
-        builder.with("middleName", ":", searchTerm, true);
-        builder.with("lastName", ":", searchTerm, true);
-        builder.with("nickname", ":", searchTerm, true);
-        return builder.build();
+    private static Specification<Business> buildBusinessSpec(String key, String operation, String value) {
+        return new BusinessSpecification(new SearchCriteria(key, operation, value));
     }
 
     /**
-     * This method returns PredicateType.OR if the given search token matches the string 'or' (case insensitive), or
-     * PredicateType.AND if the given search token matches the string 'and'. It also returns PredicateType.AND if the
-     * given string does not match either of these cases, as this is the default predicate type.
-     * @param searchToken A single token from the search query.
-     * @return PredicateType.OR if searchToken is or, PredicateType.AND otherwise.
+     * Checks whether the users partially matching a search term can be narrowed down using the trigram table. The
+     * term must contain at least one trigram, and must not contain characters with a special meaning in LIKE patterns,
+     * as users matching those characters as wildcards would not have the term's trigrams.
+     * @param searchTerm A partial match search term.
+     * @return True if the trigram table can be used for the term.
      */
-    private static PredicateType getPredicateType(String searchToken) {
-        PredicateType predicateType = PredicateType.AND;
-        if (searchToken.equalsIgnoreCase("or")) {
-            predicateType = PredicateType.OR;
-        }
-        return predicateType;
+    public static boolean canUseTrigramTable(String searchTerm) {
+        return searchTerm.length() >= UserNameTrigram.TRIGRAM_LENGTH && !searchTerm.matches(".*[%_\\\\].*");
     }
 
     /**
@@ -256,7 +186,7 @@ public class SearchHelper {
      * @param searchString A string to be parsed into an array of individual terms.
      * @return An array containing each term from the search string.
      */
-    private static List<String> splitSearchStringIntoTerms(String searchString) {
+    static List<String> splitSearchStringIntoTerms(String searchString) {
         if (searchString.isBlank()) {
             SearchFormatException searchFormatException = new SearchFormatException("Search query cannot be blank.");
             logger.error(searchFormatException.getMessage());
@@ -328,134 +258,78 @@ public class SearchHelper {
     }
 
     /**
-     * This method takes a string, replaces terms that are not in quotes with terms in quotes, and replaces or tokens
-     * with and. The resulting query string will only match User entities which fully match each term in the original
-     * search query.
-     * @param originalSearchQuery A search query entered by the user.
-     * @return A string which is like the original query except every or has been replaced with an and.
-     */
-    public static String getQueryStringWithoutOr(String originalSearchQuery) {
-        List<String> originalTokens = splitSearchStringIntoTerms(originalSearchQuery);
-        List<String> tokensWithoutOr = new ArrayList<>();
-        for (String token : originalTokens) {
-            if (token.equalsIgnoreCase("or")) {
-                tokensWithoutOr.add("and");
-            } else {
-                tokensWithoutOr.add(token);
-            }
-        }
-        return listToStringWithSpace(tokensWithoutOr);
-    }
-
-    /**
-     * This method takes a string and replaces terms that are not in quotes with terms in quotes. The resulting query
-     * string will only match User entities whose attributes fully match the terms from the original search query.
-     * @param originalSearchQuery A search query entered by the user.
-     * @return A string which is like the original search query except all terms are in quotes.
+     * This method constructs a Sort object to be passed to UserSearchRepository.searchUsers. If orderBy is null or
+     * 'relevance', the results will be ordered by relevance to the search query. Otherwise the sort is the same as the
+     * one returned by getSort.
+     * @param orderBy The attribute which search results will be ordered by.
+     * @param reverse Results will be in descending order if true, ascending order if false or null.
+     * @return A Sort which can be applied to a user search.
      */
-    public static String getFullMatchesQueryString(String originalSearchQuery) {
-        List<String> originalTokens = splitSearchStringIntoTerms(originalSearchQuery);
-        List<String> fullMatchTokens = new ArrayList<>();
-        for (String token : originalTokens) {
-            if (token.startsWith("\"") || token.startsWith("'")) {
-                fullMatchTokens.add(token);
-            } else if (!(token.equalsIgnoreCase("or") || token.equalsIgnoreCase("and"))) {
-                fullMatchTokens.add("\"" + token + "\"");
-            } else {
-                fullMatchTokens.add(token);
-            }
+    public static Sort getUserSearchSort(String orderBy, Boolean reverse) {
+        if (orderBy == null || orderBy.equals(RELEVANCE_ORDER_BY)) {
+            Sort.Direction direction = Boolean.TRUE.equals(reverse) ? Sort.Direction.DESC : Sort.Direction.ASC;
+            return Sort.by(direction, RELEVANCE_ORDER_BY);
         }
-        return listToStringWithSpace(fullMatchTokens);
+        return getSort(orderBy, reverse);
     }
 
     /**
-     * This method takes a list of strings and returns a single string made up of all the individual strings joined with
-     * a space character.
-     * @param list A list of strings to be joined with spaces.
-     * @return
+     * This method constructs a Sort object to be passed into a query for searching the BusinessRepository. Businesses
+     * are ordered by their name if orderBy is null or not one of the options, and businesses which are equal on the
+     * given attribute are ordered by their id, so that the order is the same for every page of the results.
+     * @param orderBy The attribute which query results will be ordered by.
+     * @param reverse Results will be in descending order if true, ascending order if false or null.
+     * @return A Sort which can then be applied to queries of the BusinessRepository.
      */
-    private static String listToStringWithSpace(List<String> list) {
-        StringBuilder builder = new StringBuilder();
-        for (String phrase : list) {
-            builder.append(phrase);
-            builder.append(" ");
+    public static Sort getBusinessSort(String orderBy, Boolean reverse) {
+        if (orderBy == null || !BUSINESS_ORDER_BY_OPTIONS.contains(orderBy)) {
+            orderBy = "name";
         }
-        String stringWithSpaces = builder.toString();
-        return stringWithSpaces.substring(0, stringWithSpaces.length() - 1);
+        Sort.Direction direction = Boolean.TRUE.equals(reverse) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(direction, orderBy).and(Sort.by(direction, "id"));
     }
 
     /**
-     * This method takes a search query entered by the user. It returns a list of User entities from the given repository
-     * which have a first name, middle name, last name or nickname matching the query, ordered by relevance as follows:
-     *
-     * 1) Users where part of their name is a full match for every term in the query (e.g. for the query 'Donald or Duck',
-     * Donald Duck would fall into this category).
-     *
-     * 2) Users where part of their name is a full match for some of the terms in the query (e.g. for the query 'Donald
-     * or Duck', Donald Smith would fall into this category).
-     *
-     * 3) User where part of their name is a partial match for some to the terms in the query (e.g. for the query 'Donald
-     * or Duck', Lucy McDonald would fall into this category).
-     *
-     * @param originalSearchQuery A search query entered by the user.
-     * @param userRepository The repository containing all the User entities.
-     * @return
+     * This method constructs a Sort object to be passed into a query of the MarketplaceCardRepository. Cards are ordered
+     * by creation date if the given attribute is null or not one of the options, and ties are broken by card id in
+     * the same direction so that the order is the same as that used by keyset (cursor) pagination. Titles and creator
+     * names are ordered ignoring case.
+     * @param orderBy The attribute which cards will be ordered by.
+     * @param reverse Results will be in descending order if true, ascending order if false or null.
+     * @return A Sort which can then be applied to queries of the MarketplaceCardRepository.
      */
-    public static List<User> getSearchResultsOrderedByRelevance(String originalSearchQuery, UserRepository userRepository, Boolean reverse) {
-        Sort idSort = getSort("userID", false);
-
-        String fullMatchSomeTermsQuery = getFullMatchesQueryString(originalSearchQuery);
-        String fullMatchAllTermsQuery = getQueryStringWithoutOr(fullMatchSomeTermsQuery);
-
-        Specification<User> fullMatchAllTermsSpec = constructUserSpecificationFromSearchQuery(fullMatchAllTermsQuery);
-        Specification<User> fullMatchSomeTermsSpec = constructUserSpecificationFromSearchQuery(fullMatchSomeTermsQuery);
-        Specification<User> partialMatchSomeTermsSpec = constructUserSpecificationFromSearchQuery(originalSearchQuery);
-
-        List<User> fullMatchesAllTerms = userRepository.findAll(fullMatchAllTermsSpec, idSort);
-        List<User> fullMatchesSomeTerms = userRepository.findAll(fullMatchSomeTermsSpec, idSort);
-        List<User> partialMatchesSomeTerms = userRepository.findAll(partialMatchSomeTermsSpec, idSort);
-
-        List<User> matchList = new ArrayList<>();
-        HashSet<Long> addedIds = new HashSet<>();
-        addNewToList(matchList, addedIds, fullMatchesAllTerms);
-        addNewToList(matchList, addedIds, fullMatchesSomeTerms);
-        addNewToList(matchList, addedIds, partialMatchesSomeTerms);
-
-        if (Boolean.TRUE.equals(reverse)) {
-            Collections.reverse(matchList);
+    public static Sort getCardSort(String orderBy, Boolean reverse) {
+        String property = CARD_ORDER_BY_PROPERTIES.getOrDefault(orderBy == null ? "created" : orderBy, "created");
+        Sort.Direction direction = Boolean.TRUE.equals(reverse) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort.Order order = new Sort.Order(direction, property);
+        if (CARD_TEXT_PROPERTIES.contains(property)) {
+            order = order.ignoreCase();
         }
-
-        return matchList;
+        return Sort.by(order).and(Sort.by(direction, "id"));
     }
 
     /**
-     * Filters out the DGAA accounts from a list of users
-     * @param userList List of users to filter
-     * @return Filtered list of users
+     * Checks whether cards are ordered by a property in the given way, and so whether a page cursor for it is valid.
+     * @param property The path of the card property, e.g. 'creator.firstName'.
+     * @param ignoreCase Whether the property is compared ignoring case.
+     * @return True if getCardSort orders cards by the property, ignoring case or not as given.
      */
-    public static List<User> removeDGAAAccountFromResults(List<User> userList) {
-        return userList
-                .stream()
-                .filter(user -> !user.getRole().equals("defaultGlobalApplicationAdmin"))
-                .collect(Collectors.toList());
+    public static boolean isCardOrderProperty(String property, boolean ignoreCase) {
+        return CARD_ORDER_BY_PROPERTIES.containsValue(property) && CARD_TEXT_PROPERTIES.contains(property) == ignoreCase;
     }
 
     /**
-     * This method checks addedIds to see if the given user has already been added to noDuplicatesList. If they have not,
-     * the user is added to noDuplicatesList and their id is added to addedIds.
-     * @param noDuplicatesList A list which users will be added to if they are not duplicates of users already in the list.
-     * @param addedIds A list of ids of users which have been added to the list.
-     * @param users A list of users which may be added to the list if they are not in it already.
+     * This method constructs a PageRequest object which can be passed to a repository so that paging is done by the
+     * database rather than by getPageInResults. The page number and number of results per page are normalised in the
+     * same way as getPageInResults, and the page number is converted from starting at 1 to starting at 0.
+     * @param requestedPageOrNull The page number in the results which has been requested. Defaults to 1.
+     * @param resultsPerPageOrNull The number of results which will be returned. Defaults to 15.
+     * @param sort The order which results should be returned in.
+     * @return A PageRequest for the given page.
      */
-    private static void addNewToList(List<User> noDuplicatesList, HashSet<Long> addedIds, List<User> users) {
-        for (User user : users) {
-            if (!addedIds.contains(user.getUserID())) {
-                addedIds.add(user.getUserID());
-                noDuplicatesList.add(user);
-            }
-        }
+    public static PageRequest getPageRequest(Integer requestedPageOrNull, Integer resultsPerPageOrNull, Sort sort) {
+        int resultsPerPage = getResultsPerPageInt(resultsPerPageOrNull);
+        int requestedPage = getRequestedPageInt(requestedPageOrNull);
+        return PageRequest.of(requestedPage - 1, resultsPerPage, sort);
     }
-
-
-
 }
@@ -0,0 +1,212 @@
+package org.seng302.tools;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.seng302.exceptions.SearchFormatException;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * An immutable syntax tree for a search query entered by the user. A query is made up of terms, which are either
+ * single words (partial matches) or phrases in quotes (exact matches), joined by 'AND' or 'OR'. AND is used if there
+ * is no connective between two terms. Connectives have no precedence, so the terms are combined from left to right,
+ * e.g. 'a or b c' is parsed as '(a OR b) AND c'.
+ *
+ * Parsing a query once and then evaluating the tree means the query text only has to be split into tokens once, no
+ * matter how many times or in how many ways the query is used.
+ */
+public abstract class SearchQuery {
+    private static final Logger logger = LogManager.getLogger(SearchQuery.class);
+
+    private SearchQuery() {}
+
+    /**
+     * Parses a search query into a syntax tree.
+     * @param searchQuery A query entered by the user.
+     * @return The parsed query.
+     * @throws SearchFormatException If the query is blank, has an unclosed quote or contains no terms.
+     */
+    public static SearchQuery parse(String searchQuery) {
+        List<String> searchTokens = SearchHelper.splitSearchStringIntoTerms(searchQuery);
+
+        SearchQuery result = null;
+        boolean joinWithOr = false;
+        for (int i = 0; i < searchTokens.size(); i++) {
+            String token = searchTokens.get(i);
+            SearchQuery term;
+            if (token.startsWith("\"") || token.startsWith("'")) {
+                term = new Term(token.substring(1, token.length() - 1), true);
+            } else if (!(token.equalsIgnoreCase("and") || token.equalsIgnoreCase("or"))) {
+                term = new Term(token, false);
+            } else {
+                // Connectives are read along with the term before them
+                continue;
+            }
+            result = result == null ? term : new Connective(result, term, joinWithOr);
+            joinWithOr = i + 1 < searchTokens.size() && searchTokens.get(i + 1).equalsIgnoreCase("or");
+        }
+
+        if (result == null) {
+            SearchFormatException searchFormatException = new SearchFormatException("No valid search terms in query.");
+            logger.error(searchFormatException.getMessage());
+            throw searchFormatException;
+        }
+        return result;
+    }
+
+    /**
+     * Combines the terms in this query into a single value of any type, such as a specification or a fragment of SQL.
+     * @param exactMatch Converts a term (with its quotes removed) which must be matched exactly.
+     * @param partialMatch Converts a term which may be matched partially.
+     * @param and Joins two values with logical AND.
+     * @param or Joins two values with logical OR.
+     * @param <T> The type of value to combine the search terms into.
+     * @return The combination of all the terms in the search query.
+     */
+    public abstract <T> T evaluate(Function<String, T> exactMatch, Function<String, T> partialMatch,
+                                   BinaryOperator<T> and, BinaryOperator<T> or);
+
+    /**
+     * @return A copy of this query where every term must be matched exactly, e.g. 'a or "b"' becomes '"a" or "b"'.
+     */
+    public abstract SearchQuery withAllTermsExact();
+
+    /**
+     * @return A copy of this query where every term is joined with AND, e.g. 'a or b' becomes 'a and b'.
+     */
+    public abstract SearchQuery withOnlyAnd();
+
+    /**
+     * Creates a copy of this query where each partial match term may also be matched by any of its alternatives, e.g.
+     * if 'jonh' has the alternative 'john', 'jonh and smith' becomes '(jonh or john) and smith'.
+     * @param alternatives Gets the alternatives for a partial match term.
+     * @return The query with alternatives added.
+     */
+    public abstract SearchQuery withPartialTermAlternatives(Function<String, List<String>> alternatives);
+
+    /**
+     * Checks whether any term in this query satisfies the given condition.
+     * @param condition The condition to check each term's text against.
+     * @return True if at least one term satisfies the condition.
+     */
+    public boolean anyTermMatches(Function<String, Boolean> condition) {
+        return evaluate(condition, condition, Boolean::logicalOr, Boolean::logicalOr);
+    }
+
+    /**
+     * A single word or quoted phrase in a search query.
+     */
+    private static final class Term extends SearchQuery {
+        private final String text;
+        private final boolean exact;
+
+        Term(String text, boolean exact) {
+            this.text = text;
+            this.exact = exact;
+        }
+
+        @Override
+        public <T> T evaluate(Function<String, T> exactMatch, Function<String, T> partialMatch,
+                              BinaryOperator<T> and, BinaryOperator<T> or) {
+            return exact ? exactMatch.apply(text) : partialMatch.apply(text);
+        }
+
+        @Override
+        public SearchQuery withAllTermsExact() {
+            return exact ? this : new Term(text, true);
+        }
+
+        @Override
+        public SearchQuery withOnlyAnd() {
+            return this;
+        }
+
+        @Override
+        public SearchQuery withPartialTermAlternatives(Function<String, List<String>> alternatives) {
+            if (exact) {
+                return this;
+            }
+            SearchQuery result = this;
+            for (String alternative : alternatives.apply(text)) {
+                result = new Connective(result, new Term(alternative, false), true);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Term)) return false;
+            Term term = (Term) o;
+            return exact == term.exact && text.equals(term.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, exact);
+        }
+
+        @Override
+        public String toString() {
+            return exact ? "\"" + text + "\"" : text;
+        }
+    }
+
+    /**
+     * Two parts of a search query joined by AND or OR.
+     */
+    private static final class Connective extends SearchQuery {
+        private final SearchQuery left;
+        private final SearchQuery right;
+        private final boolean isOr;
+
+        Connective(SearchQuery left, SearchQuery right, boolean isOr) {
+            this.left = left;
+            this.right = right;
+            this.isOr = isOr;
+        }
+
+        @Override
+        public <T> T evaluate(Function<String, T> exactMatch, Function<String, T> partialMatch,
+                              BinaryOperator<T> and, BinaryOperator<T> or) {
+            T leftValue = left.evaluate(exactMatch, partialMatch, and, or);
+            T rightValue = right.evaluate(exactMatch, partialMatch, and, or);
+            return isOr ? or.apply(leftValue, rightValue) : and.apply(leftValue, rightValue);
+        }
+
+        @Override
+        public SearchQuery withAllTermsExact() {
+            return new Connective(left.withAllTermsExact(), right.withAllTermsExact(), isOr);
+        }
+
+        @Override
+        public SearchQuery withOnlyAnd() {
+            return new Connective(left.withOnlyAnd(), right.withOnlyAnd(), false);
+        }
+
+        @Override
+        public SearchQuery withPartialTermAlternatives(Function<String, List<String>> alternatives) {
+            return new Connective(left.withPartialTermAlternatives(alternatives),
+                    right.withPartialTermAlternatives(alternatives), isOr);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Connective)) return false;
+            Connective connective = (Connective) o;
+            return isOr == connective.isOr && left.equals(connective.left) && right.equals(connective.right);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(left, right, isOr);
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + (isOr ? " or " : " and ") + right + ")";
+        }
+    }
+}
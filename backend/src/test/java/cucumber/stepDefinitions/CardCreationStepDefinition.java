@@ -16,6 +16,11 @@ import org.seng302.entities.User;
 import org.seng302.persistence.KeywordRepository;
 import org.seng302.persistence.MarketplaceCardRepository;
 import org.seng302.persistence.UserRepository;
+import org.seng302.service.CardCountCache;
+import org.seng302.service.CardEventStream;
+import org.seng302.service.CardJsonCache;
+import org.seng302.service.CardSearchIndex;
+import org.seng302.service.KeywordDictionary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
@@ -46,6 +51,16 @@ public class CardCreationStepDefinition {
     private UserRepository userRepository;
     @Autowired
     private KeywordRepository keywordRepository;
+    @Autowired
+    private CardCountCache cardCountCache;
+    @Autowired
+    private KeywordDictionary keywordDictionary;
+    @Autowired
+    private CardEventStream cardEventStream;
+    @Autowired
+    private CardJsonCache cardJsonCache;
+    @Autowired
+    private CardSearchIndex cardSearchIndex;
     private MvcResult mvcResult;
     private MarketplaceCard createdCard;
 
@@ -108,7 +123,8 @@ public class CardCreationStepDefinition {
             keywordRepository.save(keyword);
 
         }
-        CardController controller = new CardController(marketplaceCardRepository, keywordRepository, userRepository);
+        CardController controller = new CardController(marketplaceCardRepository, keywordDictionary, userRepository, cardCountCache,
+                cardEventStream, cardJsonCache, cardSearchIndex);
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
     }
 
@@ -16,6 +16,8 @@ import org.seng302.persistence.InventoryItemRepository;
 import org.seng302.persistence.ProductRepository;
 import org.seng302.persistence.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -24,7 +26,6 @@ import org.springframework.web.context.WebApplicationContext;
 import javax.servlet.http.Cookie;
 import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -154,12 +155,9 @@ public class InventoryStepDefinition  {
     public void the_inventory_of_the_business_is_returned_to_me() throws UnsupportedEncodingException, JsonProcessingException {
         assertEquals(200, mvcResult.getResponse().getStatus());
 
-        List<Product> catalogue = productRepository.findAllByBusiness(businessContext.getLast());
-        List<InventoryItem> inventory = inventoryItemRepository.getInventoryByCatalogue(catalogue);
-
-        //because now the inventory sorts by product code on default, so it has to be sorted before comparing
-        Comparator<InventoryItem> sort = Comparator.comparing(inventoryItem -> inventoryItem.getProduct().getProductCode());
-        inventory.sort(sort);
+        //because now the inventory sorts by product code on default, the expected inventory is read in the same order
+        List<InventoryItem> inventory = inventoryItemRepository.findInventoryPage(businessContext.getLast(),
+                PageRequest.of(0, 15, Sort.by("product.productCode", "id"))).getContent();
         
         JSONArray jsonArray = new JSONArray();
         for (InventoryItem item : inventory) {
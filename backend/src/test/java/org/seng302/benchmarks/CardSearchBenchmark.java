@@ -0,0 +1,151 @@
+package org.seng302.benchmarks;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.seng302.entities.MarketplaceCard;
+import org.seng302.persistence.MarketplaceCardRepository;
+import org.seng302.service.CardSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the time taken to build the card search index and to search it, against scanning the text of every card
+ * for the query words, which is roughly what a LIKE query on the title and description would do. Run with
+ * "./gradlew benchmark".
+ */
+@Tag("benchmark")
+class CardSearchBenchmark {
+    private static final int[] CARD_COUNTS = {10000, 50000, 100000};
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 100;
+    private static final List<String> QUERIES = List.of("feijoa", "fresh lemons", "homemade jam jars",
+            "swapping books", "kūmara");
+    private static final List<String> COMMON_WORDS = List.of("fresh", "lemons", "feijoas", "apples", "homemade",
+            "jam", "jars", "books", "swap", "swapping", "kūmara", "garden", "free", "bread", "eggs", "bike", "desk",
+            "chair", "picked", "today", "organic", "honey", "mānuka", "baby", "clothes", "toys", "firewood", "bags",
+            "old", "new", "good", "condition", "pick", "up", "only", "please", "looking", "for", "some", "cheap");
+    private static final List<String> SYLLABLES = List.of("ka", "ro", "mi", "te", "nu", "pa", "lo", "ri", "wha",
+            "ngi", "ta", "ko", "he", "ma", "tu", "ra", "po", "ne", "ki", "wa");
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final MarketplaceCard.Section[] SECTIONS = MarketplaceCard.Section.values();
+
+    /**
+     * Creates a vocabulary of the common words followed by made up words, so that some words are in many cards and
+     * most are in few, as in real card text.
+     * @return The words, from most to least frequent
+     */
+    private List<String> createVocabulary() {
+        Random random = new Random(302);
+        List<String> vocabulary = new ArrayList<>(COMMON_WORDS);
+        while (vocabulary.size() < VOCABULARY_SIZE) {
+            StringBuilder word = new StringBuilder();
+            for (int i = 0; i < 2 + random.nextInt(3); i++) {
+                word.append(SYLLABLES.get(random.nextInt(SYLLABLES.size())));
+            }
+            vocabulary.add(word.toString());
+        }
+        return vocabulary;
+    }
+
+    /**
+     * Creates the (id, section, title, description) rows of random cards.
+     * @param count The number of cards
+     * @return The rows
+     */
+    private List<Object[]> randomCards(int count) {
+        List<String> vocabulary = createVocabulary();
+        Random random = new Random(302);
+        List<Object[]> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(new Object[] {(long) i + 1, SECTIONS[random.nextInt(SECTIONS.length)],
+                    randomText(random, vocabulary, 2 + random.nextInt(4)),
+                    randomText(random, vocabulary, 5 + random.nextInt(30))});
+        }
+        return cards;
+    }
+
+    /**
+     * Creates random text, choosing words near the start of the vocabulary much more often than later words.
+     */
+    private String randomText(Random random, List<String> vocabulary, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            int index = (int) (Math.pow(random.nextDouble(), 4) * vocabulary.size());
+            text.append(vocabulary.get(index)).append(i % 7 == 6 ? ". " : " ");
+        }
+        return text.toString();
+    }
+
+    /**
+     * Finds the cards containing any of the words of a query by checking the text of every card.
+     * @param cards The card rows
+     * @param query The query
+     * @return The number of matching cards
+     */
+    private int scan(List<Object[]> cards, String query) {
+        String[] words = query.toLowerCase(Locale.ROOT).split(" ");
+        int matches = 0;
+        for (Object[] card : cards) {
+            String text = (card[2] + " " + card[3]).toLowerCase(Locale.ROOT);
+            for (String word : words) {
+                if (text.contains(word)) {
+                    matches++;
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Runs a query repeatedly and returns the mean time per query in milliseconds.
+     * @param query The query to run, returning the number of results
+     * @return The mean time taken
+     */
+    private double timeQuery(IntSupplier query) {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            checksum += query.getAsInt();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            checksum += query.getAsInt();
+        }
+        double mean = (System.nanoTime() - start) / 1000000.0 / MEASURED_ITERATIONS;
+        if (checksum < 0) {
+            System.out.println(checksum);
+        }
+        return mean;
+    }
+
+    @Test
+    void compareSearches() {
+        System.out.println("Card search benchmark (index build in ms, then mean ms per query)");
+        System.out.printf("%8s %10s %20s %10s %10s %10s%n", "cards", "build", "query", "matches", "index", "scan");
+        for (int count : CARD_COUNTS) {
+            List<Object[]> cards = randomCards(count);
+            MarketplaceCardRepository repository = mock(MarketplaceCardRepository.class);
+            when(repository.findAllCardText()).thenReturn(cards);
+            CardSearchIndex index = new CardSearchIndex(repository);
+
+            long buildStart = System.nanoTime();
+            index.rebuild();
+            double build = (System.nanoTime() - buildStart) / 1000000.0;
+
+            for (String query : QUERIES) {
+                int matches = index.search(query, null).size();
+                double indexed = timeQuery(() -> index.search(query, null).size());
+                double scanned = timeQuery(() -> scan(cards, query));
+                System.out.printf("%8d %10.1f %20s %10d %10.3f %10.3f%n", count, build, query, matches, indexed, scanned);
+            }
+            System.out.println("Index statistics: " + index.getStatistics());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.seng302.benchmarks;
+
+import org.junit.jupiter.api.*;
+import org.junit.runner.RunWith;
+import org.seng302.entities.Location;
+import org.seng302.entities.User;
+import org.seng302.persistence.BusinessRepository;
+import org.seng302.persistence.MarketplaceCardRepository;
+import org.seng302.persistence.UserRepository;
+import org.seng302.service.UserSearchIndexImpl;
+import org.seng302.tools.SearchHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the time taken to get a page of user search results from the database search query against the in-memory
+ * n-gram index. The database is timed with results ordered by first name, which the index cannot answer. Run with
+ * "./gradlew benchmark". The number of users can be changed with the benchmark.users system property.
+ */
+@Tag("benchmark")
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"user-search.ngram-index.enabled=true", "user-search.result-cache.enabled=false"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserSearchBenchmark {
+    private static final int USER_COUNT = Integer.getInteger("benchmark.users", 10000);
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 100;
+    private static final List<String> QUERIES = List.of("an", "son", "ander", "\"Anderson\"", "li or mar", "jo and son");
+    private static final List<String> NAME_PARTS = List.of("an", "der", "son", "li", "mar", "jo", "ka", "ther",
+            "ine", "ro", "bert", "el", "la", "na", "ton", "mi", "chel", "da", "vid", "sa");
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+    @Autowired
+    private UserSearchIndexImpl userSearchIndex;
+
+    @BeforeAll
+    void setUp() throws ParseException {
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+        Random random = new Random(302);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USER_COUNT; i++) {
+            Location address = new Location.Builder()
+                    .inCity("city")
+                    .inCountry("New Zealand")
+                    .inRegion("region")
+                    .onStreet("street")
+                    .atStreetNumber("3")
+                    .withPostCode("222")
+                    .build();
+            users.add(new User.Builder()
+                    .withEmail("user" + i + "@benchmark.com")
+                    .withFirstName(randomName(random))
+                    .withMiddleName(randomName(random))
+                    .withLastName(randomName(random))
+                    .withNickName(randomName(random))
+                    .withAddress(address)
+                    .withPassword("password123")
+                    .withDob("2000-08-04")
+                    .build());
+        }
+        userRepository.saveAll(users);
+    }
+
+    @AfterAll
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Creates a name made of two or three random parts, such as "Anderson".
+     * @param random The random number generator to use
+     * @return A random name
+     */
+    private String randomName(Random random) {
+        StringBuilder name = new StringBuilder();
+        int parts = 2 + random.nextInt(2);
+        for (int i = 0; i < parts; i++) {
+            name.append(NAME_PARTS.get(random.nextInt(NAME_PARTS.size())));
+        }
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    /**
+     * Runs the given search repeatedly and returns the mean time per search in microseconds.
+     * @param search The search to run
+     * @return The mean time taken
+     */
+    private double timeSearch(Runnable search) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            search.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            search.run();
+        }
+        return (System.nanoTime() - start) / 1000.0 / MEASURED_ITERATIONS;
+    }
+
+    @Test
+    void compareDatabaseQueryWithIndex() {
+        PageRequest namePage = SearchHelper.getPageRequest(1, 15, SearchHelper.getUserSearchSort("firstName", false));
+        PageRequest relevancePage = SearchHelper.getPageRequest(1, 15, SearchHelper.getUserSearchSort(null, false));
+
+        System.out.printf("User search benchmark with %d users, index approx. %d bytes%n",
+                USER_COUNT, userSearchIndex.getStatistics().get("estimatedMemoryBytes"));
+        System.out.printf("%-16s %14s %14s%n", "query", "database (us)", "index (us)");
+        for (String query : QUERIES) {
+            double databaseTime = timeSearch(() -> userRepository.searchUsers(query, namePage));
+            double indexTime = timeSearch(() -> userRepository.searchUsers(query, relevancePage));
+            System.out.printf("%-16s %14.1f %14.1f%n", query, databaseTime, indexTime);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.seng302.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import net.minidev.json.parser.JSONParser;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,13 +19,17 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import javax.servlet.http.Cookie;
 import java.io.IOException;
 import java.text.ParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -154,6 +159,62 @@ class BusinessControllerTest {
         otherUser = userRepository.save(otherUser);
     }
 
+    /**
+     * Adds more businesses to the repository for testing the business search, so that along with the test business
+     * there are businesses of each type in several cities.
+     */
+    private void setUpSearchTestBusinesses() {
+        businessRepository.save(new Business.Builder()
+                .withBusinessType("Retail Trade")
+                .withAddress(Location.covertAddressStringToLocation("12,Riccarton Road,Riccarton,Christchurch,New Zealand," +
+                        "Canterbury,8041"))
+                .withDescription("Coffee and cake")
+                .withName("Cosc Cafe")
+                .withPrimaryOwner(owner)
+                .build());
+        businessRepository.save(new Business.Builder()
+                .withBusinessType("Accommodation and Food Services")
+                .withAddress(Location.covertAddressStringToLocation("3,George Street,Central,Dunedin,New Zealand," +
+                        "Otago,9016"))
+                .withDescription("Fresh bread every day")
+                .withName("Dunedin Bakery")
+                .withPrimaryOwner(owner)
+                .build());
+        businessRepository.save(new Business.Builder()
+                .withBusinessType("Retail Trade")
+                .withAddress(Location.covertAddressStringToLocation("88,Queen Street,Central,Auckland,New Zealand," +
+                        "Auckland,1010"))
+                .withDescription("More fresh bread")
+                .withName("Bakery Co")
+                .withPrimaryOwner(owner)
+                .build());
+    }
+
+    /**
+     * Makes a GET request to the business search endpoint with the given parameters, and checks that the response has a
+     * 200 status code.
+     * @param params The names and values of the request parameters
+     * @return The result of the request
+     */
+    private MvcResult performBusinessSearch(Map<String, String> params) throws Exception {
+        MockHttpServletRequestBuilder request = get("/businesses/search").sessionAttrs(sessionAuthToken).cookie(authCookie);
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            request.param(param.getKey(), param.getValue());
+        }
+        return mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+    }
+
+    /**
+     * Gets the names of the businesses in the response to a business search, in the order they were returned
+     * @param result The result of the request
+     * @return The names of the businesses
+     */
+    private List<String> getBusinessNames(MvcResult result) throws Exception {
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray json = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        return json.stream().map(business -> ((JSONObject) business).getAsString("name")).collect(Collectors.toList());
+    }
+
     /**
      * AssertEquals each property of a Business as type JSON to type Object
      * If the two objects are equal, no error is thrown
@@ -403,6 +464,112 @@ class BusinessControllerTest {
         assertTrue(result.getResponse().getContentAsString().isEmpty());
     }
 
+    /**
+     * Test that when a request is made to the business search endpoint from a user who is not logged in, the
+     * response has a 401 status code.
+     */
+    @Test
+    void searchBusinessesUnauthorizedTest() throws Exception {
+        mockMvc.perform(get("/businesses/search").param("searchQuery", "cosc"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Test that when the business search endpoint is given a partial match term, every business with a name
+     * containing the term in any case is returned.
+     */
+    @Test
+    void searchBusinessesPartialMatchTest() throws Exception {
+        setUpSearchTestBusinesses();
+        MvcResult result = performBusinessSearch(Map.of("searchQuery", "cosc"));
+        assertEquals(Set.of("COSC co", "Cosc Cafe"), Set.copyOf(getBusinessNames(result)));
+    }
+
+    /**
+     * Test that when the business search endpoint is given a term in quotes, only businesses with exactly that name
+     * are returned.
+     */
+    @Test
+    void searchBusinessesExactMatchTest() throws Exception {
+        setUpSearchTestBusinesses();
+        MvcResult result = performBusinessSearch(Map.of("searchQuery", "\"COSC co\""));
+        assertEquals(List.of("COSC co"), getBusinessNames(result));
+    }
+
+    /**
+     * Test that when the business search endpoint is given a query joined with OR and a business type, only
+     * businesses of that type matching either term are returned.
+     */
+    @Test
+    void searchBusinessesOrWithBusinessTypeTest() throws Exception {
+        setUpSearchTestBusinesses();
+        MvcResult result = performBusinessSearch(Map.of("searchQuery", "bakery or cosc", "businessType", "Retail Trade"));
+        assertEquals(Set.of("Cosc Cafe", "Bakery Co"), Set.copyOf(getBusinessNames(result)));
+    }
+
+    /**
+     * Test that when the business search endpoint is given a region and city but no query, every business in that
+     * city is returned.
+     */
+    @Test
+    void searchBusinessesByRegionAndCityTest() throws Exception {
+        setUpSearchTestBusinesses();
+        MvcResult result = performBusinessSearch(Map.of("region", "Canterbury", "city", "Christchurch"));
+        assertEquals(Set.of("COSC co", "Cosc Cafe"), Set.copyOf(getBusinessNames(result)));
+        result = performBusinessSearch(Map.of("region", "Otago"));
+        assertEquals(List.of("Dunedin Bakery"), getBusinessNames(result));
+    }
+
+    /**
+     * Test that the business search endpoint returns the requested page of the results ordered by name, and returns
+     * the total number of results in the X-Total-Count header.
+     */
+    @Test
+    void searchBusinessesPageTest() throws Exception {
+        setUpSearchTestBusinesses();
+        MvcResult result = performBusinessSearch(Map.of("page", "2", "resultsPerPage", "3", "orderBy", "address.city"));
+        assertEquals("4", result.getResponse().getHeader("X-Total-Count"));
+        assertEquals(List.of("Dunedin Bakery"), getBusinessNames(result));
+    }
+
+    /**
+     * Test that when the page requested from the business search endpoint is after the last page, the last page is
+     * returned.
+     */
+    @Test
+    void searchBusinessesPageAfterLastPageTest() throws Exception {
+        setUpSearchTestBusinesses();
+        MvcResult result = performBusinessSearch(Map.of("page", "10", "resultsPerPage", "3", "orderBy", "address.city",
+                "reverse", "true"));
+        assertEquals(List.of("Bakery Co"), getBusinessNames(result));
+    }
+
+    /**
+     * Test that when the business search endpoint is given a business type which does not exist, the response has a
+     * 400 status code.
+     */
+    @Test
+    void searchBusinessesInvalidBusinessTypeTest() throws Exception {
+        mockMvc.perform(get("/businesses/search")
+                .param("businessType", "Not a type")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Test that when the business search endpoint is given a query which cannot be parsed, the response has a 400
+     * status code.
+     */
+    @Test
+    void searchBusinessesInvalidQueryTest() throws Exception {
+        mockMvc.perform(get("/businesses/search")
+                .param("searchQuery", "\"unclosed quote")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Test that when a request is made to the GET business endpoint from a user who
      * is logged in, but the id given in the request URL does not correspond to a
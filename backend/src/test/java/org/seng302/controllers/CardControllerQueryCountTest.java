@@ -0,0 +1,189 @@
+package org.seng302.controllers;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import net.minidev.json.parser.JSONParser;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.seng302.entities.*;
+import org.seng302.persistence.*;
+import org.seng302.tools.AuthenticationTokenManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the number of SQL statements used to load a page of marketplace cards. Each card has a different creator who
+ * owns a business with a product, so loading each creator as a User entity would also load their businesses and
+ * catalogues.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CardControllerQueryCountTest {
+
+    // Page query, count query, keyword query and creator query
+    private static final long STATEMENTS_PER_PAGE = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+    @Autowired
+    private KeywordRepository keywordRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private MockedStatic<AuthenticationTokenManager> authenticationTokenManager;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clearRepositories();
+        List<Keyword> keywords = new ArrayList<>();
+        keywordRepository.findAll().forEach(keywords::add);
+
+        for (int i = 0; i < 20; i++) {
+            User creator = userRepository.save(new User.Builder()
+                    .withFirstName("Creator")
+                    .withLastName("Creator" + (char) ('a' + i))
+                    .withEmail("creator" + i + "@example.com")
+                    .withPassword("IDoLikeBreaks69#H3!p")
+                    .withDob("1999-07-17")
+                    .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                    .build());
+            Business business = businessRepository.save(new Business.Builder()
+                    .withName("Business " + i)
+                    .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                    .withBusinessType("Accommodation and Food Services")
+                    .withPrimaryOwner(creator)
+                    .build());
+            productRepository.save(new Product.Builder()
+                    .withProductCode("PRODUCT" + i)
+                    .withName("Product " + i)
+                    .withBusiness(business)
+                    .build());
+            MarketplaceCard card = new MarketplaceCard.Builder()
+                    .withTitle("Card " + i)
+                    .withSection("ForSale")
+                    .withCreator(creator)
+                    .build();
+            card.addKeyword(keywords.get(i % keywords.size()));
+            card.addKeyword(keywords.get((i + 1) % keywords.size()));
+            marketplaceCardRepository.save(card);
+        }
+
+        authenticationTokenManager = Mockito.mockStatic(AuthenticationTokenManager.class);
+        authenticationTokenManager.when(() -> AuthenticationTokenManager.checkAuthenticationToken(any())).then(invocation -> null);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        authenticationTokenManager.close();
+        clearRepositories();
+    }
+
+    private void clearRepositories() {
+        marketplaceCardRepository.deleteAll();
+        productRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Requests a page of cards and returns the number of SQL statements prepared while handling the request.
+     * @param resultsPerPage The number of cards on the page
+     * @return The number of statements
+     */
+    private long countStatementsForPage(int resultsPerPage) throws Exception {
+        statistics.clear();
+        MvcResult result = mockMvc.perform(get("/cards")
+                .param("section", "ForSale")
+                .param("resultsPerPage", String.valueOf(resultsPerPage)))
+                .andExpect(status().isOk())
+                .andReturn();
+        long statements = statistics.getPrepareStatementCount();
+
+        JSONArray cards = (JSONArray) new JSONParser(JSONParser.MODE_PERMISSIVE).parse(result.getResponse().getContentAsString());
+        assertEquals(resultsPerPage, cards.size());
+        for (Object card : cards) {
+            JSONObject cardJson = (JSONObject) card;
+            assertEquals("Creator", ((JSONObject) cardJson.get("creator")).getAsString("firstName"));
+            assertEquals(2, ((JSONArray) cardJson.get("keywords")).size());
+        }
+        return statements;
+    }
+
+    /**
+     * Requests the first page of a user's cards and returns the number of SQL statements prepared while handling it.
+     * @param creator The user who created the cards
+     * @param expectedCards The number of cards expected on the page
+     * @return The number of statements
+     */
+    private long countStatementsForUserPage(User creator, int expectedCards) throws Exception {
+        statistics.clear();
+        MvcResult result = mockMvc.perform(get("/users/" + creator.getUserID() + "/cards"))
+                .andExpect(status().isOk())
+                .andReturn();
+        long statements = statistics.getPrepareStatementCount();
+
+        JSONArray cards = (JSONArray) new JSONParser(JSONParser.MODE_PERMISSIVE).parse(result.getResponse().getContentAsString());
+        assertEquals(expectedCards, cards.size());
+        return statements;
+    }
+
+    @Test
+    void getCards_fifteenCardPage_boundedStatementCount() throws Exception {
+        assertEquals(STATEMENTS_PER_PAGE, countStatementsForPage(15));
+    }
+
+    @Test
+    void getCards_pageSizeIncreased_statementCountUnchanged() throws Exception {
+        assertEquals(countStatementsForPage(1), countStatementsForPage(15));
+    }
+
+    @Test
+    void getUserCards_userWithManyCards_sameStatementsAsUserWithOneCard() throws Exception {
+        List<User> creators = new ArrayList<>();
+        userRepository.findAll().forEach(creators::add);
+        User prolificCreator = creators.get(0);
+        for (int i = 0; i < 200; i++) {
+            marketplaceCardRepository.save(new MarketplaceCard.Builder()
+                    .withTitle("Extra card " + i)
+                    .withSection("Exchange")
+                    .withCreator(prolificCreator)
+                    .build());
+        }
+
+        long oneCardStatements = countStatementsForUserPage(creators.get(1), 1);
+        long manyCardStatements = countStatementsForUserPage(prolificCreator, 15);
+        // User lookup, page query, keyword query and creator query, plus a count query when there is more than one page
+        assertEquals(4, oneCardStatements);
+        assertEquals(oneCardStatements + 1, manyCardStatements);
+    }
+}
@@ -7,6 +7,8 @@ import net.minidev.json.parser.JSONParser;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import org.seng302.entities.Keyword;
@@ -14,13 +16,24 @@ import org.seng302.entities.Location;
 import org.seng302.entities.MarketplaceCard;
 import org.seng302.entities.User;
 import org.seng302.exceptions.AccessTokenException;
+import org.seng302.persistence.CardCreatorSummary;
 import org.seng302.persistence.KeywordRepository;
 import org.seng302.persistence.MarketplaceCardRepository;
 import org.seng302.persistence.UserRepository;
+import org.seng302.service.CardCountCache;
+import org.seng302.service.CardEventStream;
+import org.seng302.service.CardJsonCache;
+import org.seng302.service.CardSearchIndex;
+import org.seng302.service.KeywordDictionary;
 import org.seng302.tools.AuthenticationTokenManager;
+import org.seng302.tools.PageCursor;
+import org.seng302.tools.SearchHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -30,20 +43,29 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
 import java.text.ParseException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -72,11 +94,19 @@ class CardControllerTest {
     private Keyword mockKeyword2;
     @Mock
     private HttpServletRequest request;
+    @Mock
+    private CardEventStream cardEventStream;
+
+    @Mock
+    private CardSearchIndex cardSearchIndex;
+
+    private CardJsonCache cardJsonCache;
 
     private User testUser;
     private User testUser1;
     private CardController cardController;
     private List<MarketplaceCard> cards = new ArrayList<>();
+    private Map<Long, Keyword> keywordsInRepository = new HashMap<>();
 
     private MockedStatic<AuthenticationTokenManager> authenticationTokenManager;
     private JSONObject createCardJson;
@@ -117,8 +147,19 @@ class CardControllerTest {
 
         // Set up repositories that will be queried when creating card to return mocks
         when(userRepository.findById(userId)).thenReturn(Optional.of(mockUser));
-        when(keywordRepository.findById(keywordId1)).thenReturn(Optional.of(mockKeyword1));
-        when(keywordRepository.findById(keywordId2)).thenReturn(Optional.of(mockKeyword2));
+        when(mockKeyword1.getID()).thenReturn(keywordId1);
+        when(mockKeyword2.getID()).thenReturn(keywordId2);
+        keywordsInRepository.put(keywordId1, mockKeyword1);
+        keywordsInRepository.put(keywordId2, mockKeyword2);
+        when(keywordRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<Keyword> found = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                if (keywordsInRepository.containsKey(id)) {
+                    found.add(keywordsInRepository.get(id));
+                }
+            }
+            return found;
+        });
         when(marketplaceCardRepository.save(any())).thenReturn(mockCard);
         when(marketplaceCardRepository.getAllBySection(any())).thenReturn(Collections.singletonList(mockCard));
 
@@ -127,13 +168,38 @@ class CardControllerTest {
         when(mockUser.getUserID()).thenReturn(userId);
 
         // Tell MockMvc to use controller with mocked repositories for tests
-        cardController = new CardController(marketplaceCardRepository, keywordRepository, userRepository);
+        cardJsonCache = new CardJsonCache(true, 100);
+        cardController = new CardController(marketplaceCardRepository, new KeywordDictionary(keywordRepository), userRepository,
+                new CardCountCache(marketplaceCardRepository, 0), cardEventStream, cardJsonCache, cardSearchIndex);
         mockMvc = MockMvcBuilders.standaloneSetup(cardController).build();
 
         constructValidCreateCardJson();
 
         addSeveralMarketplaceCards(cards);
         when(marketplaceCardRepository.getAllBySection(any())).thenReturn(cards);
+        when(marketplaceCardRepository.findAllBySection(any(), any())).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(1);
+            int fromIndex = (int) Math.min(pageable.getOffset(), cards.size());
+            int toIndex = Math.min(fromIndex + pageable.getPageSize(), cards.size());
+            return new PageImpl<>(cards.subList(fromIndex, toIndex), pageable, cards.size());
+        });
+
+        // Set up the queries which load the keywords and creators of a page of cards
+        Map<Long, CardCreatorSummary> creatorSummaries = new HashMap<>();
+        for (MarketplaceCard card : cards) {
+            CardCreatorSummary summary = mock(CardCreatorSummary.class);
+            when(summary.getCardId()).thenReturn(card.getID());
+            when(summary.constructJson()).thenReturn(card.getCreator().constructSummaryJson());
+            creatorSummaries.put(card.getID(), summary);
+        }
+        when(marketplaceCardRepository.findAllWithKeywordsByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return cards.stream().filter(card -> ids.contains(card.getID())).collect(Collectors.toList());
+        });
+        when(marketplaceCardRepository.findCreatorSummaries(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(creatorSummaries::get).filter(Objects::nonNull).collect(Collectors.toList());
+        });
     }
 
     @AfterEach
@@ -237,6 +303,25 @@ class CardControllerTest {
         assertTrue(after.isAfter(savedCard.getCreated()));
     }
 
+    @Test
+    void createCard_onlyRequiredFieldsPresent_cardPublishedToStream() throws Exception {
+        mockMvc.perform(post("/cards")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(createCardJson.toString()))
+                .andExpect(status().isCreated());
+        verify(cardEventStream).cardCreated(mockCard);
+    }
+
+    @Test
+    void createCard_invalidField_cardNotPublishedToStream() throws Exception {
+        createCardJson.remove("title");
+        mockMvc.perform(post("/cards")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(createCardJson.toString()))
+                .andExpect(status().isBadRequest());
+        verify(cardEventStream, times(0)).cardCreated(any());
+    }
+
     @Test
     void createCard_optionalFieldsPresent_successfulResponse() throws Exception {
         createCardJson.appendField("description", "This is the description");
@@ -327,6 +412,36 @@ class CardControllerTest {
         assertTrue(after.isAfter(savedCard.getCreated()));
     }
 
+    @Test
+    void createCard_multipleKeywordIds_keywordsFetchedInOneQuery() throws Exception {
+        createCardJson.remove("keywordIds");
+        createCardJson.appendField("keywordIds", new long[] {keywordId1, keywordId2, keywordId1});
+
+        mockMvc.perform(post("/cards")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(createCardJson.toString()))
+                .andExpect(status().isCreated());
+
+        verify(keywordRepository, times(1)).findAllById(any());
+        verify(keywordRepository, times(0)).findById(any());
+    }
+
+    @Test
+    void createCard_keywordsUsedBefore_keywordsNotFetchedAgain() throws Exception {
+        createCardJson.remove("keywordIds");
+        createCardJson.appendField("keywordIds", new long[] {keywordId1, keywordId2});
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/cards")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(createCardJson.toString()))
+                    .andExpect(status().isCreated());
+        }
+
+        verify(keywordRepository, times(1)).findAllById(any());
+        verify(marketplaceCardRepository, times(2)).save(any(MarketplaceCard.class));
+    }
+
     @Test
     void createCard_creatorIdNotNumber_cardNotCreated() throws Exception {
         createCardJson.remove("creatorId");
@@ -376,7 +491,7 @@ class CardControllerTest {
         createCardJson.remove("keywordIds");
         int[] keywordIds = new int[] {(int) keywordId1};
         createCardJson.appendField("keywordIds", keywordIds);
-        when(keywordRepository.findById(keywordId1)).thenReturn(Optional.empty());
+        keywordsInRepository.remove(keywordId1);
 
         MvcResult result = mockMvc.perform(post("/cards")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -388,6 +503,124 @@ class CardControllerTest {
         verify(marketplaceCardRepository, times(0)).save(any(MarketplaceCard.class));
     }
 
+    // SEARCH CARDS TESTS
+
+    @Test
+    void searchCards_invalidAuthToken_cannotSearch() throws Exception {
+        authenticationTokenManager.when(() -> AuthenticationTokenManager.checkAuthenticationToken(any())).thenThrow(new AccessTokenException());
+        mockMvc.perform(get("/cards/search").param("q", "feijoas"))
+                .andExpect(status().isUnauthorized());
+        verify(cardSearchIndex, times(0)).search(any(), any());
+    }
+
+    @Test
+    void searchCards_blankQuery_badRequest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/cards/search").param("q", "  "))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+        assertEquals("Search query must not be empty", result.getResponse().getErrorMessage());
+        verify(cardSearchIndex, times(0)).search(any(), any());
+    }
+
+    @Test
+    void searchCards_invalidSection_badRequest() throws Exception {
+        mockMvc.perform(get("/cards/search").param("q", "feijoas").param("section", "invalidSectionName"))
+                .andExpect(status().isBadRequest());
+        verify(cardSearchIndex, times(0)).search(any(), any());
+    }
+
+    @Test
+    void searchCards_sectionGiven_sectionSearched() throws Exception {
+        when(cardSearchIndex.search(any(), any())).thenReturn(List.of());
+        mockMvc.perform(get("/cards/search").param("q", "feijoas").param("section", "Wanted"))
+                .andExpect(status().isOk());
+        verify(cardSearchIndex).search("feijoas", MarketplaceCard.Section.WANTED);
+    }
+
+    @Test
+    void searchCards_cardsMatch_cardsReturnedInRankedOrder() throws Exception {
+        when(cardSearchIndex.search("feijoas", null)).thenReturn(List.of(3L, 1L, 4L));
+
+        MvcResult result = mockMvc.perform(get("/cards/search").param("q", "feijoas"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        List<String> titles = responseBody.stream()
+                .map(card -> ((JSONObject) card).getAsString("title"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("ijkl", "abcd", "mnop"), titles);
+        assertEquals("3", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+    }
+
+    @Test
+    void searchCards_secondPageRequested_onlyPageCardsLoaded() throws Exception {
+        when(cardSearchIndex.search("feijoas", null)).thenReturn(List.of(3L, 1L, 4L));
+
+        MvcResult result = mockMvc.perform(get("/cards/search").param("q", "feijoas")
+                .param("page", "2").param("resultsPerPage", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(1, responseBody.size());
+        assertEquals("mnop", ((JSONObject) responseBody.get(0)).getAsString("title"));
+        assertEquals("3", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+        verify(marketplaceCardRepository).findAllWithKeywordsByIdIn(List.of(4L));
+        verify(marketplaceCardRepository).findCreatorSummaries(List.of(4L));
+    }
+
+    @Test
+    void searchCards_noCardsMatch_emptyArrayWithoutQueries() throws Exception {
+        when(cardSearchIndex.search(any(), any())).thenReturn(List.of());
+
+        MvcResult result = mockMvc.perform(get("/cards/search").param("q", "feijoas"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("[]", result.getResponse().getContentAsString());
+        assertEquals("0", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+        verify(marketplaceCardRepository, times(0)).findAllWithKeywordsByIdIn(any());
+    }
+
+    // STREAM CARDS TESTS
+
+    @Test
+    void streamCards_invalidAuthToken_cannotSubscribe() throws Exception {
+        authenticationTokenManager.when(() -> AuthenticationTokenManager.checkAuthenticationToken(any())).thenThrow(new AccessTokenException());
+        mockMvc.perform(get("/cards/stream")
+                .param("section", "ForSale"))
+                .andExpect(status().isUnauthorized());
+        verify(cardEventStream, times(0)).subscribe(any());
+    }
+
+    @Test
+    void streamCards_invalidSection_cannotSubscribe() throws Exception {
+        mockMvc.perform(get("/cards/stream")
+                .param("section", "invalidSectionName"))
+                .andExpect(status().isBadRequest());
+        verify(cardEventStream, times(0)).subscribe(any());
+    }
+
+    @Test
+    void streamCards_validSection_subscribedToSection() throws Exception {
+        when(cardEventStream.subscribe(any())).thenReturn(Flux.empty());
+        mockMvc.perform(get("/cards/stream")
+                .param("section", "Exchange"))
+                .andExpect(status().isOk());
+        verify(cardEventStream).subscribe(MarketplaceCard.Section.EXCHANGE);
+    }
+
+    @Test
+    void streamCards_tooManySubscribers_serviceUnavailable() throws Exception {
+        when(cardEventStream.subscribe(any())).thenThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many subscribers to the card stream"));
+        mockMvc.perform(get("/cards/stream")
+                .param("section", "ForSale"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
     // GET CARDS TESTS
 
     @Test
@@ -396,7 +629,7 @@ class CardControllerTest {
         mockMvc.perform(get("/cards")
                 .param("section", "Wanted"))
                 .andExpect(status().isUnauthorized());
-        verify(marketplaceCardRepository, times(0)).getAllBySection(any(MarketplaceCard.Section.class));
+        verify(marketplaceCardRepository, times(0)).findAllBySection(any(MarketplaceCard.Section.class), any());
     }
 
     @Test
@@ -404,14 +637,14 @@ class CardControllerTest {
         mockMvc.perform(get("/cards")
                 .param("section", "invalidSectionName"))
                 .andExpect(status().isBadRequest());
-        verify(marketplaceCardRepository, times(0)).getAllBySection(any(MarketplaceCard.Section.class));
+        verify(marketplaceCardRepository, times(0)).findAllBySection(any(MarketplaceCard.Section.class), any());
     }
 
     @Test
     void getCards_noSectionGiven_CannotViewCards() throws Exception {
         mockMvc.perform(get("/cards"))
                 .andExpect(status().isBadRequest());
-        verify(marketplaceCardRepository, times(0)).getAllBySection(any(MarketplaceCard.Section.class));
+        verify(marketplaceCardRepository, times(0)).findAllBySection(any(MarketplaceCard.Section.class), any());
     }
 
     @Test
@@ -419,7 +652,7 @@ class CardControllerTest {
         mockMvc.perform(get("/cards")
                 .param("section", "Wanted"))
                 .andExpect(status().isOk());
-        verify(marketplaceCardRepository, times(1)).getAllBySection(any(MarketplaceCard.Section.class));
+        verify(marketplaceCardRepository, times(1)).findAllBySection(any(MarketplaceCard.Section.class), any());
     }
 
 
@@ -461,20 +694,359 @@ class CardControllerTest {
         assertEquals("mnop", secondCard.getAsString("title"));
     }
     
+    @Test
+    void retrievePaginatedCards_pagePastEnd_lastPageReturned() throws Exception {
+        MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/cards").param("section", "ForSale").param("page", "5").param("resultsPerPage", "3"))
+            .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(1, responseBody.size());
+        assertEquals("mnop", ((JSONObject) responseBody.get(0)).getAsString("title"));
+        assertEquals("4", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+    }
+
+    @Test
+    void retrievePaginatedCards_cardsReturned_creatorSummaryEmbedded() throws Exception {
+        MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/cards").param("section", "ForSale").param("resultsPerPage", "1"))
+            .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        JSONObject creator = (JSONObject) ((JSONObject) responseBody.get(0)).get("creator");
+        assertEquals("Andy", creator.getAsString("firstName"));
+        assertEquals("Cory", creator.getAsString("lastName"));
+        assertEquals("Christchurch", ((JSONObject) creator.get("homeAddress")).getAsString("city"));
+        assertFalse(creator.containsKey("email"));
+        assertFalse(creator.containsKey("businessesAdministered"));
+        verify(marketplaceCardRepository).findAllWithKeywordsByIdIn(List.of(1L));
+        verify(marketplaceCardRepository).findCreatorSummaries(List.of(1L));
+    }
+
+    @Test
+    void retrievePaginatedCards_cardDeletedWhileLoading_cardLeftOut() throws Exception {
+        doReturn(List.of(cards.get(1))).when(marketplaceCardRepository).findAllWithKeywordsByIdIn(any());
+
+        MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/cards").param("section", "ForSale").param("resultsPerPage", "2"))
+            .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(1, responseBody.size());
+        assertEquals("efgh", ((JSONObject) responseBody.get(0)).getAsString("title"));
+    }
+
+    @Test
+    void retrievePaginatedCards_pageRequestedTwice_cardJsonServedFromCache() throws Exception {
+        MvcResult first = mockMvc.perform(get("/cards").param("section", "ForSale").param("resultsPerPage", "2"))
+                .andExpect(status().isOk()).andReturn();
+        MvcResult second = mockMvc.perform(get("/cards").param("section", "ForSale").param("resultsPerPage", "2"))
+                .andExpect(status().isOk()).andReturn();
+
+        assertEquals(first.getResponse().getContentAsString(), second.getResponse().getContentAsString());
+        assertTrue(second.getResponse().getContentType().startsWith(MediaType.APPLICATION_JSON_VALUE));
+        verify(marketplaceCardRepository, times(1)).findAllWithKeywordsByIdIn(any());
+        verify(marketplaceCardRepository, times(1)).findCreatorSummaries(any());
+        assertEquals(2L, cardJsonCache.getStatistics().get("hits"));
+    }
+
+    @Test
+    void retrievePaginatedCards_someCardsCached_onlyUncachedCardsLoaded() throws Exception {
+        mockMvc.perform(get("/cards").param("section", "ForSale").param("resultsPerPage", "1"))
+                .andExpect(status().isOk());
+
+        MvcResult result = mockMvc.perform(get("/cards").param("section", "ForSale").param("resultsPerPage", "2"))
+                .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(2, responseBody.size());
+        assertEquals("abcd", ((JSONObject) responseBody.get(0)).getAsString("title"));
+        assertEquals("efgh", ((JSONObject) responseBody.get(1)).getAsString("title"));
+        verify(marketplaceCardRepository).findAllWithKeywordsByIdIn(List.of(2L));
+        verify(marketplaceCardRepository).findCreatorSummaries(List.of(2L));
+    }
+
+    @Test
+    void retrievePaginatedCards_cardChangedAfterCaching_cardJsonRebuilt() throws Exception {
+        mockMvc.perform(get("/cards").param("section", "ForSale").param("resultsPerPage", "1"))
+                .andExpect(status().isOk());
+        cardJsonCache.cardChanged(1L);
+        mockMvc.perform(get("/cards").param("section", "ForSale").param("resultsPerPage", "1"))
+                .andExpect(status().isOk());
+
+        verify(marketplaceCardRepository, times(2)).findAllWithKeywordsByIdIn(List.of(1L));
+    }
+
+    @Test
+    void retrievePaginatedCards_orderByTitleReversed_databaseSortRequested() throws Exception {
+        mockMvc.perform(get("/cards").param("section", "ForSale").param("orderBy", "title").param("reverse", "true"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        verify(marketplaceCardRepository).findAllBySection(eq(MarketplaceCard.Section.FOR_SALE), pageableCaptor.capture());
+        assertEquals(Sort.by(Sort.Order.desc("title").ignoreCase(), Sort.Order.desc("id")), pageableCaptor.getValue().getSort());
+    }
+
+    @Test
+    void retrievePaginatedCards_morePagesAfter_nextCursorReturned() throws Exception {
+        MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/cards").param("section", "ForSale").param("page", "1").param("resultsPerPage", "2")
+                    .param("orderBy", "title"))
+            .andExpect(status().isOk()).andReturn();
+
+        PageCursor cursor = PageCursor.decode(result.getResponse().getHeader(SearchHelper.NEXT_CURSOR_HEADER));
+        assertEquals(new PageCursor("title", false, true, "efgh", 2L), cursor);
+    }
+
+    @Test
+    void retrievePaginatedCards_lastPage_noNextCursor() throws Exception {
+        MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/cards").param("section", "ForSale").param("page", "2").param("resultsPerPage", "2"))
+            .andExpect(status().isOk()).andReturn();
+
+        assertNull(result.getResponse().getHeader(SearchHelper.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void retrieveCardsAfterCursor_morePagesAfter_pageAndNextCursorReturned() throws Exception {
+        PageCursor cursor = new PageCursor("creator.firstName", true, true, "Bobby", 2L);
+        when(marketplaceCardRepository.getSectionAfterCursor(MarketplaceCard.Section.FOR_SALE, cursor, 3))
+                .thenReturn(cards.subList(1, 4));
+
+        MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/cards").param("section", "ForSale").param("resultsPerPage", "2")
+                    .param("cursor", cursor.encode()))
+            .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(2, responseBody.size());
+        assertEquals("efgh", ((JSONObject) responseBody.get(0)).getAsString("title"));
+        assertEquals("ijkl", ((JSONObject) responseBody.get(1)).getAsString("title"));
+        PageCursor nextCursor = PageCursor.decode(result.getResponse().getHeader(SearchHelper.NEXT_CURSOR_HEADER));
+        assertEquals(new PageCursor("creator.firstName", true, true, "Andy", 3L), nextCursor);
+        verify(marketplaceCardRepository, times(0)).findAllBySection(any(), any());
+    }
+
+    @Test
+    void retrieveCardsAfterCursor_noMorePages_noNextCursor() throws Exception {
+        PageCursor cursor = new PageCursor("created", false, Instant.now().toString(), 2L);
+        when(marketplaceCardRepository.getSectionAfterCursor(MarketplaceCard.Section.FOR_SALE, cursor, 16))
+                .thenReturn(cards.subList(2, 4));
+
+        MvcResult result = mockMvc.perform(
+            MockMvcRequestBuilders.get("/cards").param("section", "ForSale").param("cursor", cursor.encode()))
+            .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(2, responseBody.size());
+        assertNull(result.getResponse().getHeader(SearchHelper.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void retrieveCardsAfterCursor_invalidCursor_badRequest() throws Exception {
+        mockMvc.perform(get("/cards").param("section", "ForSale").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+        verify(marketplaceCardRepository, times(0)).getSectionAfterCursor(any(), any(), anyInt());
+    }
+
+    @Test
+    void retrieveCardsAfterCursor_cursorForUnsortableProperty_badRequest() throws Exception {
+        PageCursor cursor = new PageCursor("description", false, "abc", 2L);
+        mockMvc.perform(get("/cards").param("section", "ForSale").param("cursor", cursor.encode()))
+                .andExpect(status().isBadRequest());
+        verify(marketplaceCardRepository, times(0)).getSectionAfterCursor(any(), any(), anyInt());
+    }
+
+    @Test
+    void retrieveCardsAfterCursor_titleCursorNotIgnoringCase_badRequest() throws Exception {
+        PageCursor cursor = new PageCursor("title", false, "abc", 2L);
+        mockMvc.perform(get("/cards").param("section", "ForSale").param("cursor", cursor.encode()))
+                .andExpect(status().isBadRequest());
+        verify(marketplaceCardRepository, times(0)).getSectionAfterCursor(any(), any(), anyInt());
+    }
+
+    @Test
+    void retrieveCardsWithKeywords_matchAll_pageOfMatchingCardsReturned() throws Exception {
+        when(marketplaceCardRepository.getSectionPageWithKeywords(eq(MarketplaceCard.Section.FOR_SALE),
+                eq(List.of(keywordId1, keywordId2)), eq(true), any()))
+                .thenReturn(List.of(cards.get(1), cards.get(3)));
+
+        MvcResult result = mockMvc.perform(get("/cards").param("section", "ForSale")
+                .param("keywords", keywordId1 + "," + keywordId2).param("match", "all"))
+                .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(2, responseBody.size());
+        assertEquals("efgh", ((JSONObject) responseBody.get(0)).getAsString("title"));
+        assertEquals("mnop", ((JSONObject) responseBody.get(1)).getAsString("title"));
+        assertEquals("2", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+        verify(marketplaceCardRepository, times(0)).findAllBySection(any(), any());
+        // The page is not full, so the total is known without counting
+        verify(marketplaceCardRepository, times(0)).countSectionWithKeywords(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void retrieveCardsWithKeywords_fullPage_matchingCardsCounted() throws Exception {
+        when(marketplaceCardRepository.getSectionPageWithKeywords(eq(MarketplaceCard.Section.FOR_SALE),
+                eq(List.of(keywordId1)), eq(false), any()))
+                .thenReturn(List.of(cards.get(0), cards.get(1)));
+        when(marketplaceCardRepository.countSectionWithKeywords(MarketplaceCard.Section.FOR_SALE, List.of(keywordId1), false))
+                .thenReturn(5L);
+
+        MvcResult result = mockMvc.perform(get("/cards").param("section", "ForSale")
+                .param("keywords", String.valueOf(keywordId1)).param("resultsPerPage", "2"))
+                .andExpect(status().isOk()).andReturn();
+
+        assertEquals("5", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+    }
+
+    @Test
+    void retrieveCardsWithKeywords_noMatchGiven_matchAnyUsed() throws Exception {
+        when(marketplaceCardRepository.getSectionPageWithKeywords(any(), any(), anyBoolean(), any()))
+                .thenReturn(List.of(cards.get(0)));
+
+        mockMvc.perform(get("/cards").param("section", "Wanted").param("keywords", String.valueOf(keywordId1)))
+                .andExpect(status().isOk());
+
+        verify(marketplaceCardRepository).getSectionPageWithKeywords(eq(MarketplaceCard.Section.WANTED),
+                eq(List.of(keywordId1)), eq(false), any());
+    }
+
+    @Test
+    void retrieveCardsWithKeywords_noMatchingCards_emptyPageReturned() throws Exception {
+        when(marketplaceCardRepository.getSectionPageWithKeywords(any(), any(), anyBoolean(), any())).thenReturn(List.of());
+
+        MvcResult result = mockMvc.perform(get("/cards").param("section", "ForSale")
+                .param("keywords", String.valueOf(keywordId1)).param("match", "any"))
+                .andExpect(status().isOk()).andReturn();
+
+        assertEquals("[]", result.getResponse().getContentAsString());
+        assertEquals("0", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+        verify(marketplaceCardRepository, times(0)).findAllBySection(any(), any());
+    }
+
+    @Test
+    void retrieveCardsWithKeywords_withCursor_cursorQueryFilteredByKeywords() throws Exception {
+        PageCursor cursor = new PageCursor("title", false, true, "abcd", 1L);
+        when(marketplaceCardRepository.getSectionAfterCursor(MarketplaceCard.Section.FOR_SALE, cursor, 16, List.of(keywordId2), false))
+                .thenReturn(cards.subList(1, 3));
+
+        MvcResult result = mockMvc.perform(get("/cards").param("section", "ForSale")
+                .param("keywords", String.valueOf(keywordId2)).param("cursor", cursor.encode()))
+                .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(2, responseBody.size());
+        verify(marketplaceCardRepository, times(0)).getSectionAfterCursor(any(), any(), anyInt());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "1,,2", "one", "1;2"})
+    void retrieveCardsWithKeywords_invalidKeywords_badRequest(String keywords) throws Exception {
+        mockMvc.perform(get("/cards").param("section", "ForSale").param("keywords", keywords))
+                .andExpect(status().isBadRequest());
+        verify(marketplaceCardRepository, times(0)).getSectionPageWithKeywords(any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void retrieveCardsWithKeywords_invalidMatch_badRequest() throws Exception {
+        mockMvc.perform(get("/cards").param("section", "ForSale").param("keywords", "1").param("match", "some"))
+                .andExpect(status().isBadRequest());
+        verify(marketplaceCardRepository, times(0)).getSectionPageWithKeywords(any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    void getUserCards_invalidAuthToken_cannotViewCards() throws Exception {
+        authenticationTokenManager.when(() -> AuthenticationTokenManager.checkAuthenticationToken(any())).thenThrow(new AccessTokenException());
+        mockMvc.perform(get("/users/" + userId + "/cards"))
+                .andExpect(status().isUnauthorized());
+        verify(marketplaceCardRepository, times(0)).findIdsByCreatorId(anyLong(), any());
+    }
+
+    @Test
+    void getUserCards_userDoesNotExist_notAcceptable() throws Exception {
+        when(userRepository.existsById(userId)).thenReturn(false);
+        mockMvc.perform(get("/users/" + userId + "/cards"))
+                .andExpect(status().isNotAcceptable());
+        verify(marketplaceCardRepository, times(0)).findIdsByCreatorId(anyLong(), any());
+    }
+
+    @Test
+    void getUserCards_userHasCards_pageAndTotalReturned() throws Exception {
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(marketplaceCardRepository.findIdsByCreatorId(eq(userId), any()))
+                .thenAnswer(invocation -> new PageImpl<>(List.of(cards.get(0).getID(), cards.get(2).getID()), invocation.getArgument(1), 5));
+
+        MvcResult result = mockMvc.perform(get("/users/" + userId + "/cards").param("resultsPerPage", "2"))
+                .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(2, responseBody.size());
+        assertEquals("abcd", ((JSONObject) responseBody.get(0)).getAsString("title"));
+        assertEquals("ijkl", ((JSONObject) responseBody.get(1)).getAsString("title"));
+        assertEquals("5", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+    }
+
+    @Test
+    void getUserCards_orderAndPageGiven_pagedAndSortedByDatabase() throws Exception {
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(marketplaceCardRepository.findIdsByCreatorId(eq(userId), any()))
+                .thenAnswer(invocation -> new PageImpl<Long>(List.of(), invocation.getArgument(1), 20));
+
+        mockMvc.perform(get("/users/" + userId + "/cards").param("orderBy", "title").param("reverse", "true")
+                .param("page", "2").param("resultsPerPage", "5"))
+                .andExpect(status().isOk());
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(marketplaceCardRepository).findIdsByCreatorId(eq(userId), pageable.capture());
+        assertEquals(1, pageable.getValue().getPageNumber());
+        assertEquals(5, pageable.getValue().getPageSize());
+        assertEquals(Sort.Direction.DESC, pageable.getValue().getSort().getOrderFor("title").getDirection());
+    }
+
+    @Test
+    void getUserCards_pagePastEnd_lastPageReturned() throws Exception {
+        when(userRepository.existsById(userId)).thenReturn(true);
+        when(marketplaceCardRepository.findIdsByCreatorId(eq(userId), any())).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(1);
+            List<Long> content = pageable.getPageNumber() == 1 ? List.of(cards.get(2).getID()) : List.of();
+            return new PageImpl<>(content, pageable, 3);
+        });
+
+        MvcResult result = mockMvc.perform(get("/users/" + userId + "/cards").param("page", "10").param("resultsPerPage", "2"))
+                .andExpect(status().isOk()).andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(1, responseBody.size());
+        assertEquals("ijkl", ((JSONObject) responseBody.get(0)).getAsString("title"));
+        assertEquals("3", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+    }
+
     @Test
     void getMarketplaceCardCount_emptyCardList_zeroReturned() {
-        when(marketplaceCardRepository.getAllBySection(MarketplaceCard.Section.FOR_SALE)).thenReturn(new ArrayList<MarketplaceCard>());
+        when(marketplaceCardRepository.countBySection(MarketplaceCard.Section.FOR_SALE)).thenReturn(0L);
         JSONObject result = cardController.retrieveCardCount(request, "ForSale");
         assertTrue(result.containsKey("count"));
-        assertEquals(0, result.getAsNumber("count"));
+        assertEquals(0L, result.getAsNumber("count"));
     }
 
     @Test
     void getMarketplaceCardCount_multipleCards_correctCountReturned() throws Exception {
-        when(marketplaceCardRepository.getAllBySection(MarketplaceCard.Section.FOR_SALE)).thenReturn(cards);
+        when(marketplaceCardRepository.countBySection(MarketplaceCard.Section.FOR_SALE)).thenReturn(4L);
         JSONObject result = cardController.retrieveCardCount(request, "ForSale");
         assertTrue(result.containsKey("count"));
-        assertEquals(4, result.getAsNumber("count"));
+        assertEquals(4L, result.getAsNumber("count"));
+        verify(marketplaceCardRepository, times(0)).getAllBySection(any());
     }
 
     /**
@@ -492,6 +1064,9 @@ class CardControllerTest {
             .withSection("ForSale").withTitle("ijkl").build());
         cards.add(new MarketplaceCard.Builder().withCreator(testUser1).withCloses(Instant.now().plus(4, ChronoUnit.HOURS))
             .withSection("ForSale").withTitle("mnop").build());
+        for (int i = 0; i < cards.size(); i++) {
+            ReflectionTestUtils.setField(cards.get(i), "id", i + 1L);
+        }
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,177 @@
+package org.seng302.controllers;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import net.minidev.json.parser.JSONParser;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.seng302.entities.*;
+import org.seng302.persistence.*;
+import org.seng302.tools.AuthenticationTokenManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the number of SQL statements used to load a page of a business's inventory. Each inventory item is for a
+ * different product with its own image, so loading each item's product or images separately would add statements for
+ * every item on the page.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class InventoryControllerQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ImageRepository imageRepository;
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+
+    private MockedStatic<AuthenticationTokenManager> authenticationTokenManager;
+    private Statistics statistics;
+    private User owner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clearRepositories();
+        owner = userRepository.save(new User.Builder()
+                .withFirstName("Owner")
+                .withLastName("Owner")
+                .withEmail("inventory.owner@example.com")
+                .withPassword("IDoLikeBreaks69#H3!p")
+                .withDob("1999-07-17")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .build());
+
+        authenticationTokenManager = Mockito.mockStatic(AuthenticationTokenManager.class);
+        authenticationTokenManager.when(() -> AuthenticationTokenManager.checkAuthenticationToken(any())).then(invocation -> null);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        authenticationTokenManager.close();
+        clearRepositories();
+    }
+
+    private void clearRepositories() {
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        imageRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Creates a business owned by the owner with the given number of inventory items, each for its own product with
+     * an image
+     * @param name The name of the business
+     * @param itemCount The number of inventory items to create
+     * @return The business
+     */
+    private Business createBusinessWithInventory(String name, int itemCount) throws Exception {
+        Business business = businessRepository.save(new Business.Builder()
+                .withName(name)
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(owner)
+                .build());
+        for (int i = 0; i < itemCount; i++) {
+            Image image = imageRepository.save(new Image(business.getId() + "_" + i + ".png", business.getId() + "_" + i + "_thumbnail.png"));
+            Product product = new Product.Builder()
+                    .withProductCode("PRODUCT" + i)
+                    .withName("Product " + i)
+                    .withBusiness(business)
+                    .build();
+            product.setProductImages(List.of(image));
+            product = productRepository.save(product);
+            inventoryItemRepository.save(new InventoryItem.Builder()
+                    .withProduct(product)
+                    .withQuantity(1)
+                    .withExpires(LocalDate.now().plusYears(1).toString())
+                    .build());
+        }
+        return business;
+    }
+
+    /**
+     * Requests the first page of a business's inventory and returns the number of SQL statements prepared while
+     * handling the request.
+     * @param business The business to get the inventory of
+     * @param expectedItems The number of items expected on the page
+     * @return The number of statements
+     */
+    private long countStatementsForInventoryPage(Business business, int expectedItems) throws Exception {
+        statistics.clear();
+        MvcResult result = mockMvc.perform(get("/businesses/" + business.getId() + "/inventory")
+                .sessionAttr("accountId", owner.getUserID()))
+                .andExpect(status().isOk())
+                .andReturn();
+        long statements = statistics.getPrepareStatementCount();
+
+        JSONArray items = (JSONArray) new JSONParser(JSONParser.MODE_PERMISSIVE).parse(result.getResponse().getContentAsString());
+        assertEquals(expectedItems, items.size());
+        for (Object item : items) {
+            JSONObject product = (JSONObject) ((JSONObject) item).get("product");
+            assertEquals(1, ((JSONArray) product.get("images")).size());
+        }
+        return statements;
+    }
+
+    /**
+     * Loads a business and returns the number of SQL statements prepared while loading it
+     * @param business The business to load
+     * @return The number of statements
+     */
+    private long countStatementsForBusiness(Business business) {
+        statistics.clear();
+        businessRepository.getBusinessById(business.getId());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void getInventory_fullPage_businessQueriesThenIdQueryFetchQueryAndCountQuery() throws Exception {
+        Business business = createBusinessWithInventory("Large Business", 40);
+        long inventoryStatements = countStatementsForInventoryPage(business, 15);
+        assertEquals(3, inventoryStatements - countStatementsForBusiness(business));
+    }
+
+    @Test
+    void getInventory_businessWithManyProducts_sameStatementsAsBusinessWithOneProduct() throws Exception {
+        Business small = createBusinessWithInventory("Small Business", 1);
+        Business large = createBusinessWithInventory("Large Business", 40);
+
+        long smallStatements = countStatementsForInventoryPage(small, 1);
+        long largeStatements = countStatementsForInventoryPage(large, 15);
+        // The count query is only needed when there is more than one page
+        assertEquals(smallStatements + 1, largeStatements);
+    }
+}
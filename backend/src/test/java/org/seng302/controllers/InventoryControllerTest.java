@@ -5,7 +5,10 @@ import net.minidev.json.JSONObject;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
@@ -16,10 +19,15 @@ import org.seng302.persistence.BusinessRepository;
 import org.seng302.persistence.InventoryItemRepository;
 import org.seng302.persistence.ProductRepository;
 import org.seng302.tools.AuthenticationTokenManager;
+import org.seng302.tools.SearchHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -37,6 +45,7 @@ import java.math.BigDecimal;
 import java.sql.Timestamp;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.text.ParseException;
 import java.time.Instant;
@@ -51,6 +60,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.Assert.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -67,6 +77,8 @@ class InventoryControllerTest {
 
     @Mock
     private HttpServletRequest request;
+    @Mock
+    private HttpServletResponse response;
     @MockBean
     private BusinessRepository businessRepository;
     @MockBean
@@ -80,8 +92,6 @@ class InventoryControllerTest {
     @Mock
     private Business mockBusiness;
     @Mock
-    private List<Product> mockProductList;
-    @Mock
     private HttpSession session;
     private Product testProduct;
     private Product testProduct2;
@@ -147,8 +157,8 @@ class InventoryControllerTest {
         when(businessSpy.getId()).thenReturn(1L);
         when(businessRepository.getBusinessById(any())).thenReturn(businessSpy); // use our business
         doNothing().when(businessSpy).checkSessionPermissions(any()); // mock successful authentication
-        when(productRepository.findAllByBusiness(any())).thenReturn(mockProductList);
-        when(inventoryItemRepository.getInventoryByCatalogue(any())).thenReturn(inventory);
+        when(inventoryItemRepository.findInventoryPage(any(), any()))
+                .thenAnswer(invocation -> new PageImpl<>(inventory, invocation.getArgument(1), inventory.size()));
 
         var controller = new InventoryController(businessRepository, inventoryItemRepository, productRepository);
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
@@ -300,7 +310,7 @@ class InventoryControllerTest {
         when(businessRepository.getBusinessById(1L)).thenReturn(mockBusiness);
         doThrow(new AccessTokenException()).when(mockBusiness).checkSessionPermissions(any());
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> inventoryController.getInventory(1L, request, null, null, null, null));
+                () -> inventoryController.getInventory(1L, request, response, null, null, null, null));
         Assertions.assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatus());
     }
 
@@ -320,7 +330,7 @@ class InventoryControllerTest {
         when(businessRepository.getBusinessById(1L)).thenReturn(mockBusiness);
         doThrow(new ResponseStatusException(HttpStatus.FORBIDDEN)).when(mockBusiness).checkSessionPermissions(any());
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> inventoryController.getInventory(1L, request, null, null, null, null));
+                () -> inventoryController.getInventory(1L, request, response, null, null, null, null));
         Assertions.assertEquals(HttpStatus.FORBIDDEN, exception.getStatus());
     }
 
@@ -339,7 +349,7 @@ class InventoryControllerTest {
         inventoryController = new InventoryController(businessRepository, inventoryItemRepository, productRepository);
         when(businessRepository.getBusinessById(1L)).thenThrow(new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE));
         ResponseStatusException exception = assertThrows(ResponseStatusException.class,
-                () -> inventoryController.getInventory(1L, request, null, null, null, null));
+                () -> inventoryController.getInventory(1L, request, response, null, null, null, null));
         Assertions.assertEquals(HttpStatus.NOT_ACCEPTABLE, exception.getStatus());
     }
 
@@ -354,25 +364,21 @@ class InventoryControllerTest {
 
     @Test
     void getInventory_emptyInventory_emptyArrayReturned() {
-        List<InventoryItem> emptyInventory = new ArrayList<>();
         inventoryController = new InventoryController(businessRepository, inventoryItemRepository, productRepository);
         when(businessRepository.getBusinessById(1L)).thenReturn(mockBusiness);
-        when(productRepository.findAllByBusiness(mockBusiness)).thenReturn(mockProductList);
-        when(inventoryItemRepository.getInventoryByCatalogue(mockProductList)).thenReturn(emptyInventory);
-        JSONArray result = inventoryController.getInventory(1L, request, null, null, null, null);
+        doReturn(Page.empty()).when(inventoryItemRepository).findInventoryPage(eq(mockBusiness), any(Pageable.class));
+        JSONArray result = inventoryController.getInventory(1L, request, response, null, null, null, null);
         Assertions.assertEquals(0, result.size());
     }
 
     @Test
     void getInventoryCount_emptyInventory_zeroReturned() {
-        List<InventoryItem> emptyInventory = new ArrayList<>();
         inventoryController = new InventoryController(businessRepository, inventoryItemRepository, productRepository);
         when(businessRepository.getBusinessById(1L)).thenReturn(mockBusiness);
-        when(productRepository.findAllByBusiness(mockBusiness)).thenReturn(mockProductList);
-        when(inventoryItemRepository.getInventoryByCatalogue(mockProductList)).thenReturn(emptyInventory);
+        when(inventoryItemRepository.countByProductBusiness(mockBusiness)).thenReturn(0L);
         JSONObject result = inventoryController.getInventoryCount(1L, request);
         Assertions.assertTrue(result.containsKey("count"));
-        Assertions.assertEquals(0, result.getAsNumber("count"));
+        Assertions.assertEquals(0L, result.getAsNumber("count"));
     }
 
     @Test
@@ -389,771 +395,161 @@ class InventoryControllerTest {
 
         inventoryController = new InventoryController(businessRepository, inventoryItemRepository, productRepository);
         when(businessRepository.getBusinessById(1L)).thenReturn(mockBusiness);
-        when(productRepository.findAllByBusiness(mockBusiness)).thenReturn(mockProductList);
-        when(inventoryItemRepository.getInventoryByCatalogue(mockProductList)).thenReturn(inventory);
-        JSONArray result = inventoryController.getInventory(1L, request, null, null, null, null);
+        doReturn(new PageImpl<>(inventory)).when(inventoryItemRepository).findInventoryPage(eq(mockBusiness), any(Pageable.class));
+        JSONArray result = inventoryController.getInventory(1L, request, response, null, null, null, null);
         Assertions.assertEquals(expectedResponse, result);
     }
 
     @Test
-    void getInventoryCount_multipleItems_correctCountReturned() throws Exception {
+    void getInventory_multipleItems_totalCountHeaderSet() throws Exception {
         String futureDate = LocalDate.now().plus(50, ChronoUnit.DAYS).toString();
-
         List<InventoryItem> inventory = new ArrayList<>();
         inventory.add(new InventoryItem.Builder().withProduct(testProduct).withQuantity(1).withExpires(futureDate).build());
-        inventory.add(new InventoryItem.Builder().withProduct(testProduct).withQuantity(39).withExpires(futureDate).build());
-        inventory.add(new InventoryItem.Builder().withProduct(testProduct).withQuantity(54).withExpires(futureDate).build());
 
         inventoryController = new InventoryController(businessRepository, inventoryItemRepository, productRepository);
         when(businessRepository.getBusinessById(1L)).thenReturn(mockBusiness);
-        when(productRepository.findAllByBusiness(mockBusiness)).thenReturn(mockProductList);
-        when(inventoryItemRepository.getInventoryByCatalogue(mockProductList)).thenReturn(inventory);
-
-        JSONObject result = inventoryController.getInventoryCount(1L, request);
-        Assertions.assertTrue(result.containsKey("count"));
-        Assertions.assertEquals(3, result.getAsNumber("count"));
-    }
-
-    @Test
-    void retrievePaginatedInventory_firstPage_firstPageOfInventoryItems() throws Exception {
-        MvcResult result = mockMvc.perform(
-                MockMvcRequestBuilders.get("/businesses/1/inventory").param("page", "1").param("resultsPerPage", "2"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        // Check length should be 2 products
-        assertEquals(2, responseBody.size());
-
-        // Check the two products are the expected ones
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-
-        // Because the default sorting option is by Product code, the two product codes
-        // we have are "BEANS"
-        // "HAM" and "VEGE" respectively, so the order should still stay the same as per
-        // how they were added
-        // in addSeveralInventoryItemsToAnInventory()
-        // using the differing quantities of the inventory items to identify that the
-        // pagination
-        // works as intended
-        assertEquals("1", firstInventory.getAsString("quantity"));
-        assertEquals("2", secondInventory.getAsString("quantity"));
-    }
-
-    @Test
-    void retrievePaginatedInventory_secondPage_secondPageOfInventoryItems() throws Exception {
-        MvcResult result = mockMvc.perform(
-                MockMvcRequestBuilders.get("/businesses/1/inventory").param("page", "2").param("resultsPerPage", "2"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        // Check length should be 2 products
-        assertEquals(2, responseBody.size());
-
-        // Check the two products are the expected ones
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-
-        // Because the default sorting option is by Product code, the two product codes
-        // we have are "BEANS"
-        // "HAM" and "VEGE" respectively, so the order should still stay the same as per
-        // how they were added
-        // in addSeveralInventoryItemsToAnInventory()
-        // using the differing quantities of the inventory items to identify that the
-        // pagination
-        // works as intended
-        assertEquals("3", firstInventory.getAsString("quantity"));
-        assertEquals("4", secondInventory.getAsString("quantity"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byName_correctOrderOfInventory() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "name"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-
-        // the ordering is as such because the names are "another name", "some Name" and
-        // "some Name 2"
-        assertEquals(testProduct3.getName(), ((JSONObject) firstInventory.get("product")).getAsString("name"));
-        assertEquals(testProduct.getName(), ((JSONObject) secondInventory.get("product")).getAsString("name"));
-        assertEquals(testProduct2.getName(), ((JSONObject) thirdInventory.get("product")).getAsString("name"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byNameReverse_correctOrderOfInventory() throws Exception {
-        MvcResult result = mockMvc.perform(
-                MockMvcRequestBuilders.get("/businesses/1/inventory").param("reverse", "true").param("orderBy", "name"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // the ordering is as such because the names are "some Name 2", "some Name" and
-        // "another name"
-        assertEquals(testProductNull.getName(), ((JSONObject) firstInventory.get("product")).getAsString("name"));
-        assertEquals(testProduct2.getName(), ((JSONObject) secondInventory.get("product")).getAsString("name"));
-        assertEquals(testProduct.getName(), ((JSONObject) thirdInventory.get("product")).getAsString("name"));
-        assertEquals(testProduct3.getName(), ((JSONObject) fourthInventory.get("product")).getAsString("name"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byDescription_correctOrderOfInventoryWithNullBottom() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "description"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(6);
-
-        // the ordering is as such because the names are "another description", "some
-        // description" and "some description 2"
-        assertEquals(testProduct3.getDescription(),
-                ((JSONObject) firstInventory.get("product")).getAsString("description"));
-        assertEquals(testProduct.getDescription(),
-                ((JSONObject) secondInventory.get("product")).getAsString("description"));
-        assertEquals(testProduct2.getDescription(),
-                ((JSONObject) thirdInventory.get("product")).getAsString("description"));
-        assertEquals(testProductNull.getDescription(),
-                ((JSONObject) fourthInventory.get("product")).getAsString("description"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byDescriptionReverse_correctOrderOfInventoryWithNullTop() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "description")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // the ordering is as such because the names are "some description", "some
-        // description 2" and "another description"
-        assertEquals(testProductNull.getDescription(),
-                ((JSONObject) firstInventory.get("product")).getAsString("description"));
-        assertEquals(testProduct2.getDescription(),
-                ((JSONObject) secondInventory.get("product")).getAsString("description"));
-        assertEquals(testProduct.getDescription(),
-                ((JSONObject) thirdInventory.get("product")).getAsString("description"));
-        assertEquals(testProduct3.getDescription(),
-                ((JSONObject) fourthInventory.get("product")).getAsString("description"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byManufacturer_correctOrderOfInventoryWithNullBottom() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "manufacturer"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(6);
-
-        // same idea as the above tests
-        assertEquals(testProduct3.getManufacturer(),
-                ((JSONObject) firstInventory.get("product")).getAsString("manufacturer"));
-        assertEquals(testProduct.getManufacturer(),
-                ((JSONObject) secondInventory.get("product")).getAsString("manufacturer"));
-        assertEquals(testProduct2.getManufacturer(),
-                ((JSONObject) thirdInventory.get("product")).getAsString("manufacturer"));
-        assertEquals(testProductNull.getManufacturer(),
-                ((JSONObject) fourthInventory.get("product")).getAsString("manufacturer"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byManufacturerReverse_correctOrderOfInventoryWithNullTop() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "manufacturer")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        assertEquals(testProductNull.getManufacturer(),
-                ((JSONObject) firstInventory.get("product")).getAsString("manufacturer"));
-        assertEquals(testProduct2.getManufacturer(),
-                ((JSONObject) secondInventory.get("product")).getAsString("manufacturer"));
-        assertEquals(testProduct.getManufacturer(),
-                ((JSONObject) thirdInventory.get("product")).getAsString("manufacturer"));
-        assertEquals(testProduct3.getManufacturer(),
-                ((JSONObject) fourthInventory.get("product")).getAsString("manufacturer"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byRecommendedRetailPrice_correctOrderOfInventoryWithNullBottom() throws Exception {
-        MvcResult result = mockMvc.perform(
-                MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "recommendedRetailPrice"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(6);
-
-        // same idea as the above tests
-        assertEquals(testProduct.getRecommendedRetailPrice().toString(),
-                ((JSONObject) firstInventory.get("product")).getAsString("recommendedRetailPrice"));
-        assertEquals(testProduct2.getRecommendedRetailPrice().toString(),
-                ((JSONObject) secondInventory.get("product")).getAsString("recommendedRetailPrice"));
-        assertEquals(testProduct3.getRecommendedRetailPrice().toString(),
-                ((JSONObject) thirdInventory.get("product")).getAsString("recommendedRetailPrice"));
-        // Cannot toString a null value, so just compare with null instead
-        assertEquals(null, ((JSONObject) fourthInventory.get("product")).getAsString("recommendedRetailPrice"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byRecommendedRetailPriceReverse_correctOrderOfInventoryWithNullTop() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "recommendedRetailPrice")).andExpect(status().isOk())
-                .andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        // Cannot toString a null value, so just compare with null instead
-        assertEquals(null, ((JSONObject) firstInventory.get("product")).getAsString("recommendedRetailPrice"));
-        assertEquals(testProduct3.getRecommendedRetailPrice().toString(),
-                ((JSONObject) secondInventory.get("product")).getAsString("recommendedRetailPrice"));
-        assertEquals(testProduct2.getRecommendedRetailPrice().toString(),
-                ((JSONObject) thirdInventory.get("product")).getAsString("recommendedRetailPrice"));
-        assertEquals(testProduct.getRecommendedRetailPrice().toString(),
-                ((JSONObject) fourthInventory.get("product")).getAsString("recommendedRetailPrice"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byCreated_correctOrderOfInventory() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "created"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-
-        // same idea as the above tests
-        assertEquals(testProduct.getCreated().toString(), ((JSONObject) firstInventory.get("product")).get("created"));
-        assertEquals(testProduct2.getCreated().toString(), ((JSONObject) secondInventory.get("product")).get("created"));
-        assertEquals(testProduct3.getCreated().toString(), ((JSONObject) thirdInventory.get("product")).get("created"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byCreatedReverse_correctOrderOfInventory() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "created")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        assertEquals(testProductNull.getCreated().toString(), ((JSONObject) firstInventory.get("product")).get("created"));
-        assertEquals(testProduct3.getCreated().toString(), ((JSONObject) secondInventory.get("product")).get("created"));
-        assertEquals(testProduct2.getCreated().toString(), ((JSONObject) thirdInventory.get("product")).get("created"));
-        assertEquals(testProduct.getCreated().toString(), ((JSONObject) fourthInventory.get("product")).get("created"));
+        doAnswer(invocation -> new PageImpl<>(inventory, invocation.getArgument(1), 40))
+                .when(inventoryItemRepository).findInventoryPage(eq(mockBusiness), any(Pageable.class));
+        inventoryController.getInventory(1L, request, response, null, null, null, null);
+        verify(response).setHeader(SearchHelper.TOTAL_COUNT_HEADER, "40");
     }
 
     @Test
-    void retrieveSortedInventory_byQuantity_correctOrderOfInventory() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "quantity"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-
-        // same idea as the above tests
-        assertEquals("1", firstInventory.getAsString("quantity"));
-        assertEquals("3", secondInventory.getAsString("quantity"));
-        assertEquals("5", thirdInventory.getAsString("quantity"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byQuantityReverse_correctOrderOfInventory() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "quantity")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        assertEquals("7", firstInventory.getAsString("quantity"));
-        assertEquals("6", secondInventory.getAsString("quantity"));
-        assertEquals("4", thirdInventory.getAsString("quantity"));
-        assertEquals("2", fourthInventory.getAsString("quantity"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byPricePerItem_correctOrderOfInventoryWithNullBottom() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "pricePerItem"))
-                .andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
+    void getInventoryCount_multipleItems_correctCountReturned() throws Exception {
+        inventoryController = new InventoryController(businessRepository, inventoryItemRepository, productRepository);
+        when(businessRepository.getBusinessById(1L)).thenReturn(mockBusiness);
+        when(inventoryItemRepository.countByProductBusiness(mockBusiness)).thenReturn(3L);
 
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(6);
-
-        // same idea as the above tests
-        assertEquals("1", firstInventory.getAsString("pricePerItem"));
-        assertEquals("3", secondInventory.getAsString("pricePerItem"));
-        assertEquals("5", thirdInventory.getAsString("pricePerItem"));
-        assertEquals(null, fourthInventory.getAsString("pricePerItem"));
+        JSONObject result = inventoryController.getInventoryCount(1L, request);
+        Assertions.assertTrue(result.containsKey("count"));
+        Assertions.assertEquals(3L, result.getAsNumber("count"));
     }
 
-    @Test
-    void retrieveSortedInventory_byPricePerItemReverse_correctOrderOfInventoryWithNullTop() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "pricePerItem")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        assertEquals(null, firstInventory.getAsString("pricePerItem"));
-        assertEquals("6", secondInventory.getAsString("pricePerItem"));
-        assertEquals("4", thirdInventory.getAsString("pricePerItem"));
-        assertEquals("2", fourthInventory.getAsString("pricePerItem"));
+    /**
+     * Gets the page request which was used to retrieve the inventory from the inventory item repository
+     * @return The page request
+     */
+    private Pageable captureInventoryPageRequest() {
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(inventoryItemRepository).findInventoryPage(any(Business.class), captor.capture());
+        return captor.getValue();
     }
 
     @Test
-    void retrieveSortedInventory_byTotalPrice_correctOrderOfInventoryWithNullBottom() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "totalPrice"))
+    void retrievePaginatedInventory_firstPage_firstPageOfInventoryItemsRequested() throws Exception {
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/businesses/1/inventory").param("page", "1").param("resultsPerPage", "2"))
                 .andExpect(status().isOk()).andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(6);
-
-        // same idea as the above tests
-        assertEquals("1", firstInventory.getAsString("totalPrice"));
-        assertEquals("3", secondInventory.getAsString("totalPrice"));
-        assertEquals("5", thirdInventory.getAsString("totalPrice"));
-        assertEquals(null, fourthInventory.getAsString("totalPrice"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byTotalPriceReverse_correctOrderOfInventoryWithNullTop() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "totalPrice")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        assertEquals(null, firstInventory.getAsString("totalPrice"));
-        assertEquals("6", secondInventory.getAsString("totalPrice"));
-        assertEquals("4", thirdInventory.getAsString("totalPrice"));
-        assertEquals("2", fourthInventory.getAsString("totalPrice"));
+        Pageable pageRequest = captureInventoryPageRequest();
+        assertEquals(0, pageRequest.getPageNumber());
+        assertEquals(2, pageRequest.getPageSize());
     }
 
     @Test
-    void retrieveSortedInventory_byManufactured_correctOrderOfInventoryWithNullBottom() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "manufactured"))
+    void retrievePaginatedInventory_secondPage_secondPageOfInventoryItemsRequested() throws Exception {
+        mockMvc.perform(
+                MockMvcRequestBuilders.get("/businesses/1/inventory").param("page", "2").param("resultsPerPage", "2"))
                 .andExpect(status().isOk()).andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(6);
-
-        // same idea as the above tests
-
-        // the dates below correspond to the dates created in
-        // addSeveralInventoryItemsToAnInventory(),
-        // just that it is in the JSON format from the database
-        assertEquals("2020-01-01", firstInventory.get("manufactured").toString());
-        assertEquals("2020-03-01", secondInventory.get("manufactured").toString());
-        assertEquals("2020-06-06", thirdInventory.get("manufactured").toString());
-        assertEquals(null, fourthInventory.get("manufactured"));
+        Pageable pageRequest = captureInventoryPageRequest();
+        assertEquals(1, pageRequest.getPageNumber());
+        assertEquals(2, pageRequest.getPageSize());
     }
 
     @Test
-    void retrieveSortedInventory_byManufacturedReverse_correctOrderOfInventoryWithNullTop() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "manufactured")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        assertEquals(null, firstInventory.get("manufactured"));
-        // the dates below correspond to the dates created in
-        // addSeveralInventoryItemsToAnInventory(),
-        // just that it is in the JSON format from the database
-        assertEquals("2020-06-06", secondInventory.get("manufactured").toString());
-        assertEquals("2020-03-01", thirdInventory.get("manufactured").toString());
-        assertEquals("2020-01-01", fourthInventory.get("manufactured").toString());
-    }
-
-    @Test
-    void retrieveSortedInventory_bySellBy_correctOrderOfInventoryWithNullBottom() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "sellBy"))
+    void retrieveInventory_pageReturnedByRepository_itemsReturnedInRepositoryOrder() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory"))
                 .andExpect(status().isOk()).andReturn();
 
         JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
         JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
 
+        // The inventory is returned in the order given by the repository, which is the order the items were added
+        // in addSeveralInventoryItemsToAnInventory()
         assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(6);
-
-        // the dates below correspond to the dates created in
-        // addSeveralInventoryItemsToAnInventory(),
-        // just that it is in the JSON format from the database
-        assertEquals("2026-02-01", firstInventory.get("sellBy").toString());
-        assertEquals("2027-02-01", secondInventory.get("sellBy").toString());
-        assertEquals("2028-02-01", thirdInventory.get("sellBy").toString());
-        assertEquals(null, fourthInventory.get("sellBy"));
-    }
-
-    @Test
-    void retrieveSortedInventory_bySellByReverse_correctOrderOfInventoryWithNullTop() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "sellBy")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        assertEquals(null, firstInventory.get("sellBy"));
-        // the dates below correspond to the dates created in
-        // addSeveralInventoryItemsToAnInventory(),
-        // just that it is in the JSON format from the database
-        assertEquals("2028-02-01", secondInventory.get("sellBy").toString());
-        assertEquals("2027-02-01", thirdInventory.get("sellBy").toString());
-        assertEquals("2026-02-01", fourthInventory.get("sellBy").toString());
-    }
-
-    @Test
-    void retrieveSortedInventory_byBestBefore_correctOrderOfInventoryWithNullBottom() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "bestBefore"))
+        for (int i = 0; i < 7; i++) {
+            assertEquals(String.valueOf(i + 1), ((JSONObject) responseBody.get(i)).getAsString("quantity"));
+        }
+        assertEquals("7", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "name,product.nameSortKey,true",
+            "description,product.descriptionSortKey,true",
+            "manufacturer,product.manufacturerSortKey,true",
+            "recommendedRetailPrice,product.recommendedRetailPrice,true",
+            "created,product.created,false",
+            "quantity,quantity,false",
+            "pricePerItem,pricePerItem,true",
+            "totalPrice,totalPrice,true",
+            "manufactured,manufactured,true",
+            "sellBy,sellBy,true",
+            "bestBefore,bestBefore,true",
+            "expires,expires,false",
+            "productCode,product.productCode,false"
+    })
+    void retrieveSortedInventory_orderBy_sortedByPropertyWithNullBottom(String orderBy, String property,
+                                                                         boolean nullable) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", orderBy))
                 .andExpect(status().isOk()).andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(6);
-
-        // the dates below correspond to the dates created in
-        // addSeveralInventoryItemsToAnInventory(),
-        // just that it is in the JSON format from the database
-        assertEquals("2027-03-01", firstInventory.get("bestBefore").toString());
-        assertEquals("2028-03-01", secondInventory.get("bestBefore").toString());
-        assertEquals("2029-02-01", thirdInventory.get("bestBefore").toString());
-        assertEquals(null, fourthInventory.get("bestBefore"));
-    }
-
-    @Test
-    void retrieveSortedInventory_byBestBeforeReverse_correctOrderOfInventoryWithNullTop() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "bestBefore")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        assertEquals(null, firstInventory.get("bestBefore"));
-        // the dates below correspond to the dates created in
-        // addSeveralInventoryItemsToAnInventory(),
-        // just that it is in the JSON format from the database
-        assertEquals("2029-02-01", secondInventory.get("bestBefore").toString());
-        assertEquals("2028-03-01", thirdInventory.get("bestBefore").toString());
-        assertEquals("2027-03-01", fourthInventory.get("bestBefore").toString());
-    }
-
-    @Test
-    void retrieveSortedInventory_byExpiry_correctOrderOfInventoryWithNullBottom() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "expiry"))
+        List<Sort.Order> orders = captureInventoryPageRequest().getSort().toList();
+        assertEquals(property, orders.get(0).getProperty());
+        assertTrue(orders.get(0).isAscending());
+        assertEquals(nullable ? Sort.NullHandling.NULLS_LAST : Sort.NullHandling.NATIVE, orders.get(0).getNullHandling());
+        // Items which are equal on the ordered property are always in the same order
+        assertEquals("id", orders.get(1).getProperty());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "name,product.nameSortKey,true",
+            "description,product.descriptionSortKey,true",
+            "manufacturer,product.manufacturerSortKey,true",
+            "recommendedRetailPrice,product.recommendedRetailPrice,true",
+            "created,product.created,false",
+            "quantity,quantity,false",
+            "pricePerItem,pricePerItem,true",
+            "totalPrice,totalPrice,true",
+            "manufactured,manufactured,true",
+            "sellBy,sellBy,true",
+            "bestBefore,bestBefore,true",
+            "expires,expires,false",
+            "productCode,product.productCode,false"
+    })
+    void retrieveSortedInventory_orderByReverse_sortedByPropertyWithNullTop(String orderBy, String property,
+                                                                             boolean nullable) throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
+                .param("orderBy", orderBy).param("reverse", "true"))
                 .andExpect(status().isOk()).andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(6);
-
-        // the dates below correspond to the dates created in
-        // addSeveralInventoryItemsToAnInventory(),
-        // just that it is in the JSON format from the database
-        assertEquals("2028-01-01", firstInventory.get("expires").toString());
-        assertEquals("2029-01-01", secondInventory.get("expires").toString());
-        assertEquals("2030-06-06", thirdInventory.get("expires").toString());
-        assertEquals("2031-06-06", fourthInventory.get("expires").toString());
-    }
-
-    @Test
-    void retrieveSortedInventory_byExpiryReverse_correctOrderOfInventoryWithNullTop() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory")
-                .param("reverse", "true").param("orderBy", "expires")).andExpect(status().isOk()).andReturn();
-
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        // same idea as the above tests
-        assertEquals("2031-06-06", firstInventory.get("expires").toString());
-        // the dates below correspond to the dates created in
-        // addSeveralInventoryItemsToAnInventory(),
-        // just that it is in the JSON format from the database
-        assertEquals("2030-06-06", secondInventory.get("expires").toString());
-        assertEquals("2029-01-01", thirdInventory.get("expires").toString());
-        assertEquals("2028-01-01", fourthInventory.get("expires").toString());
+        List<Sort.Order> orders = captureInventoryPageRequest().getSort().toList();
+        assertEquals(property, orders.get(0).getProperty());
+        assertTrue(orders.get(0).isDescending());
+        assertEquals(nullable ? Sort.NullHandling.NULLS_FIRST : Sort.NullHandling.NATIVE, orders.get(0).getNullHandling());
+        assertEquals("id", orders.get(1).getProperty());
+        assertTrue(orders.get(1).isDescending());
     }
 
     @Test
     void retrieveSortedInventory_byDefaultProductCode_correctOrderOfInventory() throws Exception {
-        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory"))
+        mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory"))
                 .andExpect(status().isOk()).andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(2);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(4);
-
-        assertEquals(testProduct.getProductCode(),
-                ((JSONObject) firstInventory.get("product")).getAsString("id"));
-        assertEquals(testProduct2.getProductCode(),
-                ((JSONObject) secondInventory.get("product")).getAsString("id"));
-        assertEquals(testProduct3.getProductCode(),
-                ((JSONObject) thirdInventory.get("product")).getAsString("id"));
+        Sort.Order order = captureInventoryPageRequest().getSort().iterator().next();
+        assertEquals("product.productCode", order.getProperty());
+        assertTrue(order.isAscending());
     }
 
     @Test
-    void retrieveSortedInventory_byDefaultProductCodeReverse_correctOrderOfInventory() throws Exception {
-        MvcResult result = mockMvc
-                .perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("reverse", "true"))
+    void retrieveSortedInventory_unknownOrderBy_sortedByProductCode() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/businesses/1/inventory").param("orderBy", "notAProperty"))
                 .andExpect(status().isOk()).andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        JSONArray responseBody = (JSONArray) parser.parse(result.getResponse().getContentAsString());
-
-        assertEquals(7, responseBody.size());
-
-        // there are different types of inventory items, so test the index positions of
-        // the those types
-        JSONObject firstInventory = (JSONObject) responseBody.get(0);
-        JSONObject secondInventory = (JSONObject) responseBody.get(1);
-        JSONObject thirdInventory = (JSONObject) responseBody.get(3);
-        JSONObject fourthInventory = (JSONObject) responseBody.get(5);
-
-        assertEquals(testProductNull.getProductCode(),
-                ((JSONObject) firstInventory.get("product")).getAsString("id"));
-        assertEquals(testProduct3.getProductCode(),
-                ((JSONObject) secondInventory.get("product")).getAsString("id"));
-        assertEquals(testProduct2.getProductCode(),
-                ((JSONObject) thirdInventory.get("product")).getAsString("id"));
-        assertEquals(testProduct.getProductCode(),
-                ((JSONObject) fourthInventory.get("product")).getAsString("id"));
+        Sort.Order order = captureInventoryPageRequest().getSort().iterator().next();
+        assertEquals("product.productCode", order.getProperty());
     }
 
     /**
@@ -1163,26 +559,26 @@ class InventoryControllerTest {
      * @throws Exception
      */
     public void addSeveralInventoryItemsToAnInventory(List<InventoryItem> inventory) throws Exception {
-        inventory.add(new InventoryItem.Builder().withProduct(testProduct).withQuantity(1).withExpires("2028-01-01")
-                .withPricePerItem("1").withTotalPrice("1").withManufactured("2020-01-01").withSellBy("2026-02-01")
-                .withBestBefore("2027-03-01").build());
-        inventory.add(new InventoryItem.Builder().withProduct(testProduct).withQuantity(2).withExpires("2028-01-01")
-                .withPricePerItem("2").withTotalPrice("2").withManufactured("2020-01-01").withSellBy("2026-02-01")
-                .withBestBefore("2027-03-01").build());
-        inventory.add(new InventoryItem.Builder().withProduct(testProduct2).withQuantity(3).withExpires("2029-01-01")
-                .withPricePerItem("3").withTotalPrice("3").withManufactured("2020-03-01").withSellBy("2027-02-01")
-                .withBestBefore("2028-03-01").build());
-        inventory.add(new InventoryItem.Builder().withProduct(testProduct2).withQuantity(4).withExpires("2029-01-01")
-                .withPricePerItem("4").withTotalPrice("4").withManufactured("2020-03-01").withSellBy("2027-02-01")
-                .withBestBefore("2028-03-01").build());
-        inventory.add(new InventoryItem.Builder().withProduct(testProduct3).withQuantity(5).withExpires("2030-06-06")
-                .withPricePerItem("5").withTotalPrice("5").withManufactured("2020-06-06").withSellBy("2028-02-01")
-                .withBestBefore("2029-02-01").build());
-        inventory.add(new InventoryItem.Builder().withProduct(testProduct3).withQuantity(6).withExpires("2030-06-06")
-                .withPricePerItem("6").withTotalPrice("6").withManufactured("2020-06-06").withSellBy("2028-02-01")
-                .withBestBefore("2029-02-01").build());
+        inventory.add(new InventoryItem.Builder().withProduct(testProduct).withQuantity(1).withExpires("2038-01-01")
+                .withPricePerItem("1").withTotalPrice("1").withManufactured("2020-01-01").withSellBy("2036-02-01")
+                .withBestBefore("2037-03-01").build());
+        inventory.add(new InventoryItem.Builder().withProduct(testProduct).withQuantity(2).withExpires("2038-01-01")
+                .withPricePerItem("2").withTotalPrice("2").withManufactured("2020-01-01").withSellBy("2036-02-01")
+                .withBestBefore("2037-03-01").build());
+        inventory.add(new InventoryItem.Builder().withProduct(testProduct2).withQuantity(3).withExpires("2039-01-01")
+                .withPricePerItem("3").withTotalPrice("3").withManufactured("2020-03-01").withSellBy("2037-02-01")
+                .withBestBefore("2038-03-01").build());
+        inventory.add(new InventoryItem.Builder().withProduct(testProduct2).withQuantity(4).withExpires("2039-01-01")
+                .withPricePerItem("4").withTotalPrice("4").withManufactured("2020-03-01").withSellBy("2037-02-01")
+                .withBestBefore("2038-03-01").build());
+        inventory.add(new InventoryItem.Builder().withProduct(testProduct3).withQuantity(5).withExpires("2040-06-06")
+                .withPricePerItem("5").withTotalPrice("5").withManufactured("2020-06-06").withSellBy("2038-02-01")
+                .withBestBefore("2039-02-01").build());
+        inventory.add(new InventoryItem.Builder().withProduct(testProduct3).withQuantity(6).withExpires("2040-06-06")
+                .withPricePerItem("6").withTotalPrice("6").withManufactured("2020-06-06").withSellBy("2038-02-01")
+                .withBestBefore("2039-02-01").build());
         // inventory item with the bare minimum to exist as an inventory item
-        inventory.add(new InventoryItem.Builder().withProduct(testProductNull).withQuantity(7).withExpires("2031-06-06")
+        inventory.add(new InventoryItem.Builder().withProduct(testProductNull).withQuantity(7).withExpires("2041-06-06")
                 .build());
     }
 }
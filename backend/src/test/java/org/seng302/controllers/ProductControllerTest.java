@@ -1174,4 +1174,95 @@ class ProductControllerTest {
                         .cookie(authCookie))
                 .andExpect(status().isOk());
     }
+
+    /**
+     * Tests that the owner of a business can import a CSV catalogue, and gets back a report of the rejected rows
+     */
+    @Test
+    void importProducts_csvFromOwner_productsAddedAndReportReturned() throws Exception {
+        setCurrentUser(ownerUser.getUserID());
+        String csv = "id,name,recommendedRetailPrice\nAPPLE,Apple,1.50\nBANANA,Banana,not a price\n";
+
+        MvcResult result = mockMvc.perform(post(String.format("/businesses/%d/products/import", testBusiness1.getId()))
+                .content(csv)
+                .contentType("text/csv")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONObject report = (JSONObject) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(1, report.getAsNumber("imported").intValue());
+        assertEquals(1, report.getAsNumber("failed").intValue());
+        JSONObject error = (JSONObject) ((JSONArray) report.get("errors")).get(0);
+        assertEquals("BANANA", error.getAsString("productCode"));
+        assertEquals(3, error.getAsNumber("row").intValue());
+        assertTrue(productRepository.findByBusinessAndProductCode(testBusiness1, "APPLE").isPresent());
+    }
+
+    /**
+     * Tests that a business admin can import an NDJSON catalogue
+     */
+    @Test
+    void importProducts_ndjsonFromBusinessAdmin_productsAdded() throws Exception {
+        setCurrentUser(administratorUser.getUserID());
+        String ndjson = "{\"id\": \"APPLE\", \"name\": \"Apple\"}\n{\"id\": \"BANANA\", \"name\": \"Banana\"}\n";
+
+        mockMvc.perform(post(String.format("/businesses/%d/products/import", testBusiness1.getId()))
+                .content(ndjson)
+                .contentType("application/x-ndjson")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isOk());
+
+        assertEquals(2, productRepository.countByBusiness(testBusiness1));
+    }
+
+    /**
+     * Tests that a user who cannot act as the business cannot import a catalogue
+     */
+    @Test
+    void importProducts_fromBystanderAccount_403ResponseAndNothingAdded() throws Exception {
+        setCurrentUser(bystanderUser.getUserID());
+
+        mockMvc.perform(post(String.format("/businesses/%d/products/import", testBusiness1.getId()))
+                .content("id,name\nAPPLE,Apple\n")
+                .contentType("text/csv")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isForbidden());
+
+        assertEquals(0, productRepository.countByBusiness(testBusiness1));
+    }
+
+    /**
+     * Tests that a catalogue in a format other than CSV or NDJSON is rejected
+     */
+    @Test
+    void importProducts_unsupportedContentType_415Response() throws Exception {
+        setCurrentUser(ownerUser.getUserID());
+
+        mockMvc.perform(post(String.format("/businesses/%d/products/import", testBusiness1.getId()))
+                .content("[{\"id\": \"APPLE\", \"name\": \"Apple\"}]")
+                .contentType("application/json")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    /**
+     * Tests that a CSV catalogue without a header row is rejected
+     */
+    @Test
+    void importProducts_csvWithoutProductCodeColumn_400Response() throws Exception {
+        setCurrentUser(ownerUser.getUserID());
+
+        mockMvc.perform(post(String.format("/businesses/%d/products/import", testBusiness1.getId()))
+                .content("APPLE,Apple\n")
+                .contentType("text/csv")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -10,6 +10,8 @@ import org.junit.Ignore;
 import org.junit.function.ThrowingRunnable;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import org.mockito.invocation.InvocationOnMock;
@@ -19,9 +21,14 @@ import org.seng302.entities.*;
 import org.seng302.exceptions.AccessTokenException;
 import org.seng302.persistence.*;
 import org.seng302.tools.AuthenticationTokenManager;
+import org.seng302.tools.SearchHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -99,6 +106,10 @@ class SaleControllerTest {
 
         // Setup mock sale item repository
         when(saleItemRepository.save(any(SaleItem.class))).thenAnswer(x -> x.getArgument(0));
+        when(saleItemRepository.findPageForBusiness(any(Business.class), any(Pageable.class)))
+                .thenAnswer(invocation -> Page.empty(invocation.getArgument(1)));
+        when(saleItemRepository.findListingPage(any(), any(Pageable.class)))
+                .thenAnswer(invocation -> Page.empty(invocation.getArgument(1)));
 
         saleController = spy(new SaleController(businessRepository, saleItemRepository, inventoryItemRepository));
         mockMvc = MockMvcBuilders.standaloneSetup(saleController).build();
@@ -339,22 +350,46 @@ class SaleControllerTest {
     @Test
     void getSaleItemsForBusiness_withSortOrder_usesSortOrder() throws Exception {
         mockMvc.perform(get("/businesses/1/listings")
-                .param("orderBy", "someOrderBy"))
+                .param("orderBy", "productName"))
+                .andExpect(status().isOk())
                 .andReturn();
 
-        verify(saleController).getSaleItemComparator("someOrderBy");
+        Sort.Order order = captureListingsPageRequest().getSort().iterator().next();
+        assertEquals("inventoryItem.product.nameSortKey", order.getProperty());
     }
 
     @Test
-    void getSaleItemsForBusiness_noSortOrder_usesNullSortOrder() throws Exception {
+    void getSaleItemsForBusiness_noSortOrder_usesCreatedSortOrder() throws Exception {
         mockMvc.perform(get("/businesses/1/listings"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        Sort.Order order = captureListingsPageRequest().getSort().iterator().next();
+        assertEquals("created", order.getProperty());
+    }
+
+    @Test
+    void getSaleItemsForBusiness_invalidSortOrder_400Response() throws Exception {
+        mockMvc.perform(get("/businesses/1/listings")
+                .param("orderBy", "someOrderBy"))
+                .andExpect(status().isBadRequest())
                 .andReturn();
 
-        verify(saleController).getSaleItemComparator(null);
+        verify(saleItemRepository, times(0)).findPageForBusiness(any(Business.class), any(Pageable.class));
     }
 
     /**
-     * Generates a consistently shuffled list of mock sale items
+     * Gets the page request which was used to retrieve the business's listings from the sale item repository
+     * @return The page request
+     */
+    private Pageable captureListingsPageRequest() {
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(saleItemRepository).findPageForBusiness(eq(business), captor.capture());
+        return captor.getValue();
+    }
+
+    /**
+     * Generates a list of mock sale items, in the order the repository would return them
      * @return Mock sale item list
      */
     List<SaleItem> generateMockSaleItems() {
@@ -369,17 +404,14 @@ class SaleControllerTest {
 
             mockItems.add(saleItem);
         }
-        // Ensure determinism
-        Collections.shuffle(mockItems, new Random(7));
         return mockItems;
     }
 
     @Test
-    void getSaleItemsForBusiness_noReverse_itemsAscending() throws Exception {
+    void getSaleItemsForBusiness_pageReturnedByRepository_itemsReturnedInRepositoryOrder() throws Exception {
         var items = generateMockSaleItems();
-        when(saleItemRepository.findAllForBusiness(any(Business.class))).thenReturn(items);
-        when(saleController.getSaleItemComparator(nullable(String.class)))
-                .thenReturn(Comparator.comparing(SaleItem::getSaleId));
+        when(saleItemRepository.findPageForBusiness(any(Business.class), any(Pageable.class)))
+                .thenAnswer(invocation -> new PageImpl<>(items, invocation.getArgument(1), 6));
 
         MvcResult result = mockMvc.perform(get("/businesses/1/listings"))
                 .andExpect(status().isOk())
@@ -398,280 +430,291 @@ class SaleControllerTest {
     }
 
     @Test
-    void getSaleItemsForBusiness_reverseFalse_itemsAscending() throws Exception {
+    void getSaleItemsForBusiness_pageReturnedByRepository_totalCountHeaderSet() throws Exception {
         var items = generateMockSaleItems();
-        when(saleItemRepository.findAllForBusiness(any(Business.class))).thenReturn(items);
-        when(saleController.getSaleItemComparator(nullable(String.class)))
-                .thenReturn(Comparator.comparing(SaleItem::getSaleId));
+        when(saleItemRepository.findPageForBusiness(any(Business.class), any(Pageable.class)))
+                .thenAnswer(invocation -> new PageImpl<>(items.subList(0, 4), invocation.getArgument(1), 500));
 
         MvcResult result = mockMvc.perform(get("/businesses/1/listings")
-                .param("reverse", "false"))
+                .param("resultsPerPage", "4"))
                 .andExpect(status().isOk())
                 .andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        Object response = parser.parse(result.getResponse().getContentAsString());
+        assertEquals("500", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+    }
 
-        JSONArray expected = new JSONArray();
-        for (int i = 0; i<6; i++) {
-            var object = new JSONObject();
-            object.put("id", i);
-            expected.add(object);
+    @Test
+    void getSaleItemsForBusiness_noReverse_itemsAscending() throws Exception {
+        mockMvc.perform(get("/businesses/1/listings"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        for (Sort.Order order : captureListingsPageRequest().getSort()) {
+            assertTrue(order.isAscending());
         }
-        assertEquals(expected, response);
     }
 
     @Test
-    void getSaleItemsForBusiness_reverseTrue_itemsDescending() throws Exception {
-        var items = generateMockSaleItems();
-        when(saleItemRepository.findAllForBusiness(any(Business.class))).thenReturn(items);
-        when(saleController.getSaleItemComparator(nullable(String.class)))
-                .thenReturn(Comparator.comparing(SaleItem::getSaleId));
+    void getSaleItemsForBusiness_reverseFalse_itemsAscending() throws Exception {
+        mockMvc.perform(get("/businesses/1/listings")
+                .param("reverse", "false"))
+                .andExpect(status().isOk())
+                .andReturn();
 
-        MvcResult result = mockMvc.perform(get("/businesses/1/listings")
+        for (Sort.Order order : captureListingsPageRequest().getSort()) {
+            assertTrue(order.isAscending());
+        }
+    }
+
+    @Test
+    void getSaleItemsForBusiness_reverseTrue_itemsDescending() throws Exception {
+        mockMvc.perform(get("/businesses/1/listings")
                 .param("reverse", "true"))
                 .andExpect(status().isOk())
                 .andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        Object response = parser.parse(result.getResponse().getContentAsString());
-
-        JSONArray expected = new JSONArray();
-        for (int i = 0; i<6; i++) {
-            var object = new JSONObject();
-            object.put("id", 5 - i);
-            expected.add(object);
+        for (Sort.Order order : captureListingsPageRequest().getSort()) {
+            assertTrue(order.isDescending());
         }
-        assertEquals(expected, response);
     }
 
     @Test
-    void getSaleItemsForBusiness_resultsPerPageSet_firstPageReturned() throws Exception {
-        var items = generateMockSaleItems();
-        when(saleItemRepository.findAllForBusiness(any(Business.class))).thenReturn(items);
-        when(saleController.getSaleItemComparator(nullable(String.class)))
-                .thenReturn(Comparator.comparing(SaleItem::getSaleId));
-
-        MvcResult result = mockMvc.perform(get("/businesses/1/listings")
+    void getSaleItemsForBusiness_resultsPerPageSet_firstPageRequested() throws Exception {
+        mockMvc.perform(get("/businesses/1/listings")
                 .param("resultsPerPage", "4"))
                 .andExpect(status().isOk())
                 .andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        Object response = parser.parse(result.getResponse().getContentAsString());
-
-        JSONArray expected = new JSONArray();
-        for (int i = 0; i<4; i++) {
-            var object = new JSONObject();
-            object.put("id", i);
-            expected.add(object);
-        }
-        assertEquals(expected, response);
+        Pageable pageRequest = captureListingsPageRequest();
+        assertEquals(0, pageRequest.getPageNumber());
+        assertEquals(4, pageRequest.getPageSize());
     }
 
     @Test
-    void getSaleItemsForBusiness_secondPageRequested_secondPageReturned() throws Exception {
-        var items = generateMockSaleItems();
-        when(saleItemRepository.findAllForBusiness(any(Business.class))).thenReturn(items);
-        when(saleController.getSaleItemComparator(nullable(String.class)))
-                .thenReturn(Comparator.comparing(SaleItem::getSaleId));
-
-        MvcResult result = mockMvc.perform(get("/businesses/1/listings")
+    void getSaleItemsForBusiness_secondPageRequested_secondPageRequested() throws Exception {
+        mockMvc.perform(get("/businesses/1/listings")
                 .param("resultsPerPage", "4")
                 .param("page", "2"))
                 .andExpect(status().isOk())
                 .andReturn();
 
-        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
-        Object response = parser.parse(result.getResponse().getContentAsString());
+        Pageable pageRequest = captureListingsPageRequest();
+        assertEquals(1, pageRequest.getPageNumber());
+        assertEquals(4, pageRequest.getPageSize());
+    }
 
-        JSONArray expected = new JSONArray();
-        for (int i = 4; i<6; i++) {
-            var object = new JSONObject();
-            object.put("id", i);
-            expected.add(object);
-        }
-        assertEquals(expected, response);
+    @ParameterizedTest
+    @CsvSource({
+            "created,created",
+            "closing,closes",
+            "productCode,inventoryItem.product.productCode",
+            "productName,inventoryItem.product.nameSortKey",
+            "quantity,quantity",
+            "price,price"
+    })
+    void listingOrderBy_validOrderBy_sortsByProperty(String orderBy, String property) {
+        List<Sort.Order> orders = SaleController.LISTING_ORDER_BY.getSort(orderBy, false).toList();
+        assertEquals(property, orders.get(0).getProperty());
+        assertEquals("saleId", orders.get(1).getProperty());
     }
 
     @Test
-    void getSaleItemComparator_orderByCreated_comparesCreatedCorrectly(){
-        SaleItem saleItem1 = mock(SaleItem.class);
-        SaleItem saleItem2 = mock(SaleItem.class);
-        SaleItem saleItem3 = mock(SaleItem.class);
+    void listingOrderBy_orderByNull_sortsByCreated() {
+        Sort.Order order = SaleController.LISTING_ORDER_BY.getSort(null, false).iterator().next();
+        assertEquals("created", order.getProperty());
+        assertTrue(order.isAscending());
+    }
 
-        Instant now = Instant.now();
-        when(saleItem1.getCreated()).thenReturn(now);
-        when(saleItem2.getCreated()).thenReturn(now);
-        when(saleItem3.getCreated()).thenReturn(now.plusSeconds(1));
+    @Test
+    void listingOrderBy_orderByProductName_sortsByNameSortKeyWithNullsLast() {
+        Sort.Order order = SaleController.LISTING_ORDER_BY.getSort("productName", false).iterator().next();
+        assertEquals("inventoryItem.product.nameSortKey", order.getProperty());
+        assertEquals(Sort.NullHandling.NULLS_LAST, order.getNullHandling());
+    }
 
-        var comparator = saleController.getSaleItemComparator("created");
-        assertEquals(0, comparator.compare(saleItem1, saleItem2));
-        assertTrue(comparator.compare(saleItem1, saleItem3) < 0);
+    @Test
+    void listingOrderBy_orderByNonExistant_throws400Exception() {
+        var exception = assertThrows(ResponseStatusException.class, () -> SaleController.LISTING_ORDER_BY.getSort("anything", false));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("Invalid sort order", exception.getReason());
     }
 
     @Test
-    void getSaleItemComparator_orderByNull_comparesCreatedCorrectly(){
-        SaleItem saleItem1 = mock(SaleItem.class);
-        SaleItem saleItem2 = mock(SaleItem.class);
-        SaleItem saleItem3 = mock(SaleItem.class);
+    void getSalesItemForBusinessCount_noAuthentication_401Response() throws Exception {
+        // Mock the AuthenticationTokenManager to respond as it would when the authentication token is missing or invalid
+        authenticationTokenManager.when(() -> AuthenticationTokenManager.checkAuthenticationToken(any()))
+                .thenThrow(new AccessTokenException());
 
-        Instant now = Instant.now();
-        when(saleItem1.getCreated()).thenReturn(now);
-        when(saleItem2.getCreated()).thenReturn(now);
-        when(saleItem3.getCreated()).thenReturn(now.plusSeconds(1));
+        // Verify that a 401 response is received in response to the GET request
+        mockMvc.perform(get("/businesses/1/listings/count"))
+                .andExpect(status().isUnauthorized())
+                .andReturn();
 
-        var comparator = saleController.getSaleItemComparator(null);
-        assertEquals(0, comparator.compare(saleItem1, saleItem2));
-        assertTrue(comparator.compare(saleItem1, saleItem3) < 0);
+        // Check that the authentication token manager was called
+        authenticationTokenManager.verify(() -> AuthenticationTokenManager.checkAuthenticationToken(any()));
     }
 
     @Test
-    void getSaleItemComparator_orderByCloses_comparesClosesCorrectly() {
-        SaleItem saleItem1 = mock(SaleItem.class);
-        SaleItem saleItem2 = mock(SaleItem.class);
-        SaleItem saleItem3 = mock(SaleItem.class);
+    void getSalesItemForBusinessCount_invalidBusiness_406Response() throws Exception {
+        // Verify that a 401 response is received in response to the GET request
+        mockMvc.perform(get("/businesses/999/listings/count"))
+                .andExpect(status().isNotAcceptable())
+                .andReturn();
+    }
 
-        LocalDate now = LocalDate.now();
-        when(saleItem1.getCloses()).thenReturn(now);
-        when(saleItem2.getCloses()).thenReturn(now);
-        when(saleItem3.getCloses()).thenReturn(now.plusDays(1));
+    @Test
+    void getSalesItemForBusinessCount_validBusiness_doesNotCheckSessionPermissions() throws Exception {
+        mockMvc.perform(get("/businesses/1/listings/count"))
+                .andReturn();
 
-        var comparator = saleController.getSaleItemComparator("closing");
-        assertEquals(0, comparator.compare(saleItem1, saleItem2));
-        assertTrue(comparator.compare(saleItem1, saleItem3) < 0);
+        verify(business, times(0)).checkSessionPermissions(any(HttpServletRequest.class));
     }
 
     @Test
-    void getSaleItemComparator_orderByProductCode_comparesProductCodeCorrectly() {
-        SaleItem saleItem1 = mock(SaleItem.class);
-        SaleItem saleItem2 = mock(SaleItem.class);
-        SaleItem saleItem3 = mock(SaleItem.class);
-
-        Product product1 = mock(Product.class);
-        Product product2 = mock(Product.class);
-        Product product3 = mock(Product.class);
+    void getSalesItemForBusinessCount_validBusinessWithSalesItems_returnsSalesItemCount() throws Exception {
+        when(saleItemRepository.countForBusiness(any(Business.class))).thenReturn(500L);
 
-        when(saleItem1.getProduct()).thenReturn(product1);
-        when(saleItem2.getProduct()).thenReturn(product2);
-        when(saleItem3.getProduct()).thenReturn(product3);
+        MvcResult result = mockMvc.perform(get("/businesses/1/listings/count"))
+                .andReturn();
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        Object response = parser.parse(result.getResponse().getContentAsString());
 
-        when(product1.getProductCode()).thenReturn("AAA");
-        when(product2.getProductCode()).thenReturn("AAA");
-        when(product3.getProductCode()).thenReturn("BBB");
+        var expected = new JSONObject();
+        expected.put("count", 500);
 
-        var comparator = saleController.getSaleItemComparator("productCode");
-        assertEquals(0, comparator.compare(saleItem1, saleItem2));
-        assertTrue(comparator.compare(saleItem1, saleItem3) < 0);
+        assertEquals(expected, response);
     }
 
     @Test
-    void getSaleItemComparator_orderByProductName_comparesProductNameCorrectly() {
-        SaleItem saleItem1 = mock(SaleItem.class);
-        SaleItem saleItem2 = mock(SaleItem.class);
-        SaleItem saleItem3 = mock(SaleItem.class);
+    void getListings_noAuthToken_401Response() throws Exception {
+        // Mock the AuthenticationTokenManager to respond as it would when the authentication token is missing or invalid
+        authenticationTokenManager.when(() -> AuthenticationTokenManager.checkAuthenticationToken(any()))
+                .thenThrow(new AccessTokenException());
 
-        Product product1 = mock(Product.class);
-        Product product2 = mock(Product.class);
-        Product product3 = mock(Product.class);
+        mockMvc.perform(get("/listings"))
+                .andExpect(status().isUnauthorized())
+                .andReturn();
 
-        when(saleItem1.getProduct()).thenReturn(product1);
-        when(saleItem2.getProduct()).thenReturn(product2);
-        when(saleItem3.getProduct()).thenReturn(product3);
+        verify(saleItemRepository, times(0)).findListingPage(any(), any(Pageable.class));
+    }
 
-        when(product1.getName()).thenReturn("AAA");
-        when(product2.getName()).thenReturn("AAA");
-        when(product3.getName()).thenReturn("BBB");
+    @Test
+    void getListings_noFilters_firstPageOrderedByCreatedRequested() throws Exception {
+        mockMvc.perform(get("/listings"))
+                .andExpect(status().isOk())
+                .andReturn();
 
-        var comparator = saleController.getSaleItemComparator("productName");
-        assertEquals(0, comparator.compare(saleItem1, saleItem2));
-        assertTrue(comparator.compare(saleItem1, saleItem3) < 0);
+        Pageable pageRequest = captureMarketplaceListingsPageRequest();
+        assertEquals(0, pageRequest.getPageNumber());
+        assertEquals(15, pageRequest.getPageSize());
+        assertEquals("created", pageRequest.getSort().iterator().next().getProperty());
     }
 
     @Test
-    void getSaleItemComparator_orderByQuantity_comparesQuantityCorrectly() {
-        SaleItem saleItem1 = mock(SaleItem.class);
-        SaleItem saleItem2 = mock(SaleItem.class);
-        SaleItem saleItem3 = mock(SaleItem.class);
-
-        when(saleItem1.getQuantity()).thenReturn(1);
-        when(saleItem2.getQuantity()).thenReturn(1);
-        when(saleItem3.getQuantity()).thenReturn(2);
+    void getListings_orderByPriceReversedSecondPage_pageRequestUsed() throws Exception {
+        mockMvc.perform(get("/listings")
+                .param("orderBy", "price")
+                .param("reverse", "true")
+                .param("page", "2")
+                .param("resultsPerPage", "10"))
+                .andExpect(status().isOk())
+                .andReturn();
 
-        var comparator = saleController.getSaleItemComparator("quantity");
-        assertEquals(0, comparator.compare(saleItem1, saleItem2));
-        assertTrue(comparator.compare(saleItem1, saleItem3) < 0);
+        Pageable pageRequest = captureMarketplaceListingsPageRequest();
+        assertEquals(1, pageRequest.getPageNumber());
+        assertEquals(10, pageRequest.getPageSize());
+        List<Sort.Order> orders = pageRequest.getSort().toList();
+        assertEquals("price", orders.get(0).getProperty());
+        assertEquals("saleId", orders.get(1).getProperty());
+        for (Sort.Order order : orders) {
+            assertTrue(order.isDescending());
+        }
     }
 
     @Test
-    void getSaleItemComparator_orderByPrice_comparesPriceCorrectly() throws Exception {
-        SaleItem saleItem1 = mock(SaleItem.class);
-        SaleItem saleItem2 = mock(SaleItem.class);
-        SaleItem saleItem3 = mock(SaleItem.class);
-
-        when(saleItem1.getPrice()).thenReturn(new BigDecimal("1.0"));
-        when(saleItem2.getPrice()).thenReturn(new BigDecimal("1.0"));
-        when(saleItem3.getPrice()).thenReturn(new BigDecimal("2.0"));
+    void getListings_invalidOrderBy_400Response() throws Exception {
+        mockMvc.perform(get("/listings")
+                .param("orderBy", "productName"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
 
-        var comparator = saleController.getSaleItemComparator("price");
-        assertEquals(0, comparator.compare(saleItem1, saleItem2));
-        assertTrue(comparator.compare(saleItem1, saleItem3) < 0);
+        verify(saleItemRepository, times(0)).findListingPage(any(), any(Pageable.class));
     }
 
     @Test
-    void getSaleItemComparator_orderByNonExistant_throws400Exception() {
-        var exception = assertThrows(ResponseStatusException.class, () -> saleController.getSaleItemComparator("anything"));
-        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
-        assertEquals("Invalid sort order", exception.getReason());
+    void getListings_invalidBusinessType_400Response() throws Exception {
+        mockMvc.perform(get("/listings")
+                .param("businessType", "Not a business type"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        verify(saleItemRepository, times(0)).findListingPage(any(), any(Pageable.class));
     }
 
     @Test
-    void getSalesItemForBusinessCount_noAuthentication_401Response() throws Exception {
-        // Mock the AuthenticationTokenManager to respond as it would when the authentication token is missing or invalid
-        authenticationTokenManager.when(() -> AuthenticationTokenManager.checkAuthenticationToken(any()))
-                .thenThrow(new AccessTokenException());
-
-        // Verify that a 401 response is received in response to the GET request
-        mockMvc.perform(get("/businesses/1/listings/count"))
-                .andExpect(status().isUnauthorized())
+    void getListings_minimumPriceGreaterThanMaximumPrice_400Response() throws Exception {
+        mockMvc.perform(get("/listings")
+                .param("minimumPrice", "10.00")
+                .param("maximumPrice", "5.00"))
+                .andExpect(status().isBadRequest())
                 .andReturn();
 
-        // Check that the authentication token manager was called
-        authenticationTokenManager.verify(() -> AuthenticationTokenManager.checkAuthenticationToken(any()));
+        verify(saleItemRepository, times(0)).findListingPage(any(), any(Pageable.class));
     }
 
     @Test
-    void getSalesItemForBusinessCount_invalidBusiness_406Response() throws Exception {
-        // Verify that a 401 response is received in response to the GET request
-        mockMvc.perform(get("/businesses/999/listings/count"))
-                .andExpect(status().isNotAcceptable())
+    void getListings_invalidClosingDate_400Response() throws Exception {
+        mockMvc.perform(get("/listings")
+                .param("closesBefore", "next week"))
+                .andExpect(status().isBadRequest())
                 .andReturn();
     }
 
     @Test
-    void getSalesItemForBusinessCount_validBusiness_doesNotCheckSessionPermissions() throws Exception {
-        mockMvc.perform(get("/businesses/1/listings/count"))
+    void getListings_validFilters_200Response() throws Exception {
+        mockMvc.perform(get("/listings")
+                .param("minimumPrice", "1.50")
+                .param("maximumPrice", "20")
+                .param("closesAfter", LocalDate.now().toString())
+                .param("closesBefore", LocalDate.now().plusDays(30).toString())
+                .param("businessType", "Retail Trade")
+                .param("region", "Canterbury"))
+                .andExpect(status().isOk())
                 .andReturn();
 
-        verify(business, times(0)).checkSessionPermissions(any(HttpServletRequest.class));
+        verify(saleItemRepository).findListingPage(any(), any(Pageable.class));
     }
 
     @Test
-    void getSalesItemForBusinessCount_validBusinessWithSalesItems_returnsSalesItemCount() throws Exception {
-        @SuppressWarnings("unchecked")
-        List<SaleItem> saleItems = (List<SaleItem>)mock(List.class);
-
-        when(saleItemRepository.findAllForBusiness(any(Business.class))).thenReturn(saleItems);
-        when(saleItems.size()).thenReturn(500);
+    void getListings_pageReturnedByRepository_itemsReturnedInRepositoryOrderWithTotalCount() throws Exception {
+        var items = generateMockSaleItems();
+        doAnswer(invocation -> new PageImpl<>(items, invocation.getArgument(1), 500))
+                .when(saleItemRepository).findListingPage(any(), any(Pageable.class));
 
-        MvcResult result = mockMvc.perform(get("/businesses/1/listings/count"))
+        MvcResult result = mockMvc.perform(get("/listings"))
+                .andExpect(status().isOk())
                 .andReturn();
+
         JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
         Object response = parser.parse(result.getResponse().getContentAsString());
 
-        var expected = new JSONObject();
-        expected.put("count", 500);
-
+        JSONArray expected = new JSONArray();
+        for (int i = 0; i<6; i++) {
+            var object = new JSONObject();
+            object.put("id", i);
+            expected.add(object);
+        }
         assertEquals(expected, response);
+        assertEquals("500", result.getResponse().getHeader(SearchHelper.TOTAL_COUNT_HEADER));
+    }
+
+    /**
+     * Gets the page request which was used to retrieve the marketplace listings from the sale item repository
+     * @return The page request
+     */
+    private Pageable captureMarketplaceListingsPageRequest() {
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(saleItemRepository).findListingPage(any(), captor.capture());
+        return captor.getValue();
     }
 }
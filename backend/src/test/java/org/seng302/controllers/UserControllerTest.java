@@ -366,6 +366,58 @@ class UserControllerTest {
         assertUserEquivalentToJSONObject(userList.get(7), secondJsonObject);
     }
 
+    /**
+     * Verify that when a GET request is made to "/users/search", the total number of users matching the query is
+     * returned in the X-Total-Count header, not just the number of users in the page.
+     */
+    @Test
+    void getUserSearchTotalCountHeaderTest() throws Exception {
+        List<User> userList = readUsersFromTestFile("src/test/testFiles/UsersControllerTestData.csv");
+        userRepository.deleteAll();
+        for (User user : userList) {
+            userRepository.save(user);
+        }
+
+        MvcResult result = mockMvc.perform(get("/users/search")
+                .param("searchQuery", "andy")
+                .param("page", "2")
+                .param("resultsPerPage", "5")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("7", result.getResponse().getHeader("X-Total-Count"));
+    }
+
+    /**
+     * Verify that when a GET request is made to "/users/search", and the page parameter is greater than the number of
+     * pages in the results, the last page in the results will be returned.
+     */
+    @Test
+    void getUserSearchPageAfterLastPageTest() throws Exception {
+        List<User> userList = readUsersFromTestFile("src/test/testFiles/UsersControllerTestData.csv");
+        userRepository.deleteAll();
+        for (User user : userList) {
+            userRepository.save(user);
+        }
+
+        MvcResult result = mockMvc.perform(get("/users/search")
+                .param("searchQuery", "andy")
+                .param("page", "10")
+                .param("resultsPerPage", "5")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray jsonArray = (JSONArray) parser.parse(result.getResponse().getContentAsString());
+        assertEquals(2, jsonArray.size());
+        assertUserEquivalentToJSONObject(userList.get(6), (JSONObject) jsonArray.get(0));
+        assertUserEquivalentToJSONObject(userList.get(7), (JSONObject) jsonArray.get(1));
+    }
+
     /**
      * Verify that when a GET request is made to "/users/search", and the number of results per page is 5, and there are
      * more than 5 results matching the search term, 5 results will be returned.
@@ -415,6 +467,104 @@ class UserControllerTest {
         assertEquals(1, jsonObject.size());
     }
 
+    /**
+     * Verify that when a GET request is made to "/users/search/suggest", the completions of the last word of the prefix
+     * from the names of the users are returned.
+     */
+    @Test
+    void getUserSearchSuggestionsTest() throws Exception {
+        MvcResult result = mockMvc.perform(get("/users/search/suggest")
+                .param("prefix", "Jo")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isOk())
+                .andReturn();
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        assertEquals(List.of("john", "jonny"), parser.parse(result.getResponse().getContentAsString()));
+
+        result = mockMvc.perform(get("/users/search/suggest")
+                .param("prefix", "John Sm")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(List.of("John smith"), parser.parse(result.getResponse().getContentAsString()));
+    }
+
+    /**
+     * Verify that when a GET request is made to "/users/search/suggest" without being logged in, a 401 response is
+     * returned.
+     */
+    @Test
+    void getUserSearchSuggestionsNotLoggedInTest() throws Exception {
+        mockMvc.perform(get("/users/search/suggest").param("prefix", "Jo"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Verify that when an admin makes a GET request to "/users/search/export", every user matching the query is
+     * returned as one JSON object per line, in the same order as the users are returned by "/users/search".
+     */
+    @Test
+    void exportUserSearchResultsAsAdminTest() throws Exception {
+        List<User> userList = readUsersFromTestFile("src/test/testFiles/UsersControllerTestData.csv");
+        userRepository.deleteAll();
+        userRepository.saveAll(userList);
+        setUpSessionAsAdmin();
+
+        MvcResult searchResult = mockMvc.perform(get("/users/search")
+                .param("searchQuery", "Kirsty or Andy")
+                .param("resultsPerPage", "100")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isOk())
+                .andReturn();
+        MvcResult exportResult = mockMvc.perform(get("/users/search/export")
+                .param("searchQuery", "Kirsty or Andy")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertTrue(exportResult.getResponse().getContentType().startsWith("application/x-ndjson"));
+        JSONParser parser = new JSONParser(JSONParser.MODE_PERMISSIVE);
+        JSONArray searchArray = (JSONArray) parser.parse(searchResult.getResponse().getContentAsString());
+        String[] lines = exportResult.getResponse().getContentAsString().split("\n");
+        assertEquals(searchArray.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JSONObject exportedUser = (JSONObject) parser.parse(lines[i]);
+            assertEquals(((JSONObject) searchArray.get(i)).getAsString("id"), exportedUser.getAsString("id"));
+            assertNotNull(exportedUser.get("dateOfBirth"));
+        }
+    }
+
+    /**
+     * Verify that when a user who is not an admin makes a GET request to "/users/search/export", a 403 response is
+     * returned.
+     */
+    @Test
+    void exportUserSearchResultsNotAdminTest() throws Exception {
+        mockMvc.perform(get("/users/search/export")
+                .param("searchQuery", "andy")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isForbidden());
+    }
+
+    /**
+     * Verify that when an admin makes a GET request to "/users/search/export" with a query which cannot be parsed, a 400
+     * response is returned.
+     */
+    @Test
+    void exportUserSearchResultsInvalidQueryTest() throws Exception {
+        setUpSessionAsAdmin();
+        mockMvc.perform(get("/users/search/export")
+                .param("searchQuery", "\"unclosed quote")
+                .sessionAttrs(sessionAuthToken)
+                .cookie(authCookie))
+                .andExpect(status().isBadRequest());
+    }
+
     /**
      * Tests if several valid users are successively registered and stored within the database
      * @throws Exception
@@ -1,5 +1,6 @@
 package org.seng302.entities;
 
+import net.minidev.json.JSONObject;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
@@ -164,6 +165,17 @@ class MarketplaceCardTests {
         assertEquals("Card title must be provided", exception.getReason());
     }
 
+    @Test
+    void constructJSONObject_creatorSet_creatorSummaryIncluded() {
+        MarketplaceCard card = new MarketplaceCard.Builder()
+                .withCreator(testUser)
+                .withSection(MarketplaceCard.Section.EXCHANGE)
+                .withTitle("test_title")
+                .build();
+        JSONObject json = card.constructJSONObject();
+        assertEquals(testUser.constructSummaryJson(), json.get("creator"));
+    }
+
     @Test
     void marketplaceCardBuild_withEmptyTitle_throws400Exception() {
         var builder = new MarketplaceCard.Builder()
@@ -0,0 +1,30 @@
+package org.seng302.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserNameTrigramTests {
+
+    @Test
+    void getTrigrams_singleName_everyLowerCaseTrigramReturned() {
+        assertEquals(Set.of("don", "ona", "nal", "ald"), UserNameTrigram.getTrigrams("Donald"));
+    }
+
+    @Test
+    void getTrigrams_repeatedTrigrams_eachTrigramReturnedOnce() {
+        assertEquals(Set.of("ana", "nan"), UserNameTrigram.getTrigrams("Nana", "nana"));
+    }
+
+    @Test
+    void getTrigrams_shortAndNullNames_noTrigramsReturned() {
+        assertEquals(Set.of(), UserNameTrigram.getTrigrams("Al", null, ""));
+    }
+
+    @Test
+    void getTrigrams_severalNames_trigramsDoNotSpanNames() {
+        assertEquals(Set.of("amy", "lee"), UserNameTrigram.getTrigrams("Amy", null, "Lee"));
+    }
+}
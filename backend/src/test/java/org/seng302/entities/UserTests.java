@@ -658,6 +658,22 @@ class UserTests {
         assertTrue(json.containsKey("businessesAdministered"));
     }
 
+    /**
+     * Verify that constructSummaryJson returns a JSON with only the id, names and partial address of the user.
+     */
+    @Test
+    void constructSummaryJsonOnlySummaryAttributesPresentTest() {
+        testUser.setUserID(1L);
+        JSONObject json = testUser.constructSummaryJson();
+        assertEquals(1L, json.get("id"));
+        assertEquals(testUser.getFirstName(), json.get("firstName"));
+        assertEquals(testUser.getLastName(), json.get("lastName"));
+        assertEquals(testUser.getAddress().constructPartialJson(), json.get("homeAddress"));
+        assertFalse(json.containsKey("email"));
+        assertFalse(json.containsKey("bio"));
+        assertFalse(json.containsKey("businessesAdministered"));
+    }
+
     /**
      * Verify that constructPublicJson returns a JSON with none of the hidden attributes present.
      */
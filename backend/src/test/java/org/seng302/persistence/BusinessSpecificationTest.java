@@ -0,0 +1,95 @@
+package org.seng302.persistence;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.runner.RunWith;
+import org.seng302.entities.Business;
+import org.seng302.entities.Location;
+import org.seng302.entities.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BusinessSpecificationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        clearRepositories();
+        User owner = userRepository.save(new User.Builder()
+                .withFirstName("Fergus")
+                .withLastName("Hitchcock")
+                .withEmail("fergus.specification@gmail.com")
+                .withPassword("IDoLikeBreaks69#H3!p")
+                .withDob("1999-07-17")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .build());
+        businessRepository.save(new Business.Builder()
+                .withName("Otago Cafe")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(owner)
+                .build());
+        businessRepository.save(new Business.Builder()
+                .withName("Canterbury Shop")
+                .withAddress(Location.covertAddressStringToLocation("108,Albert Road,Ashburton,Christchurch,New Zealand,Canterbury,8041"))
+                .withBusinessType("Retail Trade")
+                .withPrimaryOwner(owner)
+                .build());
+    }
+
+    @AfterAll
+    void tearDown() {
+        clearRepositories();
+    }
+
+    private void clearRepositories() {
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * @param key The attribute of the business
+     * @param operation The operation of the search criteria
+     * @param value The value to match
+     * @return The names of the businesses matching the criteria
+     */
+    private List<String> findNames(String key, String operation, String value) {
+        return businessRepository.findAll(new BusinessSpecification(new SearchCriteria(key, operation, value))).stream()
+                .map(Business::getName)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void toPredicate_exactMatchOnAddress_matchingBusinessFound() {
+        assertEquals(List.of("Otago Cafe"), findNames("address.region", "=", "Otago"));
+    }
+
+    @Test
+    void toPredicate_exactMatchWithWildcardCharacter_wildcardNotExpanded() {
+        assertTrue(findNames("address.region", "=", "Otag_").isEmpty());
+        assertTrue(findNames("businessType", "=", "Retail%").isEmpty());
+    }
+
+    @Test
+    void toPredicate_partialMatch_matchedIgnoringCase() {
+        assertEquals(List.of("Canterbury Shop"), findNames("name", ":", "BURY"));
+    }
+}
@@ -5,15 +5,23 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.runner.RunWith;
+import org.seng302.entities.Keyword;
 import org.seng302.entities.Location;
 import org.seng302.entities.MarketplaceCard;
 import org.seng302.entities.User;
+import org.seng302.tools.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @RunWith(SpringRunner.class)
@@ -26,6 +34,8 @@ class MarketplaceCardRepositoryTest {
     private UserRepository userRepository;
     @Autowired
     private BusinessRepository businessRepository;
+    @Autowired
+    private KeywordRepository keywordRepository;
     private MarketplaceCard card;
     private User user;
 
@@ -117,4 +127,179 @@ class MarketplaceCardRepositoryTest {
 
     }
 
+    @ParameterizedTest
+    @MethodSource("sections")
+    void countBySection_sameAsNumberOfCardsInSection(String sectionName) {
+        MarketplaceCard.Section section = MarketplaceCard.sectionFromString(sectionName);
+        card.setSection(section);
+        card = marketplaceCardRepository.save(card);
+
+        Assertions.assertEquals(1L, marketplaceCardRepository.countBySection(section));
+        for (MarketplaceCard.Section otherSection : MarketplaceCard.Section.values()) {
+            if (otherSection != section) {
+                Assertions.assertEquals(0L, marketplaceCardRepository.countBySection(otherSection));
+            }
+        }
+    }
+
+    /**
+     * Reads every card in a section by following cursors from the first page, and checks that the cards are in the same
+     * order as when the section is read in one page by offset.
+     */
+    private void assertCursorPagesMatchOffsetOrder(MarketplaceCard.Section section, Sort sort) {
+        List<MarketplaceCard> expected = marketplaceCardRepository.findAllBySection(section, PageRequest.of(0, 100, sort)).getContent();
+        List<MarketplaceCard> firstPage = marketplaceCardRepository.findAllBySection(section, PageRequest.of(0, 2, sort)).getContent();
+        List<Long> actualIds = new ArrayList<>();
+        firstPage.forEach(card -> actualIds.add(card.getID()));
+
+        List<MarketplaceCard> page = firstPage;
+        while (!page.isEmpty()) {
+            MarketplaceCard last = page.get(page.size() - 1);
+            Object lastValue = new BeanWrapperImpl(last).getPropertyValue(sort.iterator().next().getProperty());
+            page = marketplaceCardRepository.getSectionAfterCursor(section, PageCursor.after(sort, lastValue, last.getID()), 2);
+            page.forEach(card -> actualIds.add(card.getID()));
+        }
+        Assertions.assertEquals(expected.stream().map(MarketplaceCard::getID).collect(Collectors.toList()), actualIds);
+    }
+
+    @Test
+    @Transactional // Card creators are loaded lazily, so reading 'creator.firstName' from a card needs a session
+    void getSectionAfterCursor_followCursors_sameOrderAsOffsetPages() {
+        User otherUser = userRepository.save(new User.Builder()
+                .withEmail("anna@smith.com")
+                .withFirstName("Anna")
+                .withLastName("Smith")
+                .withAddress(new Location.Builder()
+                        .inCity("city")
+                        .inCountry("New Zealand")
+                        .inRegion("region")
+                        .onStreet("street")
+                        .atStreetNumber("5")
+                        .withPostCode("222")
+                        .build())
+                .withPassword("password123")
+                .withDob("2000-08-04")
+                .build());
+        List<MarketplaceCard> savedCards = new ArrayList<>();
+        for (String title : List.of("Pear", "apple", "pear", "Kiwi", "Apple", "fig", "APPLE")) {
+            savedCards.add(marketplaceCardRepository.save(new MarketplaceCard.Builder()
+                    .withTitle(title)
+                    .withCreator(savedCards.size() % 2 == 0 ? user : otherUser)
+                    .withSection("Exchange")
+                    .build()));
+        }
+
+        try {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                for (String property : List.of("created", "closes")) {
+                    assertCursorPagesMatchOffsetOrder(MarketplaceCard.Section.EXCHANGE, Sort.by(direction, property).and(Sort.by(direction, "id")));
+                }
+                for (String property : List.of("title", "creator.firstName")) {
+                    Sort sort = Sort.by(new Sort.Order(direction, property).ignoreCase(), new Sort.Order(direction, "id"));
+                    assertCursorPagesMatchOffsetOrder(MarketplaceCard.Section.EXCHANGE, sort);
+                }
+            }
+        } finally {
+            marketplaceCardRepository.deleteAll(savedCards);
+            userRepository.delete(otherUser);
+        }
+    }
+
+    @Test
+    void getSectionPageWithKeywords_keywordsGiven_cardsWithKeywordsPagedInOrderAndCounted() {
+        Keyword feijoa = keywordRepository.save(new Keyword("Feijoa Repository Test"));
+        Keyword kumara = keywordRepository.save(new Keyword("Kumara Repository Test"));
+        List<MarketplaceCard> savedCards = new ArrayList<>();
+        savedCards.add(saveCardWithKeywords("A", feijoa, kumara));
+        savedCards.add(saveCardWithKeywords("B", feijoa));
+        savedCards.add(saveCardWithKeywords("C", kumara));
+        savedCards.add(saveCardWithKeywords("D"));
+        Sort sort = Sort.by(Sort.Direction.ASC, "title").and(Sort.by(Sort.Direction.ASC, "id"));
+        List<Long> bothKeywords = List.of(feijoa.getID(), kumara.getID());
+
+        try {
+            Assertions.assertEquals(List.of("A", "B"), getTitles(marketplaceCardRepository.getSectionPageWithKeywords(
+                    MarketplaceCard.Section.FOR_SALE, bothKeywords, false, PageRequest.of(0, 2, sort))));
+            Assertions.assertEquals(List.of("C"), getTitles(marketplaceCardRepository.getSectionPageWithKeywords(
+                    MarketplaceCard.Section.FOR_SALE, bothKeywords, false, PageRequest.of(1, 2, sort))));
+            Assertions.assertEquals(List.of("A"), getTitles(marketplaceCardRepository.getSectionPageWithKeywords(
+                    MarketplaceCard.Section.FOR_SALE, bothKeywords, true, PageRequest.of(0, 10, sort))));
+            // A repeated keyword only has to be matched once
+            Assertions.assertEquals(List.of("A", "B"), getTitles(marketplaceCardRepository.getSectionPageWithKeywords(
+                    MarketplaceCard.Section.FOR_SALE, List.of(feijoa.getID(), feijoa.getID()), true, PageRequest.of(0, 10, sort))));
+            Assertions.assertEquals(List.of(), getTitles(marketplaceCardRepository.getSectionPageWithKeywords(
+                    MarketplaceCard.Section.WANTED, bothKeywords, false, PageRequest.of(0, 10, sort))));
+            Assertions.assertEquals(3L, marketplaceCardRepository.countSectionWithKeywords(
+                    MarketplaceCard.Section.FOR_SALE, bothKeywords, false));
+            Assertions.assertEquals(1L, marketplaceCardRepository.countSectionWithKeywords(
+                    MarketplaceCard.Section.FOR_SALE, bothKeywords, true));
+            Assertions.assertEquals(2L, marketplaceCardRepository.countSectionWithKeywords(
+                    MarketplaceCard.Section.FOR_SALE, List.of(feijoa.getID(), feijoa.getID()), true));
+            Assertions.assertEquals(0L, marketplaceCardRepository.countSectionWithKeywords(
+                    MarketplaceCard.Section.WANTED, bothKeywords, false));
+            Assertions.assertEquals(List.of("B", "C"), getTitles(marketplaceCardRepository.getSectionAfterCursor(
+                    MarketplaceCard.Section.FOR_SALE, PageCursor.after(sort, "A", savedCards.get(0).getID()), 10,
+                    bothKeywords, false)));
+        } finally {
+            marketplaceCardRepository.deleteAll(savedCards);
+            keywordRepository.deleteAll(List.of(feijoa, kumara));
+        }
+    }
+
+    @Test
+    void findIdsByCreatorId_titleOrderIgnoringCase_idsOfPageAndTotalReturned() {
+        User otherUser = userRepository.save(new User.Builder()
+                .withEmail("kiri@smith.com")
+                .withFirstName("Kiri")
+                .withLastName("Smith")
+                .withAddress(new Location.Builder()
+                        .inCity("city")
+                        .inCountry("New Zealand")
+                        .inRegion("region")
+                        .onStreet("street")
+                        .atStreetNumber("7")
+                        .withPostCode("222")
+                        .build())
+                .withPassword("password123")
+                .withDob("2000-08-04")
+                .build());
+        List<MarketplaceCard> savedCards = new ArrayList<>();
+        for (String title : List.of("banana", "Cherry", "apple")) {
+            savedCards.add(marketplaceCardRepository.save(new MarketplaceCard.Builder()
+                    .withTitle(title)
+                    .withCreator(otherUser)
+                    .withSection("ForSale")
+                    .build()));
+        }
+        Sort sort = Sort.by(Sort.Order.asc("title").ignoreCase(), Sort.Order.asc("id"));
+
+        try {
+            var firstPage = marketplaceCardRepository.findIdsByCreatorId(otherUser.getUserID(), PageRequest.of(0, 2, sort));
+            Assertions.assertEquals(List.of(savedCards.get(2).getID(), savedCards.get(0).getID()), firstPage.getContent());
+            Assertions.assertEquals(3L, firstPage.getTotalElements());
+            var secondPage = marketplaceCardRepository.findIdsByCreatorId(otherUser.getUserID(), PageRequest.of(1, 2, sort));
+            Assertions.assertEquals(List.of(savedCards.get(1).getID()), secondPage.getContent());
+        } finally {
+            marketplaceCardRepository.deleteAll(savedCards);
+            userRepository.delete(otherUser);
+        }
+    }
+
+    /**
+     * Saves a card in the ForSale section with the given title and keywords
+     */
+    private MarketplaceCard saveCardWithKeywords(String title, Keyword... keywords) {
+        MarketplaceCard.Builder builder = new MarketplaceCard.Builder()
+                .withTitle(title)
+                .withCreator(user)
+                .withSection("ForSale");
+        for (Keyword keyword : keywords) {
+            builder.addKeyword(keyword);
+        }
+        return marketplaceCardRepository.save(builder.build());
+    }
+
+    private static List<String> getTitles(List<MarketplaceCard> cards) {
+        return cards.stream().map(MarketplaceCard::getTitle).collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,223 @@
+package org.seng302.persistence;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.runner.RunWith;
+import org.seng302.entities.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the sale listing filters built by SaleItemSpecificationsBuilder are run by the database, across the sale
+ * items of every business.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SaleItemSpecificationsBuilderTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+    @Autowired
+    private SaleItemRepository saleItemRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeAll
+    void setUp() throws Exception {
+        clearRepositories();
+        User owner = userRepository.save(new User.Builder()
+                .withFirstName("Fergus")
+                .withLastName("Hitchcock")
+                .withEmail("fergus.listings@gmail.com")
+                .withPassword("IDoLikeBreaks69#H3!p")
+                .withDob("1999-07-17")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .build());
+        Business cafe = businessRepository.save(new Business.Builder()
+                .withName("Otago Cafe")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(owner)
+                .build());
+        Business shop = businessRepository.save(new Business.Builder()
+                .withName("Canterbury Shop")
+                .withAddress(Location.covertAddressStringToLocation("108,Albert Road,Ashburton,Christchurch,New Zealand,Canterbury,8041"))
+                .withBusinessType("Retail Trade")
+                .withPrimaryOwner(owner)
+                .build());
+
+        saveSaleItem(cafe, "COFFEE", "4.50", 10);
+        saveSaleItem(cafe, "MUFFIN", "3.00", 2);
+        saveSaleItem(shop, "KETTLE", "45.00", 30);
+        saveSaleItem(shop, "TOASTER", "60.00", 5);
+        SaleItem closed = saveSaleItem(shop, "CLOSED", "1.00", 1);
+        // Sale items cannot be created with a closing date in the past, so the closed listing is closed afterwards
+        ReflectionTestUtils.setField(closed, "closes", today.minusDays(1));
+        saleItemRepository.save(closed);
+    }
+
+    @AfterAll
+    void tearDown() {
+        clearRepositories();
+    }
+
+    private void clearRepositories() {
+        saleItemRepository.deleteAll();
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Saves a sale item for a new product in a business's catalogue
+     * @param business The business selling the sale item
+     * @param code The product code of the product being sold, which is also used as its name
+     * @param price The price of the sale item
+     * @param closesInDays The number of days from today the sale item closes
+     * @return The saved sale item
+     */
+    private SaleItem saveSaleItem(Business business, String code, String price, int closesInDays) throws Exception {
+        Product product = productRepository.save(new Product.Builder()
+                .withProductCode(code)
+                .withName(code)
+                .withBusiness(business)
+                .build());
+        InventoryItem inventoryItem = inventoryItemRepository.save(new InventoryItem.Builder()
+                .withProduct(product)
+                .withQuantity(5)
+                .withExpires(today.plusYears(1).toString())
+                .build());
+        return saleItemRepository.save(new SaleItem.Builder()
+                .withInventoryItem(inventoryItem)
+                .withQuantity(1)
+                .withPrice(price)
+                .withCloses(today.plusDays(closesInDays).toString())
+                .build());
+    }
+
+    /**
+     * Finds the first page of listings matching a specification, ordered by price
+     * @param specification The filters the listings must match
+     * @return The names of the products of the matching listings
+     */
+    private List<String> findListingNames(Specification<SaleItem> specification) {
+        Page<SaleItem> page = saleItemRepository.findListingPage(specification, PageRequest.of(0, 10, Sort.by("price", "saleId")));
+        return page.stream().map(saleItem -> saleItem.getProduct().getName()).collect(Collectors.toList());
+    }
+
+    @Test
+    void build_noFilters_allListingsMatched() {
+        assertEquals(List.of("CLOSED", "MUFFIN", "COFFEE", "KETTLE", "TOASTER"),
+                findListingNames(new SaleItemSpecificationsBuilder().build()));
+    }
+
+    @Test
+    void build_closesOnOrAfterToday_closedListingsNotMatched() {
+        assertEquals(List.of("MUFFIN", "COFFEE", "KETTLE", "TOASTER"),
+                findListingNames(new SaleItemSpecificationsBuilder().withClosesOnOrAfter(today).build()));
+    }
+
+    @Test
+    void build_priceRange_onlyListingsInRangeMatched() {
+        Specification<SaleItem> specification = new SaleItemSpecificationsBuilder()
+                .withMinimumPrice(new BigDecimal("3.00"))
+                .withMaximumPrice(new BigDecimal("45.00"))
+                .build();
+        assertEquals(List.of("MUFFIN", "COFFEE", "KETTLE"), findListingNames(specification));
+    }
+
+    @Test
+    void build_closingDateRange_onlyListingsClosingInRangeMatched() {
+        Specification<SaleItem> specification = new SaleItemSpecificationsBuilder()
+                .withClosesAfter(today.plusDays(2))
+                .withClosesBefore(today.plusDays(30))
+                .build();
+        assertEquals(List.of("COFFEE", "TOASTER"), findListingNames(specification));
+    }
+
+    @Test
+    void build_businessType_onlyListingsFromBusinessesOfTypeMatched() {
+        Specification<SaleItem> specification = new SaleItemSpecificationsBuilder()
+                .withBusinessType("Accommodation and Food Services")
+                .build();
+        assertEquals(List.of("MUFFIN", "COFFEE"), findListingNames(specification));
+    }
+
+    @Test
+    void build_region_onlyListingsFromBusinessesInRegionMatched() {
+        Specification<SaleItem> specification = new SaleItemSpecificationsBuilder()
+                .withClosesOnOrAfter(today)
+                .withRegion("Canterbury")
+                .build();
+        assertEquals(List.of("KETTLE", "TOASTER"), findListingNames(specification));
+    }
+
+    @Test
+    void build_allFilters_onlyListingsMatchingEveryFilterMatched() {
+        Specification<SaleItem> specification = new SaleItemSpecificationsBuilder()
+                .withClosesOnOrAfter(today)
+                .withMinimumPrice(new BigDecimal("50"))
+                .withClosesBefore(today.plusDays(10))
+                .withBusinessType("Retail Trade")
+                .withRegion("Canterbury")
+                .build();
+        assertEquals(List.of("TOASTER"), findListingNames(specification));
+    }
+
+    @Test
+    void build_nullFilters_filtersIgnored() {
+        Specification<SaleItem> specification = new SaleItemSpecificationsBuilder()
+                .withMinimumPrice(null)
+                .withMaximumPrice(null)
+                .withClosesAfter(null)
+                .withClosesBefore(null)
+                .withBusinessType(null)
+                .withRegion(null)
+                .build();
+        assertEquals(5, findListingNames(specification).size());
+    }
+
+    @Test
+    void findListingPage_orderByClosingSecondPage_secondPageAndTotalReturned() {
+        Specification<SaleItem> specification = new SaleItemSpecificationsBuilder().withClosesOnOrAfter(today).build();
+        Page<SaleItem> page = saleItemRepository.findListingPage(specification, PageRequest.of(1, 2, Sort.by("closes", "saleId")));
+        assertEquals(List.of("COFFEE", "KETTLE"), page.stream()
+                .map(saleItem -> saleItem.getProduct().getName())
+                .collect(Collectors.toList()));
+        assertEquals(4, page.getTotalElements());
+    }
+
+    @Test
+    void findListingPage_noMatches_emptyPageReturned() {
+        Specification<SaleItem> specification = new SaleItemSpecificationsBuilder().withRegion("Nowhere").build();
+        Page<SaleItem> page = saleItemRepository.findListingPage(specification, PageRequest.of(0, 10, Sort.by("saleId")));
+        assertTrue(page.isEmpty());
+        assertEquals(0, page.getTotalElements());
+    }
+}
@@ -0,0 +1,275 @@
+package org.seng302.persistence;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.runner.RunWith;
+import org.seng302.entities.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that pages of catalogues, inventories and listings are ordered and paged by the database in the same way the
+ * results used to be ordered in memory: text ignoring case, nulls last (or first when reversed), and properties of
+ * other entities through paths such as 'product.name'.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SortedPageRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+    @Autowired
+    private SaleItemRepository saleItemRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+
+    private Business business;
+    private Business otherBusiness;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        clearRepositories();
+        User owner = userRepository.save(new User.Builder()
+                .withFirstName("Fergus")
+                .withLastName("Hitchcock")
+                .withEmail("fergus.sorting@gmail.com")
+                .withPassword("IDoLikeBreaks69#H3!p")
+                .withDob("1999-07-17")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .build());
+        business = businessRepository.save(new Business.Builder()
+                .withName("Sorting Industries")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(owner)
+                .build());
+        otherBusiness = businessRepository.save(new Business.Builder()
+                .withName("Other Industries")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(owner)
+                .build());
+
+        // Names differ in case so that a case sensitive order would be different ("Banana" before "apple")
+        Product apple = saveProduct(business, "APPLE", "apple", "Crunchy", "3.50");
+        Product banana = saveProduct(business, "BANANA", "Banana", null, "1.20");
+        Product cherry = saveProduct(business, "CHERRY", "cherry", "sweet", null);
+        Product date = saveProduct(business, "DATE", "Date", null, "8.00");
+        Product otherApple = saveProduct(otherBusiness, "APPLE", "apple", "Other business's apple", "3.50");
+
+        saveInventoryItem(apple, 3, null);
+        saveInventoryItem(banana, 1, 2);
+        InventoryItem cherryItem = saveInventoryItem(cherry, 4, null);
+        InventoryItem dateItem = saveInventoryItem(date, 2, 5);
+        InventoryItem otherItem = saveInventoryItem(otherApple, 9, 1);
+
+        saleItemRepository.save(new SaleItem.Builder().withInventoryItem(cherryItem).withQuantity(1).withPrice("2.00").build());
+        saleItemRepository.save(new SaleItem.Builder().withInventoryItem(dateItem).withQuantity(2).withPrice("5.00").build());
+        saleItemRepository.save(new SaleItem.Builder().withInventoryItem(otherItem).withQuantity(1).withPrice("1.00").build());
+    }
+
+    @AfterAll
+    void tearDown() {
+        clearRepositories();
+    }
+
+    private void clearRepositories() {
+        saleItemRepository.deleteAll();
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private Product saveProduct(Business owner, String code, String name, String description, String price) throws Exception {
+        return productRepository.save(new Product.Builder()
+                .withProductCode(code)
+                .withName(name)
+                .withDescription(description)
+                .withRecommendedRetailPrice(price)
+                .withBusiness(owner)
+                .build());
+    }
+
+    /**
+     * Saves an inventory item for a product
+     * @param product The product in the inventory item
+     * @param quantity The quantity of the product
+     * @param sellByYears The number of years from now the sell by date is, or null for no sell by date
+     * @return The saved inventory item
+     */
+    private InventoryItem saveInventoryItem(Product product, int quantity, Integer sellByYears) throws Exception {
+        InventoryItem.Builder builder = new InventoryItem.Builder()
+                .withProduct(product)
+                .withQuantity(quantity)
+                .withExpires(LocalDate.now().plusYears(10).toString());
+        if (sellByYears != null) {
+            builder.withSellBy(LocalDate.now().plusYears(sellByYears).toString());
+        }
+        return inventoryItemRepository.save(builder.build());
+    }
+
+    private List<String> getCatalogueNames(Sort sort) {
+        return productRepository.findCataloguePage(business, PageRequest.of(0, 10, sort)).stream()
+                .map(Product::getName)
+                .collect(Collectors.toList());
+    }
+
+    private List<String> getInventoryNames(Sort sort) {
+        return inventoryItemRepository.findInventoryPage(business, PageRequest.of(0, 10, sort)).stream()
+                .map(item -> item.getProduct().getName())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void findCataloguePage_orderByNameIgnoringCase_caseIgnored() {
+        Sort sort = Sort.by(Sort.Order.asc("name").ignoreCase()).and(Sort.by("id"));
+        assertEquals(List.of("apple", "Banana", "cherry", "Date"), getCatalogueNames(sort));
+    }
+
+    @Test
+    void findCataloguePage_orderByNameIgnoringCaseReversed_caseIgnored() {
+        Sort sort = Sort.by(Sort.Order.desc("name").ignoreCase()).and(Sort.by(Sort.Direction.DESC, "id"));
+        assertEquals(List.of("Date", "cherry", "Banana", "apple"), getCatalogueNames(sort));
+    }
+
+    @Test
+    void findCataloguePage_orderByDescriptionNullsLast_nullsAtBottom() {
+        Sort sort = Sort.by(Sort.Order.asc("description").ignoreCase().nullsLast()).and(Sort.by("id"));
+        assertEquals(List.of("apple", "cherry", "Banana", "Date"), getCatalogueNames(sort));
+    }
+
+    @Test
+    void findCataloguePage_orderByDescriptionReversedNullsFirst_nullsAtTop() {
+        Sort sort = Sort.by(Sort.Order.desc("description").ignoreCase().nullsFirst()).and(Sort.by(Sort.Direction.DESC, "id"));
+        assertEquals(List.of("Date", "Banana", "cherry", "apple"), getCatalogueNames(sort));
+    }
+
+    @Test
+    void findCataloguePage_orderByNameSortKey_caseIgnored() {
+        Sort sort = Sort.by(Sort.Order.asc("nameSortKey").nullsLast()).and(Sort.by("id"));
+        assertEquals(List.of("apple", "Banana", "cherry", "Date"), getCatalogueNames(sort));
+    }
+
+    @Test
+    void findCataloguePage_orderByDescriptionSortKeyReversed_nullsAtTop() {
+        Sort sort = Sort.by(Sort.Order.desc("descriptionSortKey").nullsFirst()).and(Sort.by(Sort.Direction.DESC, "id"));
+        assertEquals(List.of("Date", "Banana", "cherry", "apple"), getCatalogueNames(sort));
+    }
+
+    @Test
+    void findCataloguePage_orderByPriceNullsLast_nullsAtBottom() {
+        Sort sort = Sort.by(Sort.Order.asc("recommendedRetailPrice").nullsLast()).and(Sort.by("id"));
+        assertEquals(List.of("Banana", "apple", "Date", "cherry"), getCatalogueNames(sort));
+    }
+
+    @Test
+    void findCataloguePage_otherBusinessHasProducts_onlyBusinessProductsCounted() {
+        Page<Product> page = productRepository.findCataloguePage(business, PageRequest.of(0, 10, Sort.by("id")));
+        assertEquals(4, page.getTotalElements());
+        assertEquals(4, productRepository.countByBusiness(business));
+        assertEquals(1, productRepository.countByBusiness(otherBusiness));
+    }
+
+    @Test
+    void findCataloguePage_secondPage_secondPageAndTotalReturned() {
+        Page<Product> page = productRepository.findCataloguePage(business, PageRequest.of(1, 3, Sort.by("productCode")));
+        assertEquals(List.of("Date"), page.stream().map(Product::getName).collect(Collectors.toList()));
+        assertEquals(4, page.getTotalElements());
+        assertEquals(2, page.getTotalPages());
+    }
+
+    @Test
+    void findCataloguePage_pagePastEnd_lastPageReturned() {
+        Page<Product> page = productRepository.findCataloguePage(business, PageRequest.of(5, 3, Sort.by("productCode")));
+        assertEquals(1, page.getNumber());
+        assertEquals(List.of("Date"), page.stream().map(Product::getName).collect(Collectors.toList()));
+        assertEquals(4, page.getTotalElements());
+    }
+
+    @Test
+    void findInventoryPage_orderByProductName_orderedByNameOfProduct() {
+        Sort sort = Sort.by(Sort.Order.asc("product.name").ignoreCase().nullsLast()).and(Sort.by("id"));
+        assertEquals(List.of("apple", "Banana", "cherry", "Date"), getInventoryNames(sort));
+    }
+
+    @Test
+    void findInventoryPage_orderBySellByNullsLast_nullsAtBottom() {
+        Sort sort = Sort.by(Sort.Order.asc("sellBy").nullsLast()).and(Sort.by("id"));
+        assertEquals(List.of("Banana", "Date", "apple", "cherry"), getInventoryNames(sort));
+    }
+
+    @Test
+    void findInventoryPage_orderBySellByReversedNullsFirst_nullsAtTop() {
+        Sort sort = Sort.by(Sort.Order.desc("sellBy").nullsFirst()).and(Sort.by(Sort.Direction.DESC, "id"));
+        assertEquals(List.of("cherry", "apple", "Date", "Banana"), getInventoryNames(sort));
+    }
+
+    @Test
+    void findInventoryPage_orderByQuantity_onlyBusinessInventoryReturned() {
+        Page<InventoryItem> page = inventoryItemRepository.findInventoryPage(business, PageRequest.of(0, 10, Sort.by("quantity")));
+        assertEquals(List.of(1, 2, 3, 4), page.stream().map(InventoryItem::getQuantity).collect(Collectors.toList()));
+        assertEquals(4, inventoryItemRepository.countByProductBusiness(business));
+    }
+
+    @Test
+    void findAllWithProductByIdIn_idsOfPage_itemsWithProductsReturned() {
+        Page<InventoryItem> page = inventoryItemRepository.findInventoryPage(business, PageRequest.of(0, 2, Sort.by("quantity")));
+        List<Long> ids = page.stream().map(InventoryItem::getId).collect(Collectors.toList());
+
+        List<InventoryItem> items = inventoryItemRepository.findAllWithProductByIdIn(ids);
+
+        assertEquals(List.of(1, 2), items.stream()
+                .map(InventoryItem::getQuantity)
+                .sorted()
+                .collect(Collectors.toList()));
+        for (InventoryItem item : items) {
+            assertEquals(business.getId(), item.getProduct().getBusiness().getId());
+        }
+    }
+
+    @Test
+    void findPageForBusiness_orderByProductNameReversed_orderedByNameOfProduct() {
+        Sort sort = Sort.by(Sort.Order.desc("inventoryItem.product.name").ignoreCase().nullsFirst())
+                .and(Sort.by(Sort.Direction.DESC, "saleId"));
+        Page<SaleItem> page = saleItemRepository.findPageForBusiness(business, PageRequest.of(0, 10, sort));
+        assertEquals(List.of("Date", "cherry"), page.stream()
+                .map(saleItem -> saleItem.getProduct().getName())
+                .collect(Collectors.toList()));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(2, saleItemRepository.countForBusiness(business));
+    }
+
+    @Test
+    void findPageForBusiness_businessWithoutListings_emptyPageReturned() {
+        Business empty = businessRepository.save(new Business.Builder()
+                .withName("Empty Industries")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(business.getPrimaryOwner())
+                .build());
+        Page<SaleItem> page = saleItemRepository.findPageForBusiness(empty, PageRequest.of(2, 10, Sort.by("saleId")));
+        assertTrue(page.isEmpty());
+        assertEquals(0, page.getTotalElements());
+    }
+}
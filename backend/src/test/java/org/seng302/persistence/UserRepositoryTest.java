@@ -0,0 +1,238 @@
+package org.seng302.persistence;
+
+import org.junit.jupiter.api.*;
+import org.junit.runner.RunWith;
+import org.seng302.entities.Location;
+import org.seng302.entities.User;
+import org.seng302.service.UserSearchResultCache;
+import org.seng302.tools.SearchHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+    @Autowired
+    private UserSearchResultCache userSearchResultCache;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private User donaldDuck;
+    private User donaldSmith;
+    private User lucyMcDonald;
+    private User duckAdmin;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    private void setUp() throws ParseException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+        lucyMcDonald = userRepository.save(createUser("Lucy", "McDonald", "lucy@mcdonald.com"));
+        donaldSmith = userRepository.save(createUser("Donald", "Smith", "donald@smith.com"));
+        donaldDuck = userRepository.save(createUser("Donald", "Duck", "donald@duck.com"));
+        duckAdmin = createUser("Duck", "Admin", "duck@admin.com");
+        duckAdmin.setRole("defaultGlobalApplicationAdmin");
+        duckAdmin = userRepository.save(duckAdmin);
+    }
+
+    @AfterAll
+    private void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Creates a user with the given name and email which can be saved to the repository.
+     * @param firstName The user's first name
+     * @param lastName The user's last name
+     * @param email The user's email
+     * @return A new user
+     */
+    private User createUser(String firstName, String lastName, String email) throws ParseException {
+        Location address = new Location.Builder()
+                .inCity("city")
+                .inCountry("New Zealand")
+                .inRegion("region")
+                .onStreet("street")
+                .atStreetNumber("3")
+                .withPostCode("222")
+                .build();
+        return new User.Builder()
+                .withEmail(email)
+                .withFirstName(firstName)
+                .withLastName(lastName)
+                .withAddress(address)
+                .withPassword("password123")
+                .withDob("2000-08-04")
+                .build();
+    }
+
+    /**
+     * Gets the ids of the users in the given page, in order.
+     * @param page A page of users
+     * @return The ids of the users
+     */
+    private List<Long> getIds(Page<User> page) {
+        return page.getContent().stream().map(User::getUserID).collect(Collectors.toList());
+    }
+
+    @Test
+    void searchUsers_orderByRelevance_fullMatchesAllTermsFirst() {
+        Page<User> page = userRepository.searchUsers("Donald or Duck",
+                SearchHelper.getPageRequest(1, 15, SearchHelper.getUserSearchSort("relevance", false)));
+        assertEquals(List.of(donaldDuck.getUserID(), donaldSmith.getUserID(), lucyMcDonald.getUserID()), getIds(page));
+    }
+
+    @Test
+    void searchUsers_orderByRelevanceReversed_leastRelevantFirst() {
+        Page<User> page = userRepository.searchUsers("Donald or Duck",
+                SearchHelper.getPageRequest(1, 15, SearchHelper.getUserSearchSort(null, true)));
+        assertEquals(List.of(lucyMcDonald.getUserID(), donaldSmith.getUserID(), donaldDuck.getUserID()), getIds(page));
+    }
+
+    @Test
+    void searchUsers_orderByLastName_orderedByLastName() {
+        Page<User> page = userRepository.searchUsers("donald",
+                SearchHelper.getPageRequest(1, 15, SearchHelper.getUserSearchSort("lastName", false)));
+        assertEquals(List.of(donaldDuck.getUserID(), lucyMcDonald.getUserID(), donaldSmith.getUserID()), getIds(page));
+    }
+
+    @Test
+    void searchUsers_queryMatchesDGAA_DGAANotReturned() {
+        Page<User> page = userRepository.searchUsers("duck",
+                SearchHelper.getPageRequest(1, 15, SearchHelper.getUserSearchSort(null, false)));
+        assertEquals(List.of(donaldDuck.getUserID()), getIds(page));
+        assertEquals(1, page.getTotalElements());
+    }
+
+    @Test
+    void searchUsers_pageSmallerThanResults_totalIsAllMatches() {
+        Page<User> page = userRepository.searchUsers("Donald",
+                SearchHelper.getPageRequest(2, 2, SearchHelper.getUserSearchSort(null, false)));
+        assertEquals(List.of(lucyMcDonald.getUserID()), getIds(page));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(2, page.getTotalPages());
+    }
+
+    @Test
+    void searchUsers_pageAfterLastPage_lastPageReturned() {
+        Page<User> page = userRepository.searchUsers("Donald",
+                SearchHelper.getPageRequest(5, 2, SearchHelper.getUserSearchSort(null, false)));
+        assertEquals(1, page.getNumber());
+        assertEquals(List.of(lucyMcDonald.getUserID()), getIds(page));
+        assertEquals(3, page.getTotalElements());
+    }
+
+    @Test
+    void searchUsers_noMatches_emptyPage() {
+        Page<User> page = userRepository.searchUsers("zzz", PageRequest.of(3, 15));
+        assertTrue(page.isEmpty());
+        assertEquals(0, page.getTotalElements());
+    }
+
+    @Test
+    void countSearchResults_queryMatchesDGAA_DGAANotCounted() {
+        assertEquals(1, userRepository.countSearchResults("duck"));
+        assertEquals(3, userRepository.countSearchResults("donald"));
+        assertEquals(2, userRepository.countSearchResults("\"Donald\""));
+    }
+
+    @Test
+    void searchUsers_sameSearchTwice_secondPageServedFromResultCache() {
+        userRepository.searchUsers("Donald", SearchHelper.getPageRequest(1, 2, SearchHelper.getUserSearchSort(null, false)));
+        long hits = (long) userSearchResultCache.getStatistics().get("hits");
+        Page<User> page = userRepository.searchUsers("Donald  ",
+                SearchHelper.getPageRequest(2, 2, SearchHelper.getUserSearchSort(null, false)));
+        assertEquals(List.of(lucyMcDonald.getUserID()), getIds(page));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(hits + 1, userSearchResultCache.getStatistics().get("hits"));
+    }
+
+    @Test
+    void countSearchResults_userSavedAfterSearch_cachedResultsInvalidated() throws ParseException {
+        assertEquals(1, userRepository.countSearchResults("duck"));
+        User daisyDuck = userRepository.save(createUser("Daisy", "Duck", "daisy@duck.com"));
+        try {
+            assertEquals(2, userRepository.countSearchResults("duck"));
+        } finally {
+            userRepository.delete(daisyDuck);
+        }
+        assertEquals(1, userRepository.countSearchResults("duck"));
+    }
+
+    @Test
+    void searchUsers_misspeltTerm_fuzzyMatchesFound() {
+        // "donld" is one edit from "donald", which is also part of "McDonald"
+        Page<User> page = userRepository.searchUsers("Donld",
+                SearchHelper.getPageRequest(1, 15, SearchHelper.getUserSearchSort("userID", false)));
+        assertEquals(List.of(lucyMcDonald.getUserID(), donaldSmith.getUserID(), donaldDuck.getUserID()), getIds(page));
+    }
+
+    @Test
+    void searchUsers_orderByRelevance_fuzzyMatchesLast() {
+        Page<User> page = userRepository.searchUsers("Smth or Lucy",
+                SearchHelper.getPageRequest(1, 15, SearchHelper.getUserSearchSort(null, false)));
+        assertEquals(List.of(lucyMcDonald.getUserID(), donaldSmith.getUserID()), getIds(page));
+        page = userRepository.searchUsers("Smth or Lucy",
+                SearchHelper.getPageRequest(1, 15, SearchHelper.getUserSearchSort(null, true)));
+        assertEquals(List.of(donaldSmith.getUserID(), lucyMcDonald.getUserID()), getIds(page));
+    }
+
+    @Test
+    void forEachSearchResult_smallBatches_sameOrderAsSearchUsers() {
+        for (String orderBy : List.of("relevance", "firstName", "middleName", "userID")) {
+            for (boolean reverse : List.of(false, true)) {
+                Sort sort = SearchHelper.getUserSearchSort(orderBy, reverse);
+                List<Long> expected = getIds(userRepository.searchUsers("Donald or Duck",
+                        SearchHelper.getPageRequest(1, 15, sort)));
+                for (int batchSize : List.of(1, 2, 5)) {
+                    List<Long> exported = new ArrayList<>();
+                    long count = userRepository.forEachSearchResult("Donald or Duck", sort, batchSize,
+                            user -> exported.add(user.getUserID()));
+                    assertEquals(expected, exported, orderBy + (reverse ? " reversed" : "") + ", batch size " + batchSize);
+                    assertEquals(3, count);
+                }
+            }
+        }
+    }
+
+    @Test
+    void forEachSearchResult_userAlreadyLoaded_onlyExportedUsersDetached() {
+        transactionTemplate.executeWithoutResult(status -> {
+            User loaded = entityManager.find(User.class, donaldDuck.getUserID());
+            List<User> exported = new ArrayList<>();
+            userRepository.forEachSearchResult("Donald", SearchHelper.getUserSearchSort(null, false), 2, exported::add);
+
+            assertEquals(3, exported.size());
+            assertTrue(entityManager.contains(loaded));
+            for (User user : exported) {
+                assertEquals(user == loaded, entityManager.contains(user));
+            }
+        });
+    }
+}
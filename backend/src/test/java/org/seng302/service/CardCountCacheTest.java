@@ -0,0 +1,85 @@
+package org.seng302.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seng302.entities.MarketplaceCard;
+import org.seng302.persistence.MarketplaceCardRepository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardCountCacheTest {
+
+    private MarketplaceCardRepository marketplaceCardRepository;
+    private AtomicLong nanoTime;
+    private CardCountCache cardCountCache;
+
+    @BeforeEach
+    void setUp() {
+        marketplaceCardRepository = mock(MarketplaceCardRepository.class);
+        when(marketplaceCardRepository.countBySection(MarketplaceCard.Section.FOR_SALE)).thenReturn(3L);
+        when(marketplaceCardRepository.countBySection(MarketplaceCard.Section.WANTED)).thenReturn(5L);
+        nanoTime = new AtomicLong(1000);
+        cardCountCache = new CardCountCache(marketplaceCardRepository, 5000, nanoTime::get);
+    }
+
+    private void advanceMillis(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    void getCount_notCached_countQueried() {
+        assertEquals(3L, cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE));
+        verify(marketplaceCardRepository, times(1)).countBySection(MarketplaceCard.Section.FOR_SALE);
+    }
+
+    @Test
+    void getCount_withinTimeToLive_cachedCountReturned() {
+        cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE);
+        when(marketplaceCardRepository.countBySection(MarketplaceCard.Section.FOR_SALE)).thenReturn(4L);
+        advanceMillis(4999);
+        assertEquals(3L, cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE));
+        verify(marketplaceCardRepository, times(1)).countBySection(MarketplaceCard.Section.FOR_SALE);
+    }
+
+    @Test
+    void getCount_timeToLivePassed_countQueriedAgain() {
+        cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE);
+        when(marketplaceCardRepository.countBySection(MarketplaceCard.Section.FOR_SALE)).thenReturn(4L);
+        advanceMillis(5000);
+        assertEquals(4L, cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE));
+        verify(marketplaceCardRepository, times(2)).countBySection(MarketplaceCard.Section.FOR_SALE);
+    }
+
+    @Test
+    void getCount_differentSections_countedSeparately() {
+        assertEquals(3L, cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE));
+        assertEquals(5L, cardCountCache.getCount(MarketplaceCard.Section.WANTED));
+        assertEquals(0L, cardCountCache.getCount(MarketplaceCard.Section.EXCHANGE));
+    }
+
+    @Test
+    void cardsChanged_sectionCached_countQueriedAgain() {
+        cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE);
+        cardCountCache.getCount(MarketplaceCard.Section.WANTED);
+        when(marketplaceCardRepository.countBySection(MarketplaceCard.Section.FOR_SALE)).thenReturn(4L);
+        cardCountCache.cardsChanged(MarketplaceCard.Section.FOR_SALE);
+        assertEquals(4L, cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE));
+        assertEquals(5L, cardCountCache.getCount(MarketplaceCard.Section.WANTED));
+        verify(marketplaceCardRepository, times(1)).countBySection(MarketplaceCard.Section.WANTED);
+    }
+
+    @Test
+    void getStatistics_countsRequested_hitsAndMissesReported() {
+        cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE);
+        cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE);
+        cardCountCache.getCount(MarketplaceCard.Section.FOR_SALE);
+        var statistics = cardCountCache.getStatistics();
+        assertEquals(2L, statistics.getAsNumber("hits").longValue());
+        assertEquals(1L, statistics.getAsNumber("misses").longValue());
+        assertEquals(5000L, statistics.getAsNumber("timeToLiveMillis").longValue());
+    }
+}
@@ -0,0 +1,239 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.seng302.entities.MarketplaceCard;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardEventStreamTest {
+
+    // Long enough that no heartbeats are sent while a test runs
+    private static final long NO_HEARTBEAT_MILLIS = 3600000;
+
+    /**
+     * Subscriber which records the events it receives and only requests as many as it is told to.
+     */
+    private static class RecordingSubscriber extends BaseSubscriber<ServerSentEvent<JSONObject>> {
+        private final long initialRequest;
+        private final List<ServerSentEvent<JSONObject>> events = new ArrayList<>();
+        private Throwable error;
+
+        RecordingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            if (initialRequest > 0) {
+                request(initialRequest);
+            }
+        }
+
+        @Override
+        protected void hookOnNext(ServerSentEvent<JSONObject> event) {
+            events.add(event);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            error = throwable;
+        }
+
+        List<String> getCardIds() {
+            return events.stream().map(ServerSentEvent::id).collect(Collectors.toList());
+        }
+    }
+
+    private MarketplaceCard mockCard(long id, MarketplaceCard.Section section) {
+        MarketplaceCard card = mock(MarketplaceCard.class);
+        when(card.getID()).thenReturn(id);
+        when(card.getSection()).thenReturn(section);
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        when(card.constructJSONObject()).thenReturn(json);
+        return card;
+    }
+
+    private RecordingSubscriber subscribe(CardEventStream stream, MarketplaceCard.Section section, long initialRequest) {
+        RecordingSubscriber subscriber = new RecordingSubscriber(initialRequest);
+        stream.subscribe(section).subscribe(subscriber);
+        return subscriber;
+    }
+
+    @Test
+    void cardCreated_subscribedToSection_cardEventReceived() {
+        CardEventStream stream = new CardEventStream(64, BufferOverflowStrategy.DROP_OLDEST, NO_HEARTBEAT_MILLIS, 10);
+        RecordingSubscriber subscriber = subscribe(stream, MarketplaceCard.Section.FOR_SALE, Long.MAX_VALUE);
+
+        stream.cardCreated(mockCard(1, MarketplaceCard.Section.FOR_SALE));
+
+        assertEquals(1, subscriber.events.size());
+        ServerSentEvent<JSONObject> event = subscriber.events.get(0);
+        assertEquals("1", event.id());
+        assertEquals(CardEventStream.CARD_EVENT, event.event());
+        assertEquals(1L, event.data().get("id"));
+    }
+
+    @Test
+    void cardCreated_otherSection_cardEventNotReceived() {
+        CardEventStream stream = new CardEventStream(64, BufferOverflowStrategy.DROP_OLDEST, NO_HEARTBEAT_MILLIS, 10);
+        RecordingSubscriber forSale = subscribe(stream, MarketplaceCard.Section.FOR_SALE, Long.MAX_VALUE);
+        RecordingSubscriber wanted = subscribe(stream, MarketplaceCard.Section.WANTED, Long.MAX_VALUE);
+
+        stream.cardCreated(mockCard(1, MarketplaceCard.Section.WANTED));
+        stream.cardCreated(mockCard(2, MarketplaceCard.Section.FOR_SALE));
+
+        assertEquals(List.of("2"), forSale.getCardIds());
+        assertEquals(List.of("1"), wanted.getCardIds());
+    }
+
+    @Test
+    void cardCreated_noSubscribers_jsonNotConstructed() {
+        CardEventStream stream = new CardEventStream(64, BufferOverflowStrategy.DROP_OLDEST, NO_HEARTBEAT_MILLIS, 10);
+        MarketplaceCard card = mockCard(1, MarketplaceCard.Section.FOR_SALE);
+
+        stream.cardCreated(card);
+
+        verify(card, times(0)).constructJSONObject();
+        assertEquals(0L, stream.getStatistics().get("published"));
+    }
+
+    @Test
+    void cardCreated_subscriberBufferFullWithDropOldest_oldestCardsSkipped() {
+        CardEventStream stream = new CardEventStream(2, BufferOverflowStrategy.DROP_OLDEST, NO_HEARTBEAT_MILLIS, 10);
+        RecordingSubscriber slow = subscribe(stream, MarketplaceCard.Section.FOR_SALE, 0);
+        RecordingSubscriber fast = subscribe(stream, MarketplaceCard.Section.FOR_SALE, Long.MAX_VALUE);
+
+        for (long id = 1; id <= 5; id++) {
+            stream.cardCreated(mockCard(id, MarketplaceCard.Section.FOR_SALE));
+        }
+        slow.request(10);
+
+        // The first card has already been handed on to the merge with the heartbeats, the buffer holds the newest two
+        assertEquals(List.of("1", "4", "5"), slow.getCardIds());
+        assertEquals(List.of("1", "2", "3", "4", "5"), fast.getCardIds());
+        assertEquals(2L, stream.getStatistics().get("dropped"));
+    }
+
+    @Test
+    void cardCreated_subscriberBufferFullWithDropLatest_newestCardsSkipped() {
+        CardEventStream stream = new CardEventStream(2, BufferOverflowStrategy.DROP_LATEST, NO_HEARTBEAT_MILLIS, 10);
+        RecordingSubscriber slow = subscribe(stream, MarketplaceCard.Section.FOR_SALE, 0);
+
+        for (long id = 1; id <= 5; id++) {
+            stream.cardCreated(mockCard(id, MarketplaceCard.Section.FOR_SALE));
+        }
+        slow.request(10);
+
+        assertEquals(List.of("1", "2", "3"), slow.getCardIds());
+        assertEquals(2L, stream.getStatistics().get("dropped"));
+    }
+
+    @Test
+    void cardCreated_subscriberBufferFullWithError_streamEndedAndSubscriberRemoved() {
+        CardEventStream stream = new CardEventStream(1, BufferOverflowStrategy.ERROR, NO_HEARTBEAT_MILLIS, 10);
+        RecordingSubscriber slow = subscribe(stream, MarketplaceCard.Section.FOR_SALE, 0);
+
+        for (long id = 1; id <= 3; id++) {
+            stream.cardCreated(mockCard(id, MarketplaceCard.Section.FOR_SALE));
+        }
+        slow.request(10);
+
+        assertNotNull(slow.error);
+        assertEquals(0, stream.getStatistics().get("subscribers"));
+    }
+
+    @Test
+    void subscribe_maxSubscribersReached_serviceUnavailable() {
+        CardEventStream stream = new CardEventStream(64, BufferOverflowStrategy.DROP_OLDEST, NO_HEARTBEAT_MILLIS, 1);
+        RecordingSubscriber first = subscribe(stream, MarketplaceCard.Section.FOR_SALE, Long.MAX_VALUE);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> stream.subscribe(MarketplaceCard.Section.WANTED));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals(1L, stream.getStatistics().get("rejectedSubscriptions"));
+
+        first.dispose();
+        assertDoesNotThrow(() -> stream.subscribe(MarketplaceCard.Section.WANTED));
+    }
+
+    @Test
+    void subscribe_streamNotSubscribedTo_notCounted() {
+        CardEventStream stream = new CardEventStream(64, BufferOverflowStrategy.DROP_OLDEST, NO_HEARTBEAT_MILLIS, 1);
+
+        stream.subscribe(MarketplaceCard.Section.FOR_SALE);
+        stream.subscribe(MarketplaceCard.Section.FOR_SALE);
+
+        assertEquals(0, stream.getStatistics().get("subscribers"));
+        assertEquals(0L, stream.getStatistics().get("rejectedSubscriptions"));
+    }
+
+    @Test
+    void subscribe_lastPlaceTakenBeforeStreamSubscribed_streamEndsWithServiceUnavailable() {
+        CardEventStream stream = new CardEventStream(64, BufferOverflowStrategy.DROP_OLDEST, NO_HEARTBEAT_MILLIS, 1);
+        Flux<ServerSentEvent<JSONObject>> first = stream.subscribe(MarketplaceCard.Section.FOR_SALE);
+        Flux<ServerSentEvent<JSONObject>> second = stream.subscribe(MarketplaceCard.Section.FOR_SALE);
+
+        RecordingSubscriber firstSubscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        first.subscribe(firstSubscriber);
+        RecordingSubscriber secondSubscriber = new RecordingSubscriber(Long.MAX_VALUE);
+        second.subscribe(secondSubscriber);
+
+        assertNull(firstSubscriber.error);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ((ResponseStatusException) secondSubscriber.error).getStatus());
+        assertEquals(1, stream.getStatistics().get("subscribers"));
+        assertEquals(1L, stream.getStatistics().get("rejectedSubscriptions"));
+    }
+
+    @Test
+    void subscribe_noCardsCreated_heartbeatSent() {
+        CardEventStream stream = new CardEventStream(64, BufferOverflowStrategy.DROP_OLDEST, 10, 10);
+
+        ServerSentEvent<JSONObject> event = stream.subscribe(MarketplaceCard.Section.FOR_SALE)
+                .blockFirst(Duration.ofSeconds(5));
+
+        assertNotNull(event);
+        assertEquals("heartbeat", event.comment());
+        assertNull(event.data());
+    }
+
+    @Test
+    void subscribe_subscriberCancels_subscriberCountDecremented() {
+        CardEventStream stream = new CardEventStream(64, BufferOverflowStrategy.DROP_OLDEST, NO_HEARTBEAT_MILLIS, 10);
+        RecordingSubscriber subscriber = subscribe(stream, MarketplaceCard.Section.FOR_SALE, Long.MAX_VALUE);
+        assertEquals(1, stream.getStatistics().get("subscribers"));
+
+        subscriber.dispose();
+
+        assertEquals(0, stream.getStatistics().get("subscribers"));
+    }
+
+    @Test
+    void getStatistics_cardsPublished_publishedCounted() {
+        CardEventStream stream = new CardEventStream(64, BufferOverflowStrategy.DROP_OLDEST, NO_HEARTBEAT_MILLIS, 10);
+        subscribe(stream, MarketplaceCard.Section.FOR_SALE, Long.MAX_VALUE);
+
+        stream.cardCreated(mockCard(1, MarketplaceCard.Section.FOR_SALE));
+        stream.cardCreated(mockCard(2, MarketplaceCard.Section.WANTED));
+
+        JSONObject statistics = stream.getStatistics();
+        assertEquals(2L, statistics.get("published"));
+        assertEquals(0L, statistics.get("dropped"));
+        assertEquals("DROP_OLDEST", statistics.get("overflowStrategy"));
+        assertEquals(64, statistics.get("bufferSize"));
+    }
+}
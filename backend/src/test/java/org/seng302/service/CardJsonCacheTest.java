@@ -0,0 +1,163 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardJsonCacheTest {
+
+    private final Instant now = Instant.parse("2021-06-01T12:00:00Z");
+    private CardJsonCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CardJsonCache(true, 100, Clock.fixed(now, ZoneId.systemDefault()));
+    }
+
+    private JSONObject cardJson(long id, String title) {
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("title", title);
+        return json;
+    }
+
+    private void put(long cardId, long creatorId) {
+        cache.putCardJson(cardId, creatorId, now.plus(1, ChronoUnit.DAYS), cardJson(cardId, "Card"), cache.getVersion());
+    }
+
+    @Test
+    void putCardJson_cardOpen_utf8JsonCachedAndReturned() {
+        byte[] json = cache.putCardJson(1, 10, now.plus(1, ChronoUnit.DAYS), cardJson(1, "Fējoas"), cache.getVersion());
+
+        assertEquals(cardJson(1, "Fējoas").toJSONString(), new String(json, StandardCharsets.UTF_8));
+        assertSame(json, cache.getCardJson(1));
+    }
+
+    @Test
+    void getCardJson_notCached_nullReturned() {
+        assertNull(cache.getCardJson(1));
+    }
+
+    @Test
+    void putCardJson_changedSinceVersionRead_notCached() {
+        long version = cache.getVersion();
+        cache.creatorChanged(20);
+
+        byte[] json = cache.putCardJson(1, 10, now.plus(1, ChronoUnit.DAYS), cardJson(1, "Card"), version);
+
+        assertNotNull(json);
+        assertNull(cache.getCardJson(1));
+    }
+
+    @Test
+    void putCardJson_cardAlreadyClosed_notCached() {
+        cache.putCardJson(1, 10, now.minus(1, ChronoUnit.SECONDS), cardJson(1, "Card"), cache.getVersion());
+        assertNull(cache.getCardJson(1));
+    }
+
+    @Test
+    void getCardJson_cardClosedSinceCached_entryEvicted() {
+        Instant[] time = {now};
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneId.systemDefault();
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return time[0];
+            }
+        };
+        CardJsonCache cache = new CardJsonCache(true, 100, clock);
+        cache.putCardJson(1, 10, now.plus(1, ChronoUnit.DAYS), cardJson(1, "Card"), cache.getVersion());
+        assertNotNull(cache.getCardJson(1));
+
+        time[0] = now.plus(1, ChronoUnit.DAYS);
+
+        assertNull(cache.getCardJson(1));
+        assertEquals(1L, cache.getStatistics().get("staleEntries"));
+        assertEquals(0, cache.getStatistics().get("size"));
+    }
+
+    @Test
+    void cardChanged_cardCached_onlyThatCardRemoved() {
+        put(1, 10);
+        put(2, 10);
+
+        cache.cardChanged(1);
+
+        assertNull(cache.getCardJson(1));
+        assertNotNull(cache.getCardJson(2));
+    }
+
+    @Test
+    void creatorChanged_cardsCached_onlyCreatorsCardsRemoved() {
+        put(1, 10);
+        put(2, 20);
+        put(3, 10);
+
+        cache.creatorChanged(10);
+
+        assertNull(cache.getCardJson(1));
+        assertNotNull(cache.getCardJson(2));
+        assertNull(cache.getCardJson(3));
+    }
+
+    @Test
+    void creatorChanged_creatorsCardEvicted_otherCardsKept() {
+        CardJsonCache small = new CardJsonCache(true, 2, Clock.fixed(now, ZoneId.systemDefault()));
+        small.putCardJson(1, 10, now.plus(1, ChronoUnit.DAYS), cardJson(1, "Card"), small.getVersion());
+        small.putCardJson(2, 20, now.plus(1, ChronoUnit.DAYS), cardJson(2, "Card"), small.getVersion());
+        small.putCardJson(3, 20, now.plus(1, ChronoUnit.DAYS), cardJson(3, "Card"), small.getVersion());
+
+        assertEquals(1, small.getStatistics().get("creators"));
+        small.creatorChanged(10);
+
+        assertNotNull(small.getCardJson(2));
+        assertNotNull(small.getCardJson(3));
+    }
+
+    @Test
+    void cardChanged_creatorsLastCard_creatorForgotten() {
+        put(1, 10);
+        put(2, 20);
+
+        cache.cardChanged(1);
+
+        assertEquals(1, cache.getStatistics().get("creators"));
+    }
+
+    @Test
+    void clear_cardsCached_allCardsRemoved() {
+        put(1, 10);
+        put(2, 20);
+
+        cache.clear();
+
+        assertNull(cache.getCardJson(1));
+        assertNull(cache.getCardJson(2));
+        assertEquals(0, cache.getStatistics().get("creators"));
+    }
+
+    @Test
+    void getCardJson_disabled_nothingCached() {
+        CardJsonCache disabled = new CardJsonCache(false, 100, Clock.fixed(now, ZoneId.systemDefault()));
+        disabled.putCardJson(1, 10, now.plus(1, ChronoUnit.DAYS), cardJson(1, "Card"), disabled.getVersion());
+        assertNull(disabled.getCardJson(1));
+        assertEquals(0, disabled.getStatistics().get("size"));
+    }
+}
@@ -0,0 +1,101 @@
+package org.seng302.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seng302.entities.Location;
+import org.seng302.entities.MarketplaceCard;
+import org.seng302.entities.User;
+import org.seng302.persistence.MarketplaceCardRepository;
+import org.seng302.persistence.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class CardSearchIndexTest {
+
+    @Autowired
+    private CardSearchIndex cardSearchIndex;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        marketplaceCardRepository.deleteAll();
+        userRepository.deleteAll();
+        user = userRepository.save(new User.Builder()
+                .withFirstName("Fergus")
+                .withLastName("Hitchcock")
+                .withEmail("fergus.hitchcock@gmail.com")
+                .withPassword("IDoLikeBreaks69#H3!p")
+                .withDob("1999-07-17")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zelaand,Otago,6959"))
+                .build());
+        cardSearchIndex.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        marketplaceCardRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private MarketplaceCard saveCard(String section, String title, String description) {
+        return marketplaceCardRepository.save(new MarketplaceCard.Builder()
+                .withTitle(title)
+                .withDescription(description)
+                .withSection(section)
+                .withCreator(user)
+                .build());
+    }
+
+    @Test
+    void search_cardSaved_cardFoundByStemmedWord() {
+        MarketplaceCard card = saveCard("ForSale", "Feijoas", "Picked fresh this morning");
+        assertEquals(List.of(card.getID()), cardSearchIndex.search("picking feijoa", null));
+    }
+
+    @Test
+    void search_termInTitle_rankedAboveTermInDescription() {
+        MarketplaceCard inDescription = saveCard("ForSale", "Fruit", "Lemons from the garden");
+        MarketplaceCard inTitle = saveCard("ForSale", "Lemons", "From the garden");
+        assertEquals(List.of(inTitle.getID(), inDescription.getID()), cardSearchIndex.search("lemon", null));
+    }
+
+    @Test
+    void search_sectionGiven_onlyCardsInSectionFound() {
+        saveCard("ForSale", "Lemons", null);
+        MarketplaceCard wanted = saveCard("Wanted", "Lemons", null);
+        assertEquals(List.of(wanted.getID()), cardSearchIndex.search("lemons", MarketplaceCard.Section.WANTED));
+    }
+
+    @Test
+    void search_cardDeleted_cardNotFound() {
+        MarketplaceCard card = saveCard("ForSale", "Lemons", null);
+        marketplaceCardRepository.delete(card);
+        assertEquals(List.of(), cardSearchIndex.search("lemons", null));
+    }
+
+    @Test
+    void search_onlyStopWords_noCardsFound() {
+        saveCard("ForSale", "The lemons are here", null);
+        assertEquals(List.of(), cardSearchIndex.search("the are", null));
+    }
+
+    @Test
+    void rebuild_cardsInDatabase_cardsIndexed() {
+        MarketplaceCard card = saveCard("Exchange", "Swap my lemons", "For your limes");
+        CardSearchIndex rebuilt = new CardSearchIndex(marketplaceCardRepository);
+        rebuilt.rebuild();
+        assertEquals(List.of(card.getID()), rebuilt.search("lime", null));
+        assertEquals(1, rebuilt.getStatistics().get("cards"));
+    }
+}
@@ -0,0 +1,221 @@
+package org.seng302.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seng302.entities.*;
+import org.seng302.persistence.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ExpirySweeperTest {
+
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+    @Autowired
+    private SaleItemRepository saleItemRepository;
+    @Autowired
+    private InventoryItemRepository inventoryItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ArchivedRecordRepository archivedRecordRepository;
+    @Autowired
+    private ExpirySweepCheckpointRepository checkpointRepository;
+    @Autowired
+    private CardCountCache cardCountCache;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User user;
+    private Product product;
+
+    /**
+     * Creates a sweeper which treats everything closing in the next 30 days as already closed.
+     * @param chunkSize The number of rows archived in each chunk
+     * @param maxChunksPerRun The largest number of chunks archived from each table in one run
+     * @return The sweeper
+     */
+    private ExpirySweeper createSweeper(int chunkSize, int maxChunksPerRun) {
+        Clock clock = Clock.fixed(Instant.now().plus(30, ChronoUnit.DAYS), ZoneId.systemDefault());
+        return new ExpirySweeper(marketplaceCardRepository, saleItemRepository, inventoryItemRepository,
+                archivedRecordRepository, checkpointRepository, cardCountCache, transactionManager, objectMapper,
+                true, chunkSize, 0, maxChunksPerRun, clock);
+    }
+
+    private void clearRepositories() {
+        archivedRecordRepository.deleteAll();
+        checkpointRepository.deleteAll();
+        saleItemRepository.deleteAll();
+        inventoryItemRepository.deleteAll();
+        productRepository.deleteAll();
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clearRepositories();
+        user = userRepository.save(new User.Builder()
+                .withFirstName("Fergus")
+                .withLastName("Hitchcock")
+                .withEmail("fergus.hitchcock@gmail.com")
+                .withPassword("IDoLikeBreaks69#H3!p")
+                .withDob("1999-07-17")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zelaand,Otago,6959"))
+                .build());
+        Business business = businessRepository.save(new Business.Builder()
+                .withName("Help Industries")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zelaand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(user)
+                .build());
+        product = productRepository.save(new Product.Builder()
+                .withProductCode("FISH")
+                .withName("A Piece of Fish")
+                .withBusiness(business)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearRepositories();
+    }
+
+    private MarketplaceCard saveCard(String title, int closesInDays) {
+        return marketplaceCardRepository.save(new MarketplaceCard.Builder()
+                .withTitle(title)
+                .withSection("ForSale")
+                .withCreator(user)
+                .withCloses(Instant.now().plus(closesInDays, ChronoUnit.DAYS))
+                .build());
+    }
+
+    private InventoryItem saveInventoryItem(int expiresInDays) throws Exception {
+        return inventoryItemRepository.save(new InventoryItem.Builder()
+                .withProduct(product)
+                .withQuantity(10)
+                .withExpires(LocalDate.now().plusDays(expiresInDays).toString())
+                .build());
+    }
+
+    private SaleItem saveSaleItem(InventoryItem inventoryItem, int closesInDays) {
+        return saleItemRepository.save(new SaleItem.Builder()
+                .withInventoryItem(inventoryItem)
+                .withQuantity(1)
+                .withPrice("2.50")
+                .withCloses(LocalDate.now().plusDays(closesInDays).toString())
+                .build());
+    }
+
+    private Set<Long> getArchivedIds(ArchivedRecord.RecordType recordType) {
+        return archivedRecordRepository.findAllByRecordType(recordType).stream()
+                .map(ArchivedRecord::getOriginalId)
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void sweepAll_closedCards_archivedAndRemovedFromLiveTable() {
+        MarketplaceCard closed1 = saveCard("Closed one", 1);
+        MarketplaceCard closed2 = saveCard("Closed two", 14);
+        MarketplaceCard open = saveCard("Still open", 60);
+
+        createSweeper(10, 10).sweepAll();
+
+        assertEquals(Set.of(closed1.getID(), closed2.getID()), getArchivedIds(ArchivedRecord.RecordType.MARKETPLACE_CARD));
+        List<Long> liveIds = new ArrayList<>();
+        marketplaceCardRepository.findAll().forEach(card -> liveIds.add(card.getID()));
+        assertEquals(List.of(open.getID()), liveIds);
+        ArchivedRecord archived = archivedRecordRepository.findAllByRecordType(ArchivedRecord.RecordType.MARKETPLACE_CARD).get(0);
+        assertTrue(archived.getData().contains("\"title\":\"Closed"));
+    }
+
+    @Test
+    void sweepAll_chunkLimitReached_nextRunResumesFromCheckpoint() {
+        MarketplaceCard first = saveCard("First", 1);
+        MarketplaceCard second = saveCard("Second", 2);
+        MarketplaceCard third = saveCard("Third", 3);
+        ExpirySweeper sweeper = createSweeper(2, 1);
+
+        sweeper.sweepAll();
+        assertEquals(Set.of(first.getID(), second.getID()), getArchivedIds(ArchivedRecord.RecordType.MARKETPLACE_CARD));
+        assertEquals(second.getID(), checkpointRepository.findById("marketplaceCards").orElseThrow().getLastId());
+
+        sweeper.sweepAll();
+        assertEquals(Set.of(first.getID(), second.getID(), third.getID()), getArchivedIds(ArchivedRecord.RecordType.MARKETPLACE_CARD));
+        assertEquals(0L, checkpointRepository.findById("marketplaceCards").orElseThrow().getLastId());
+    }
+
+    @Test
+    void sweepAll_expiredInventoryWithClosedSale_bothArchived() throws Exception {
+        InventoryItem inventoryItem = saveInventoryItem(10);
+        SaleItem saleItem = saveSaleItem(inventoryItem, 5);
+
+        createSweeper(10, 10).sweepAll();
+
+        assertEquals(Set.of(saleItem.getSaleId()), getArchivedIds(ArchivedRecord.RecordType.SALE_ITEM));
+        assertEquals(Set.of(inventoryItem.getId()), getArchivedIds(ArchivedRecord.RecordType.INVENTORY_ITEM));
+        assertEquals(0, saleItemRepository.count());
+        assertEquals(0, inventoryItemRepository.count());
+    }
+
+    @Test
+    void sweepAll_expiredInventoryStillBeingSold_inventoryKept() throws Exception {
+        InventoryItem inventoryItem = saveInventoryItem(10);
+        saveSaleItem(inventoryItem, 60);
+        InventoryItem notExpired = saveInventoryItem(90);
+
+        createSweeper(10, 10).sweepAll();
+
+        assertEquals(Set.of(), getArchivedIds(ArchivedRecord.RecordType.INVENTORY_ITEM));
+        assertEquals(1, saleItemRepository.count());
+        assertTrue(inventoryItemRepository.existsById(inventoryItem.getId()));
+        assertTrue(inventoryItemRepository.existsById(notExpired.getId()));
+    }
+
+    @Test
+    void getStatistics_sweepRun_rowsArchivedAndLagReported() throws Exception {
+        saveCard("Closed", 1);
+        saveCard("Closed", 2);
+        saveCard("Closed", 3);
+        InventoryItem inventoryItem = saveInventoryItem(10);
+        saveSaleItem(inventoryItem, 60);
+        ExpirySweeper sweeper = createSweeper(2, 1);
+
+        sweeper.sweepAll();
+
+        JSONObject statistics = sweeper.getStatistics();
+        JSONObject cardStatistics = (JSONObject) statistics.get("marketplaceCards");
+        assertEquals(2, cardStatistics.getAsNumber("lastRunArchived").intValue());
+        assertEquals(false, cardStatistics.get("lastRunFinished"));
+        // The third card closed about 27 days before the sweeper's clock
+        assertTrue(cardStatistics.getAsNumber("lagSeconds").longValue() > ChronoUnit.DAYS.getDuration().getSeconds() * 26);
+        JSONObject inventoryStatistics = (JSONObject) statistics.get("inventoryItems");
+        assertEquals(0, inventoryStatistics.getAsNumber("lastRunArchived").intValue());
+        // The expired inventory item is still being sold, so the sweep is not behind on it
+        assertEquals(0, inventoryStatistics.getAsNumber("lagSeconds").longValue());
+    }
+}
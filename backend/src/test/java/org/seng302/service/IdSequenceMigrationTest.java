@@ -0,0 +1,172 @@
+package org.seng302.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.seng302.entities.*;
+import org.seng302.persistence.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class IdSequenceMigrationTest {
+
+    @Autowired
+    private IdSequenceMigration idSequenceMigration;
+    @Autowired
+    private ImageRepository imageRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+    @Autowired
+    private ArchivedRecordRepository archivedRecordRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        clearRepositories();
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearRepositories();
+    }
+
+    private void clearRepositories() {
+        productRepository.deleteAll();
+        imageRepository.deleteAll();
+        marketplaceCardRepository.deleteAll();
+        archivedRecordRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Takes the next value from the image id sequence
+     * @return The value
+     */
+    private long nextImageSequenceValue() {
+        return nextSequenceValue("image_id_sequence");
+    }
+
+    /**
+     * Takes the next value from an id sequence
+     * @param sequenceName The name of the sequence
+     * @return The value
+     */
+    private long nextSequenceValue(String sequenceName) {
+        return transactionTemplate.execute(status -> ((Number) entityManager
+                .createNativeQuery("SELECT NEXT VALUE FOR " + sequenceName)
+                .getSingleResult()).longValue());
+    }
+
+    @Test
+    void migrate_idInUseAfterSequence_sequenceMovedPastId() {
+        long largeId = nextImageSequenceValue() + 1000;
+        // Saved as an auto increment id would have been, without taking an id from the sequence
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createNativeQuery("INSERT INTO image (id, filename, filename_thumbnail) VALUES (:id, 'old.png', 'old_thumbnail.png')")
+                .setParameter("id", largeId)
+                .executeUpdate());
+
+        idSequenceMigration.migrate();
+
+        assertTrue(nextImageSequenceValue() >= largeId + 50);
+    }
+
+    @Test
+    void migrate_archivedRecordIdInUseAfterSequence_sequenceMovedPastId() {
+        long largeId = nextSequenceValue("archived_record_id_sequence") + 1000;
+        // Saved as an auto increment id would have been, without taking an id from the sequence
+        transactionTemplate.executeWithoutResult(status -> entityManager
+                .createNativeQuery("INSERT INTO archived_record (id, record_type, original_id, closed, archived, data) " +
+                        "VALUES (:id, 'SALE_ITEM', 1, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, '{}')")
+                .setParameter("id", largeId)
+                .executeUpdate());
+
+        idSequenceMigration.migrate();
+
+        assertTrue(nextSequenceValue("archived_record_id_sequence") >= largeId + 50);
+    }
+
+    @Test
+    void migrate_sequenceAlreadyPastIds_sequenceNotMovedBack() {
+        long before = nextImageSequenceValue();
+
+        idSequenceMigration.migrate();
+
+        // The migration takes one block of ids to find where the sequence is, and leaves the sequence there
+        assertEquals(before + 100, nextImageSequenceValue());
+    }
+
+    @Test
+    void saveAll_manyProducts_insertedInBatches() throws Exception {
+        User owner = userRepository.save(new User.Builder()
+                .withFirstName("Fergus")
+                .withLastName("Hitchcock")
+                .withEmail("fergus.sequence@gmail.com")
+                .withPassword("IDoLikeBreaks69#H3!p")
+                .withDob("1999-07-17")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .build());
+        Business business = businessRepository.save(new Business.Builder()
+                .withName("Sequence Industries")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(owner)
+                .build());
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            products.add(new Product.Builder()
+                    .withProductCode("PRODUCT" + i)
+                    .withName("Product " + i)
+                    .withBusiness(business)
+                    .build());
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        try {
+            statistics.clear();
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Product product : products) {
+                    entityManager.persist(product);
+                }
+            });
+            // 200 inserts in batches of 50, along with a few blocks of ids from the sequence
+            assertEquals(200, statistics.getEntityInsertCount());
+            assertTrue(statistics.getPrepareStatementCount() <= 10);
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+        assertEquals(200, productRepository.countByBusiness(business));
+    }
+}
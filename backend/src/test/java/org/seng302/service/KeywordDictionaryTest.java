@@ -0,0 +1,111 @@
+package org.seng302.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seng302.entities.Keyword;
+import org.seng302.persistence.KeywordRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class KeywordDictionaryTest {
+
+    private KeywordRepository keywordRepository;
+    private KeywordDictionary keywordDictionary;
+    private Map<Long, Keyword> keywordsInRepository;
+
+    private static Keyword createKeyword(long id, String name) {
+        Keyword keyword = new Keyword(name);
+        ReflectionTestUtils.setField(keyword, "id", id);
+        return keyword;
+    }
+
+    @BeforeEach
+    void setUp() {
+        keywordsInRepository = new HashMap<>();
+        for (Keyword keyword : List.of(createKeyword(1L, "Vegan"), createKeyword(2L, "Fresh"), createKeyword(3L, "Bulk"))) {
+            keywordsInRepository.put(keyword.getID(), keyword);
+        }
+        keywordRepository = mock(KeywordRepository.class);
+        when(keywordRepository.findAll()).thenAnswer(invocation -> new ArrayList<>(keywordsInRepository.values()));
+        when(keywordRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<Keyword> found = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                if (keywordsInRepository.containsKey(id)) {
+                    found.add(keywordsInRepository.get(id));
+                }
+            }
+            return found;
+        });
+        keywordDictionary = new KeywordDictionary(keywordRepository);
+    }
+
+    @Test
+    void getKeywords_rebuilt_noDatabaseLookup() {
+        keywordDictionary.rebuild();
+        List<Keyword> keywords = keywordDictionary.getKeywords(new long[] {3L, 1L});
+        assertEquals(List.of("Bulk", "Vegan"), List.of(keywords.get(0).getName(), keywords.get(1).getName()));
+        verify(keywordRepository, times(0)).findAllById(any());
+    }
+
+    @Test
+    void getKeywords_notLoaded_missingIdsFetchedInOneQuery() {
+        List<Keyword> keywords = keywordDictionary.getKeywords(new long[] {2L, 1L, 2L});
+        assertEquals(3, keywords.size());
+        assertSame(keywords.get(0), keywords.get(2));
+        verify(keywordRepository, times(1)).findAllById(Set.of(2L, 1L));
+    }
+
+    @Test
+    void getKeywords_fetchedBefore_noDatabaseLookup() {
+        keywordDictionary.getKeywords(new long[] {1L});
+        keywordDictionary.getKeywords(new long[] {1L});
+        verify(keywordRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void getKeywords_keywordDoesNotExist_badRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> keywordDictionary.getKeywords(new long[] {1L, 9L, 8L}));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("Keyword with ID 9 does not exist", exception.getReason());
+    }
+
+    @Test
+    void getKeywords_noIds_emptyListWithoutLookup() {
+        assertEquals(List.of(), keywordDictionary.getKeywords(new long[0]));
+        verify(keywordRepository, times(0)).findAllById(any());
+    }
+
+    @Test
+    void putKeyword_newKeyword_foundWithoutLookup() {
+        keywordDictionary.putKeyword(createKeyword(4L, "Keto"));
+        assertEquals("Keto", keywordDictionary.getKeywords(new long[] {4L}).get(0).getName());
+        verify(keywordRepository, times(0)).findAllById(any());
+    }
+
+    @Test
+    void removeKeyword_keywordDeleted_noLongerFound() {
+        keywordDictionary.rebuild();
+        keywordsInRepository.remove(2L);
+        keywordDictionary.removeKeyword(2L);
+        assertThrows(ResponseStatusException.class, () -> keywordDictionary.getKeywords(new long[] {2L}));
+    }
+
+    @Test
+    void getStatistics_lookups_hitsAndMissesReported() {
+        keywordDictionary.getKeywords(new long[] {1L, 2L});
+        keywordDictionary.getKeywords(new long[] {1L, 3L});
+        var statistics = keywordDictionary.getStatistics();
+        assertEquals(3, statistics.getAsNumber("keywords").intValue());
+        assertEquals(1L, statistics.getAsNumber("hits").longValue());
+        assertEquals(3L, statistics.getAsNumber("misses").longValue());
+        assertEquals(2L, statistics.getAsNumber("databaseLookups").longValue());
+    }
+}
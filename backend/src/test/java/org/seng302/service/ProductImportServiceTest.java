@@ -0,0 +1,304 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONArray;
+import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.seng302.entities.Business;
+import org.seng302.entities.Location;
+import org.seng302.entities.Product;
+import org.seng302.entities.User;
+import org.seng302.persistence.BusinessRepository;
+import org.seng302.persistence.MarketplaceCardRepository;
+import org.seng302.persistence.ProductRepository;
+import org.seng302.persistence.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"product-import.chunk-size=2", "product-import.max-reported-errors=3"})
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Business business;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        clearRepositories();
+        User owner = userRepository.save(new User.Builder()
+                .withFirstName("Fergus")
+                .withLastName("Hitchcock")
+                .withEmail("fergus.import@gmail.com")
+                .withPassword("IDoLikeBreaks69#H3!p")
+                .withDob("1999-07-17")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .build());
+        business = businessRepository.save(new Business.Builder()
+                .withName("Import Industries")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(owner)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearRepositories();
+    }
+
+    private void clearRepositories() {
+        productRepository.deleteAll();
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private ProductImportReport importCsv(String csv) throws IOException {
+        return productImportService.importProducts(business, new StringReader(csv), ProductImportService.Format.CSV);
+    }
+
+    private ProductImportReport importNdjson(String ndjson) throws IOException {
+        return productImportService.importProducts(business, new StringReader(ndjson), ProductImportService.Format.NDJSON);
+    }
+
+    /**
+     * @return The products in the business's catalogue, by product code
+     */
+    private Map<String, Product> getCatalogue() {
+        return productRepository.findAllByBusiness(business).stream()
+                .collect(Collectors.toMap(Product::getProductCode, product -> product));
+    }
+
+    /**
+     * @param report An import report
+     * @return The errors in the report
+     */
+    private List<JSONObject> getErrors(ProductImportReport report) {
+        return ((JSONArray) report.constructJSONObject().get("errors")).stream()
+                .map(JSONObject.class::cast)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void importProducts_validCsv_allProductsAdded() throws IOException {
+        ProductImportReport report = importCsv(
+                "id,name,description,manufacturer,recommendedRetailPrice\n" +
+                "APPLE,Apple,Crunchy,Orchard,1.50\n" +
+                "BANANA,Banana,,,\n" +
+                "CHERRY,Cherry,Sweet,Orchard,8\n");
+
+        assertEquals(3, report.getImportedCount());
+        assertEquals(0, report.getFailedCount());
+        Map<String, Product> catalogue = getCatalogue();
+        assertEquals(3, catalogue.size());
+        Product apple = catalogue.get("APPLE");
+        assertEquals("Apple", apple.getName());
+        assertEquals("Crunchy", apple.getDescription());
+        assertEquals("Orchard", apple.getManufacturer());
+        assertEquals(0, new BigDecimal("1.50").compareTo(apple.getRecommendedRetailPrice()));
+        assertEquals("New Zealand", apple.getCountryOfSale());
+        assertNull(catalogue.get("BANANA").getDescription());
+        assertNull(catalogue.get("BANANA").getRecommendedRetailPrice());
+    }
+
+    @Test
+    void importProducts_csvColumnsInOtherOrder_columnsMatchedByHeader() throws IOException {
+        ProductImportReport report = importCsv("name,notes,id\nApple,ignored,APPLE\n");
+
+        assertEquals(1, report.getImportedCount());
+        assertEquals("Apple", getCatalogue().get("APPLE").getName());
+    }
+
+    @Test
+    void importProducts_csvQuotedValues_quotesRemoved() throws IOException {
+        importCsv("id,name,description\nAPPLE,\"Apple, Red\",\"The \"\"best\"\" apple\"\n");
+
+        Product apple = getCatalogue().get("APPLE");
+        assertEquals("Apple, Red", apple.getName());
+        assertEquals("The \"best\" apple", apple.getDescription());
+    }
+
+    @Test
+    void importProducts_csvWithoutHeader_400Thrown() {
+        var exception = assertThrows(ResponseStatusException.class, () -> importCsv("\n\n"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void importProducts_csvHeaderWithoutProductCode_400ThrownAndNothingAdded() {
+        var exception = assertThrows(ResponseStatusException.class, () -> importCsv("code,name\nAPPLE,Apple\n"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertTrue(getCatalogue().isEmpty());
+    }
+
+    @Test
+    void importProducts_csvRowWithWrongNumberOfColumns_rowReported() throws IOException {
+        ProductImportReport report = importCsv("id,name\nAPPLE,Apple,extra\nBANANA,Banana\n");
+
+        assertEquals(1, report.getImportedCount());
+        JSONObject error = getErrors(report).get(0);
+        assertEquals(2L, error.get("row"));
+        assertEquals("Row has 3 columns but the header has 2", error.get("message"));
+    }
+
+    @Test
+    void importProducts_validNdjson_allProductsAdded() throws IOException {
+        ProductImportReport report = importNdjson(
+                "{\"id\": \"APPLE\", \"name\": \"Apple\", \"recommendedRetailPrice\": 1.5}\n" +
+                "\n" +
+                "{\"id\": \"BANANA\", \"name\": \"Banana\", \"manufacturer\": \"Plantation\"}\n");
+
+        assertEquals(2, report.getImportedCount());
+        Map<String, Product> catalogue = getCatalogue();
+        assertEquals(0, new BigDecimal("1.5").compareTo(catalogue.get("APPLE").getRecommendedRetailPrice()));
+        assertEquals("Plantation", catalogue.get("BANANA").getManufacturer());
+    }
+
+    @Test
+    void importProducts_ndjsonRowNotObject_rowReported() throws IOException {
+        ProductImportReport report = importNdjson("[1, 2]\n{\"id\": \"APPLE\", \"name\": \"Apple\"}\n");
+
+        assertEquals(1, report.getImportedCount());
+        assertEquals(1, report.getFailedCount());
+        assertEquals("Row is not a JSON object", getErrors(report).get(0).get("message"));
+    }
+
+    @Test
+    void importProducts_invalidRows_validRowsAddedAndInvalidRowsReported() throws IOException {
+        ProductImportReport report = importCsv(
+                "id,name,recommendedRetailPrice\n" +
+                "apple,Apple,1\n" +
+                "BANANA,Banana,cheap\n" +
+                "CHERRY,,1\n" +
+                "DATE,Date,2\n");
+
+        assertEquals(1, report.getImportedCount());
+        assertEquals(3, report.getFailedCount());
+        assertEquals(List.of("DATE"), List.copyOf(getCatalogue().keySet()));
+        List<JSONObject> errors = getErrors(report);
+        assertEquals(2L, errors.get(0).get("row"));
+        assertEquals("apple", errors.get(0).get("productCode"));
+        assertEquals("Product code must have a valid format", errors.get(0).get("message"));
+        assertEquals("The recommended retail price is not a number", errors.get(1).get("message"));
+        assertEquals("Product name must be between 1-50 characters long", errors.get(2).get("message"));
+    }
+
+    @Test
+    void importProducts_productCodeAlreadyInCatalogue_rowReported() throws IOException {
+        productRepository.save(new Product.Builder()
+                .withProductCode("APPLE")
+                .withName("Original Apple")
+                .withBusiness(business)
+                .build());
+
+        ProductImportReport report = importCsv("id,name\nBANANA,Banana\nAPPLE,New Apple\nCHERRY,Cherry\n");
+
+        assertEquals(2, report.getImportedCount());
+        JSONObject error = getErrors(report).get(0);
+        assertEquals(3L, error.get("row"));
+        assertEquals("APPLE", error.get("productCode"));
+        assertEquals("Original Apple", getCatalogue().get("APPLE").getName());
+    }
+
+    @Test
+    void importProducts_productCodeRepeatedInSameChunk_laterRowReported() throws IOException {
+        ProductImportReport report = importCsv("id,name\nAPPLE,Apple\nAPPLE,Apple again\nBANANA,Banana\n");
+
+        assertEquals(2, report.getImportedCount());
+        JSONObject error = getErrors(report).get(0);
+        assertEquals(3L, error.get("row"));
+        assertEquals("Product code appears more than once in the upload", error.get("message"));
+        assertEquals("Apple", getCatalogue().get("APPLE").getName());
+    }
+
+    @Test
+    void importProducts_productCodeRepeatedInLaterChunk_laterRowReportedAsInCatalogue() throws IOException {
+        ProductImportReport report = importCsv("id,name\nAPPLE,Apple\nBANANA,Banana\nCHERRY,Cherry\nAPPLE,Apple again\n");
+
+        assertEquals(3, report.getImportedCount());
+        JSONObject error = getErrors(report).get(0);
+        assertEquals(5L, error.get("row"));
+        assertEquals("Product already exists with product code in this catalogue", error.get("message"));
+        assertEquals("Apple", getCatalogue().get("APPLE").getName());
+    }
+
+    @Test
+    void importProducts_businessLoadedByCaller_businessStaysAttached() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Business loaded = entityManager.find(Business.class, business.getId());
+            ProductImportReport report;
+            try {
+                report = productImportService.importProducts(loaded,
+                        new StringReader("id,name\nAPPLE,Apple\nBANANA,Banana\nCHERRY,Cherry\n"),
+                        ProductImportService.Format.CSV);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            assertEquals(3, report.getImportedCount());
+            assertTrue(entityManager.contains(loaded));
+        });
+        assertEquals(3, getCatalogue().size());
+    }
+
+    @Test
+    void importProducts_moreErrorsThanReported_errorsTruncatedButAllCounted() throws IOException {
+        ProductImportReport report = importCsv("id,name\na,A\nb,B\nc,C\nd,D\nE,E\n");
+
+        JSONObject json = report.constructJSONObject();
+        assertEquals(1L, json.get("imported"));
+        assertEquals(4L, json.get("failed"));
+        assertEquals(3, ((JSONArray) json.get("errors")).size());
+        assertEquals(true, json.get("errorsTruncated"));
+    }
+
+    @Test
+    void parseCsvLine_plainValues_splitOnCommas() {
+        assertEquals(List.of("a", "b", "", "d"), ProductImportService.parseCsvLine("a,b,,d"));
+    }
+
+    @Test
+    void parseCsvLine_quotedValues_commasAndEscapedQuotesKept() {
+        assertEquals(List.of("a,b", "say \"hi\"", "c"), ProductImportService.parseCsvLine("\"a,b\",\"say \"\"hi\"\"\",c"));
+    }
+
+    @Test
+    void parseCsvLine_unclosedQuote_exceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> ProductImportService.parseCsvLine("\"a,b"));
+    }
+}
@@ -0,0 +1,123 @@
+package org.seng302.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.seng302.entities.Business;
+import org.seng302.entities.Location;
+import org.seng302.entities.Product;
+import org.seng302.entities.User;
+import org.seng302.persistence.*;
+import org.seng302.tools.CollationSort;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+class ProductSortKeyMigrationTest {
+
+    @Autowired
+    private ProductSortKeyMigration productSortKeyMigration;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Business business;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        clearRepositories();
+        User owner = userRepository.save(new User.Builder()
+                .withFirstName("Fergus")
+                .withLastName("Hitchcock")
+                .withEmail("fergus.sortkey@gmail.com")
+                .withPassword("IDoLikeBreaks69#H3!p")
+                .withDob("1999-07-17")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .build());
+        business = businessRepository.save(new Business.Builder()
+                .withName("Sort Key Industries")
+                .withAddress(Location.covertAddressStringToLocation("6,Help Street,Place,Dunedin,New Zealand,Otago,6959"))
+                .withBusinessType("Accommodation and Food Services")
+                .withPrimaryOwner(owner)
+                .build());
+        for (String name : List.of("Zucchini", "Éclair", "apple", "Eggs")) {
+            productRepository.save(new Product.Builder()
+                    .withProductCode(name.substring(1).toUpperCase())
+                    .withName(name)
+                    .withManufacturer(name + " Co")
+                    .withBusiness(business)
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        clearRepositories();
+    }
+
+    private void clearRepositories() {
+        productRepository.deleteAll();
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private List<String> getNamesOrderedBy(String sortKeyProperty) {
+        Sort sort = Sort.by(Sort.Order.asc(sortKeyProperty).nullsLast()).and(Sort.by("id"));
+        return productRepository.findCataloguePage(business, PageRequest.of(0, 10, sort)).stream()
+                .map(Product::getName)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Empties the sort key columns, as they are for products saved before the columns were added
+     */
+    private void clearSortKeys() {
+        transactionTemplate.executeWithoutResult(status -> entityManager.createNativeQuery(
+                "UPDATE product SET name_sort_key = NULL, description_sort_key = NULL, manufacturer_sort_key = NULL")
+                .executeUpdate());
+    }
+
+    @Test
+    void save_newProducts_orderedBySortKey() {
+        assertEquals(List.of("apple", "Éclair", "Eggs", "Zucchini"), getNamesOrderedBy("nameSortKey"));
+    }
+
+    @Test
+    void migrate_sortKeysMissing_sortKeysComputed() {
+        clearSortKeys();
+
+        productSortKeyMigration.migrate();
+
+        assertEquals(List.of("apple", "Éclair", "Eggs", "Zucchini"), getNamesOrderedBy("nameSortKey"));
+        assertEquals(List.of("apple", "Éclair", "Eggs", "Zucchini"), getNamesOrderedBy("manufacturerSortKey"));
+        Object key = entityManager.createNativeQuery("SELECT name_sort_key FROM product WHERE name = 'apple'")
+                .getSingleResult();
+        assertEquals(CollationSort.getSortKey("apple"), key);
+    }
+}
@@ -0,0 +1,91 @@
+package org.seng302.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserNameFuzzyIndexTest {
+
+    private UserNameFuzzyIndex userNameFuzzyIndex;
+
+    @BeforeEach
+    void setUp() {
+        userNameFuzzyIndex = new UserNameFuzzyIndex(true, 10);
+        userNameFuzzyIndex.putUser(1, Arrays.asList("Donald", null, "Duck", "Don"));
+        userNameFuzzyIndex.putUser(2, Arrays.asList("Ronald", "Mary-Ann", "McDonald", null));
+        userNameFuzzyIndex.putUser(3, Arrays.asList("Christopher", null, "Smith", null));
+    }
+
+    @Test
+    void getWords_namesWithSpacesAndHyphens_lowerCaseWordsReturned() {
+        assertEquals(Set.of("mary", "ann", "van", "der", "berg"),
+                UserNameFuzzyIndex.getWords(Arrays.asList("Mary-Ann", null, "van der Berg", "")));
+    }
+
+    @Test
+    void findAlternatives_oneEditAway_wordsFound() {
+        assertEquals(List.of("donald"), userNameFuzzyIndex.findAlternatives("Donld"));
+        assertEquals(List.of("smith"), userNameFuzzyIndex.findAlternatives("smth"));
+    }
+
+    @Test
+    void findAlternatives_longTermTwoEditsAway_wordFound() {
+        assertEquals(List.of("christopher"), userNameFuzzyIndex.findAlternatives("christhoper"));
+    }
+
+    @Test
+    void findAlternatives_shortTermTwoEditsAway_wordNotFound() {
+        assertEquals(List.of(), userNameFuzzyIndex.findAlternatives("smiht"));
+    }
+
+    @Test
+    void findAlternatives_termShorterThanFourCharacters_noAlternatives() {
+        assertEquals(List.of(), userNameFuzzyIndex.findAlternatives("dan"));
+    }
+
+    @Test
+    void findAlternatives_wordContainsTerm_wordNotReturned() {
+        // "ronald" is already found by the partial match, so only "donald" is an alternative
+        assertEquals(List.of("donald"), userNameFuzzyIndex.findAlternatives("ronald"));
+    }
+
+    @Test
+    void findAlternatives_termContainsWildcard_noAlternatives() {
+        assertEquals(List.of(), userNameFuzzyIndex.findAlternatives("smt%"));
+    }
+
+    @Test
+    void findAlternatives_userRemoved_wordsNoLongerFound() {
+        assertEquals(List.of("ronald"), userNameFuzzyIndex.findAlternatives("ronnald"));
+        userNameFuzzyIndex.removeUser(2);
+        assertEquals(List.of(), userNameFuzzyIndex.findAlternatives("ronnald"));
+    }
+
+    @Test
+    void findAlternatives_wordUsedByAnotherUser_wordStillFoundAfterRemoval() {
+        userNameFuzzyIndex.putUser(4, Arrays.asList("Ronald", null, "Reagan", null));
+        userNameFuzzyIndex.removeUser(2);
+        assertEquals(List.of("ronald"), userNameFuzzyIndex.findAlternatives("ronnald"));
+    }
+
+    @Test
+    void putUser_newWord_versionChanged() {
+        long version = userNameFuzzyIndex.getVersion();
+        userNameFuzzyIndex.putUser(3, Arrays.asList("Christopher", null, "Smith", null));
+        assertEquals(version, userNameFuzzyIndex.getVersion());
+        userNameFuzzyIndex.putUser(3, Arrays.asList("Christopher", null, "Smyth", null));
+        assertNotEquals(version, userNameFuzzyIndex.getVersion());
+    }
+
+    @Test
+    void findAlternatives_disabled_noAlternatives() {
+        userNameFuzzyIndex = new UserNameFuzzyIndex(false, 10);
+        userNameFuzzyIndex.putUser(3, Arrays.asList("Christopher", null, "Smith", null));
+        assertEquals(List.of(), userNameFuzzyIndex.findAlternatives("smth"));
+    }
+}
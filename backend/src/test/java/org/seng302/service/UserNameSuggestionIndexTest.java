@@ -0,0 +1,95 @@
+package org.seng302.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seng302.persistence.UserNames;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserNameSuggestionIndexTest {
+
+    private UserNameSuggestionIndex userNameSuggestionIndex;
+
+    @BeforeEach
+    void setUp() {
+        userNameSuggestionIndex = new UserNameSuggestionIndex(true, 3);
+        userNameSuggestionIndex.putUser(1, Arrays.asList("John", null, "Smith", "Johnny"));
+        userNameSuggestionIndex.putUser(2, Arrays.asList("Jane", "Mary", "Smith", null));
+        userNameSuggestionIndex.putUser(3, Arrays.asList("Johann", null, "Smyth", null));
+    }
+
+    @Test
+    void suggest_prefix_completionsOrderedByNumberOfUsers() {
+        assertEquals(List.of("smith", "smyth"), userNameSuggestionIndex.suggest("sm", 10));
+    }
+
+    @Test
+    void suggest_upperCasePrefix_completionsFound() {
+        assertEquals(List.of("johann", "john", "johnny"), userNameSuggestionIndex.suggest("JOH", 10));
+    }
+
+    @Test
+    void suggest_multipleWords_lastWordCompleted() {
+        assertEquals(List.of("John sm smith", "John sm smyth"), userNameSuggestionIndex.suggest("John sm sm", 10));
+        assertEquals(List.of("jane smith"), userNameSuggestionIndex.suggest("jane smi", 10));
+    }
+
+    @Test
+    void suggest_prefixEndsWithSpace_noSuggestions() {
+        assertEquals(List.of(), userNameSuggestionIndex.suggest("john ", 10));
+        assertEquals(List.of(), userNameSuggestionIndex.suggest("", 10));
+    }
+
+    @Test
+    void suggest_limitGiven_atMostLimitReturned() {
+        assertEquals(List.of("jane"), userNameSuggestionIndex.suggest("j", 1));
+        assertEquals(3, userNameSuggestionIndex.suggest("j", 10).size());
+    }
+
+    @Test
+    void putUser_nameChanged_oldWordsRemoved() {
+        userNameSuggestionIndex.putUser(3, Arrays.asList("Johann", null, "Schmidt", null));
+        assertEquals(List.of("smith"), userNameSuggestionIndex.suggest("sm", 10));
+        assertEquals(List.of("schmidt"), userNameSuggestionIndex.suggest("sc", 10));
+    }
+
+    @Test
+    void removeUser_onlyUserWithWord_wordRemoved() {
+        userNameSuggestionIndex.removeUser(2);
+        assertEquals(List.of(), userNameSuggestionIndex.suggest("ma", 10));
+        assertEquals(List.of("smith", "smyth"), userNameSuggestionIndex.suggest("sm", 10));
+    }
+
+    @Test
+    void rebuild_users_previousUsersReplaced() {
+        UserNames user = mock(UserNames.class);
+        when(user.getUserID()).thenReturn(4L);
+        when(user.getFirstName()).thenReturn("Lucy");
+        when(user.getLastName()).thenReturn("McDonald");
+        userNameSuggestionIndex.rebuild(List.of(user));
+        assertEquals(List.of(), userNameSuggestionIndex.suggest("sm", 10));
+        assertEquals(List.of("mcdonald"), userNameSuggestionIndex.suggest("m", 10));
+    }
+
+    @Test
+    void suggest_disabled_noSuggestions() {
+        userNameSuggestionIndex = new UserNameSuggestionIndex(false, 3);
+        userNameSuggestionIndex.putUser(1, Arrays.asList("John", null, "Smith", null));
+        assertEquals(List.of(), userNameSuggestionIndex.suggest("sm", 10));
+    }
+
+    @Test
+    void getStatistics_wordsAdded_memoryFootprintReported() {
+        userNameSuggestionIndex.suggest("sm", 10);
+        var statistics = userNameSuggestionIndex.getStatistics();
+        assertEquals(7, statistics.getAsNumber("words").intValue());
+        assertEquals(3, statistics.getAsNumber("users").intValue());
+        assertEquals(1L, statistics.getAsNumber("suggestions").longValue());
+        assertTrue(statistics.getAsNumber("estimatedMemoryBytes").longValue() > 0);
+    }
+}
@@ -0,0 +1,181 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.*;
+import org.junit.runner.RunWith;
+import org.seng302.entities.Location;
+import org.seng302.entities.User;
+import org.seng302.persistence.BusinessRepository;
+import org.seng302.persistence.MarketplaceCardRepository;
+import org.seng302.persistence.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"user-search.trigram-table.enabled=true",
+        "user-search.trigram-table.backfill-batch-size=2"})
+class UserNameTrigramServiceTest {
+    @Autowired
+    private UserNameTrigramService userNameTrigramService;
+    @Autowired
+    private UserSearchPlanCache userSearchPlanCache;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private User donaldDuck;
+    private User donaldSmith;
+    private User lucyMcDonald;
+
+    @BeforeEach
+    void setUp() throws ParseException {
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+        lucyMcDonald = userRepository.save(createUser("Lucy", "McDonald", "lucy@mcdonald.com"));
+        donaldSmith = userRepository.save(createUser("Donald", "Smith", "donald@smith.com"));
+        donaldDuck = userRepository.save(createUser("Donald", "Duck", "donald@duck.com"));
+        userSearchPlanCache.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Creates a user with the given name and email which can be saved to the repository.
+     * @param firstName The user's first name
+     * @param lastName The user's last name
+     * @param email The user's email
+     * @return A new user
+     */
+    private User createUser(String firstName, String lastName, String email) throws ParseException {
+        Location address = new Location.Builder()
+                .inCity("city")
+                .inCountry("New Zealand")
+                .inRegion("region")
+                .onStreet("street")
+                .atStreetNumber("3")
+                .withPostCode("222")
+                .build();
+        return new User.Builder()
+                .withEmail(email)
+                .withFirstName(firstName)
+                .withLastName(lastName)
+                .withAddress(address)
+                .withPassword("password123")
+                .withDob("2000-08-04")
+                .build();
+    }
+
+    /**
+     * Gets the trigrams stored in the trigram table for the given user.
+     * @param user The user to get the trigrams of
+     * @return The user's trigrams
+     */
+    private Set<String> getStoredTrigrams(User user) {
+        List<String> trigrams = entityManager.createQuery(
+                "SELECT t.trigram FROM UserNameTrigram t WHERE t.userId = :userId", String.class)
+                .setParameter("userId", user.getUserID())
+                .getResultList();
+        return new HashSet<>(trigrams);
+    }
+
+    private static List<Long> getIds(List<User> users) {
+        return users.stream().map(User::getUserID).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void userSaved_trigramsOfNamesStored() {
+        assertEquals(Set.of("don", "ona", "nal", "ald", "duc", "uck"), getStoredTrigrams(donaldDuck));
+    }
+
+    @Test
+    void userRenamed_trigramsReplaced() {
+        donaldSmith.setFirstName("Daisy");
+        userRepository.save(donaldSmith);
+        assertEquals(Set.of("dai", "ais", "isy", "smi", "mit", "ith"), getStoredTrigrams(donaldSmith));
+    }
+
+    @Test
+    void userDeleted_trigramsRemoved() {
+        userRepository.delete(donaldDuck);
+        assertEquals(Set.of(), getStoredTrigrams(donaldDuck));
+    }
+
+    @Test
+    void userIsDGAA_noTrigramsStored() throws ParseException {
+        User dgaa = createUser("Duck", "Admin", "duck@admin.com");
+        dgaa.setRole("defaultGlobalApplicationAdmin");
+        dgaa = userRepository.save(dgaa);
+        assertEquals(Set.of(), getStoredTrigrams(dgaa));
+    }
+
+    @Test
+    void backfill_trigramsMissing_trigramsStoredForEveryUser() {
+        userNameTrigramService.removeUser(lucyMcDonald.getUserID());
+        userNameTrigramService.removeUser(donaldDuck.getUserID());
+        // The batch size is 2, so the backfill needs more than one batch
+        assertEquals(3, userNameTrigramService.backfill());
+        assertEquals(Set.of("luc", "ucy", "mcd", "cdo", "don", "ona", "nal", "ald"), getStoredTrigrams(lucyMcDonald));
+        assertEquals(Set.of("don", "ona", "nal", "ald", "duc", "uck"), getStoredTrigrams(donaldDuck));
+        assertTrue(userNameTrigramService.isSearchable());
+    }
+
+    @Test
+    void backfill_runTwice_sameTrigramsStored() {
+        userNameTrigramService.backfill();
+        Set<String> before = getStoredTrigrams(donaldSmith);
+        userNameTrigramService.backfill();
+        assertEquals(before, getStoredTrigrams(donaldSmith));
+    }
+
+    @Test
+    void searchUsers_trigramTableUsed_sameResultsAsLikeSearch() {
+        assertTrue(userSearchPlanCache.getPlan("onal").usesTrigramTable());
+        assertEquals(getIds(List.of(lucyMcDonald, donaldSmith, donaldDuck)),
+                getIds(userRepository.searchUsers("onal", Pageable.unpaged()).getContent()));
+        assertEquals(getIds(List.of(donaldDuck)),
+                getIds(userRepository.searchUsers("ald and duck", Pageable.unpaged()).getContent()));
+        assertEquals(getIds(List.of(lucyMcDonald, donaldDuck)),
+                getIds(userRepository.searchUsers("lucy or \"Duck\"", Pageable.unpaged()).getContent()));
+        assertEquals(1, userRepository.countSearchResults("mcdon"));
+    }
+
+    @Test
+    void searchUsers_trigramsInDifferentNames_userNotMatched() {
+        // Donald Smith has the trigrams "don" and "smi", but not "ons" or "nsm"
+        assertEquals(List.of(), userRepository.searchUsers("donsmi", Pageable.unpaged()).getContent());
+    }
+
+    @Test
+    void searchUsers_shortTerm_likeSearchUsed() {
+        assertEquals(getIds(List.of(lucyMcDonald, donaldSmith, donaldDuck)),
+                getIds(userRepository.searchUsers("d", Pageable.unpaged()).getContent()));
+    }
+
+    @Test
+    void getStatistics_tableEnabled_searchableReported() {
+        JSONObject statistics = userNameTrigramService.getStatistics();
+        assertEquals(true, statistics.get("enabled"));
+        assertEquals(true, statistics.get("searchable"));
+    }
+}
@@ -0,0 +1,179 @@
+package org.seng302.service;
+
+import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.*;
+import org.junit.runner.RunWith;
+import org.seng302.entities.Location;
+import org.seng302.entities.User;
+import org.seng302.persistence.BusinessRepository;
+import org.seng302.persistence.MarketplaceCardRepository;
+import org.seng302.persistence.UserRepository;
+import org.seng302.persistence.UserSearchPlan;
+import org.seng302.tools.SearchHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.text.ParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "user-search.ngram-index.enabled=true")
+class UserSearchIndexImplTest {
+    @Autowired
+    private UserSearchIndexImpl userSearchIndex;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BusinessRepository businessRepository;
+    @Autowired
+    private MarketplaceCardRepository marketplaceCardRepository;
+
+    private User donaldDuck;
+    private User donaldSmith;
+    private User lucyMcDonald;
+
+    @BeforeEach
+    void setUp() throws ParseException {
+        marketplaceCardRepository.deleteAll();
+        businessRepository.deleteAll();
+        userRepository.deleteAll();
+        lucyMcDonald = userRepository.save(createUser("Lucy", "McDonald", "lucy@mcdonald.com"));
+        donaldSmith = userRepository.save(createUser("Donald", "Smith", "donald@smith.com"));
+        donaldDuck = userRepository.save(createUser("Donald", "Duck", "donald@duck.com"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    /**
+     * Creates a user with the given name and email which can be saved to the repository.
+     * @param firstName The user's first name
+     * @param lastName The user's last name
+     * @param email The user's email
+     * @return A new user
+     */
+    private User createUser(String firstName, String lastName, String email) throws ParseException {
+        Location address = new Location.Builder()
+                .inCity("city")
+                .inCountry("New Zealand")
+                .inRegion("region")
+                .onStreet("street")
+                .atStreetNumber("3")
+                .withPostCode("222")
+                .build();
+        return new User.Builder()
+                .withEmail(email)
+                .withFirstName(firstName)
+                .withLastName(lastName)
+                .withAddress(address)
+                .withPassword("password123")
+                .withDob("2000-08-04")
+                .build();
+    }
+
+    /**
+     * Searches the index, failing the test if it could not answer the query.
+     * @param searchQuery The query to search for
+     * @param sort The order to return the results in
+     * @return The ids of the matching users
+     */
+    private List<Long> searchIndex(String searchQuery, Sort sort) {
+        Optional<List<Long>> result = userSearchIndex.search(UserSearchPlan.compile(searchQuery), sort);
+        assertTrue(result.isPresent());
+        return result.get();
+    }
+
+    @Test
+    void search_usersSaved_usersFoundInRelevanceOrder() {
+        List<Long> result = searchIndex("Donald or Duck", SearchHelper.getUserSearchSort(null, false));
+        assertEquals(List.of(donaldDuck.getUserID(), donaldSmith.getUserID(), lucyMcDonald.getUserID()), result);
+    }
+
+    @Test
+    void search_reverseOrder_usersFoundInReverseRelevanceOrder() {
+        List<Long> result = searchIndex("Donald or Duck", SearchHelper.getUserSearchSort(null, true));
+        assertEquals(List.of(lucyMcDonald.getUserID(), donaldSmith.getUserID(), donaldDuck.getUserID()), result);
+    }
+
+    @Test
+    void search_orderByUserId_usersFoundInIdOrder() {
+        List<Long> result = searchIndex("donald", SearchHelper.getUserSearchSort("userID", false));
+        assertEquals(List.of(lucyMcDonald.getUserID(), donaldSmith.getUserID(), donaldDuck.getUserID()), result);
+    }
+
+    @Test
+    void search_fuzzyAlternatives_fuzzyMatchesLast() {
+        UserSearchPlan plan = UserSearchPlan.compile("Smth or Lucy", false,
+                term -> term.equals("Smth") ? List.of("smith") : List.of());
+        Optional<List<Long>> result = userSearchIndex.search(plan, SearchHelper.getUserSearchSort(null, false));
+        assertEquals(Optional.of(List.of(lucyMcDonald.getUserID(), donaldSmith.getUserID())), result);
+    }
+
+    @Test
+    void search_orderByName_indexNotUsed() {
+        Sort firstNameSort = SearchHelper.getUserSearchSort("firstName", false);
+        assertTrue(userSearchIndex.search(UserSearchPlan.compile("donald"), firstNameSort).isEmpty());
+    }
+
+    @Test
+    void search_queryContainsWildcard_indexNotUsed() {
+        assertTrue(userSearchIndex.search(UserSearchPlan.compile("don%"), Sort.unsorted()).isEmpty());
+        assertTrue(userSearchIndex.search(UserSearchPlan.compile("\"D_nald\""), Sort.unsorted()).isEmpty());
+    }
+
+    @Test
+    void search_userRenamed_newNameFound() {
+        donaldSmith.setFirstName("Daisy");
+        userRepository.save(donaldSmith);
+        assertEquals(List.of(donaldSmith.getUserID()), searchIndex("daisy", Sort.unsorted()));
+        assertFalse(searchIndex("donald", Sort.unsorted()).contains(donaldSmith.getUserID()));
+    }
+
+    @Test
+    void search_userDeleted_userNotFound() {
+        userRepository.delete(donaldDuck);
+        assertEquals(List.of(), searchIndex("duck", Sort.unsorted()));
+    }
+
+    @Test
+    void search_userIsDGAA_userNotFound() throws ParseException {
+        User dgaa = createUser("Duck", "Admin", "duck@admin.com");
+        dgaa.setRole("defaultGlobalApplicationAdmin");
+        userRepository.save(dgaa);
+        assertEquals(List.of(donaldDuck.getUserID()), searchIndex("duck", Sort.unsorted()));
+    }
+
+    @Test
+    void rebuild_fromRepository_sameResultsAsIncrementalUpdates() {
+        List<Long> before = searchIndex("d or l", Sort.unsorted());
+        userSearchIndex.rebuild(userRepository.findAllUserNames());
+        assertEquals(before, searchIndex("d or l", Sort.unsorted()));
+    }
+
+    @Test
+    void searchUsers_indexEnabled_sameResultsAsDatabase() {
+        Page<User> page = userRepository.searchUsers("Donald or Duck",
+                SearchHelper.getPageRequest(2, 2, SearchHelper.getUserSearchSort(null, false)));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of(lucyMcDonald.getUserID()),
+                page.getContent().stream().map(User::getUserID).collect(Collectors.toList()));
+        assertEquals(3, userRepository.countSearchResults("donald"));
+    }
+
+    @Test
+    void getStatistics_usersIndexed_userCountAndMemoryReported() {
+        JSONObject statistics = userSearchIndex.getStatistics();
+        assertEquals(true, statistics.get("enabled"));
+        assertEquals(3, statistics.get("users"));
+        assertTrue((long) statistics.get("estimatedMemoryBytes") > 0);
+    }
+}
@@ -0,0 +1,67 @@
+package org.seng302.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seng302.exceptions.SearchFormatException;
+import org.seng302.persistence.UserSearchPlan;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserSearchPlanCacheTest {
+
+    private UserSearchPlanCache userSearchPlanCache;
+    private UserNameTrigramService userNameTrigramService;
+
+    @BeforeEach
+    void setUp() {
+        userNameTrigramService = mock(UserNameTrigramService.class);
+        userSearchPlanCache = new UserSearchPlanCache(2, userNameTrigramService, mock(UserNameFuzzyIndex.class));
+    }
+
+    @Test
+    void getPlan_sameQueryTwice_samePlanReturned() {
+        UserSearchPlan plan = userSearchPlanCache.getPlan("andy or bob");
+        assertSame(plan, userSearchPlanCache.getPlan("andy or bob"));
+        assertEquals(1L, userSearchPlanCache.getStatistics().get("hits"));
+        assertEquals(1L, userSearchPlanCache.getStatistics().get("misses"));
+    }
+
+    @Test
+    void getPlan_queriesDifferInSpacing_samePlanReturned() {
+        UserSearchPlan plan = userSearchPlanCache.getPlan("andy or bob");
+        assertSame(plan, userSearchPlanCache.getPlan("andy   or bob  "));
+    }
+
+    @Test
+    void getPlan_differentQueries_differentPlansReturned() {
+        assertNotSame(userSearchPlanCache.getPlan("andy"), userSearchPlanCache.getPlan("bob"));
+    }
+
+    @Test
+    void getPlan_invalidQuery_exceptionThrownAndNotCached() {
+        assertThrows(SearchFormatException.class, () -> userSearchPlanCache.getPlan("\"andy"));
+        assertEquals(0, userSearchPlanCache.getStatistics().get("size"));
+    }
+
+    @Test
+    void normaliseQuery_leadingSpaces_leadingSpacesKept() {
+        assertEquals(" andy bob", UserSearchPlanCache.normaliseQuery("  andy   bob   "));
+    }
+
+    @Test
+    void getPlan_trigramTableNotSearchable_planDoesNotUseTrigramTable() {
+        when(userNameTrigramService.isSearchable()).thenReturn(false);
+        assertFalse(userSearchPlanCache.getPlan("andy").usesTrigramTable());
+    }
+
+    @Test
+    void getPlan_trigramTableBecomesSearchableAndCacheCleared_planUsesTrigramTable() {
+        when(userNameTrigramService.isSearchable()).thenReturn(false);
+        userSearchPlanCache.getPlan("andy");
+        when(userNameTrigramService.isSearchable()).thenReturn(true);
+        userSearchPlanCache.clear();
+        assertTrue(userSearchPlanCache.getPlan("andy").usesTrigramTable());
+    }
+}
@@ -0,0 +1,83 @@
+package org.seng302.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.seng302.tools.EvictionPolicy;
+import org.seng302.tools.SearchHelper;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchResultCacheTest {
+
+    private UserSearchResultCache userSearchResultCache;
+    private final Sort relevance = SearchHelper.getUserSearchSort(null, false);
+
+    @BeforeEach
+    void setUp() {
+        userSearchResultCache = new UserSearchResultCache(true, 2, EvictionPolicy.LEAST_RECENTLY_USED, 3);
+    }
+
+    @Test
+    void getResults_resultsPut_resultsReturned() {
+        userSearchResultCache.putResults("andy", relevance, userSearchResultCache.getUserVersion(), List.of(3L, 1L));
+        assertEquals(Optional.of(List.of(3L, 1L)), userSearchResultCache.getResults("andy", relevance));
+    }
+
+    @Test
+    void getResults_queryDiffersOnlyInSpacing_resultsReturned() {
+        userSearchResultCache.putResults("andy  or bob", relevance, userSearchResultCache.getUserVersion(), List.of(1L));
+        assertEquals(Optional.of(List.of(1L)), userSearchResultCache.getResults("andy or bob ", relevance));
+    }
+
+    @Test
+    void getResults_differentOrder_resultsNotReturned() {
+        userSearchResultCache.putResults("andy", relevance, userSearchResultCache.getUserVersion(), List.of(3L, 1L));
+        assertTrue(userSearchResultCache.getResults("andy", SearchHelper.getUserSearchSort(null, true)).isEmpty());
+        assertTrue(userSearchResultCache.getResults("andy", SearchHelper.getUserSearchSort("firstName", false)).isEmpty());
+    }
+
+    @Test
+    void getResults_userChanged_resultsNotReturned() {
+        userSearchResultCache.putResults("andy", relevance, userSearchResultCache.getUserVersion(), List.of(1L));
+        userSearchResultCache.userChanged();
+        assertTrue(userSearchResultCache.getResults("andy", relevance).isEmpty());
+    }
+
+    @Test
+    void putResults_userChangedDuringSearch_resultsNotCached() {
+        long userVersion = userSearchResultCache.getUserVersion();
+        userSearchResultCache.userChanged();
+        userSearchResultCache.putResults("andy", relevance, userVersion, List.of(1L));
+        assertTrue(userSearchResultCache.getResults("andy", relevance).isEmpty());
+    }
+
+    @Test
+    void putResults_tooManyIds_resultsNotCached() {
+        userSearchResultCache.putResults("andy", relevance, userSearchResultCache.getUserVersion(),
+                List.of(1L, 2L, 3L, 4L));
+        assertTrue(userSearchResultCache.getResults("andy", relevance).isEmpty());
+        assertEquals(1L, userSearchResultCache.getStatistics().get("uncacheableResults"));
+    }
+
+    @Test
+    void putResults_cacheFull_leastRecentlyUsedEvicted() {
+        long userVersion = userSearchResultCache.getUserVersion();
+        userSearchResultCache.putResults("andy", relevance, userVersion, List.of(1L));
+        userSearchResultCache.putResults("bob", relevance, userVersion, List.of(2L));
+        userSearchResultCache.getResults("andy", relevance);
+        userSearchResultCache.putResults("carl", relevance, userVersion, List.of(3L));
+        assertTrue(userSearchResultCache.getResults("bob", relevance).isEmpty());
+        assertTrue(userSearchResultCache.getResults("andy", relevance).isPresent());
+    }
+
+    @Test
+    void getResults_disabled_resultsNotCached() {
+        userSearchResultCache = new UserSearchResultCache(false, 2, EvictionPolicy.LEAST_RECENTLY_USED, 3);
+        userSearchResultCache.putResults("andy", relevance, userSearchResultCache.getUserVersion(), List.of(1L));
+        assertTrue(userSearchResultCache.getResults("andy", relevance).isEmpty());
+    }
+}
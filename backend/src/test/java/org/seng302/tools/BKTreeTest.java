@@ -0,0 +1,81 @@
+package org.seng302.tools;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BKTreeTest {
+
+    private BKTree tree;
+
+    @BeforeEach
+    void setUp() {
+        tree = new BKTree();
+        for (String word : List.of("donald", "ronald", "donna", "duck", "dock", "smith", "smyth", "lucy")) {
+            tree.add(word);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"donald,donald,0", "donald,ronald,1", "donld,donald,1", "smiht,smith,2", "'',abc,3", "kitten,sitting,3"})
+    void levenshteinDistance_twoWords_editDistanceReturned(String first, String second, int distance) {
+        assertEquals(distance, BKTree.levenshteinDistance(first, second));
+        assertEquals(distance, BKTree.levenshteinDistance(second, first));
+    }
+
+    @Test
+    void add_duplicateWord_sizeUnchanged() {
+        tree.add("duck");
+        assertEquals(8, tree.size());
+    }
+
+    @Test
+    void search_distanceZero_onlyExactWordReturned() {
+        assertEquals(List.of("duck"), tree.search("duck", 0));
+    }
+
+    @Test
+    void search_distanceOne_wordsOrderedByDistanceThenAlphabetically() {
+        assertEquals(List.of("donald", "ronald"), tree.search("donald", 1));
+        assertEquals(List.of("dock", "duck"), tree.search("dack", 1));
+    }
+
+    @Test
+    void search_distanceTwo_furtherWordsIncluded() {
+        assertEquals(List.of("smith"), tree.search("smiht", 2));
+        assertEquals(List.of("smith", "smyth"), tree.search("smiht", 3));
+        assertEquals(List.of(), tree.search("smiht", 1));
+    }
+
+    @Test
+    void search_emptyTree_noWordsReturned() {
+        assertEquals(List.of(), new BKTree().search("duck", 2));
+    }
+
+    @Test
+    void search_manyWords_sameResultsAsComparingEveryWord() {
+        BKTree bigTree = new BKTree();
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String word = Integer.toString(i * 7919, 26);
+            words.add(word);
+            bigTree.add(word);
+        }
+        String query = "abcd";
+        List<String> expected = words.stream()
+                .distinct()
+                .filter(word -> BKTree.levenshteinDistance(word, query) <= 2)
+                .sorted(Comparator.<String>comparingInt(word -> BKTree.levenshteinDistance(word, query))
+                        .thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+        assertEquals(expected, bigTree.search(query, 2));
+    }
+}
@@ -0,0 +1,77 @@
+package org.seng302.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Collator;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CollationSortTest {
+
+    /**
+     * Sorts values by comparing their sort keys as strings, as the database does when ordering by a sort key column.
+     */
+    private static List<String> sortedByKey(List<String> values) {
+        List<String> list = new ArrayList<>(values);
+        list.sort(Comparator.comparing(CollationSort::getSortKey));
+        return list;
+    }
+
+    @Test
+    void getSortKey_mixedCase_caseIgnored() {
+        assertEquals(List.of("apple", "Banana", "cherry"), sortedByKey(List.of("cherry", "apple", "Banana")));
+        assertEquals(CollationSort.getSortKey("Apple"), CollationSort.getSortKey("aPPLE"));
+    }
+
+    @Test
+    void getSortKey_accentedLetters_sortedWithUnaccentedLetters() {
+        // CASE_INSENSITIVE_ORDER would put 'Éclair' after 'Zucchini'
+        assertEquals(List.of("Apple", "Éclair", "Eggs", "Zucchini"), sortedByKey(List.of("Zucchini", "Eggs", "Éclair", "Apple")));
+    }
+
+    @Test
+    void getSortKey_accentsDiffer_accentsNotIgnored() {
+        assertNotEquals(CollationSort.getSortKey("resume"), CollationSort.getSortKey("résumé"));
+        assertEquals(List.of("resume", "résumé"), sortedByKey(List.of("résumé", "resume")));
+    }
+
+    @Test
+    void getSortKey_prefix_prefixFirst() {
+        assertEquals(List.of("App", "apple", "Apples"), sortedByKey(List.of("Apples", "apple", "App")));
+    }
+
+    @Test
+    void getSortKey_nullText_nullKey() {
+        assertNull(CollationSort.getSortKey(null));
+    }
+
+    @Test
+    void getSortKey_longText_keyLengthLimited() {
+        String key = CollationSort.getSortKey("a".repeat(1000));
+        assertEquals(CollationSort.SORT_KEY_LENGTH, key.length());
+        assertTrue(key.matches("[0-9a-f]+"));
+    }
+
+    @Test
+    void getSortKey_randomText_sameOrderAsCollator() {
+        Random random = new Random(302);
+        List<String> values = new ArrayList<>();
+        String letters = "aAbBcCéÉzZ ";
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder value = new StringBuilder();
+            for (int j = 0; j < 1 + random.nextInt(6); j++) {
+                value.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            values.add(value.toString());
+        }
+        Collator collator = CollationSort.newCollator();
+        for (int i = 1; i < values.size(); i++) {
+            String first = values.get(i - 1);
+            String second = values.get(i);
+            assertEquals(Integer.signum(collator.compare(first, second)),
+                    Integer.signum(CollationSort.getSortKey(first).compareTo(CollationSort.getSortKey(second))),
+                    first + " / " + second);
+        }
+    }
+}
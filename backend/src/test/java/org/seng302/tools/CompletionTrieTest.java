@@ -0,0 +1,170 @@
+package org.seng302.tools;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionTrieTest {
+
+    private CompletionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new CompletionTrie(3);
+        addWord("smith", 5);
+        addWord("smyth", 2);
+        addWord("smart", 1);
+        addWord("sm", 1);
+        addWord("donald", 3);
+        addWord("don", 4);
+        addWord("donna", 1);
+    }
+
+    private void addWord(String word, int frequency) {
+        for (int i = 0; i < frequency; i++) {
+            trie.increment(word);
+        }
+    }
+
+    @Test
+    void constructor_topKLessThanOne_exceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> new CompletionTrie(0));
+    }
+
+    @Test
+    void increment_emptyWord_exceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> trie.increment(""));
+    }
+
+    @Test
+    void complete_prefix_mostFrequentCompletionsReturned() {
+        assertEquals(List.of("smith", "smyth", "sm"), trie.complete("s", 10));
+        assertEquals(List.of("don", "donald", "donna"), trie.complete("do", 10));
+    }
+
+    @Test
+    void complete_prefixEndsPartWayThroughEdge_completionsReturned() {
+        assertEquals(List.of("donald"), trie.complete("dona", 10));
+        assertEquals(List.of("smith"), trie.complete("smi", 10));
+    }
+
+    @Test
+    void complete_prefixIsWholeWord_wordIncluded() {
+        assertEquals(List.of("donald"), trie.complete("donald", 10));
+    }
+
+    @Test
+    void complete_noMatchingWords_emptyListReturned() {
+        assertEquals(List.of(), trie.complete("x", 10));
+        assertEquals(List.of(), trie.complete("donalds", 10));
+    }
+
+    @Test
+    void complete_limitLessThanTopK_limitedResultsReturned() {
+        assertEquals(List.of("smith"), trie.complete("sm", 1));
+    }
+
+    @Test
+    void complete_equalFrequencies_alphabeticalOrder() {
+        CompletionTrie equalTrie = new CompletionTrie(5);
+        for (String word : List.of("carl", "cara", "carol", "cat")) {
+            equalTrie.increment(word);
+        }
+        assertEquals(List.of("cara", "carl", "carol", "cat"), equalTrie.complete("ca", 10));
+    }
+
+    @Test
+    void increment_lessFrequentWordOvertakes_orderUpdated() {
+        addWord("smyth", 4);
+        assertEquals(List.of("smyth", "smith", "sm"), trie.complete("s", 10));
+    }
+
+    @Test
+    void decrement_wordRemoved_noLongerCompleted() {
+        trie.decrement("donna");
+        assertEquals(0, trie.getFrequency("donna"));
+        assertEquals(List.of("don", "donald"), trie.complete("don", 10));
+        assertEquals(6, trie.getWordCount());
+    }
+
+    @Test
+    void decrement_wordInTopKRemoved_nextWordPromoted() {
+        trie.decrement("sm");
+        assertEquals(List.of("smith", "smyth", "smart"), trie.complete("s", 10));
+    }
+
+    @Test
+    void decrement_wordNotInTrie_nothingChanged() {
+        int nodes = trie.getNodeCount();
+        trie.decrement("smi");
+        trie.decrement("zebra");
+        assertEquals(nodes, trie.getNodeCount());
+        assertEquals(7, trie.getWordCount());
+    }
+
+    @Test
+    void decrement_allWordsRemoved_onlyRootLeft() {
+        for (String word : List.of("smith", "smyth", "smart", "sm", "donald", "don", "donna")) {
+            while (trie.getFrequency(word) > 0) {
+                trie.decrement(word);
+            }
+        }
+        assertEquals(1, trie.getNodeCount());
+        assertEquals(0, trie.getWordCount());
+        assertEquals(List.of(), trie.complete("", 10));
+    }
+
+    @Test
+    void getNodeCount_wordsWithSharedPrefixes_edgesCompressed() {
+        CompletionTrie compressedTrie = new CompletionTrie(5);
+        compressedTrie.increment("christopher");
+        assertEquals(2, compressedTrie.getNodeCount());
+        compressedTrie.increment("christine");
+        // root, "christ", "opher" and "ine"
+        assertEquals(4, compressedTrie.getNodeCount());
+        compressedTrie.decrement("christine");
+        assertEquals(2, compressedTrie.getNodeCount());
+        assertEquals(List.of("christopher"), compressedTrie.complete("chris", 10));
+    }
+
+    @Test
+    void estimateMemoryUsage_wordsAdded_estimateIncreases() {
+        CompletionTrie emptyTrie = new CompletionTrie(3);
+        long emptySize = emptyTrie.estimateMemoryUsage();
+        emptyTrie.increment("donald");
+        assertTrue(emptyTrie.estimateMemoryUsage() > emptySize);
+    }
+
+    @Test
+    void complete_randomChanges_matchesBruteForce() {
+        Random random = new Random(302);
+        CompletionTrie randomTrie = new CompletionTrie(4);
+        Map<String, Integer> frequencies = new HashMap<>();
+        String[] syllables = {"a", "an", "ann", "b", "be", "ben", "c", "ca"};
+        for (int i = 0; i < 3000; i++) {
+            String word = syllables[random.nextInt(syllables.length)] + syllables[random.nextInt(syllables.length)];
+            if (random.nextInt(3) == 0) {
+                randomTrie.decrement(word);
+                frequencies.computeIfPresent(word, (w, frequency) -> frequency == 1 ? null : frequency - 1);
+            } else {
+                randomTrie.increment(word);
+                frequencies.merge(word, 1, Integer::sum);
+            }
+        }
+        for (String prefix : List.of("", "a", "an", "ann", "b", "be", "ca", "anb", "annann")) {
+            List<String> expected = frequencies.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(prefix))
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(4)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            assertEquals(expected, randomTrie.complete(prefix, 10), prefix);
+        }
+        assertEquals(frequencies.size(), randomTrie.getWordCount());
+    }
+}
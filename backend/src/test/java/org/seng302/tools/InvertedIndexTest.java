@@ -0,0 +1,128 @@
+package org.seng302.tools;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+    }
+
+    private List<Long> search(String query) {
+        return index.search(InvertedIndex.analyze(query), id -> true);
+    }
+
+    @Test
+    void analyze_mixedText_lowerCasedStemmedWithoutStopWordsOrAccents() {
+        assertEquals(List.of("fresh", "feijoa", "creme", "brule"), InvertedIndex.analyze("Fresh FEIJOAS for the Crème-Brûlée!"));
+    }
+
+    @Test
+    void analyze_null_noTerms() {
+        assertEquals(List.of(), InvertedIndex.analyze(null));
+    }
+
+    @Test
+    void search_differentWordForm_documentFound() {
+        index.put(1, InvertedIndex.analyze("Apples for sale"));
+        assertEquals(List.of(1L), search("apple"));
+    }
+
+    @Test
+    void search_anyTermMatches_documentFound() {
+        index.put(1, InvertedIndex.analyze("Apples"));
+        index.put(2, InvertedIndex.analyze("Pears"));
+        index.put(3, InvertedIndex.analyze("Plums"));
+        assertEquals(List.of(2L, 1L), search("apple pear"));
+    }
+
+    @Test
+    void search_moreOccurrences_rankedHigher() {
+        index.put(1, InvertedIndex.analyze("feijoa jam"));
+        index.put(2, InvertedIndex.analyze("feijoa feijoa feijoa jam"));
+        assertEquals(List.of(2L, 1L), search("feijoa"));
+    }
+
+    @Test
+    void search_rarerTermMatched_rankedHigher() {
+        index.put(1, InvertedIndex.analyze("fresh bread"));
+        index.put(2, InvertedIndex.analyze("fresh lemons"));
+        index.put(3, InvertedIndex.analyze("fresh eggs"));
+        index.put(4, InvertedIndex.analyze("fresh milk"));
+        // Every document is fresh, but only one has lemons
+        assertEquals(2L, search("fresh lemons").get(0));
+    }
+
+    @Test
+    void search_shorterDocument_rankedHigher() {
+        index.put(1, InvertedIndex.analyze("lemons from the tree in my garden which has far too many"));
+        index.put(2, InvertedIndex.analyze("lemons"));
+        assertEquals(List.of(2L, 1L), search("lemons"));
+    }
+
+    @Test
+    void search_filterGiven_filteredDocumentsLeftOut() {
+        index.put(1, InvertedIndex.analyze("lemons"));
+        index.put(2, InvertedIndex.analyze("lemons"));
+        assertEquals(List.of(2L), index.search(InvertedIndex.analyze("lemons"), id -> id == 2));
+    }
+
+    @Test
+    void put_documentReplaced_oldTermsRemoved() {
+        index.put(1, InvertedIndex.analyze("lemons"));
+        index.put(1, InvertedIndex.analyze("limes"));
+        assertEquals(List.of(), search("lemons"));
+        assertEquals(List.of(1L), search("limes"));
+        assertEquals(1, index.getDocumentCount());
+        assertEquals(1, index.getTermCount());
+    }
+
+    @Test
+    void remove_documentIndexed_documentNoLongerFound() {
+        index.put(1, InvertedIndex.analyze("lemons and limes"));
+        index.put(2, InvertedIndex.analyze("limes"));
+        index.remove(1);
+        assertEquals(List.of(2L), search("lemons limes"));
+        assertEquals(1, index.getTermCount());
+        assertEquals(1, index.getPostingCount());
+    }
+
+    @Test
+    void remove_manyDocumentsRemoved_remainingDocumentsStillFound() {
+        int documents = InvertedIndex.MIN_REMOVED_BEFORE_COMPACTION * 3;
+        for (int i = 0; i < documents; i++) {
+            index.put(i, InvertedIndex.analyze(i % 3 == 0 ? "lemons and limes" : "lemons"));
+        }
+        // Removing two thirds of the documents compacts the index part way through
+        for (int i = 0; i < documents; i++) {
+            if (i % 3 != 0) {
+                index.remove(i);
+            }
+        }
+        index.put(documents, InvertedIndex.analyze("limes"));
+
+        List<Long> results = search("limes");
+        assertEquals(documents / 3 + 1, results.size());
+        assertTrue(results.stream().allMatch(id -> id % 3 == 0 || id == documents));
+        assertEquals(documents / 3, search("lemons").size());
+        assertEquals(documents / 3 + 1, index.getDocumentCount());
+        assertEquals(documents / 3 * 2 + 1, index.getPostingCount());
+    }
+
+    @Test
+    void clear_documentsIndexed_indexEmpty() {
+        index.put(1, InvertedIndex.analyze("lemons"));
+        index.clear();
+        assertEquals(List.of(), search("lemons"));
+        assertEquals(0, index.getDocumentCount());
+        assertEquals(0, index.getEstimatedSizeBytes());
+    }
+}
@@ -1,5 +1,6 @@
 package org.seng302.tools;
 
+import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -100,6 +101,7 @@ class JsonToolsTest {
         json.appendField("egg", Arrays.asList(1, 3, 9));
         json.appendField("fig", new ArrayList<Integer>());
         json.appendField("gherkin", new ArrayList<>(Arrays.asList(88L, 44L, 22L, 11L)));
+        json.appendField("honeydew", new JSONArray().appendElement(5).appendElement(12345678901L));
         return Stream.of(
                 Arguments.of(json, "apple", new long[0]),
                 Arguments.of(json, "banana", new long[] {3L, -77L, 18L}),
@@ -107,7 +109,8 @@ class JsonToolsTest {
                 Arguments.of(json, "donut", new long[100]),
                 Arguments.of(json, "egg", new long[] {1L, 3L, 9L}),
                 Arguments.of(json, "fig", new long[0]),
-                Arguments.of(json, "gherkin", new long[] {88L, 44L, 22L, 11L})
+                Arguments.of(json, "gherkin", new long[] {88L, 44L, 22L, 11L}),
+                Arguments.of(json, "honeydew", new long[] {5L, 12345678901L})
         );
     }
 
@@ -122,11 +125,15 @@ class JsonToolsTest {
         json.appendField("egg", "egg");
         json.appendField("fig", 13);
         json.appendField("gherkin", null);
+        json.appendField("iceberg", Arrays.asList(1, "2", 3));
+        json.appendField("jam", new String[] {"1"});
         return Stream.of(
                 Arguments.of(json, "egg", "egg must be an array of numbers"),
                 Arguments.of(json, "fig", "fig must be an array of numbers"),
                 Arguments.of(json, "gherkin", "gherkin must be an array of numbers"),
-                Arguments.of(json, "hamburger", "hamburger is not present")
+                Arguments.of(json, "hamburger", "hamburger is not present"),
+                Arguments.of(json, "iceberg", "iceberg must be an array of numbers"),
+                Arguments.of(json, "jam", "jam must be an array of numbers")
         );
     }
 
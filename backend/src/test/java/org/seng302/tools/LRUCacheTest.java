@@ -0,0 +1,145 @@
+package org.seng302.tools;
+
+import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LRUCacheTest {
+
+    private LRUCache<String, String> cache;
+    private List<String> loadedKeys;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LRUCache<>(2);
+        loadedKeys = new ArrayList<>();
+    }
+
+    /**
+     * Loader which records which keys have been loaded
+     * @param key The key to load
+     * @return The value for the key
+     */
+    private String load(String key) {
+        loadedKeys.add(key);
+        return key.toUpperCase();
+    }
+
+    @Test
+    void constructor_sizeLessThanOne_exceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> new LRUCache<String, String>(0));
+    }
+
+    @Test
+    void get_keyNotCached_valueLoadedAndMissCounted() {
+        assertEquals("A", cache.get("a", this::load));
+        assertEquals(List.of("a"), loadedKeys);
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void get_keyCached_valueNotLoadedAgainAndHitCounted() {
+        cache.get("a", this::load);
+        assertEquals("A", cache.get("a", this::load));
+        assertEquals(List.of("a"), loadedKeys);
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void get_cacheFull_leastRecentlyUsedEvicted() {
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        cache.get("a", this::load);
+        cache.get("c", this::load);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        assertEquals(List.of("a", "b", "c", "b"), loadedKeys);
+    }
+
+    @Test
+    void get_firstInFirstOutCacheFull_oldestEvicted() {
+        cache = new LRUCache<>(2, EvictionPolicy.FIRST_IN_FIRST_OUT);
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        cache.get("a", this::load);
+        cache.get("c", this::load);
+
+        assertEquals(2, cache.size());
+        cache.get("b", this::load);
+        cache.get("a", this::load);
+        assertEquals(List.of("a", "b", "c", "a"), loadedKeys);
+    }
+
+    @Test
+    void getIfPresent_valuePut_valueReturnedAndHitCounted() {
+        cache.put("a", "A");
+        assertEquals("A", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void get_loaderThrows_nothingCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get("a", key -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void remove_valuePut_valueRemoved() {
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.remove("a");
+        assertNull(cache.getIfPresent("a"));
+        assertEquals("B", cache.getIfPresent("b"));
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    void remove_valuePut_removedValueReturned() {
+        cache.put("a", "A");
+        assertEquals("A", cache.remove("a"));
+        assertNull(cache.remove("a"));
+    }
+
+    @Test
+    void onEviction_cacheFull_evictedEntryPassed() {
+        List<String> evicted = new ArrayList<>();
+        LRUCache<String, String> watched = new LRUCache<>(2) {
+            @Override
+            protected void onEviction(String key, String value) {
+                evicted.add(key + "=" + value);
+            }
+        };
+        watched.put("a", "A");
+        watched.put("b", "B");
+        watched.remove("b");
+        watched.put("c", "C");
+        watched.put("d", "D");
+        assertEquals(List.of("a=A"), evicted);
+    }
+
+    @Test
+    void getStatistics_hitsAndMisses_hitRateCalculated() {
+        cache.get("a", this::load);
+        cache.get("a", this::load);
+        cache.get("a", this::load);
+        cache.get("b", this::load);
+        JSONObject statistics = cache.getStatistics();
+        assertEquals(2, statistics.get("size"));
+        assertEquals(2L, statistics.get("hits"));
+        assertEquals(2L, statistics.get("misses"));
+        assertEquals(0.5, statistics.get("hitRate"));
+    }
+}
@@ -0,0 +1,106 @@
+package org.seng302.tools;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NGramIndexTest {
+
+    private NGramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NGramIndex(3);
+        index.put(1, Arrays.asList("Donald", null, "Duck", "Don"));
+        index.put(2, Arrays.asList("Donald", "James", "Smith", null));
+        index.put(3, Arrays.asList("Lucy", null, "McDonald", "Lu"));
+    }
+
+    @Test
+    void constructor_gramLengthLessThanOne_exceptionThrown() {
+        assertThrows(IllegalArgumentException.class, () -> new NGramIndex(0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"d", "do", "don", "dona", "donald", "DONALD", "onal"})
+    void findContaining_termInAllDocuments_allDocumentsFound(String term) {
+        assertEquals(Set.of(1L, 2L, 3L), index.findContaining(term));
+    }
+
+    @Test
+    void findContaining_termInSomeDocuments_onlyThoseDocumentsFound() {
+        assertEquals(Set.of(1L), index.findContaining("uck"));
+        assertEquals(Set.of(3L), index.findContaining("mcdon"));
+    }
+
+    @Test
+    void findContaining_allGramsPresentButNotTerm_noDocumentsFound() {
+        // Every trigram of "bcabc" is in "abcab", but "bcabc" itself is not
+        index.put(4, List.of("abcab"));
+        assertEquals(Set.of(), index.findContaining("bcabc"));
+    }
+
+    @Test
+    void findContaining_termNotInIndex_noDocumentsFound() {
+        assertEquals(Set.of(), index.findContaining("xyz"));
+        assertEquals(Set.of(), index.findContaining("zebra"));
+    }
+
+    @Test
+    void findExact_termMatchesWholeValue_documentFound() {
+        assertEquals(Set.of(1L, 2L), index.findExact("Donald"));
+        assertEquals(Set.of(3L), index.findExact("Lu"));
+    }
+
+    @Test
+    void findExact_termDifferentCase_noDocumentsFound() {
+        assertEquals(Set.of(), index.findExact("donald"));
+    }
+
+    @Test
+    void findExact_termOnlyPartOfValue_noDocumentsFound() {
+        assertEquals(Set.of(), index.findExact("Dona"));
+    }
+
+    @Test
+    void put_existingId_oldValuesReplaced() {
+        index.put(1, List.of("Daisy"));
+        assertEquals(Set.of(2L, 3L), index.findContaining("donald"));
+        assertEquals(Set.of(1L), index.findExact("Daisy"));
+        assertEquals(3, index.getDocumentCount());
+    }
+
+    @Test
+    void remove_existingId_documentNoLongerFound() {
+        index.remove(2);
+        assertFalse(index.contains(2));
+        assertEquals(Set.of(1L, 3L), index.findContaining("donald"));
+        assertEquals(Set.of(), index.findContaining("smith"));
+    }
+
+    @Test
+    void remove_allDocuments_indexEmpty() {
+        index.remove(1);
+        index.remove(2);
+        index.remove(3);
+        assertEquals(0, index.getDocumentCount());
+        assertEquals(0, index.getGramCount());
+        assertEquals(0, index.getPostingCount());
+    }
+
+    @Test
+    void estimateMemoryUsage_documentsAdded_memoryUsageIncreases() {
+        long before = index.estimateMemoryUsage();
+        index.put(4, List.of("Bartholomew", "Featherstonehaugh"));
+        assertTrue(index.estimateMemoryUsage() > before);
+        index.clear();
+        assertEquals(0, index.estimateMemoryUsage());
+    }
+}
@@ -0,0 +1,138 @@
+package org.seng302.tools;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderByOptionsTest {
+
+    private final OrderByOptions options = new OrderByOptions.Builder()
+            .withOption("code", "productCode")
+            .withTextOption("name", "product.nameSortKey")
+            .withNullableOption("price", "price")
+            .withDefault("code")
+            .build();
+
+    @Test
+    void getSort_plainOption_sortsByPropertyThenId() {
+        List<Sort.Order> orders = options.getSort("code", false).toList();
+        assertEquals(2, orders.size());
+        assertEquals("productCode", orders.get(0).getProperty());
+        assertTrue(orders.get(0).isAscending());
+        assertEquals(Sort.NullHandling.NATIVE, orders.get(0).getNullHandling());
+        assertEquals("id", orders.get(1).getProperty());
+        assertTrue(orders.get(1).isAscending());
+    }
+
+    @Test
+    void getSort_reverseTrue_allOrdersDescending() {
+        for (Sort.Order order : options.getSort("code", true)) {
+            assertTrue(order.isDescending());
+        }
+    }
+
+    @Test
+    void getSort_reverseNull_allOrdersAscending() {
+        for (Sort.Order order : options.getSort("code", null)) {
+            assertTrue(order.isAscending());
+        }
+    }
+
+    @Test
+    void getSort_textOption_sortsBySortKeyWithNullsLast() {
+        Sort.Order order = options.getSort("name", false).iterator().next();
+        assertEquals("product.nameSortKey", order.getProperty());
+        assertFalse(order.isIgnoreCase());
+        assertEquals(Sort.NullHandling.NULLS_LAST, order.getNullHandling());
+    }
+
+    @Test
+    void getSort_nullableOption_nullsLast() {
+        Sort.Order order = options.getSort("price", false).iterator().next();
+        assertEquals(Sort.NullHandling.NULLS_LAST, order.getNullHandling());
+    }
+
+    @Test
+    void getSort_nullableOptionReversed_nullsFirst() {
+        Sort.Order order = options.getSort("price", true).iterator().next();
+        assertTrue(order.isDescending());
+        assertEquals(Sort.NullHandling.NULLS_FIRST, order.getNullHandling());
+    }
+
+    @Test
+    void getSort_nullKey_defaultUsed() {
+        assertEquals("productCode", options.getSort(null, false).iterator().next().getProperty());
+    }
+
+    @Test
+    void getSort_unknownKey_defaultUsed() {
+        assertEquals("productCode", options.getSort("notAnOption", false).iterator().next().getProperty());
+    }
+
+    @Test
+    void getSort_unknownKeyRejected_400Thrown() {
+        OrderByOptions rejecting = new OrderByOptions.Builder()
+                .withOption("code", "productCode")
+                .withDefault("code")
+                .rejectingUnknownKeys()
+                .build();
+        var exception = assertThrows(ResponseStatusException.class, () -> rejecting.getSort("notAnOption", false));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        assertEquals("Invalid sort order", exception.getReason());
+    }
+
+    @Test
+    void getSort_unknownKeyRejectedNullKey_defaultUsed() {
+        OrderByOptions rejecting = new OrderByOptions.Builder()
+                .withOption("code", "productCode")
+                .withDefault("code")
+                .rejectingUnknownKeys()
+                .build();
+        assertEquals("productCode", rejecting.getSort(null, false).iterator().next().getProperty());
+    }
+
+    @Test
+    void getSort_tiebreakSet_sortsByTiebreak() {
+        OrderByOptions withTiebreak = new OrderByOptions.Builder()
+                .withOption("code", "productCode")
+                .withDefault("code")
+                .withTiebreak("saleId")
+                .build();
+        assertEquals("saleId", withTiebreak.getSort("code", false).toList().get(1).getProperty());
+    }
+
+    @Test
+    void getPageRequest_pageAndResultsPerPageGiven_pageRequestForPage() {
+        PageRequest pageRequest = options.getPageRequest("name", false, 3, 10);
+        assertEquals(2, pageRequest.getPageNumber());
+        assertEquals(10, pageRequest.getPageSize());
+        assertEquals(options.getSort("name", false), pageRequest.getSort());
+    }
+
+    @Test
+    void getPageRequest_nullPageAndResultsPerPage_firstPageOfFifteen() {
+        PageRequest pageRequest = options.getPageRequest(null, null, null, null);
+        assertEquals(0, pageRequest.getPageNumber());
+        assertEquals(15, pageRequest.getPageSize());
+    }
+
+    @Test
+    void build_noDefault_exceptionThrown() {
+        OrderByOptions.Builder builder = new OrderByOptions.Builder().withOption("code", "productCode");
+        assertThrows(NullPointerException.class, builder::build);
+    }
+
+    @Test
+    void build_defaultNotAnOption_exceptionThrown() {
+        OrderByOptions.Builder builder = new OrderByOptions.Builder()
+                .withOption("code", "productCode")
+                .withDefault("name");
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+}
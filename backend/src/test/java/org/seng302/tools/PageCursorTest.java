@@ -0,0 +1,94 @@
+package org.seng302.tools;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    private static String encodeJson(String json) {
+        return Base64.getUrlEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decode_encodedCursor_sameCursorReturned() {
+        PageCursor cursor = new PageCursor("creator.firstName", true, "Zoë | \"quoted\"", 42L);
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encode_anyCursor_urlSafe() {
+        String encoded = new PageCursor("title", false, "?/+&=", 1L).encode();
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void after_descendingSort_cursorForFirstProperty() {
+        Instant created = Instant.parse("2021-05-01T10:15:30.123456Z");
+        PageCursor cursor = PageCursor.after(Sort.by(Sort.Direction.DESC, "created", "id"), created, 7L);
+        assertEquals(new PageCursor("created", true, "2021-05-01T10:15:30.123456Z", 7L), cursor);
+    }
+
+    @Test
+    void getSort_cursor_tiesBrokenById() {
+        PageCursor cursor = new PageCursor("closes", true, "2021-05-01T10:15:30Z", 7L);
+        assertEquals(Sort.by(Sort.Direction.DESC, "closes", "id"), cursor.getSort());
+    }
+
+    @Test
+    void decode_encodedCursorIgnoringCase_sameCursorReturned() {
+        PageCursor cursor = new PageCursor("title", false, true, "Apple", 3L);
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+        assertEquals(cursor, decoded);
+        assertTrue(decoded.isIgnoreCase());
+    }
+
+    @Test
+    void after_sortIgnoringCase_cursorIgnoresCase() {
+        Sort sort = Sort.by(Sort.Order.asc("title").ignoreCase(), Sort.Order.asc("id"));
+        assertEquals(new PageCursor("title", false, true, "Apple", 3L), PageCursor.after(sort, "Apple", 3L));
+    }
+
+    @Test
+    void getSort_cursorIgnoringCase_propertyOrderIgnoresCase() {
+        PageCursor cursor = new PageCursor("title", true, true, "Apple", 3L);
+        assertEquals(Sort.by(Sort.Order.desc("title").ignoreCase(), Sort.Order.desc("id")), cursor.getSort());
+    }
+
+    @Test
+    void decode_notBase64_badRequest() {
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> PageCursor.decode("not a cursor!"));
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+    }
+
+    @Test
+    void decode_notJsonObject_badRequest() {
+        String encoded = encodeJson("[1, 2]");
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decode(encoded));
+    }
+
+    @Test
+    void decode_fieldMissing_badRequest() {
+        String encoded = encodeJson("{\"p\":\"title\",\"d\":false,\"i\":3}");
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decode(encoded));
+    }
+
+    @Test
+    void decode_idNotNumber_badRequest() {
+        String encoded = encodeJson("{\"p\":\"title\",\"d\":false,\"c\":true,\"v\":\"abc\",\"i\":\"three\"}");
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decode(encoded));
+    }
+
+    @Test
+    void decode_ignoreCaseNotBoolean_badRequest() {
+        String encoded = encodeJson("{\"p\":\"title\",\"d\":false,\"c\":\"yes\",\"v\":\"abc\",\"i\":3}");
+        assertThrows(ResponseStatusException.class, () -> PageCursor.decode(encoded));
+    }
+}
@@ -0,0 +1,40 @@
+package org.seng302.tools;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PorterStemmerTest {
+
+    // Examples from Porter's paper describing the algorithm
+    @ParameterizedTest
+    @CsvSource({
+            "caresses,caress", "ponies,poni", "ties,ti", "caress,caress", "cats,cat",
+            "feed,feed", "agreed,agre", "plastered,plaster", "bled,bled", "motoring,motor", "sing,sing",
+            "conflated,conflat", "troubled,troubl", "sized,size", "hopping,hop", "tanned,tan", "falling,fall",
+            "hissing,hiss", "fizzed,fizz", "failing,fail", "filing,file",
+            "happy,happi", "sky,sky",
+            "relational,relat", "conditional,condit", "rational,ration", "valenci,valenc", "digitizer,digit",
+            "generalization,gener", "oscillator,oscil",
+            "triplicate,triplic", "formative,form", "hopeful,hope", "goodness,good",
+            "revival,reviv", "allowance,allow", "adjustable,adjust", "adoption,adopt", "activate,activ",
+            "probate,probat", "rate,rate", "cease,ceas", "controll,control", "roll,roll"
+    })
+    void stem_porterExamples_expectedStem(String word, String stem) {
+        assertEquals(stem, PorterStemmer.stem(word));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"apple,appl", "apples,appl", "connect,connect", "connected,connect", "connecting,connect",
+            "connection,connect", "connections,connect"})
+    void stem_formsOfSameWord_sameStem(String word, String stem) {
+        assertEquals(stem, PorterStemmer.stem(word));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"is,is", "2021,2021", "kūmara,kūmara", "ABC,ABC"})
+    void stem_shortOrNonLetterWord_unchanged(String word, String stem) {
+        assertEquals(stem, PorterStemmer.stem(word));
+    }
+}
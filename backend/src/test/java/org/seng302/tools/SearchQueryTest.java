@@ -0,0 +1,104 @@
+package org.seng302.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.seng302.exceptions.SearchFormatException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchQueryTest {
+
+    /**
+     * Converts a parsed query back into a string with brackets showing how the terms are grouped.
+     * @param query The parsed query
+     * @return A string representation of the query
+     */
+    private String evaluateToString(SearchQuery query) {
+        return query.evaluate(term -> "\"" + term + "\"", term -> term,
+                (left, right) -> "(" + left + " AND " + right + ")",
+                (left, right) -> "(" + left + " OR " + right + ")");
+    }
+
+    @Test
+    void parse_singleTerm_partialMatchTerm() {
+        assertEquals("andy", evaluateToString(SearchQuery.parse("andy")));
+    }
+
+    @Test
+    void parse_quotedPhrase_exactMatchTermWithoutQuotes() {
+        assertEquals("\"Andy Elliot\"", evaluateToString(SearchQuery.parse("\"Andy Elliot\"")));
+        assertEquals("\"Andy\"", evaluateToString(SearchQuery.parse("'Andy'")));
+    }
+
+    @Test
+    void parse_noConnective_termsJoinedWithAnd() {
+        assertEquals("(a AND b)", evaluateToString(SearchQuery.parse("a b")));
+    }
+
+    @Test
+    void parse_connectivesInAnyCase_termsJoinedWithConnectives() {
+        assertEquals("((a OR b) AND c)", evaluateToString(SearchQuery.parse("a OR b and c")));
+        assertEquals("((a AND b) OR c)", evaluateToString(SearchQuery.parse("a b Or c")));
+    }
+
+    @Test
+    void parse_connectivesWithoutTermBefore_connectiveIgnored() {
+        assertEquals("a", evaluateToString(SearchQuery.parse("or a")));
+        assertEquals("(a AND b)", evaluateToString(SearchQuery.parse("a and or b")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "   ", "and", "or and OR", "\"unclosed quote"})
+    void parse_invalidQuery_searchFormatExceptionThrown(String query) {
+        assertThrows(SearchFormatException.class, () -> SearchQuery.parse(query));
+    }
+
+    @Test
+    void withAllTermsExact_mixedTerms_allTermsExact() {
+        SearchQuery query = SearchQuery.parse("a or \"b\" c").withAllTermsExact();
+        assertEquals("((\"a\" OR \"b\") AND \"c\")", evaluateToString(query));
+    }
+
+    @Test
+    void withOnlyAnd_mixedConnectives_allConnectivesAnd() {
+        SearchQuery query = SearchQuery.parse("a or \"b\" c").withOnlyAnd();
+        assertEquals("((a AND \"b\") AND c)", evaluateToString(query));
+    }
+
+    @Test
+    void withAllTermsExact_originalQuery_originalUnchanged() {
+        SearchQuery query = SearchQuery.parse("a or b");
+        query.withAllTermsExact().withOnlyAnd();
+        assertEquals("(a OR b)", evaluateToString(query));
+    }
+
+    @Test
+    void equals_sameQueryDifferentSpacingAndCase_equal() {
+        assertEquals(SearchQuery.parse("a  OR b"), SearchQuery.parse("a or b"));
+        assertNotEquals(SearchQuery.parse("a and b"), SearchQuery.parse("a or b"));
+    }
+
+    @Test
+    void anyTermMatches_oneTermMatches_true() {
+        assertTrue(SearchQuery.parse("a or b%").anyTermMatches(term -> term.contains("%")));
+        assertFalse(SearchQuery.parse("a or b").anyTermMatches(term -> term.contains("%")));
+    }
+
+    @Test
+    void withPartialTermAlternatives_partialTerms_alternativesJoinedWithOr() {
+        SearchQuery query = SearchQuery.parse("jonh and \"Smith\" or bob");
+        SearchQuery fuzzyQuery = query.withPartialTermAlternatives(term -> term.equals("jonh") ?
+                List.of("john", "jon") : List.of());
+        assertEquals("((((jonh OR john) OR jon) AND \"Smith\") OR bob)",
+                evaluateToString(fuzzyQuery));
+    }
+
+    @Test
+    void withPartialTermAlternatives_exactTerm_alternativesNotAdded() {
+        SearchQuery query = SearchQuery.parse("\"jonh\"");
+        assertEquals(query, query.withPartialTermAlternatives(term -> List.of("john")));
+    }
+}